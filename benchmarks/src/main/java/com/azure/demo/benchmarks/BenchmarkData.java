@@ -0,0 +1,61 @@
+package com.azure.demo.benchmarks;
+
+import com.azure.demo.orderservice.model.Money;
+import com.azure.demo.orderservice.model.Order;
+import com.azure.demo.orderservice.model.OrderItem;
+import com.azure.demo.productservice.model.Product;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic sample data shared by the benchmarks.
+ */
+final class BenchmarkData {
+    
+    private static final String[] CATEGORIES = {"Electronics", "Books", "Clothing", "Home", "Sports", "Toys"};
+    
+    private BenchmarkData() {}
+    
+    static List<OrderItem> orderItems(int count) {
+        Random random = new Random(42);
+        List<OrderItem> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Money price = Money.ofCents(100 + random.nextInt(99_900));
+            items.add(new OrderItem((long) i + 1, "Product " + (i + 1), price, 1 + random.nextInt(5)));
+        }
+        return items;
+    }
+    
+    static Order order(long id, int itemCount) {
+        Order order = new Order(1000 + id);
+        order.setId(id);
+        for (OrderItem item : orderItems(itemCount)) {
+            order.addOrderItem(item);
+        }
+        return order;
+    }
+    
+    static List<Order> orders(int count, int itemsPerOrder) {
+        List<Order> orders = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            orders.add(order(i + 1, itemsPerOrder));
+        }
+        return orders;
+    }
+    
+    static List<Product> products(int count) {
+        Random random = new Random(7);
+        List<Product> products = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Product product = new Product("Product " + (i + 1), "Description of product " + (i + 1),
+                    BigDecimal.valueOf(100 + random.nextInt(99_900), 2),
+                    CATEGORIES[i % CATEGORIES.length], random.nextInt(500));
+            product.setId((long) i + 1);
+            products.add(product);
+        }
+        return products;
+    }
+}
\ No newline at end of file
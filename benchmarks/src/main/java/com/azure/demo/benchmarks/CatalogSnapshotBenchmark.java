@@ -0,0 +1,127 @@
+package com.azure.demo.benchmarks;
+
+import com.azure.demo.productservice.catalog.CatalogSnapshot;
+import com.azure.demo.productservice.model.Product;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Catalog listings served from CatalogSnapshot versus the same products held as entities.
+ * <p>
+ * The entity side filters an already hydrated {@code List<Product>}, so it excludes the SQL
+ * and hydration the repository path also pays and is a lower bound for it. Heap retained by
+ * each representation is printed once per trial (measured as the used-heap delta around
+ * building it, after GC), and {@code patchOneProduct} is the copy-on-write cost of
+ * publishing one changed product.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+@State(Scope.Benchmark)
+public class CatalogSnapshotBenchmark {
+    
+    @Param({"100000", "1000000"})
+    private int productCount;
+    
+    private static final int CATEGORY_COUNT = 200;
+    
+    private List<Product> entities;
+    private CatalogSnapshot snapshot;
+    private String category;
+    private Product changed;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        long entityBytes = retainedBytes(() -> entities = products(productCount));
+        // Built from its own copy, so the snapshot does not share strings with the entities
+        long snapshotBytes = retainedBytes(() -> {
+            CatalogSnapshot.Builder builder = CatalogSnapshot.builder();
+            products(productCount).forEach(builder::add);
+            snapshot = builder.build();
+        });
+        System.out.printf("%n%,d products: entities %,d bytes, snapshot %,d bytes%n",
+                productCount, entityBytes, snapshotBytes);
+        category = "Category 7";
+        changed = entities.get(productCount / 2);
+    }
+    
+    @Benchmark
+    public List<Product> entitiesActiveInCategory() {
+        List<Product> products = new ArrayList<>();
+        for (Product product : entities) {
+            if (product.getIsActive() && product.getCategory().equals(category)) {
+                products.add(product);
+            }
+        }
+        return products;
+    }
+    
+    @Benchmark
+    public List<Product> snapshotActiveInCategory() {
+        return snapshot.activeProductsInCategory(category);
+    }
+    
+    @Benchmark
+    public int entitiesCountInStock() {
+        int count = 0;
+        for (Product product : entities) {
+            if (product.getStockQuantity() > 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+    
+    @Benchmark
+    public int snapshotCountInStock() {
+        return snapshot.countInStock();
+    }
+    
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public CatalogSnapshot patchOneProduct() {
+        return snapshot.withChanges(List.of(changed), Set.of());
+    }
+    
+    private static List<Product> products(int count) {
+        Random random = new Random(42);
+        LocalDateTime createdAt = LocalDateTime.of(2024, 1, 1, 0, 0);
+        List<Product> products = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            Product product = new Product("Product " + i, "Description of product " + i,
+                    BigDecimal.valueOf(100 + random.nextInt(100_000), 2),
+                    "Category " + random.nextInt(CATEGORY_COUNT), random.nextInt(5) == 0 ? 0 : random.nextInt(500));
+            product.setId((long) i);
+            product.setIsActive(random.nextInt(10) != 0);
+            product.setCreatedAt(createdAt.plusSeconds(i));
+            products.add(product);
+        }
+        return products;
+    }
+    
+    /** Used heap after minus before running build, which must keep what it builds reachable. */
+    private static long retainedBytes(Runnable build) {
+        long before = usedHeap();
+        build.run();
+        return usedHeap() - before;
+    }
+    
+    private static long usedHeap() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
\ No newline at end of file
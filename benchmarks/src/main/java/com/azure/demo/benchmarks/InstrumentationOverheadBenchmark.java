@@ -0,0 +1,73 @@
+package com.azure.demo.benchmarks;
+
+import com.azure.demo.orderservice.model.Money;
+import com.azure.demo.orderservice.model.Order;
+import com.azure.demo.orderservice.model.OrderItem;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the service-method timers: the same small unit of work (recalculating a
+ * 50-item order total) called directly, through a plain timer, and through a
+ * Prometheus timer with percentile histogram and SLO buckets as configured in the
+ * services' application.yml.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InstrumentationOverheadBenchmark {
+    
+    private Order order;
+    private Timer simpleTimer;
+    private Timer histogramTimer;
+    
+    @Setup
+    public void setUp() {
+        order = BenchmarkData.order(1, 50);
+        simpleTimer = Timer.builder("bench.simple")
+                .register(new SimpleMeterRegistry());
+        histogramTimer = Timer.builder("bench.histogram")
+                .publishPercentileHistogram()
+                .serviceLevelObjectives(Duration.ofMillis(10), Duration.ofMillis(50), Duration.ofMillis(100),
+                        Duration.ofMillis(250), Duration.ofMillis(500), Duration.ofSeconds(1))
+                .register(new PrometheusMeterRegistry(PrometheusConfig.DEFAULT));
+    }
+    
+    @Benchmark
+    public Money direct() {
+        return work();
+    }
+    
+    @Benchmark
+    public Money simpleTimer() {
+        return simpleTimer.record(this::work);
+    }
+    
+    @Benchmark
+    public Money histogramTimer() {
+        return histogramTimer.record(this::work);
+    }
+    
+    @Benchmark
+    @Threads(4)
+    public Money histogramTimerContended() {
+        return histogramTimer.record(this::work);
+    }
+    
+    private Money work() {
+        Money total = Money.ZERO;
+        for (OrderItem item : order.getOrderItems()) {
+            total = total.plus(item.getSubtotal());
+        }
+        return total;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,87 @@
+package com.azure.demo.benchmarks;
+
+import com.azure.demo.orderservice.model.Order;
+import com.azure.demo.productservice.model.Product;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Response body cost of the list endpoints (/products, /orders/user/{userId}) with the
+ * ObjectMapper configuration Spring Boot uses for controllers. Compares plain JSON,
+ * gzip-compressed JSON and Smile; payload sizes are printed once per trial.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ListSerializationBenchmark {
+    
+    @Param({"10", "100", "1000"})
+    private int size;
+    
+    private ObjectMapper jsonMapper;
+    private ObjectMapper smileMapper;
+    private List<Product> products;
+    private List<Order> orders;
+    
+    @Setup
+    public void setUp() throws IOException {
+        jsonMapper = Jackson2ObjectMapperBuilder.json().build();
+        smileMapper = Jackson2ObjectMapperBuilder.smile().build();
+        products = BenchmarkData.products(size);
+        orders = BenchmarkData.orders(size, 3);
+        
+        System.out.printf("%n[payload] products=%d json=%dB gzip=%dB smile=%dB | orders=%d json=%dB gzip=%dB smile=%dB%n",
+                size, jsonMapper.writeValueAsBytes(products).length, gzip(jsonMapper.writeValueAsBytes(products)).length,
+                smileMapper.writeValueAsBytes(products).length,
+                size, jsonMapper.writeValueAsBytes(orders).length, gzip(jsonMapper.writeValueAsBytes(orders)).length,
+                smileMapper.writeValueAsBytes(orders).length);
+    }
+    
+    @Benchmark
+    public byte[] productsJson() throws IOException {
+        return jsonMapper.writeValueAsBytes(products);
+    }
+    
+    @Benchmark
+    public byte[] productsJsonGzip() throws IOException {
+        return gzip(jsonMapper.writeValueAsBytes(products));
+    }
+    
+    @Benchmark
+    public byte[] productsSmile() throws IOException {
+        return smileMapper.writeValueAsBytes(products);
+    }
+    
+    @Benchmark
+    public byte[] ordersJson() throws IOException {
+        return jsonMapper.writeValueAsBytes(orders);
+    }
+    
+    @Benchmark
+    public byte[] ordersJsonGzip() throws IOException {
+        return gzip(jsonMapper.writeValueAsBytes(orders));
+    }
+    
+    @Benchmark
+    public byte[] ordersSmile() throws IOException {
+        return smileMapper.writeValueAsBytes(orders);
+    }
+    
+    private static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(body.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(buffer)) {
+            gzip.write(body);
+        }
+        return buffer.toByteArray();
+    }
+}
\ No newline at end of file
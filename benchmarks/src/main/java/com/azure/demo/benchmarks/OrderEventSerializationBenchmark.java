@@ -0,0 +1,58 @@
+package com.azure.demo.benchmarks;
+
+import com.azure.demo.orderservice.messaging.OrderEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson round trips of OrderEvent as published to and consumed from the message bus,
+ * in JSON and in Smile.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class OrderEventSerializationBenchmark {
+    
+    private ObjectMapper jsonMapper;
+    private ObjectMapper smileMapper;
+    private OrderEvent event;
+    private byte[] json;
+    private byte[] smile;
+    
+    @Setup
+    public void setUp() throws IOException {
+        jsonMapper = Jackson2ObjectMapperBuilder.json().build();
+        smileMapper = Jackson2ObjectMapperBuilder.smile().build();
+        event = new OrderEvent(12345L, 678L, "ORDER_STATUS_CHANGED", "SHIPPED");
+        event.setDetails("Status changed from PROCESSING to SHIPPED");
+        json = jsonMapper.writeValueAsBytes(event);
+        smile = smileMapper.writeValueAsBytes(event);
+    }
+    
+    @Benchmark
+    public byte[] writeJson() throws IOException {
+        return jsonMapper.writeValueAsBytes(event);
+    }
+    
+    @Benchmark
+    public OrderEvent readJson() throws IOException {
+        return jsonMapper.readValue(json, OrderEvent.class);
+    }
+    
+    @Benchmark
+    public OrderEvent roundTripJson() throws IOException {
+        return jsonMapper.readValue(jsonMapper.writeValueAsBytes(event), OrderEvent.class);
+    }
+    
+    @Benchmark
+    public OrderEvent roundTripSmile() throws IOException {
+        return smileMapper.readValue(smileMapper.writeValueAsBytes(event), OrderEvent.class);
+    }
+}
\ No newline at end of file
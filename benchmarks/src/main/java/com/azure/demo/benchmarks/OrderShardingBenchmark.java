@@ -0,0 +1,121 @@
+package com.azure.demo.benchmarks;
+
+import com.azure.demo.orderservice.model.Order;
+import com.azure.demo.orderservice.model.OrderItem;
+import com.azure.demo.orderservice.model.OrderStatus;
+import com.azure.demo.orderservice.repository.OrderRepository;
+import com.azure.demo.orderservice.sharding.OrderShards;
+import com.azure.demo.orderservice.sharding.ShardContext;
+import com.azure.demo.orderservice.sharding.ShardingConfig;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Order queries against 1 and 4 in-memory H2 shards: a user's orders, which touch one
+ * shard, and orders by status, which query every shard in parallel and merge.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OrderShardingBenchmark {
+    
+    private static final int USERS = 1_000;
+    private static final OrderStatus[] STATUSES = {
+            OrderStatus.CONFIRMED, OrderStatus.SHIPPED, OrderStatus.DELIVERED, OrderStatus.CANCELLED};
+    
+    @Param({"1", "4"})
+    private int shards;
+    
+    @Param({"20000"})
+    private int orderCount;
+    
+    private ConfigurableApplicationContext context;
+    private OrderRepository orderRepository;
+    private OrderShards orderShards;
+    private long nextUser;
+    
+    @Setup(Level.Trial)
+    public void startContext() {
+        StringJoiner urls = new StringJoiner(",");
+        for (int i = 1; i < shards; i++) {
+            urls.add("jdbc:h2:mem:shardbench" + i + ";DB_CLOSE_DELAY=-1");
+        }
+        context = new SpringApplicationBuilder(ShardingBenchmarkConfiguration.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.main.banner-mode=off",
+                        "spring.datasource.url=jdbc:h2:mem:shardbench0;DB_CLOSE_DELAY=-1",
+                        "spring.jpa.hibernate.ddl-auto=create-drop",
+                        "spring.jpa.open-in-view=false",
+                        "orders.sharding.enabled=" + (shards > 1),
+                        "orders.sharding.urls=" + urls,
+                        "logging.level.root=WARN")
+                .run();
+        orderRepository = context.getBean(OrderRepository.class);
+        orderShards = context.getBean(OrderShards.class);
+        
+        Map<Integer, List<Order>> byShard = new HashMap<>();
+        List<OrderItem> items = BenchmarkData.orderItems(2);
+        for (int i = 0; i < orderCount; i++) {
+            long userId = 1 + i % USERS;
+            Order order = new Order(userId);
+            order.setStatus(STATUSES[i % STATUSES.length]);
+            for (OrderItem item : items) {
+                order.addOrderItem(new OrderItem(item.getProductId(), item.getProductName(), item.getPrice(), item.getQuantity()));
+            }
+            byShard.computeIfAbsent(orderShards.forUser(userId), shard -> new ArrayList<>()).add(order);
+        }
+        byShard.forEach((shard, orders) -> ShardContext.on(shard, () -> orderRepository.saveAll(orders)));
+    }
+    
+    @TearDown(Level.Trial)
+    public void stopContext() {
+        context.close();
+    }
+    
+    @Benchmark
+    public List<Order> ordersByUser() {
+        long userId = 1 + nextUser++ % USERS;
+        return ShardContext.on(orderShards.forUser(userId), () -> orderRepository.findByUserId(userId));
+    }
+    
+    @Benchmark
+    public List<Order> ordersByStatus() {
+        return orderShards.gather(() -> orderRepository.findByStatus(OrderStatus.SHIPPED),
+                Comparator.comparing(Order::getId));
+    }
+    
+    @SpringBootConfiguration
+    @EnableAutoConfiguration
+    @EntityScan(basePackageClasses = Order.class)
+    @EnableJpaRepositories(basePackageClasses = OrderRepository.class)
+    @Import({ShardingConfig.class, OrderShards.class})
+    static class ShardingBenchmarkConfiguration {
+        
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+}
\ No newline at end of file
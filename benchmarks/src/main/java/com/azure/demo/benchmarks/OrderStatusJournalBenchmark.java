@@ -0,0 +1,155 @@
+package com.azure.demo.benchmarks;
+
+import com.azure.demo.orderservice.journal.OrderStatusJournal;
+import com.azure.demo.orderservice.model.OrderStatus;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * The order status journal on local disk: batches of appends, without waiting and with
+ * waiting for the group-commit fsync from 1 and 8 threads (appends/s = batch size / score),
+ * and reopening a journal whose last record was torn by a crash, i.e. the startup scan.
+ */
+@Fork(1)
+public class OrderStatusJournalBenchmark {
+    
+    private static final int APPENDS = 1_000_000;
+    private static final int DURABLE_APPENDS = 2_000;
+    private static final long SEGMENT_SIZE = 64L * 1024 * 1024;
+    private static final OrderStatus[] STATUSES = OrderStatus.values();
+    
+    @State(Scope.Benchmark)
+    public static class AppendState {
+        
+        private Path directory;
+        private OrderStatusJournal journal;
+        private final AtomicLong transitions = new AtomicLong();
+        
+        // A fresh journal per iteration keeps the files, and the disk they take, small
+        @Setup(Level.Iteration)
+        public void open() throws IOException {
+            directory = Files.createTempDirectory("order-status-journal");
+            journal = new OrderStatusJournal(directory, SEGMENT_SIZE);
+        }
+        
+        @TearDown(Level.Iteration)
+        public void close() throws IOException {
+            journal.close();
+            delete(directory);
+        }
+        
+        long append() throws IOException {
+            long n = transitions.incrementAndGet();
+            // 10,000 orders, each moving through the statuses in turn
+            return journal.append(1 + n % 10_000, STATUSES[(int) (n % STATUSES.length)],
+                    STATUSES[(int) ((n + 1) % STATUSES.length)], System.currentTimeMillis());
+        }
+    }
+    
+    @State(Scope.Benchmark)
+    public static class RecoveryState {
+        
+        @Param({"1000000", "4000000"})
+        private int records;
+        
+        private Path directory;
+        private Path lastSegment;
+        private long tornOffset;
+        private OrderStatusJournal reopened;
+        
+        @Setup(Level.Trial)
+        public void write() throws IOException {
+            directory = Files.createTempDirectory("order-status-journal-recovery");
+            try (OrderStatusJournal journal = new OrderStatusJournal(directory, SEGMENT_SIZE)) {
+                for (int i = 0; i < records; i++) {
+                    journal.append(1 + i % 100_000, STATUSES[i % STATUSES.length],
+                            STATUSES[(i + 1) % STATUSES.length], 1_700_000_000_000L + i);
+                }
+            }
+            try (Stream<Path> files = Files.list(directory)) {
+                lastSegment = files.filter(file -> file.getFileName().toString().endsWith(".journal"))
+                        .max(Comparator.naturalOrder())
+                        .orElseThrow();
+            }
+            long recordsPerSegment = SEGMENT_SIZE / 32;
+            tornOffset = (records % recordsPerSegment) * 32;
+        }
+        
+        // Half a record, as if the process died while the page was being written
+        @Setup(Level.Invocation)
+        public void tear() throws IOException {
+            try (FileChannel channel = FileChannel.open(lastSegment, StandardOpenOption.WRITE)) {
+                channel.write(ByteBuffer.wrap(new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16}),
+                        tornOffset);
+            }
+        }
+        
+        @TearDown(Level.Invocation)
+        public void close() throws IOException {
+            reopened.close();
+        }
+        
+        @TearDown(Level.Trial)
+        public void delete() throws IOException {
+            OrderStatusJournalBenchmark.delete(directory);
+        }
+    }
+    
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 3, batchSize = APPENDS)
+    @Measurement(iterations = 5, batchSize = APPENDS)
+    public long append(AppendState state) throws IOException {
+        return state.append();
+    }
+    
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2, batchSize = DURABLE_APPENDS)
+    @Measurement(iterations = 5, batchSize = DURABLE_APPENDS)
+    public long appendDurable(AppendState state) throws IOException, InterruptedException {
+        long sequence = state.append();
+        state.journal.awaitDurable(sequence);
+        return sequence;
+    }
+    
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2, batchSize = DURABLE_APPENDS)
+    @Measurement(iterations = 5, batchSize = DURABLE_APPENDS)
+    @Threads(8)
+    public long appendDurableContended(AppendState state) throws IOException, InterruptedException {
+        return appendDurable(state);
+    }
+    
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 10)
+    public long recover(RecoveryState state) throws IOException {
+        state.reopened = new OrderStatusJournal(state.directory, SEGMENT_SIZE);
+        return state.reopened.size();
+    }
+    
+    private static void delete(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,99 @@
+package com.azure.demo.benchmarks;
+
+import com.azure.demo.orderservice.model.Money;
+import com.azure.demo.orderservice.model.Order;
+import com.azure.demo.orderservice.model.OrderItem;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Order arithmetic with the Money (long cents) model against the BigDecimal model it
+ * replaced: building an order item by item, re-summing a finished order's total, and
+ * computing item subtotals as serialization does. The *BigDecimal benchmarks replay the
+ * old behaviour, where every add re-summed all items with BigDecimal.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class OrderTotalsBenchmark {
+    
+    @Param({"1", "50", "500"})
+    private int itemCount;
+    
+    private List<OrderItem> items;
+    private Order order;
+    private BigDecimal[] prices;
+    private int[] quantities;
+    
+    @Setup
+    public void setUp() {
+        items = BenchmarkData.orderItems(itemCount);
+        order = BenchmarkData.order(1, itemCount);
+        prices = new BigDecimal[itemCount];
+        quantities = new int[itemCount];
+        for (int i = 0; i < itemCount; i++) {
+            prices[i] = items.get(i).getPrice().toBigDecimal();
+            quantities[i] = items.get(i).getQuantity();
+        }
+    }
+    
+    @Benchmark
+    public Money buildOrder() {
+        Order newOrder = new Order(1L);
+        for (OrderItem item : items) {
+            newOrder.addOrderItem(new OrderItem(item.getProductId(), item.getProductName(),
+                    item.getPrice(), item.getQuantity()));
+        }
+        return newOrder.getTotalAmount();
+    }
+    
+    @Benchmark
+    public BigDecimal buildOrderBigDecimal() {
+        List<BigDecimal[]> added = new ArrayList<>();
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 0; i < itemCount; i++) {
+            added.add(new BigDecimal[] {prices[i], BigDecimal.valueOf(quantities[i])});
+            total = added.stream()
+                    .map(item -> item[0].multiply(item[1]))
+                    .reduce(BigDecimal.ZERO, BigDecimal::add);
+        }
+        return total;
+    }
+    
+    @Benchmark
+    public Money calculateTotalAmount() {
+        order.calculateTotalAmount();
+        return order.getTotalAmount();
+    }
+    
+    @Benchmark
+    public BigDecimal calculateTotalAmountBigDecimal() {
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 0; i < itemCount; i++) {
+            total = total.add(prices[i].multiply(BigDecimal.valueOf(quantities[i])));
+        }
+        return total;
+    }
+    
+    @Benchmark
+    public void itemSubtotals(Blackhole blackhole) {
+        for (OrderItem item : order.getOrderItems()) {
+            blackhole.consume(item.getSubtotal());
+        }
+    }
+    
+    @Benchmark
+    public void itemSubtotalsBigDecimal(Blackhole blackhole) {
+        for (int i = 0; i < itemCount; i++) {
+            blackhole.consume(prices[i].multiply(BigDecimal.valueOf(quantities[i])));
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,86 @@
+package com.azure.demo.benchmarks;
+
+import com.azure.demo.productservice.catalog.CatalogSnapshotService;
+import com.azure.demo.productservice.model.Product;
+import com.azure.demo.productservice.repository.ProductRepository;
+import com.azure.demo.productservice.service.ProductService;
+import com.azure.demo.productservice.trending.TrendingProductsService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ProductService.decreaseStock through Spring Data JPA against in-memory H2, i.e. the
+ * work product-service does for every order line.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProductStockBenchmark {
+    
+    private ConfigurableApplicationContext context;
+    private ProductService productService;
+    private ProductRepository productRepository;
+    private Long productId;
+    
+    @Setup(Level.Trial)
+    public void startContext() {
+        context = new SpringApplicationBuilder(ProductBenchmarkConfiguration.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.main.banner-mode=off",
+                        "spring.datasource.url=jdbc:h2:mem:benchdb;DB_CLOSE_DELAY=-1",
+                        "spring.jpa.hibernate.ddl-auto=create-drop",
+                        "spring.jpa.open-in-view=false",
+                        "logging.level.root=WARN")
+                .run();
+        productService = context.getBean(ProductService.class);
+        productRepository = context.getBean(ProductRepository.class);
+        Product product = new Product("Benchmark Widget", "Stock benchmark product",
+                new BigDecimal("19.99"), "Benchmarks", Integer.MAX_VALUE);
+        productId = productRepository.save(product).getId();
+    }
+    
+    @Setup(Level.Iteration)
+    public void restock() {
+        productService.updateStock(productId, Integer.MAX_VALUE, null);
+    }
+    
+    @TearDown(Level.Trial)
+    public void stopContext() {
+        context.close();
+    }
+    
+    @Benchmark
+    public Product decreaseStock() {
+        return productService.decreaseStock(productId, 1);
+    }
+    
+    @SpringBootConfiguration
+    @EnableAutoConfiguration
+    @EntityScan(basePackageClasses = Product.class)
+    @EnableJpaRepositories(basePackageClasses = ProductRepository.class)
+    @Import({ProductService.class, TrendingProductsService.class, CatalogSnapshotService.class})
+    static class ProductBenchmarkConfiguration {
+        
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,80 @@
+package com.azure.demo.benchmarks;
+
+import com.azure.demo.productservice.trending.TrendingProducts;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Update throughput of the trending-products sketches, i.e. the per order line cost
+ * product-service pays on top of decreaseStock. Product ids follow a skewed
+ * (Zipf-like) distribution so top-K eviction and re-ranking are exercised; the window
+ * rotates every 10ms so expiry is part of the measurement too.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TrendingProductsBenchmark {
+    
+    private static final int SAMPLES = 1 << 16;
+    
+    @Param({"10000", "1000000"})
+    private int productCount;
+    
+    @Param({"20", "500"})
+    private int categoryCount;
+    
+    private TrendingProducts trendingProducts;
+    private long[] productIds;
+    private String[] categories;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        trendingProducts = new TrendingProducts(Duration.ofMillis(120), 12, 2048, 4, 50, 1000,
+                System::currentTimeMillis);
+        String[] categoryNames = new String[categoryCount];
+        for (int i = 0; i < categoryCount; i++) {
+            categoryNames[i] = "Category " + i;
+        }
+        Random random = new Random(42);
+        productIds = new long[SAMPLES];
+        categories = new String[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            // Inverse-power sampling: low ids are ordered far more often than high ones
+            long productId = (long) Math.pow(productCount, random.nextDouble());
+            productIds[i] = productId;
+            categories[i] = categoryNames[(int) (productId % categoryCount)];
+        }
+    }
+    
+    @State(Scope.Thread)
+    public static class Cursor {
+        // Threads start at different offsets so they do not all hit the same product at once
+        int next = ThreadLocalRandom.current().nextInt();
+    }
+    
+    @Benchmark
+    public void record(Cursor cursor) {
+        int i = cursor.next++ & (SAMPLES - 1);
+        trendingProducts.record(productIds[i], categories[i], 1);
+    }
+    
+    @Benchmark
+    @Threads(4)
+    public void recordContended(Cursor cursor) {
+        int i = cursor.next++ & (SAMPLES - 1);
+        trendingProducts.record(productIds[i], categories[i], 1);
+    }
+    
+    @Benchmark
+    public List<TrendingProducts.Entry> topTen() {
+        return trendingProducts.top(null, 10);
+    }
+}
\ No newline at end of file
@@ -3,9 +3,11 @@ package com.azure.demo.configserver;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.config.server.EnableConfigServer;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EnableConfigServer
+@EnableScheduling
 public class ConfigServerApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,39 @@
+package com.azure.demo.configserver;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.web.SecurityFilterChain;
+
+import static org.springframework.security.config.Customizer.withDefaults;
+
+@Configuration
+public class SecurityConfig {
+    
+    /**
+     * /store is called by services and webhooks, never by browsers, so POST /store/refresh
+     * needs basic auth but no CSRF token.
+     */
+    @Bean
+    @Order(1)
+    public SecurityFilterChain storeSecurityFilterChain(HttpSecurity http) throws Exception {
+        return http.securityMatcher("/store/**")
+                .authorizeHttpRequests(requests -> requests.anyRequest().authenticated())
+                .httpBasic(withDefaults())
+                .csrf(csrf -> csrf.disable())
+                .build();
+    }
+    
+    /**
+     * Spring Boot's default, which backs off as soon as any other chain is declared.
+     */
+    @Bean
+    @Order(2)
+    public SecurityFilterChain defaultSecurityFilterChain(HttpSecurity http) throws Exception {
+        return http.authorizeHttpRequests(requests -> requests.anyRequest().authenticated())
+                .formLogin(withDefaults())
+                .httpBasic(withDefaults())
+                .build();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,50 @@
+package com.azure.demo.configserver.store;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.time.Duration;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/store")
+public class ConfigStoreController {
+    
+    // Below typical proxy and load balancer idle timeouts
+    private static final Duration MAX_WATCH_TIMEOUT = Duration.ofSeconds(55);
+    
+    private final VersionedEnvironmentStore store;
+    
+    @Autowired
+    public ConfigStoreController(VersionedEnvironmentStore store) {
+        this.store = store;
+    }
+    
+    /**
+     * Long-poll for changes to one environment. Returns at once when it changed after
+     * "since", otherwise when it changes or the timeout expires (with no changes).
+     */
+    @GetMapping("/watch")
+    public DeferredResult<WatchResponse> watch(@RequestParam String application,
+                                               @RequestParam(defaultValue = "default") String profile,
+                                               @RequestParam(required = false) String label,
+                                               @RequestParam(defaultValue = "-1") long since,
+                                               @RequestParam(defaultValue = "PT30S") Duration timeout) {
+        Duration effectiveTimeout = timeout.compareTo(MAX_WATCH_TIMEOUT) > 0 ? MAX_WATCH_TIMEOUT : timeout;
+        return store.watch(new EnvironmentKey(application, profile, label), since, effectiveTimeout);
+    }
+    
+    /**
+     * Re-reads the backend now instead of at the next poll, e.g. from a Git push webhook.
+     */
+    @PostMapping("/refresh")
+    public ResponseEntity<Map<String, Long>> refresh() {
+        return ResponseEntity.ok(Map.of("revision", store.refresh()));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,165 @@
+package com.azure.demo.configserver.store;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Serves repeated config reads (environments and property files) from memory with an
+ * ETag, answering If-None-Match with 304 Not Modified.
+ * <p>
+ * Without this every client start and every refresh re-reads the backend, which for Git
+ * means a fetch per request. Entries are dropped whenever VersionedEnvironmentStore sees
+ * a change, and after a TTL for reads the store does not track (e.g. plain files).
+ * Registered after Spring Security, so only authenticated requests reach the cache.
+ */
+@Component
+public class EnvironmentCacheFilter extends OncePerRequestFilter {
+    
+    private static final List<String> UNCACHED_PREFIXES =
+            List.of("/actuator", "/store", "/encrypt", "/decrypt", "/key", "/error", "/login", "/logout");
+    
+    private final VersionedEnvironmentStore store;
+    private final long ttlNanos;
+    private final Map<String, CachedResponse> cache;
+    
+    @Autowired
+    public EnvironmentCacheFilter(VersionedEnvironmentStore store,
+                                  @Value("${config.store.cache-size:1000}") int cacheSize,
+                                  @Value("${config.store.cache-ttl:PT5M}") Duration ttl) {
+        this.store = store;
+        this.ttlNanos = ttl.toNanos();
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+                return size() > cacheSize;
+            }
+        });
+        store.addChangeListener(cache::clear);
+    }
+    
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!"GET".equals(request.getMethod())) {
+            return true;
+        }
+        String path = path(request);
+        return UNCACHED_PREFIXES.stream().anyMatch(prefix -> path.equals(prefix) || path.startsWith(prefix + "/"));
+    }
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String path = path(request);
+        // Accept selects between the v1 and v2 environment formats
+        String cacheKey = path + "?" + Objects.toString(request.getQueryString(), "")
+                + "|" + Objects.toString(request.getHeader(HttpHeaders.ACCEPT), "");
+        
+        CachedResponse cached = cache.get(cacheKey);
+        if (cached != null && System.nanoTime() - cached.expiresAt < 0) {
+            cached.writeTo(request, response);
+            return;
+        }
+        
+        EnvironmentKey key = environmentKey(path);
+        if (key != null) {
+            store.track(key);
+        }
+        long revision = store.getRevision();
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        chain.doFilter(request, wrapper);
+        if (wrapper.getStatus() == HttpServletResponse.SC_OK) {
+            byte[] body = wrapper.getContentAsByteArray();
+            cached = new CachedResponse(wrapper.getContentType(), body, System.nanoTime() + ttlNanos);
+            // A change during the read may have been missed by this response
+            if (store.getRevision() == revision) {
+                cache.put(cacheKey, cached);
+            }
+            wrapper.setHeader(HttpHeaders.ETAG, cached.etag);
+            wrapper.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+            if (cached.matches(request)) {
+                wrapper.resetBuffer();
+                wrapper.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            }
+        }
+        wrapper.copyBodyToResponse();
+    }
+    
+    private static String path(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+    
+    /**
+     * /{application}/{profile} and /{application}/{profile}/{label}; "(_)" stands for "/"
+     * in labels. Two-segment paths with a dot are /{label}/{application}-{profile}.yml.
+     */
+    private static EnvironmentKey environmentKey(String path) {
+        String[] segments = path.substring(1).split("/");
+        if (segments.length == 2 && !segments[1].contains(".")) {
+            return new EnvironmentKey(segments[0], segments[1], null);
+        }
+        if (segments.length == 3) {
+            return new EnvironmentKey(segments[0], segments[1], segments[2].replace("(_)", "/"));
+        }
+        return null;
+    }
+    
+    private static final class CachedResponse {
+        
+        private final String contentType;
+        private final byte[] body;
+        private final String etag;
+        private final long expiresAt;
+        
+        CachedResponse(String contentType, byte[] body, long expiresAt) {
+            this.contentType = contentType;
+            this.body = body;
+            this.etag = "\"" + DigestUtils.md5DigestAsHex(body) + "\"";
+            this.expiresAt = expiresAt;
+        }
+        
+        boolean matches(HttpServletRequest request) {
+            String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+            if (ifNoneMatch == null) {
+                return false;
+            }
+            for (String candidate : ifNoneMatch.split(",")) {
+                String tag = candidate.trim();
+                if (tag.equals("*") || tag.equals(etag) || tag.equals("W/" + etag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        
+        void writeTo(HttpServletRequest request, HttpServletResponse response) throws IOException {
+            response.setHeader(HttpHeaders.ETAG, etag);
+            response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+            if (matches(request)) {
+                response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                return;
+            }
+            if (contentType != null) {
+                response.setContentType(contentType);
+            }
+            response.setContentLength(body.length);
+            response.getOutputStream().write(body);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,54 @@
+package com.azure.demo.configserver.store;
+
+import java.util.Objects;
+
+/**
+ * The coordinates of a client environment, as in GET /{application}/{profile}/{label}.
+ */
+public final class EnvironmentKey {
+    
+    private final String application;
+    private final String profile;
+    // Null selects the backend's default label
+    private final String label;
+    
+    public EnvironmentKey(String application, String profile, String label) {
+        this.application = application;
+        this.profile = profile;
+        this.label = label == null || label.isBlank() ? null : label;
+    }
+    
+    public String getApplication() {
+        return application;
+    }
+    
+    public String getProfile() {
+        return profile;
+    }
+    
+    public String getLabel() {
+        return label;
+    }
+    
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof EnvironmentKey other)) {
+            return false;
+        }
+        return application.equals(other.application) && profile.equals(other.profile)
+                && Objects.equals(label, other.label);
+    }
+    
+    @Override
+    public int hashCode() {
+        return Objects.hash(application, profile, label);
+    }
+    
+    @Override
+    public String toString() {
+        return application + "/" + profile + (label == null ? "" : "/" + label);
+    }
+}
\ No newline at end of file
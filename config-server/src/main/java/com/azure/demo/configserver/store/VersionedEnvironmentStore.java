@@ -0,0 +1,229 @@
+package com.azure.demo.configserver.store;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.config.environment.Environment;
+import org.springframework.cloud.config.environment.PropertySource;
+import org.springframework.cloud.config.server.encryption.EnvironmentEncryptor;
+import org.springframework.cloud.config.server.environment.EnvironmentRepository;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Versioned view of the environments clients actually request.
+ * <p>
+ * Every environment that has been requested is re-read from the backend on a schedule
+ * (or on POST /store/refresh) and compared with its previous flattened form. Each
+ * difference becomes a change with a new revision, which invalidates the response cache
+ * and wakes the clients long-polling that environment. Revisions start at the server's
+ * start time so a client whose revision predates a restart is told to reload everything.
+ */
+@Component
+public class VersionedEnvironmentStore {
+    
+    private static final Logger logger = LoggerFactory.getLogger(VersionedEnvironmentStore.class);
+    
+    private final EnvironmentRepository environmentRepository;
+    private final ObjectProvider<EnvironmentEncryptor> environmentEncryptor;
+    private final int changeLogSize;
+    private final Map<EnvironmentKey, Map<String, String>> snapshots = new ConcurrentHashMap<>();
+    private final List<Runnable> changeListeners = new CopyOnWriteArrayList<>();
+    // Serializes the scheduled and on-demand refreshes without blocking watchers
+    private final Object refreshLock = new Object();
+    
+    // Guarded by this
+    private final Deque<Change> changeLog = new ArrayDeque<>();
+    private final List<Watch> watches = new ArrayList<>();
+    private long revision = System.currentTimeMillis();
+    private long trimmedUpTo = revision;
+    
+    @Autowired
+    public VersionedEnvironmentStore(EnvironmentRepository environmentRepository,
+                                     ObjectProvider<EnvironmentEncryptor> environmentEncryptor,
+                                     @Value("${config.store.change-log-size:1000}") int changeLogSize) {
+        this.environmentRepository = environmentRepository;
+        this.environmentEncryptor = environmentEncryptor;
+        this.changeLogSize = changeLogSize;
+    }
+    
+    /**
+     * Starts tracking an environment; called for every environment request so the poller
+     * only re-reads what clients use.
+     */
+    public void track(EnvironmentKey key) {
+        if (!snapshots.containsKey(key)) {
+            Map<String, String> properties = load(key);
+            if (properties != null) {
+                snapshots.putIfAbsent(key, properties);
+            }
+        }
+    }
+    
+    /** Runs when any tracked environment changed, e.g. to drop cached responses. */
+    public void addChangeListener(Runnable listener) {
+        changeListeners.add(listener);
+    }
+    
+    public synchronized long getRevision() {
+        return revision;
+    }
+    
+    /**
+     * Re-reads every tracked environment from the backend and records what changed.
+     *
+     * @return the revision after the refresh
+     */
+    @Scheduled(fixedDelayString = "${config.store.poll-interval:PT30S}")
+    public long refresh() {
+        synchronized (refreshLock) {
+            for (Map.Entry<EnvironmentKey, Map<String, String>> entry : snapshots.entrySet()) {
+                Map<String, String> current = load(entry.getKey());
+                if (current == null) {
+                    continue;
+                }
+                Map<String, String> diff = diff(entry.getValue(), current);
+                if (!diff.isEmpty()) {
+                    entry.setValue(current);
+                    record(entry.getKey(), diff);
+                }
+            }
+        }
+        return getRevision();
+    }
+    
+    /**
+     * Answers immediately if the environment changed after the given revision, otherwise
+     * when it next changes or, with no changes, when the timeout expires.
+     *
+     * @param since the revision of the client's last answer, or negative for a first call
+     */
+    public DeferredResult<WatchResponse> watch(EnvironmentKey key, long since, Duration timeout) {
+        track(key);
+        DeferredResult<WatchResponse> result;
+        synchronized (this) {
+            result = new DeferredResult<>(timeout.toMillis(), () -> new WatchResponse(getRevision(), false, Map.of()));
+            if (since < 0) {
+                result.setResult(new WatchResponse(revision, false, Map.of()));
+                return result;
+            }
+            if (since < trimmedUpTo || since > revision) {
+                result.setResult(new WatchResponse(revision, true, Map.of()));
+                return result;
+            }
+            Map<String, String> pending = new LinkedHashMap<>();
+            for (Change change : changeLog) {
+                if (change.revision > since && change.key.equals(key)) {
+                    pending.putAll(change.diff);
+                }
+            }
+            if (!pending.isEmpty()) {
+                result.setResult(new WatchResponse(revision, false, pending));
+                return result;
+            }
+            Watch watch = new Watch(key, result);
+            watches.add(watch);
+            result.onCompletion(() -> removeWatch(watch));
+        }
+        return result;
+    }
+    
+    private synchronized void record(EnvironmentKey key, Map<String, String> diff) {
+        revision++;
+        changeLog.addLast(new Change(revision, key, diff));
+        while (changeLog.size() > changeLogSize) {
+            trimmedUpTo = changeLog.removeFirst().revision;
+        }
+        logger.info("Environment {} changed at revision {}: {}", key, revision, diff.keySet());
+        // Before waking watchers, so a client reloading in response never sees a stale cache
+        changeListeners.forEach(Runnable::run);
+        for (Watch watch : List.copyOf(watches)) {
+            if (watch.key.equals(key)) {
+                watch.result.setResult(new WatchResponse(revision, false, diff));
+            }
+        }
+    }
+    
+    private synchronized void removeWatch(Watch watch) {
+        watches.remove(watch);
+    }
+    
+    private Map<String, String> load(EnvironmentKey key) {
+        try {
+            Environment environment = environmentRepository.findOne(key.getApplication(), key.getProfile(), key.getLabel());
+            EnvironmentEncryptor encryptor = environmentEncryptor.getIfAvailable();
+            if (encryptor != null) {
+                environment = encryptor.decrypt(environment);
+            }
+            return flatten(environment);
+        } catch (RuntimeException e) {
+            // Keep serving the last known state while the backend is unavailable
+            logger.warn("Could not load environment {}: {}", key, e.getMessage());
+            return null;
+        }
+    }
+    
+    /** Effective properties: earlier property sources take precedence over later ones. */
+    private static Map<String, String> flatten(Environment environment) {
+        Map<String, String> properties = new HashMap<>();
+        List<PropertySource> sources = environment.getPropertySources();
+        for (int i = sources.size() - 1; i >= 0; i--) {
+            for (Map.Entry<?, ?> entry : sources.get(i).getSource().entrySet()) {
+                properties.put(String.valueOf(entry.getKey()), String.valueOf(entry.getValue()));
+            }
+        }
+        return properties;
+    }
+    
+    private static Map<String, String> diff(Map<String, String> before, Map<String, String> after) {
+        Map<String, String> diff = new LinkedHashMap<>();
+        Set<String> keys = new HashSet<>(before.keySet());
+        keys.addAll(after.keySet());
+        for (String key : keys) {
+            String value = after.get(key);
+            if (!Objects.equals(before.get(key), value)) {
+                diff.put(key, value);
+            }
+        }
+        return diff;
+    }
+    
+    private static final class Change {
+        private final long revision;
+        private final EnvironmentKey key;
+        private final Map<String, String> diff;
+        
+        Change(long revision, EnvironmentKey key, Map<String, String> diff) {
+            this.revision = revision;
+            this.key = key;
+            this.diff = diff;
+        }
+    }
+    
+    private static final class Watch {
+        private final EnvironmentKey key;
+        private final DeferredResult<WatchResponse> result;
+        
+        Watch(EnvironmentKey key, DeferredResult<WatchResponse> result) {
+            this.key = key;
+            this.result = result;
+        }
+    }
+}
\ No newline at end of file
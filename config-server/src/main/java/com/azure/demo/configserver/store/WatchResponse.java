@@ -0,0 +1,37 @@
+package com.azure.demo.configserver.store;
+
+import java.util.Map;
+
+/**
+ * Answer to a long-poll on /store/watch. Clients send the revision back as "since" on
+ * their next poll.
+ */
+public class WatchResponse {
+    
+    private final long revision;
+    private final boolean fullRefresh;
+    private final Map<String, String> changes;
+    
+    public WatchResponse(long revision, boolean fullRefresh, Map<String, String> changes) {
+        this.revision = revision;
+        this.fullRefresh = fullRefresh;
+        this.changes = changes;
+    }
+    
+    public long getRevision() {
+        return revision;
+    }
+    
+    /**
+     * True when the changes since the client's revision are no longer known (the server
+     * restarted or the change log was trimmed); the client must reload everything.
+     */
+    public boolean isFullRefresh() {
+        return fullRefresh;
+    }
+    
+    /** Changed keys and their new values; a null value means the key was removed. */
+    public Map<String, String> getChanges() {
+        return changes;
+    }
+}
\ No newline at end of file
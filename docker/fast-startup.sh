@@ -0,0 +1,63 @@
+#!/bin/bash
+# Prepares the fast-startup layout used by start.sh.
+#
+#   fast-startup.sh extract   (builder stage) unpacks every service jar into /app/exploded/<service>
+#   fast-startup.sh train     (runtime stage) records a class data sharing archive per service
+#
+# Class data sharing only covers classes loaded from the plain class path, so services
+# are started from the unpacked jar rather than with java -jar. The archive must be
+# created by the same JVM that later uses it, hence the training run in the runtime image.
+set -euo pipefail
+
+case "${1:-}" in
+  extract)
+    for jar in /app/*/target/*.jar; do
+      service=$(basename "$jar")
+      service=${service%-*.jar}
+      mkdir -p "/app/exploded/$service"
+      (cd "/app/exploded/$service" && jar xf "$jar")
+    done
+    ;;
+  train)
+    for dir in /app/*/; do
+      dir=${dir%/}
+      [ -f "$dir/BOOT-INF/classpath.idx" ] || continue
+      service=$(basename "$dir")
+      main=$(sed -n 's/^Start-Class: *//p' "$dir/META-INF/MANIFEST.MF" | tr -d '\r')
+      classpath="$dir/BOOT-INF/classes$(sed -n 's/^- "\(.*\)"$/:\1/p' "$dir/BOOT-INF/classpath.idx" | sed "s|^:|:$dir/|" | tr -d '\n')"
+      echo "$main" > "$dir/main-class"
+      echo "$classpath" > "$dir/classpath"
+
+      # Refresh the context once and exit; classes loaded up to that point go into the archive.
+      # Eureka and the config server are not reachable at build time.
+      echo "Training class data sharing archive for $service"
+      # A failed run fails the image build: it usually means the AOT code does not start
+      # with these settings, and the image would fail the same way at runtime.
+      # shellcheck disable=SC2086 # AOT_JVM_ARGUMENTS holds several options
+      if ! java -XX:ArchiveClassesAtExit="$dir/app.jsa" \
+        -Dspring.aot.enabled=true \
+        -Dspring.context.exit=onRefresh \
+        ${AOT_JVM_ARGUMENTS:-} \
+        -cp "$classpath" "$main" \
+        --spring.profiles.active="${AOT_PROFILES}" \
+        --spring.cloud.config.enabled=false \
+        --spring.cloud.refresh.enabled=false \
+        --eureka.client.register-with-eureka=false \
+        --eureka.client.fetch-registry=false \
+        > "$dir/training.log" 2>&1; then
+        echo "Training run for $service failed:"
+        cat "$dir/training.log"
+        exit 1
+      fi
+      if [ ! -f "$dir/app.jsa" ]; then
+        echo "Training run for $service wrote no class data sharing archive:"
+        cat "$dir/training.log"
+        exit 1
+      fi
+    done
+    ;;
+  *)
+    echo "Usage: fast-startup.sh extract|train"
+    exit 1
+    ;;
+esac
@@ -0,0 +1,31 @@
+#!/bin/bash
+# Starts the service named by SERVICE_NAME. Images built with FAST_STARTUP=true contain an
+# unpacked copy of each service under /app/<service>, which is started with the Spring AOT
+# initializers and, when training succeeded, the class data sharing archive. The native
+# image target contains a single executable per service instead.
+case $SERVICE_NAME in
+  eureka-server|config-server|gateway-service|user-service|product-service|order-service)
+    ;;
+  *)
+    echo "Error: SERVICE_NAME environment variable must be set to one of: eureka-server, config-server, gateway-service, user-service, product-service, order-service"
+    exit 1
+    ;;
+esac
+
+if [ -f "/app/$SERVICE_NAME" ]; then
+  exec "/app/$SERVICE_NAME"
+fi
+
+dir=/app/$SERVICE_NAME
+if [ -f "$dir/classpath" ]; then
+  cds=""
+  if [ -f "$dir/app.jsa" ]; then
+    cds="-XX:SharedArchiveFile=$dir/app.jsa"
+  fi
+  exec java $JAVA_OPTS $cds \
+    -Dspring.aot.enabled=true \
+    -Dspring.cloud.refresh.enabled=false \
+    -cp "$(cat "$dir/classpath")" "$(cat "$dir/main-class")"
+fi
+
+exec java $JAVA_OPTS -jar /app/$SERVICE_NAME-*.jar
@@ -0,0 +1,122 @@
+package com.azure.demo.gateway.aggregation;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.loadbalancer.reactive.ReactorLoadBalancerExchangeFilterFunction;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
+
+import java.time.Duration;
+import java.util.LinkedHashSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Builds order detail pages with a single client round trip. The order is fetched first,
+ * then the user and every distinct product are requested concurrently.
+ */
+@Service
+public class OrderAggregationService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(OrderAggregationService.class);
+    
+    private final WebClient webClient;
+    private final Duration downstreamTimeout;
+    private final int productConcurrency;
+    
+    @Autowired
+    public OrderAggregationService(WebClient.Builder webClientBuilder,
+                                   ReactorLoadBalancerExchangeFilterFunction loadBalancerFunction,
+                                   @Value("${gateway.aggregation.timeout:2s}") Duration downstreamTimeout,
+                                   @Value("${gateway.aggregation.product-concurrency:16}") int productConcurrency) {
+        this.webClient = webClientBuilder.filter(loadBalancerFunction).build();
+        this.downstreamTimeout = downstreamTimeout;
+        this.productConcurrency = productConcurrency;
+    }
+    
+    /**
+     * Returns the merged order details, or an empty Mono when the order does not exist.
+     * Failures of the user or product lookups degrade to a partial result; without the order
+     * there is nothing to show, so its timeout is a 504 and any other failure a 502.
+     */
+    public Mono<OrderDetails> getOrderDetails(Long orderId) {
+        return fetch("http://order-service/orders/" + orderId)
+                .timeout(downstreamTimeout)
+                .onErrorResume(WebClientResponseException.NotFound.class, e -> Mono.empty())
+                .onErrorMap(TimeoutException.class, e -> new ResponseStatusException(HttpStatus.GATEWAY_TIMEOUT,
+                        "order-service did not answer within " + downstreamTimeout))
+                .onErrorMap(e -> !(e instanceof ResponseStatusException), e -> {
+                    logger.warn("Order lookup failed during order aggregation: {}", e.toString());
+                    return new ResponseStatusException(HttpStatus.BAD_GATEWAY, "order-service lookup failed", e);
+                })
+                .flatMap(this::enrich);
+    }
+    
+    private Mono<OrderDetails> enrich(JsonNode order) {
+        OrderDetails details = new OrderDetails(order);
+        
+        Mono<Optional<JsonNode>> user = order.hasNonNull("userId")
+                ? optional(fetch("http://user-service/users/" + order.get("userId").asLong()))
+                : Mono.just(Optional.empty());
+        
+        Flux<Tuple2<Long, Optional<JsonNode>>> products = Flux.fromIterable(distinctProductIds(order))
+                .flatMap(id -> optional(fetch("http://product-service/products/" + id))
+                        .map(product -> Tuples.of(id, product)), productConcurrency);
+        
+        return Mono.zip(user, products.collectList())
+                .map(results -> {
+                    if (results.getT1().isPresent()) {
+                        details.setUser(results.getT1().get());
+                    } else {
+                        details.getUnavailable().add("user");
+                    }
+                    for (Tuple2<Long, Optional<JsonNode>> product : results.getT2()) {
+                        if (product.getT2().isPresent()) {
+                            details.getProducts().put(product.getT1(), product.getT2().get());
+                        } else {
+                            details.getUnavailable().add("product:" + product.getT1());
+                        }
+                    }
+                    return details;
+                });
+    }
+    
+    private Set<Long> distinctProductIds(JsonNode order) {
+        Set<Long> productIds = new LinkedHashSet<>();
+        JsonNode items = order.path("orderItems");
+        for (JsonNode item : items) {
+            if (item.hasNonNull("productId")) {
+                productIds.add(item.get("productId").asLong());
+            }
+        }
+        return productIds;
+    }
+    
+    private Mono<JsonNode> fetch(String uri) {
+        return webClient.get()
+                .uri(uri)
+                .retrieve()
+                .bodyToMono(JsonNode.class);
+    }
+    
+    private Mono<Optional<JsonNode>> optional(Mono<JsonNode> call) {
+        return call.timeout(downstreamTimeout)
+                .map(Optional::of)
+                .onErrorResume(e -> {
+                    logger.warn("Downstream lookup failed during order aggregation: {}", e.toString());
+                    return Mono.just(Optional.empty());
+                })
+                .defaultIfEmpty(Optional.empty());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,63 @@
+package com.azure.demo.gateway.aggregation;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Merged view of an order together with its user and the products referenced by its items.
+ * When a downstream call fails or times out the corresponding section is left empty and
+ * listed in unavailable, so clients can still render the parts that did arrive.
+ */
+public class OrderDetails {
+    private JsonNode order;
+    private JsonNode user;
+    private Map<Long, JsonNode> products = new LinkedHashMap<>();
+    private List<String> unavailable = new ArrayList<>();
+    
+    public OrderDetails() {}
+    
+    public OrderDetails(JsonNode order) {
+        this.order = order;
+    }
+    
+    public boolean isPartial() {
+        return !unavailable.isEmpty();
+    }
+    
+    // Getters and Setters
+    public JsonNode getOrder() {
+        return order;
+    }
+    
+    public void setOrder(JsonNode order) {
+        this.order = order;
+    }
+    
+    public JsonNode getUser() {
+        return user;
+    }
+    
+    public void setUser(JsonNode user) {
+        this.user = user;
+    }
+    
+    public Map<Long, JsonNode> getProducts() {
+        return products;
+    }
+    
+    public void setProducts(Map<Long, JsonNode> products) {
+        this.products = products;
+    }
+    
+    public List<String> getUnavailable() {
+        return unavailable;
+    }
+    
+    public void setUnavailable(List<String> unavailable) {
+        this.unavailable = unavailable;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,28 @@
+package com.azure.demo.gateway.aggregation;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+@RestController
+@RequestMapping("/api/order-details")
+public class OrderDetailsController {
+    
+    private final OrderAggregationService orderAggregationService;
+    
+    @Autowired
+    public OrderDetailsController(OrderAggregationService orderAggregationService) {
+        this.orderAggregationService = orderAggregationService;
+    }
+    
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<OrderDetails>> getOrderDetails(@PathVariable Long id) {
+        return orderAggregationService.getOrderDetails(id)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,88 @@
+package com.azure.demo.gateway.ratelimit;
+
+import reactor.core.publisher.Mono;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Per-instance token bucket store. Buckets are refilled lazily on access. At most maxKeys
+ * buckets are kept: keys are spread over lock-striped LRU segments, and a segment drops its
+ * least recently used bucket when it is full, so churning keys cost O(1) and bounded memory.
+ * A dropped bucket starts full again if its key comes back.
+ */
+public class InMemoryTokenBucketStore implements TokenBucketStore {
+    
+    private static final int SEGMENTS = 64;
+    
+    private final Segment[] segments = new Segment[SEGMENTS];
+    
+    public InMemoryTokenBucketStore(int maxKeys) {
+        int perSegment = Math.max(1, (maxKeys + SEGMENTS - 1) / SEGMENTS);
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(perSegment);
+        }
+    }
+    
+    @Override
+    public Mono<Boolean> tryConsume(String key, long capacity, double refillPerSecond, int permits) {
+        long now = System.nanoTime();
+        Bucket bucket = segmentFor(key).bucket(key, capacity, now);
+        return Mono.just(bucket.tryConsume(capacity, refillPerSecond, permits, now));
+    }
+    
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+    
+    private Segment segmentFor(String key) {
+        int hash = key.hashCode();
+        return segments[(hash ^ (hash >>> 16)) & (SEGMENTS - 1)];
+    }
+    
+    private static final class Segment {
+        private final Map<String, Bucket> buckets;
+        
+        Segment(int maxKeys) {
+            this.buckets = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Bucket> eldest) {
+                    return size() > maxKeys;
+                }
+            };
+        }
+        
+        synchronized Bucket bucket(String key, long capacity, long now) {
+            return buckets.computeIfAbsent(key, k -> new Bucket(capacity, now));
+        }
+        
+        synchronized int size() {
+            return buckets.size();
+        }
+    }
+    
+    private static final class Bucket {
+        private double tokens;
+        private long lastRefillNanos;
+        
+        Bucket(long capacity, long now) {
+            this.tokens = capacity;
+            this.lastRefillNanos = now;
+        }
+        
+        synchronized boolean tryConsume(long capacity, double refillPerSecond, int permits, long now) {
+            double elapsedSeconds = (now - lastRefillNanos) / 1_000_000_000.0;
+            tokens = Math.min(capacity, tokens + elapsedSeconds * refillPerSecond);
+            lastRefillNanos = now;
+            if (tokens >= permits) {
+                tokens -= permits;
+                return true;
+            }
+            return false;
+        }
+    }
+}
\ No newline at end of file
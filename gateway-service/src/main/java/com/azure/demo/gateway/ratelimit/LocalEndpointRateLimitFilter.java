@@ -0,0 +1,46 @@
+package com.azure.demo.gateway.ratelimit;
+
+import org.springframework.core.Ordered;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+/**
+ * Admission for endpoints the gateway serves itself, such as /api/order-details. They are
+ * handled by controllers rather than routes, so RateLimitFilter never sees them; here each
+ * gateway.rate-limit.endpoints entry is admitted as if it were a route with that id, sharing
+ * the in-flight budget, lanes and per-route policies.
+ */
+public class LocalEndpointRateLimitFilter implements WebFilter, Ordered {
+    
+    private final RateLimitProperties properties;
+    private final RateLimitFilter rateLimitFilter;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    
+    public LocalEndpointRateLimitFilter(RateLimitProperties properties, RateLimitFilter rateLimitFilter) {
+        this.properties = properties;
+        this.rateLimitFilter = rateLimitFilter;
+    }
+    
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        if (properties.isEnabled()) {
+            String path = exchange.getRequest().getPath().value();
+            for (Map.Entry<String, String> endpoint : properties.getEndpoints().entrySet()) {
+                if (pathMatcher.match(endpoint.getValue(), path)) {
+                    return rateLimitFilter.admit(exchange, endpoint.getKey(), () -> chain.filter(exchange));
+                }
+            }
+        }
+        return chain.filter(exchange);
+    }
+    
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE + 100;
+    }
+}
\ No newline at end of file
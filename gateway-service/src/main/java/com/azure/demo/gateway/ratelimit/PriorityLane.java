@@ -0,0 +1,22 @@
+package com.azure.demo.gateway.ratelimit;
+
+/**
+ * Admission lanes used to decide which traffic is shed first under overload.
+ * Each lane may only occupy its share of the gateway's in-flight capacity, so
+ * lower lanes are rejected well before critical traffic such as order placement.
+ */
+public enum PriorityLane {
+    CRITICAL(1.0),
+    STANDARD(0.8),
+    BULK(0.5);
+    
+    private final double capacityShare;
+    
+    PriorityLane(double capacityShare) {
+        this.capacityShare = capacityShare;
+    }
+    
+    public int admissionLimit(int maxInFlight) {
+        return Math.max(1, (int) (maxInFlight * capacityShare));
+    }
+}
\ No newline at end of file
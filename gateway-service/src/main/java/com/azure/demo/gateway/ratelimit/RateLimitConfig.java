@@ -0,0 +1,34 @@
+package com.azure.demo.gateway.ratelimit;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(RateLimitProperties.class)
+public class RateLimitConfig {
+    
+    /**
+     * Default per-instance store. Declare another TokenBucketStore bean to share
+     * buckets between gateway replicas.
+     */
+    @Bean
+    @ConditionalOnMissingBean(TokenBucketStore.class)
+    public TokenBucketStore tokenBucketStore(RateLimitProperties properties) {
+        return new InMemoryTokenBucketStore(properties.getMaxKeys());
+    }
+    
+    @Bean
+    public RateLimitFilter rateLimitFilter(RateLimitProperties properties, TokenBucketStore tokenBucketStore,
+                                           MeterRegistry meterRegistry) {
+        return new RateLimitFilter(properties, tokenBucketStore, meterRegistry);
+    }
+    
+    @Bean
+    public LocalEndpointRateLimitFilter localEndpointRateLimitFilter(RateLimitProperties properties,
+                                                                     RateLimitFilter rateLimitFilter) {
+        return new LocalEndpointRateLimitFilter(properties, rateLimitFilter);
+    }
+}
\ No newline at end of file
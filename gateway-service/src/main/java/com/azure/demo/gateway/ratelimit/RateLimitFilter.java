@@ -0,0 +1,174 @@
+package com.azure.demo.gateway.ratelimit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Global filter applying per client/route token buckets and priority based load shedding.
+ * Runs before the route filters so that lane rules match the original /api/** paths.
+ */
+public class RateLimitFilter implements GlobalFilter, Ordered {
+    
+    private static final Logger logger = LoggerFactory.getLogger(RateLimitFilter.class);
+    
+    private final RateLimitProperties properties;
+    private final TokenBucketStore tokenBucketStore;
+    private final MeterRegistry meterRegistry;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final TrustedProxies trustedProxies;
+    private final Set<String> apiKeys;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final ConcurrentMap<String, Counter> counters = new ConcurrentHashMap<>();
+    
+    public RateLimitFilter(RateLimitProperties properties, TokenBucketStore tokenBucketStore,
+                           MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.tokenBucketStore = tokenBucketStore;
+        this.meterRegistry = meterRegistry;
+        this.trustedProxies = new TrustedProxies(properties.getTrustedProxies());
+        this.apiKeys = Set.copyOf(properties.getApiKeys());
+        meterRegistry.gauge("gateway.requests.in.flight", inFlight);
+    }
+    
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        if (!properties.isEnabled() || route == null) {
+            return chain.filter(exchange);
+        }
+        return admit(exchange, route.getId(), () -> chain.filter(exchange));
+    }
+    
+    /**
+     * Applies the lane and token bucket checks for routeId and runs proceed when the request
+     * is admitted. Also used by LocalEndpointRateLimitFilter for handlers served by the
+     * gateway itself, which never get a route.
+     */
+    Mono<Void> admit(ServerWebExchange exchange, String routeId, Supplier<Mono<Void>> proceed) {
+        PriorityLane lane = resolveLane(exchange.getRequest());
+        
+        if (inFlight.incrementAndGet() > lane.admissionLimit(properties.getMaxInFlight())) {
+            inFlight.decrementAndGet();
+            record(routeId, lane, "shed");
+            return reject(exchange, HttpStatus.SERVICE_UNAVAILABLE);
+        }
+        
+        RateLimitProperties.Policy policy = properties.getRoutes()
+                .getOrDefault(routeId, properties.getDefaultPolicy());
+        String key = resolveClientKey(exchange.getRequest()) + ":" + routeId;
+        
+        return tokenBucketStore.tryConsume(key, policy.getCapacity(), policy.getRefillPerSecond(), 1)
+                .onErrorResume(e -> {
+                    // Fail open so an unavailable shared store does not take the gateway down
+                    logger.warn("Token bucket store unavailable, admitting request on route {}", routeId, e);
+                    return Mono.just(true);
+                })
+                .flatMap(allowed -> {
+                    if (!allowed) {
+                        record(routeId, lane, "rate_limited");
+                        return reject(exchange, HttpStatus.TOO_MANY_REQUESTS);
+                    }
+                    record(routeId, lane, "admitted");
+                    return proceed.get();
+                })
+                // Released once whether the exchange completes, fails or is cancelled by the client
+                .doFinally(signal -> inFlight.decrementAndGet());
+    }
+    
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE + 100;
+    }
+    
+    int inFlight() {
+        return inFlight.get();
+    }
+    
+    PriorityLane resolveLane(ServerHttpRequest request) {
+        String method = request.getMethod().name();
+        String path = request.getPath().value();
+        for (RateLimitProperties.LaneRule rule : properties.getLanes()) {
+            boolean methodMatches = rule.getMethod() == null || rule.getMethod().equalsIgnoreCase(method);
+            if (methodMatches && pathMatcher.match(rule.getPath(), path)) {
+                return rule.getLane();
+            }
+        }
+        return PriorityLane.STANDARD;
+    }
+    
+    String resolveClientKey(ServerHttpRequest request) {
+        // Only issued keys get their own bucket; otherwise every new header value would be a
+        // fresh, full bucket and a client could rotate keys to bypass its limit
+        String apiKey = request.getHeaders().getFirst(properties.getApiKeyHeader());
+        if (apiKey != null && !apiKey.isBlank() && apiKeys.contains(apiKey)) {
+            return "key:" + apiKey;
+        }
+        InetSocketAddress remoteAddress = request.getRemoteAddress();
+        if (remoteAddress == null || remoteAddress.getAddress() == null) {
+            return "anonymous";
+        }
+        String client = remoteAddress.getAddress().getHostAddress();
+        // X-Forwarded-For is only believed when it was added by one of our own proxies; walking
+        // it right to left up to the first untrusted hop stops clients picking their own key
+        if (trustedProxies.contains(client)) {
+            List<String> forwardedFor = request.getHeaders().getOrDefault("X-Forwarded-For", List.of());
+            List<String> hops = new ArrayList<>();
+            for (String header : forwardedFor) {
+                for (String hop : header.split(",")) {
+                    if (!hop.isBlank()) {
+                        hops.add(hop.trim());
+                    }
+                }
+            }
+            for (int i = hops.size() - 1; i >= 0; i--) {
+                client = hops.get(i);
+                if (!trustedProxies.contains(client)) {
+                    break;
+                }
+            }
+        }
+        return "ip:" + client;
+    }
+    
+    private Mono<Void> reject(ServerWebExchange exchange, HttpStatus status) {
+        exchange.getResponse().setStatusCode(status);
+        if (status == HttpStatus.TOO_MANY_REQUESTS) {
+            exchange.getResponse().getHeaders().set("Retry-After", "1");
+        }
+        return exchange.getResponse().setComplete();
+    }
+    
+    private void record(String routeId, PriorityLane lane, String outcome) {
+        if (!"admitted".equals(outcome)) {
+            logger.debug("Rejected request on route {} (lane={}, outcome={})", routeId, lane, outcome);
+        }
+        counters.computeIfAbsent(routeId + "|" + lane + "|" + outcome, k -> Counter.builder("gateway.requests.admission")
+                .description("Gateway admission decisions per route")
+                .tag("route", routeId)
+                .tag("lane", lane.name())
+                .tag("outcome", outcome)
+                .register(meterRegistry))
+                .increment();
+    }
+}
\ No newline at end of file
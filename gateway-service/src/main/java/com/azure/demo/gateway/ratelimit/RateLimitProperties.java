@@ -0,0 +1,178 @@
+package com.azure.demo.gateway.ratelimit;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@ConfigurationProperties(prefix = "gateway.rate-limit")
+public class RateLimitProperties {
+    
+    private boolean enabled = true;
+    
+    // Upper bound on concurrent requests before lower priority lanes are shed
+    private int maxInFlight = 500;
+    
+    // Number of client/route buckets kept; the least recently used are dropped beyond it
+    private int maxKeys = 100_000;
+    
+    private String apiKeyHeader = "X-API-Key";
+    
+    // API keys issued to clients; any other value in the header is ignored for keying
+    private List<String> apiKeys = new ArrayList<>();
+    
+    // Proxy addresses or CIDR ranges whose X-Forwarded-For is used to find the client address
+    private List<String> trustedProxies = new ArrayList<>();
+    
+    private Policy defaultPolicy = new Policy(100, 50);
+    
+    // Token bucket policies keyed by gateway route id
+    private Map<String, Policy> routes = new HashMap<>();
+    
+    private List<LaneRule> lanes = new ArrayList<>();
+    
+    // Endpoints served by the gateway itself (id -> path pattern), limited like routes with that id
+    private Map<String, String> endpoints = new HashMap<>();
+    
+    public static class Policy {
+        private long capacity;
+        private double refillPerSecond;
+        
+        public Policy() {}
+        
+        public Policy(long capacity, double refillPerSecond) {
+            this.capacity = capacity;
+            this.refillPerSecond = refillPerSecond;
+        }
+        
+        public long getCapacity() {
+            return capacity;
+        }
+        
+        public void setCapacity(long capacity) {
+            this.capacity = capacity;
+        }
+        
+        public double getRefillPerSecond() {
+            return refillPerSecond;
+        }
+        
+        public void setRefillPerSecond(double refillPerSecond) {
+            this.refillPerSecond = refillPerSecond;
+        }
+    }
+    
+    public static class LaneRule {
+        // HTTP method to match, or null for any method
+        private String method;
+        private String path;
+        private PriorityLane lane = PriorityLane.STANDARD;
+        
+        public String getMethod() {
+            return method;
+        }
+        
+        public void setMethod(String method) {
+            this.method = method;
+        }
+        
+        public String getPath() {
+            return path;
+        }
+        
+        public void setPath(String path) {
+            this.path = path;
+        }
+        
+        public PriorityLane getLane() {
+            return lane;
+        }
+        
+        public void setLane(PriorityLane lane) {
+            this.lane = lane;
+        }
+    }
+    
+    // Getters and Setters
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+    
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+    
+    public void setMaxInFlight(int maxInFlight) {
+        this.maxInFlight = maxInFlight;
+    }
+    
+    public int getMaxKeys() {
+        return maxKeys;
+    }
+    
+    public void setMaxKeys(int maxKeys) {
+        this.maxKeys = maxKeys;
+    }
+    
+    public String getApiKeyHeader() {
+        return apiKeyHeader;
+    }
+    
+    public void setApiKeyHeader(String apiKeyHeader) {
+        this.apiKeyHeader = apiKeyHeader;
+    }
+    
+    public List<String> getApiKeys() {
+        return apiKeys;
+    }
+    
+    public void setApiKeys(List<String> apiKeys) {
+        this.apiKeys = apiKeys;
+    }
+    
+    public List<String> getTrustedProxies() {
+        return trustedProxies;
+    }
+    
+    public void setTrustedProxies(List<String> trustedProxies) {
+        this.trustedProxies = trustedProxies;
+    }
+    
+    public Policy getDefaultPolicy() {
+        return defaultPolicy;
+    }
+    
+    public void setDefaultPolicy(Policy defaultPolicy) {
+        this.defaultPolicy = defaultPolicy;
+    }
+    
+    public Map<String, Policy> getRoutes() {
+        return routes;
+    }
+    
+    public void setRoutes(Map<String, Policy> routes) {
+        this.routes = routes;
+    }
+    
+    public Map<String, String> getEndpoints() {
+        return endpoints;
+    }
+    
+    public void setEndpoints(Map<String, String> endpoints) {
+        this.endpoints = endpoints;
+    }
+    
+    public List<LaneRule> getLanes() {
+        return lanes;
+    }
+    
+    public void setLanes(List<LaneRule> lanes) {
+        this.lanes = lanes;
+    }
+}
\ No newline at end of file
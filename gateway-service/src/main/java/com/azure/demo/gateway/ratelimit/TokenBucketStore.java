@@ -0,0 +1,19 @@
+package com.azure.demo.gateway.ratelimit;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Storage for token buckets keyed by client and route.
+ * The default implementation is in-memory and per-instance; a shared store
+ * (e.g. backed by Redis) can be provided as a bean to enforce limits across
+ * all gateway replicas.
+ */
+public interface TokenBucketStore {
+    
+    /**
+     * Attempts to take the given number of permits from the bucket identified by key.
+     *
+     * @return true if the permits were granted, false if the bucket is exhausted
+     */
+    Mono<Boolean> tryConsume(String key, long capacity, double refillPerSecond, int permits);
+}
\ No newline at end of file
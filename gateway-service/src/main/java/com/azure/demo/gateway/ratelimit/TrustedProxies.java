@@ -0,0 +1,88 @@
+package com.azure.demo.gateway.ratelimit;
+
+import java.math.BigInteger;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Matches addresses against the configured proxy list. Entries are plain addresses or CIDR
+ * ranges (10.0.0.0/8, fd00::/8); only literal IPs are accepted so matching never resolves DNS.
+ */
+class TrustedProxies {
+    
+    private final List<Range> ranges = new ArrayList<>();
+    
+    TrustedProxies(List<String> entries) {
+        for (String entry : entries) {
+            String trimmed = entry.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            int slash = trimmed.indexOf('/');
+            byte[] address = parse(slash < 0 ? trimmed : trimmed.substring(0, slash));
+            if (address == null) {
+                throw new IllegalArgumentException("Invalid gateway.rate-limit.trusted-proxies entry: " + entry);
+            }
+            int prefix = slash < 0 ? address.length * 8 : Integer.parseInt(trimmed.substring(slash + 1));
+            if (prefix < 0 || prefix > address.length * 8) {
+                throw new IllegalArgumentException("Invalid prefix length in gateway.rate-limit.trusted-proxies entry: " + entry);
+            }
+            ranges.add(new Range(address, prefix));
+        }
+    }
+    
+    boolean contains(String address) {
+        if (ranges.isEmpty()) {
+            return false;
+        }
+        byte[] bytes = parse(address);
+        if (bytes == null) {
+            return false;
+        }
+        for (Range range : ranges) {
+            if (range.matches(bytes)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    // Literal IPv4/IPv6 only; anything that looks like a host name is rejected
+    private static byte[] parse(String address) {
+        if (address.isEmpty() || !(Character.digit(address.charAt(0), 16) >= 0 || address.charAt(0) == ':')) {
+            return null;
+        }
+        if (address.indexOf(':') < 0 && !address.matches("[0-9.]+")) {
+            return null;
+        }
+        try {
+            return InetAddress.getByName(address).getAddress();
+        } catch (UnknownHostException e) {
+            return null;
+        }
+    }
+    
+    private static final class Range {
+        private final BigInteger network;
+        private final int length;
+        private final int prefix;
+        
+        Range(byte[] address, int prefix) {
+            this.length = address.length;
+            this.prefix = prefix;
+            this.network = masked(address, prefix);
+        }
+        
+        boolean matches(byte[] address) {
+            return address.length == length && masked(address, prefix).equals(network);
+        }
+        
+        private static BigInteger masked(byte[] address, int prefix) {
+            int bits = address.length * 8;
+            BigInteger value = new BigInteger(1, address);
+            return value.shiftRight(bits - prefix);
+        }
+    }
+}
\ No newline at end of file
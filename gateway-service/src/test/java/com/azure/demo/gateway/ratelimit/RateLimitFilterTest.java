@@ -0,0 +1,187 @@
+package com.azure.demo.gateway.ratelimit;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimitFilterTest {
+    
+    private static final GatewayFilterChain PASS = exchange -> Mono.empty();
+    
+    private final StandInTokenBucketStore store = new StandInTokenBucketStore();
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private RateLimitProperties properties;
+    
+    @BeforeEach
+    void setUp() {
+        properties = new RateLimitProperties();
+        properties.setDefaultPolicy(new RateLimitProperties.Policy(1, 0));
+        properties.setTrustedProxies(List.of("10.0.0.0/8"));
+        properties.setApiKeys(List.of("partner-1"));
+    }
+    
+    @Test
+    void rotatingForwardedForFromAnUntrustedClientSharesOneBucket() {
+        RateLimitFilter filter = new RateLimitFilter(properties, store, meterRegistry);
+        
+        MockServerWebExchange first = exchange("203.0.113.7", "198.51.100.1");
+        MockServerWebExchange second = exchange("203.0.113.7", "198.51.100.2");
+        filter.filter(first, PASS).block();
+        filter.filter(second, PASS).block();
+        
+        assertThat(store.keys).containsExactly("ip:203.0.113.7:order-service", "ip:203.0.113.7:order-service");
+        assertThat(first.getResponse().getStatusCode()).isNull();
+        assertThat(second.getResponse().getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(meterRegistry.get("gateway.requests.admission").tag("outcome", "rate_limited").counter().count())
+                .isEqualTo(1.0);
+    }
+    
+    @Test
+    void forwardedForFromATrustedProxyNamesTheClient() {
+        RateLimitFilter filter = new RateLimitFilter(properties, store, meterRegistry);
+        
+        filter.filter(exchange("10.1.2.3", "198.51.100.9, 10.4.5.6"), PASS).block();
+        
+        assertThat(store.keys).containsExactly("ip:198.51.100.9:order-service");
+    }
+    
+    @Test
+    void issuedApiKeyTakesPrecedenceOverTheAddress() {
+        RateLimitFilter filter = new RateLimitFilter(properties, store, meterRegistry);
+        
+        filter.filter(exchangeWithApiKey("partner-1"), PASS).block();
+        
+        assertThat(store.keys).containsExactly("key:partner-1:order-service");
+    }
+    
+    @Test
+    void rotatingUnknownApiKeysSharesTheAddressBucket() {
+        RateLimitFilter filter = new RateLimitFilter(properties, store, meterRegistry);
+        
+        MockServerWebExchange first = exchangeWithApiKey("made-up-1");
+        MockServerWebExchange second = exchangeWithApiKey("made-up-2");
+        filter.filter(first, PASS).block();
+        filter.filter(second, PASS).block();
+        
+        assertThat(store.keys).containsExactly("ip:203.0.113.7:order-service", "ip:203.0.113.7:order-service");
+        assertThat(first.getResponse().getStatusCode()).isNull();
+        assertThat(second.getResponse().getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+    }
+    
+    @Test
+    void cancelledExchangeReleasesItsInFlightSlot() {
+        RateLimitFilter filter = new RateLimitFilter(properties, store, meterRegistry);
+        
+        Disposable pending = filter.filter(exchange("203.0.113.7", null), exchange -> Mono.never()).subscribe();
+        assertThat(filter.inFlight()).isEqualTo(1);
+        pending.dispose();
+        
+        assertThat(filter.inFlight()).isZero();
+    }
+    
+    @Test
+    void unavailableStoreAdmitsTheRequest() {
+        TokenBucketStore failing = (key, capacity, refillPerSecond, permits) ->
+                Mono.error(new IllegalStateException("store down"));
+        RateLimitFilter filter = new RateLimitFilter(properties, failing, meterRegistry);
+        MockServerWebExchange exchange = exchange("203.0.113.7", null);
+        
+        filter.filter(exchange, PASS).block();
+        
+        assertThat(exchange.getResponse().getStatusCode()).isNull();
+        assertThat(filter.inFlight()).isZero();
+    }
+    
+    @Test
+    void gatewayLocalEndpointsAreLimitedLikeRoutes() {
+        properties.setEndpoints(Map.of("order-details", "/api/order-details/**"));
+        RateLimitFilter filter = new RateLimitFilter(properties, store, meterRegistry);
+        LocalEndpointRateLimitFilter localFilter = new LocalEndpointRateLimitFilter(properties, filter);
+        MockServerWebExchange first = MockServerWebExchange.from(MockServerHttpRequest.get("/api/order-details/1")
+                .remoteAddress(new InetSocketAddress("203.0.113.7", 40000)));
+        MockServerWebExchange second = MockServerWebExchange.from(MockServerHttpRequest.get("/api/order-details/2")
+                .remoteAddress(new InetSocketAddress("203.0.113.7", 40000)));
+        
+        localFilter.filter(first, exchange -> Mono.empty()).block();
+        localFilter.filter(second, exchange -> Mono.empty()).block();
+        
+        assertThat(store.keys).containsExactly("ip:203.0.113.7:order-details", "ip:203.0.113.7:order-details");
+        assertThat(second.getResponse().getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+    }
+    
+    @Test
+    void inMemoryStoreStaysWithinMaxKeys() {
+        InMemoryTokenBucketStore inMemory = new InMemoryTokenBucketStore(640);
+        
+        for (int i = 0; i < 100_000; i++) {
+            inMemory.tryConsume("ip:client-" + i + ":order-service", 10, 1, 1).block();
+        }
+        
+        assertThat(inMemory.size()).isLessThanOrEqualTo(640);
+    }
+    
+    private static MockServerWebExchange exchange(String remoteAddress, String forwardedFor) {
+        MockServerHttpRequest.BaseBuilder<?> request = MockServerHttpRequest.post("/api/orders")
+                .remoteAddress(new InetSocketAddress(remoteAddress, 40000));
+        if (forwardedFor != null) {
+            request.header("X-Forwarded-For", forwardedFor);
+        }
+        MockServerWebExchange exchange = MockServerWebExchange.from(request);
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, route());
+        return exchange;
+    }
+    
+    private static MockServerWebExchange exchangeWithApiKey(String apiKey) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.post("/api/orders")
+                .remoteAddress(new InetSocketAddress("203.0.113.7", 40000))
+                .header("X-API-Key", apiKey));
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, route());
+        return exchange;
+    }
+    
+    private static Route route() {
+        return Route.async()
+                .id("order-service")
+                .uri("http://localhost:8083")
+                .predicate(exchange -> true)
+                .build();
+    }
+    
+    /**
+     * Stand-in for a shared store: deterministic, time-free buckets that also record the keys
+     * the filter asked for.
+     */
+    static class StandInTokenBucketStore implements TokenBucketStore {
+        
+        final List<String> keys = new ArrayList<>();
+        private final Map<String, Long> used = new HashMap<>();
+        
+        @Override
+        public synchronized Mono<Boolean> tryConsume(String key, long capacity, double refillPerSecond, int permits) {
+            keys.add(key);
+            long taken = used.getOrDefault(key, 0L);
+            if (taken + permits > capacity) {
+                return Mono.just(false);
+            }
+            used.put(key, taken + permits);
+            return Mono.just(true);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,66 @@
+package com.azure.demo.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Command line options of {@link ConvergenceTestRunner}, in --name=value form like
+ * {@link LoadTestOptions}.
+ */
+public class ConvergenceTestOptions {
+    
+    private final Map<String, String> values = new HashMap<>();
+    
+    public ConvergenceTestOptions(String[] args) {
+        values.put("project-dir", ".");
+        values.put("profiles", "fast-discovery");
+        values.put("mode", "crash");
+        values.put("warmup", "30");
+        values.put("observe", "120");
+        values.put("probe-interval-ms", "20");
+        
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value but got: " + arg);
+            }
+            String name = arg.substring(2, arg.indexOf('='));
+            if (!values.containsKey(name)) {
+                throw new IllegalArgumentException("Unknown option: --" + name + ". Known options: " + values.keySet());
+            }
+            values.put(name, arg.substring(arg.indexOf('=') + 1));
+        }
+        if (!isCrash() && !"graceful".equals(values.get("mode"))) {
+            throw new IllegalArgumentException("--mode must be crash or graceful");
+        }
+    }
+    
+    public Path getProjectDir() {
+        return Path.of(values.get("project-dir")).toAbsolutePath().normalize();
+    }
+    
+    /** Spring profiles for every started process; blank runs with the default settings. */
+    public String getProfiles() {
+        return values.get("profiles");
+    }
+    
+    /** True to SIGKILL the instance, false to stop it with SIGTERM so it can deregister. */
+    public boolean isCrash() {
+        return "crash".equals(values.get("mode"));
+    }
+    
+    /** Upper bound on how long to wait for the gateway to route to both instances. */
+    public Duration getWarmup() {
+        return Duration.ofSeconds(Long.parseLong(values.get("warmup")));
+    }
+    
+    /** How long to keep probing after the instance went down. */
+    public Duration getObserve() {
+        return Duration.ofSeconds(Long.parseLong(values.get("observe")));
+    }
+    
+    public long getProbeIntervalMs() {
+        return Long.parseLong(values.get("probe-interval-ms"));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,175 @@
+package com.azure.demo.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Measures how long the gateway keeps routing to an instance that went down. Starts Eureka,
+ * two product-service instances and the gateway, waits until the gateway balances across
+ * both, stops the instance on port 8092 and then probes GET /api/products/health through
+ * the gateway while polling Eureka's view of product-service. Reports when Eureka dropped
+ * the instance and when the gateway returned its last error.
+ *
+ * <pre>
+ * java -cp load-tests/target/load-tests.jar com.azure.demo.loadtest.ConvergenceTestRunner --profiles=
+ * java -cp load-tests/target/load-tests.jar com.azure.demo.loadtest.ConvergenceTestRunner --profiles=fast-discovery
+ * java -cp load-tests/target/load-tests.jar com.azure.demo.loadtest.ConvergenceTestRunner --mode=graceful
+ * </pre>
+ */
+public class ConvergenceTestRunner {
+    
+    private static final int STOPPED_PORT = 8092;
+    private static final String GATEWAY = "http://localhost:8080";
+    private static final String EUREKA = "http://localhost:8761";
+    
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    
+    private ConvergenceTestRunner(HttpClient httpClient) {
+        this.httpClient = httpClient;
+    }
+    
+    public static void main(String[] args) throws Exception {
+        ConvergenceTestOptions options = new ConvergenceTestOptions(args);
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(2))
+                .build();
+        
+        ServiceStack stack = new ServiceStack(options.getProjectDir(), httpClient);
+        Runtime.getRuntime().addShutdownHook(new Thread(stack::close));
+        try {
+            stack.startWithDiscovery(options.getProfiles());
+            new ConvergenceTestRunner(httpClient).run(stack, options);
+        } finally {
+            stack.close();
+        }
+    }
+    
+    private void run(ServiceStack stack, ConvergenceTestOptions options) throws Exception {
+        System.out.printf("Waiting for the gateway to route to both product-service instances (profiles: '%s')%n",
+                options.getProfiles());
+        awaitBothInstancesRouted(options.getWarmup());
+        
+        System.out.printf("Stopping product-service on port %d (%s)%n", STOPPED_PORT,
+                options.isCrash() ? "SIGKILL" : "SIGTERM");
+        long stoppedAt = System.nanoTime();
+        stack.stop(STOPPED_PORT, !options.isCrash());
+        
+        long deadline = stoppedAt + options.getObserve().toNanos();
+        long eurekaRemovedAt = -1;
+        long firstErrorAt = -1;
+        long lastErrorAt = -1;
+        long requests = 0;
+        long errors = 0;
+        long nextRegistryPoll = 0;
+        while (System.nanoTime() < deadline) {
+            long now = System.nanoTime();
+            if (eurekaRemovedAt < 0 && now >= nextRegistryPoll) {
+                if (!eurekaListsInstance()) {
+                    eurekaRemovedAt = now;
+                }
+                nextRegistryPoll = now + Duration.ofMillis(250).toNanos();
+            }
+            
+            requests++;
+            if (!probe()) {
+                long failedAt = System.nanoTime();
+                errors++;
+                if (firstErrorAt < 0) {
+                    firstErrorAt = failedAt;
+                }
+                lastErrorAt = failedAt;
+            }
+            Thread.sleep(options.getProbeIntervalMs());
+        }
+        
+        System.out.printf("%nRequests after the stop:       %d (%d failed)%n", requests, errors);
+        System.out.printf("First gateway error after:     %s%n", since(stoppedAt, firstErrorAt));
+        System.out.printf("Last gateway error after:      %s%n", since(stoppedAt, lastErrorAt));
+        System.out.printf("Eureka dropped instance after: %s%n", since(stoppedAt, eurekaRemovedAt));
+        if (lastErrorAt > 0 && deadline - lastErrorAt < Duration.ofSeconds(10).toNanos()) {
+            System.out.println("Gateway still failed near the end of the run; increase --observe");
+        }
+    }
+    
+    /**
+     * The discovery locator route /product-service/** reaches instances round robin; each
+     * reports its port from /actuator/info (see ServiceStack.startWithDiscovery).
+     */
+    private void awaitBothInstancesRouted(Duration timeout) throws InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(GATEWAY + "/product-service/actuator/info"))
+                .timeout(Duration.ofSeconds(2))
+                .GET()
+                .build();
+        Set<String> seen = new HashSet<>();
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (seen.size() < 2) {
+            if (System.nanoTime() > deadline) {
+                throw new IllegalStateException("Gateway routed only to " + seen + " within " + timeout);
+            }
+            try {
+                HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+                if (response.statusCode() == 200) {
+                    JsonNode port = objectMapper.readTree(response.body()).get("port");
+                    if (port != null) {
+                        seen.add(port.asText());
+                    }
+                }
+            } catch (IOException e) {
+                // Gateway has not discovered product-service yet
+            }
+            Thread.sleep(200);
+        }
+    }
+    
+    private boolean probe() throws InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(GATEWAY + "/api/products/health"))
+                .timeout(Duration.ofSeconds(5))
+                .GET()
+                .build();
+        try {
+            return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+    
+    private boolean eurekaListsInstance() throws InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(EUREKA + "/eureka/apps/PRODUCT-SERVICE"))
+                .header("Accept", "application/json")
+                .timeout(Duration.ofSeconds(2))
+                .GET()
+                .build();
+        try {
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() == 404) {
+                return false;
+            }
+            // "instance" is an object for a single instance and an array for several
+            JsonNode instances = objectMapper.readTree(response.body()).path("application").path("instance");
+            for (JsonNode instance : instances.isArray() ? instances : objectMapper.createArrayNode().add(instances)) {
+                if (instance.path("port").path("$").asInt() == STOPPED_PORT) {
+                    return true;
+                }
+            }
+            return false;
+        } catch (IOException e) {
+            // Treat an unreachable registry as unchanged
+            return true;
+        }
+    }
+    
+    private static String since(long start, long end) {
+        return end < 0 ? "-" : String.format("%.1f s", (end - start) / 1e9);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,93 @@
+package com.azure.demo.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Creates users and products through the gateway before a run and remembers their ids
+ * for the request generators.
+ */
+public class DataSeeder {
+    
+    private static final String[] CATEGORIES = {"Electronics", "Books", "Clothing", "Home", "Sports", "Toys"};
+    
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final String baseUrl;
+    private final List<Long> userIds = new ArrayList<>();
+    private final List<Long> productIds = new ArrayList<>();
+    
+    public DataSeeder(HttpClient httpClient, String baseUrl) {
+        this.httpClient = httpClient;
+        this.baseUrl = baseUrl;
+    }
+    
+    public void seed(int users, int products) throws IOException, InterruptedException {
+        String runId = Long.toString(System.currentTimeMillis(), 36);
+        for (int i = 0; i < users; i++) {
+            userIds.add(post("/api/users", Map.of(
+                    "username", "load" + runId + "u" + i,
+                    "email", "load" + runId + "u" + i + "@example.com",
+                    "firstName", "Load",
+                    "lastName", "User " + i)));
+        }
+        for (int i = 0; i < products; i++) {
+            productIds.add(post("/api/products", Map.of(
+                    "name", searchTerm(i) + " " + runId,
+                    "description", "Seeded product for load testing",
+                    "price", 5 + (i % 200),
+                    "category", CATEGORIES[i % CATEGORIES.length],
+                    // Large enough that stock never runs out during a run
+                    "stockQuantity", 10_000_000)));
+        }
+    }
+    
+    /** Attaches to data that already exists, e.g. when running against a deployed stack. */
+    public void discover() throws IOException, InterruptedException {
+        for (JsonNode user : get("/api/users")) {
+            userIds.add(user.get("id").asLong());
+        }
+        for (JsonNode product : get("/api/products/active")) {
+            productIds.add(product.get("id").asLong());
+        }
+    }
+    
+    public static String searchTerm(int index) {
+        return "Item" + (index % 50);
+    }
+    
+    public List<Long> getUserIds() {
+        return userIds;
+    }
+    
+    public List<Long> getProductIds() {
+        return productIds;
+    }
+    
+    private long post(String path, Map<String, Object> body) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                .build();
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 201) {
+            throw new IllegalStateException("Seeding " + path + " failed with HTTP " + response.statusCode());
+        }
+        return objectMapper.readTree(response.body()).get("id").asLong();
+    }
+    
+    private JsonNode get(String path) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path)).GET().build();
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        return objectMapper.readTree(response.body());
+    }
+}
\ No newline at end of file
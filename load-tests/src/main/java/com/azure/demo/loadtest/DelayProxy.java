@@ -0,0 +1,78 @@
+package com.azure.demo.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * HTTP forwarder that adds a fixed delay before every request. Placed between
+ * order-service and product-service to simulate a slow dependency.
+ */
+public class DelayProxy implements AutoCloseable {
+    
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private final String targetUrl;
+    private final long delayMillis;
+    
+    public DelayProxy(int port, String targetUrl, long delayMillis) throws IOException {
+        this.targetUrl = targetUrl;
+        this.delayMillis = delayMillis;
+        this.server = HttpServer.create(new InetSocketAddress("localhost", port), 1024);
+        this.server.createContext("/", this::forward);
+        this.server.setExecutor(executor);
+    }
+    
+    public void start() {
+        server.start();
+    }
+    
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+    
+    private void forward(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            Thread.sleep(delayMillis);
+            byte[] requestBody;
+            try (InputStream in = exchange.getRequestBody()) {
+                requestBody = in.readAllBytes();
+            }
+            HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(targetUrl + exchange.getRequestURI()))
+                    .method(exchange.getRequestMethod(), requestBody.length == 0
+                            ? HttpRequest.BodyPublishers.noBody()
+                            : HttpRequest.BodyPublishers.ofByteArray(requestBody));
+            String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+            if (contentType != null) {
+                request.header("Content-Type", contentType);
+            }
+            String accept = exchange.getRequestHeaders().getFirst("Accept");
+            if (accept != null) {
+                request.header("Accept", accept);
+            }
+            HttpResponse<byte[]> response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+            response.headers().firstValue("Content-Type")
+                    .ifPresent(value -> exchange.getResponseHeaders().set("Content-Type", value));
+            byte[] body = response.body();
+            exchange.sendResponseHeaders(response.statusCode(), body.length == 0 ? -1 : body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,76 @@
+package com.azure.demo.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Follows the orders accepted by POST /api/orders/async until they leave PENDING, so a run
+ * reports the rate at which the fulfillment workers complete orders and not only how fast
+ * they are accepted. Orders are polled in passes, so completion times are only as precise
+ * as one pass over the orders still pending.
+ */
+public class FulfillmentProbe {
+    
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final String baseUrl;
+    
+    public FulfillmentProbe(HttpClient httpClient, String baseUrl) {
+        this.httpClient = httpClient;
+        this.baseUrl = baseUrl;
+    }
+    
+    /**
+     * Waits up to timeout for the orders to be fulfilled and prints how many ended in each
+     * status and the fulfilled orders per second, counted from measureStartNanos.
+     */
+    public void await(List<Long> orderIds, long measureStartNanos, Duration timeout, PrintStream out)
+            throws IOException, InterruptedException {
+        List<Long> pending = new ArrayList<>(orderIds);
+        Map<String, Integer> outcomes = new TreeMap<>();
+        long deadline = System.nanoTime() + timeout.toNanos();
+        long lastCompletion = measureStartNanos;
+        while (!pending.isEmpty() && System.nanoTime() < deadline) {
+            for (Iterator<Long> it = pending.iterator(); it.hasNext(); ) {
+                String status = status(it.next());
+                if (!"PENDING".equals(status)) {
+                    outcomes.merge(status, 1, Integer::sum);
+                    lastCompletion = System.nanoTime();
+                    it.remove();
+                }
+            }
+            if (!pending.isEmpty()) {
+                Thread.sleep(100);
+            }
+        }
+        
+        int fulfilled = orderIds.size() - pending.size();
+        double seconds = (lastCompletion - measureStartNanos) / 1e9;
+        out.printf("%nAsync orders accepted: %d, fulfilled: %d %s, still pending after %ds: %d%n",
+                orderIds.size(), fulfilled, outcomes, timeout.toSeconds(), pending.size());
+        if (fulfilled > 0 && seconds > 0) {
+            out.printf("Fulfillment throughput: %.1f orders/s over %.1fs%n", fulfilled / seconds, seconds);
+        }
+    }
+    
+    private String status(Long orderId) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/orders/" + orderId)).GET().build();
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            return "HTTP_" + response.statusCode();
+        }
+        return objectMapper.readTree(response.body()).get("status").asText();
+    }
+}
\ No newline at end of file
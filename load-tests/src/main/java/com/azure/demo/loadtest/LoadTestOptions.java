@@ -0,0 +1,101 @@
+package com.azure.demo.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Command line options in --name=value form. Unknown options are rejected so typos do
+ * not silently fall back to defaults.
+ */
+public class LoadTestOptions {
+    
+    private final Map<String, String> values = new HashMap<>();
+    
+    public LoadTestOptions(String[] args) {
+        values.put("base-url", "http://localhost:8080");
+        values.put("project-dir", ".");
+        values.put("start-services", "true");
+        values.put("seed", "true");
+        values.put("workload", "mixed");
+        values.put("rate", "100");
+        values.put("warmup", "10");
+        values.put("duration", "60");
+        values.put("users", "100");
+        values.put("products", "500");
+        values.put("async-orders", "false");
+        values.put("product-latency-ms", "0");
+        values.put("max-outstanding", "10000");
+        values.put("histogram-dir", "");
+        
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value but got: " + arg);
+            }
+            String name = arg.substring(2, arg.indexOf('='));
+            if (!values.containsKey(name)) {
+                throw new IllegalArgumentException("Unknown option: --" + name + ". Known options: " + values.keySet());
+            }
+            values.put(name, arg.substring(arg.indexOf('=') + 1));
+        }
+    }
+    
+    public String getBaseUrl() {
+        return values.get("base-url");
+    }
+    
+    public Path getProjectDir() {
+        return Path.of(values.get("project-dir")).toAbsolutePath().normalize();
+    }
+    
+    public boolean isStartServices() {
+        return Boolean.parseBoolean(values.get("start-services"));
+    }
+    
+    public boolean isSeed() {
+        return Boolean.parseBoolean(values.get("seed"));
+    }
+    
+    public String getWorkload() {
+        return values.get("workload");
+    }
+    
+    /** Target arrival rate in requests per second. */
+    public double getRate() {
+        return Double.parseDouble(values.get("rate"));
+    }
+    
+    public Duration getWarmup() {
+        return Duration.ofSeconds(Long.parseLong(values.get("warmup")));
+    }
+    
+    public Duration getDuration() {
+        return Duration.ofSeconds(Long.parseLong(values.get("duration")));
+    }
+    
+    public int getUsers() {
+        return Integer.parseInt(values.get("users"));
+    }
+    
+    public int getProducts() {
+        return Integer.parseInt(values.get("products"));
+    }
+    
+    public boolean isAsyncOrders() {
+        return Boolean.parseBoolean(values.get("async-orders"));
+    }
+    
+    /** Latency injected in front of product-service for calls from order-service. */
+    public long getProductLatencyMs() {
+        return Long.parseLong(values.get("product-latency-ms"));
+    }
+    
+    public int getMaxOutstanding() {
+        return Integer.parseInt(values.get("max-outstanding"));
+    }
+    
+    public String getHistogramDir() {
+        return values.get("histogram-dir");
+    }
+}
\ No newline at end of file
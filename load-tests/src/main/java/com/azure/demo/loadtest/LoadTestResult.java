@@ -0,0 +1,77 @@
+package com.azure.demo.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Latency histograms (nanoseconds) and error counts of one measured run, per workload.
+ */
+public class LoadTestResult {
+    
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+    
+    private final Map<Workload, Histogram> histograms;
+    private final Map<Workload, Long> errors;
+    private final long dropped;
+    private final double targetRate;
+    private final Duration duration;
+    
+    public LoadTestResult(Map<Workload, Histogram> histograms, Map<Workload, Long> errors, long dropped,
+                          double targetRate, Duration duration) {
+        this.histograms = histograms;
+        this.errors = errors;
+        this.dropped = dropped;
+        this.targetRate = targetRate;
+        this.duration = duration;
+    }
+    
+    public void print(PrintStream out) {
+        double seconds = duration.toMillis() / 1000.0;
+        out.printf("%nTarget rate: %.1f req/s, measured for %.0fs, dropped (client saturated): %d%n",
+                targetRate, seconds, dropped);
+        out.printf("%-16s %10s %10s %8s %9s %9s %9s %9s %9s%n",
+                "workload", "requests", "req/s", "errors", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        Histogram total = new Histogram(3);
+        long totalErrors = 0;
+        for (Map.Entry<Workload, Histogram> entry : histograms.entrySet()) {
+            long workloadErrors = errors.get(entry.getKey());
+            printRow(out, entry.getKey().name(), entry.getValue(), workloadErrors, seconds);
+            total.add(entry.getValue());
+            totalErrors += workloadErrors;
+        }
+        printRow(out, "TOTAL", total, totalErrors, seconds);
+    }
+    
+    /**
+     * Writes one .hgrm percentile distribution per workload, loadable in HdrHistogram's plotter.
+     */
+    public void writeHistograms(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        for (Map.Entry<Workload, Histogram> entry : histograms.entrySet()) {
+            Path file = directory.resolve(entry.getKey().name().toLowerCase() + ".hgrm");
+            try (PrintStream out = new PrintStream(new FileOutputStream(file.toFile()))) {
+                entry.getValue().outputPercentileDistribution(out, NANOS_PER_MILLI);
+            }
+        }
+    }
+    
+    private static void printRow(PrintStream out, String name, Histogram histogram, long errors, double seconds) {
+        out.printf("%-16s %10d %10.1f %8d %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                name,
+                histogram.getTotalCount(),
+                histogram.getTotalCount() / seconds,
+                errors,
+                histogram.getValueAtPercentile(50) / NANOS_PER_MILLI,
+                histogram.getValueAtPercentile(90) / NANOS_PER_MILLI,
+                histogram.getValueAtPercentile(99) / NANOS_PER_MILLI,
+                histogram.getValueAtPercentile(99.9) / NANOS_PER_MILLI,
+                histogram.getMaxValue() / NANOS_PER_MILLI);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,64 @@
+package com.azure.demo.loadtest;
+
+import java.net.http.HttpClient;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Runs a load test end to end: optionally starts the service stack, seeds data, drives the
+ * selected workload at a fixed arrival rate and prints latency percentiles and throughput.
+ * With async orders it then waits for the accepted orders to be fulfilled and prints the
+ * fulfillment throughput as well.
+ *
+ * <pre>
+ * java -jar load-tests/target/load-tests.jar --workload=create-order --rate=200 --duration=60
+ * java -jar load-tests/target/load-tests.jar --workload=create-order --async-orders=true --product-latency-ms=200
+ * java -jar load-tests/target/load-tests.jar --start-services=false --seed=false --base-url=http://gateway:8080
+ * </pre>
+ */
+public class LoadTestRunner {
+    
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = new LoadTestOptions(args);
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        
+        ServiceStack stack = new ServiceStack(options.getProjectDir(), httpClient);
+        Runtime.getRuntime().addShutdownHook(new Thread(stack::close));
+        try {
+            if (options.isStartServices()) {
+                stack.start(options.getProductLatencyMs());
+            }
+            
+            DataSeeder seeder = new DataSeeder(httpClient, options.getBaseUrl());
+            if (options.isSeed()) {
+                System.out.printf("Seeding %d users and %d products%n", options.getUsers(), options.getProducts());
+                seeder.seed(options.getUsers(), options.getProducts());
+            } else {
+                seeder.discover();
+            }
+            
+            RequestFactory requestFactory = new RequestFactory(options.getBaseUrl(), seeder.getUserIds(),
+                    seeder.getProductIds(), options.isAsyncOrders());
+            OpenModelDriver driver = new OpenModelDriver(httpClient, requestFactory, options.getMaxOutstanding());
+            
+            System.out.printf("Running '%s' at %.1f req/s (warmup %ds, duration %ds)%n", options.getWorkload(),
+                    options.getRate(), options.getWarmup().toSeconds(), options.getDuration().toSeconds());
+            LoadTestResult result = driver.run(Workload.mix(options.getWorkload()), options.getRate(),
+                    options.getWarmup(), options.getDuration());
+            
+            result.print(System.out);
+            if (options.isAsyncOrders()) {
+                new FulfillmentProbe(httpClient, options.getBaseUrl())
+                        .await(driver.getAcceptedOrders(), driver.getMeasureStartNanos(), Duration.ofMinutes(5), System.out);
+            }
+            if (!options.getHistogramDir().isBlank()) {
+                result.writeHistograms(Path.of(options.getHistogramDir()));
+            }
+        } finally {
+            stack.close();
+        }
+    }
+}
\ No newline at end of file
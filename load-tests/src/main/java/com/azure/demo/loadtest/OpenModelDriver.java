@@ -0,0 +1,130 @@
+package com.azure.demo.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-model load generator: requests are issued on a fixed arrival schedule whether or
+ * not earlier requests have completed. Latency is measured from each request's intended
+ * start time, so queueing inside the system under test is not hidden (no coordinated
+ * omission). Requests that would exceed maxOutstanding are counted as dropped.
+ */
+public class OpenModelDriver {
+    
+    private final HttpClient httpClient;
+    private final RequestFactory requestFactory;
+    private final int maxOutstanding;
+    private final Map<Workload, Recorder> recorders = new EnumMap<>(Workload.class);
+    private final Map<Workload, LongAdder> errors = new EnumMap<>(Workload.class);
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private final LongAdder dropped = new LongAdder();
+    // Ids of orders accepted as 202 by POST /api/orders/async during the measured period
+    private final Queue<Long> acceptedOrders = new ConcurrentLinkedQueue<>();
+    private long measureStartNanos;
+    
+    public OpenModelDriver(HttpClient httpClient, RequestFactory requestFactory, int maxOutstanding) {
+        this.httpClient = httpClient;
+        this.requestFactory = requestFactory;
+        this.maxOutstanding = maxOutstanding;
+        for (Workload workload : Workload.values()) {
+            recorders.put(workload, new Recorder(3));
+            errors.put(workload, new LongAdder());
+        }
+    }
+    
+    public LoadTestResult run(List<Workload> mix, double ratePerSecond, Duration warmup, Duration duration)
+            throws InterruptedException {
+        long intervalNanos = (long) (1_000_000_000L / ratePerSecond);
+        long start = System.nanoTime();
+        long measureFrom = start + warmup.toNanos();
+        measureStartNanos = measureFrom;
+        long end = measureFrom + duration.toNanos();
+        
+        boolean measuring = false;
+        for (long i = 0; ; i++) {
+            long intendedStart = start + i * intervalNanos;
+            if (intendedStart >= end) {
+                break;
+            }
+            long wait;
+            while ((wait = intendedStart - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            boolean measured = intendedStart >= measureFrom;
+            if (measured && !measuring) {
+                measuring = true;
+                System.out.println("Warmup complete, measuring for " + duration.toSeconds() + "s");
+            }
+            if (outstanding.get() >= maxOutstanding) {
+                if (measured) {
+                    dropped.increment();
+                }
+                continue;
+            }
+            
+            Workload workload = mix.get((int) (i % mix.size()));
+            outstanding.incrementAndGet();
+            httpClient.sendAsync(requestFactory.create(workload), HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, failure) -> {
+                        long latency = System.nanoTime() - intendedStart;
+                        outstanding.decrementAndGet();
+                        if (!measured) {
+                            return;
+                        }
+                        recorders.get(workload).recordValue(latency);
+                        if (failure != null || response.statusCode() >= 400) {
+                            errors.get(workload).increment();
+                        } else if (response.statusCode() == 202) {
+                            response.headers().firstValue("Location").map(OpenModelDriver::orderId)
+                                    .ifPresent(acceptedOrders::add);
+                        }
+                    });
+        }
+        
+        awaitOutstanding(Duration.ofSeconds(30));
+        
+        Map<Workload, Histogram> histograms = new EnumMap<>(Workload.class);
+        Map<Workload, Long> errorCounts = new EnumMap<>(Workload.class);
+        for (Workload workload : Workload.values()) {
+            Histogram histogram = recorders.get(workload).getIntervalHistogram();
+            if (histogram.getTotalCount() > 0) {
+                histograms.put(workload, histogram);
+                errorCounts.put(workload, errors.get(workload).sum());
+            }
+        }
+        return new LoadTestResult(histograms, errorCounts, dropped.sum(), ratePerSecond, duration);
+    }
+    
+    public List<Long> getAcceptedOrders() {
+        return new ArrayList<>(acceptedOrders);
+    }
+    
+    public long getMeasureStartNanos() {
+        return measureStartNanos;
+    }
+    
+    // The Location of an accepted order ends in its id
+    private static Long orderId(String location) {
+        return Long.valueOf(location.substring(location.lastIndexOf('/') + 1));
+    }
+    
+    private void awaitOutstanding(Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (outstanding.get() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,77 @@
+package com.azure.demo.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Builds one request for a workload, picking users, products and search terms at random
+ * from the seeded data.
+ */
+public class RequestFactory {
+    
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+    
+    private final String baseUrl;
+    private final List<Long> userIds;
+    private final List<Long> productIds;
+    private final boolean asyncOrders;
+    
+    public RequestFactory(String baseUrl, List<Long> userIds, List<Long> productIds, boolean asyncOrders) {
+        if (userIds.isEmpty() || productIds.isEmpty()) {
+            throw new IllegalStateException("No users or products to generate requests for");
+        }
+        this.baseUrl = baseUrl;
+        this.userIds = userIds;
+        this.productIds = productIds;
+        this.asyncOrders = asyncOrders;
+    }
+    
+    public HttpRequest create(Workload workload) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        switch (workload) {
+            case CREATE_ORDER:
+                return createOrder(random);
+            case BROWSE_CATALOG:
+                // Alternate between the catalog listing and single product pages
+                String path = random.nextInt(4) == 0
+                        ? "/api/products/active"
+                        : "/api/products/" + productIds.get(random.nextInt(productIds.size()));
+                return get(path);
+            case SEARCH:
+                return get("/api/products/search?name=" + DataSeeder.searchTerm(random.nextInt(50)));
+            default:
+                throw new IllegalArgumentException("Unsupported workload: " + workload);
+        }
+    }
+    
+    private HttpRequest createOrder(ThreadLocalRandom random) {
+        StringBuilder body = new StringBuilder("{\"userId\":")
+                .append(userIds.get(random.nextInt(userIds.size())))
+                .append(",\"items\":[");
+        int items = 1 + random.nextInt(3);
+        for (int i = 0; i < items; i++) {
+            if (i > 0) {
+                body.append(',');
+            }
+            body.append("{\"productId\":").append(productIds.get(random.nextInt(productIds.size())))
+                    .append(",\"quantity\":").append(1 + random.nextInt(3)).append('}');
+        }
+        body.append("]}");
+        
+        return HttpRequest.newBuilder(URI.create(baseUrl + (asyncOrders ? "/api/orders/async" : "/api/orders")))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+                .build();
+    }
+    
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(REQUEST_TIMEOUT)
+                .GET()
+                .build();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,208 @@
+package com.azure.demo.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Starts user-, product-, order- and gateway-service from their built jars on local ports.
+ * Eureka and the config server are not started: every service gets a static instance list
+ * through Spring Cloud's simple discovery client instead, so the stack runs offline.
+ * {@link #startWithDiscovery} starts a smaller stack that does go through Eureka.
+ */
+public class ServiceStack implements AutoCloseable {
+    
+    private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(3);
+    private static final String STATIC_DISCOVERY = "--eureka.client.enabled=false";
+    
+    private final Path projectDir;
+    private final Path logDir;
+    private final HttpClient httpClient;
+    private final Deque<Process> processes = new ArrayDeque<>();
+    private final Map<Integer, Process> processesByPort = new HashMap<>();
+    private DelayProxy productProxy;
+    
+    public ServiceStack(Path projectDir, HttpClient httpClient) {
+        this.projectDir = projectDir;
+        this.logDir = projectDir.resolve("load-tests/target/service-logs");
+        this.httpClient = httpClient;
+    }
+    
+    /**
+     * @param productLatencyMs when positive, order-service reaches product-service through
+     *                         a proxy on port 18082 that delays every call by this much
+     */
+    public void start(long productLatencyMs) throws IOException, InterruptedException {
+        Files.createDirectories(logDir);
+        
+        String productUriForOrders = "http://localhost:8082";
+        if (productLatencyMs > 0) {
+            productProxy = new DelayProxy(18082, "http://localhost:8082", productLatencyMs);
+            productProxy.start();
+            productUriForOrders = "http://localhost:18082";
+        }
+        
+        launch("user-service", 8081, List.of(STATIC_DISCOVERY));
+        launch("product-service", 8082, List.of(STATIC_DISCOVERY));
+        launch("order-service", 8083, List.of(STATIC_DISCOVERY,
+                instance("user-service", "http://localhost:8081"),
+                instance("product-service", productUriForOrders)));
+        launch("gateway-service", 8080, List.of(STATIC_DISCOVERY,
+                instance("user-service", "http://localhost:8081"),
+                instance("product-service", "http://localhost:8082"),
+                instance("order-service", "http://localhost:8083"),
+                // The load generator must not be throttled by the gateway's own limits
+                "--gateway.rate-limit.enabled=false"));
+        
+        awaitHealthy(8081);
+        awaitHealthy(8082);
+        awaitHealthy(8083);
+        awaitHealthy(8080);
+    }
+    
+    /**
+     * Starts eureka-server, two product-service instances (ports 8082 and 8092) and the
+     * gateway, all discovering each other through Eureka.
+     *
+     * @param profiles Spring profiles for every process, e.g. "fast-discovery"; blank for defaults
+     */
+    public void startWithDiscovery(String profiles) throws IOException, InterruptedException {
+        Files.createDirectories(logDir);
+        
+        List<String> common = new ArrayList<>(List.of("--eureka.client.service-url.defaultZone=http://localhost:8761/eureka/"));
+        if (!profiles.isBlank()) {
+            common.add("--spring.profiles.active=" + profiles);
+        }
+        
+        List<String> eurekaArgs = new ArrayList<>(common);
+        // The harness measures discovery, not authentication
+        eurekaArgs.add("--spring.autoconfigure.exclude="
+                + "org.springframework.boot.autoconfigure.security.servlet.SecurityAutoConfiguration,"
+                + "org.springframework.boot.actuate.autoconfigure.security.servlet.ManagementWebSecurityAutoConfiguration");
+        launch("eureka-server", 8761, eurekaArgs);
+        awaitHealthy(8761);
+        
+        for (int port : List.of(8082, 8092)) {
+            List<String> productArgs = new ArrayList<>(common);
+            // Lets callers tell the instances apart through the gateway
+            productArgs.add("--management.endpoints.web.exposure.include=health,info");
+            productArgs.add("--management.info.env.enabled=true");
+            productArgs.add("--info.port=" + port);
+            launch("product-service", port, productArgs);
+        }
+        List<String> gatewayArgs = new ArrayList<>(common);
+        gatewayArgs.add("--gateway.rate-limit.enabled=false");
+        launch("gateway-service", 8080, gatewayArgs);
+        
+        awaitHealthy(8082);
+        awaitHealthy(8092);
+        awaitHealthy(8080);
+    }
+    
+    /**
+     * Stops the process listening on the given port.
+     *
+     * @param graceful SIGTERM, letting the service deregister from Eureka; otherwise SIGKILL,
+     *                 as when a container or node dies
+     */
+    public synchronized void stop(int port, boolean graceful) throws InterruptedException {
+        Process process = processesByPort.remove(port);
+        if (process == null) {
+            throw new IllegalArgumentException("No process started on port " + port);
+        }
+        processes.remove(process);
+        if (graceful) {
+            process.destroy();
+        } else {
+            process.destroyForcibly();
+        }
+        process.waitFor();
+    }
+    
+    @Override
+    public synchronized void close() {
+        while (!processes.isEmpty()) {
+            Process process = processes.pop();
+            processesByPort.values().remove(process);
+            process.destroy();
+            try {
+                process.waitFor();
+            } catch (InterruptedException e) {
+                process.destroyForcibly();
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (productProxy != null) {
+            productProxy.close();
+            productProxy = null;
+        }
+    }
+    
+    private void launch(String service, int port, List<String> extraArgs) throws IOException {
+        List<String> command = new ArrayList<>(List.of(
+                Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-jar", findJar(service).toString(),
+                "--server.port=" + port,
+                "--spring.cloud.config.enabled=false",
+                "--spring.jpa.show-sql=false",
+                "--management.tracing.enabled=false",
+                "--logging.level.com.azure.demo=INFO",
+                "--logging.level.org.springframework.cloud=INFO",
+                "--logging.level.org.springframework.cloud.gateway=INFO"));
+        command.addAll(extraArgs);
+        
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(logDir.resolve(service + "-" + port + ".log").toFile())
+                .start();
+        processes.push(process);
+        processesByPort.put(port, process);
+        System.out.printf("Started %s on port %d (pid %d)%n", service, port, process.pid());
+    }
+    
+    private Path findJar(String service) throws IOException {
+        Path target = projectDir.resolve(service).resolve("target");
+        // The benchmarks profile builds the runnable jar with an -exec classifier
+        for (String name : List.of(service + "-1.0.0-exec.jar", service + "-1.0.0.jar")) {
+            if (Files.exists(target.resolve(name))) {
+                return target.resolve(name);
+            }
+        }
+        throw new IOException("No jar for " + service + " in " + target + "; run mvn package first");
+    }
+    
+    private void awaitHealthy(int port) throws InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/actuator/health"))
+                .timeout(Duration.ofSeconds(2))
+                .GET()
+                .build();
+        long deadline = System.nanoTime() + STARTUP_TIMEOUT.toNanos();
+        while (System.nanoTime() < deadline) {
+            try {
+                HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+                if (response.statusCode() == 200) {
+                    return;
+                }
+            } catch (IOException e) {
+                // Not listening yet
+            }
+            Thread.sleep(500);
+        }
+        throw new IllegalStateException("Service on port " + port + " did not become healthy; see " + logDir);
+    }
+    
+    private static String instance(String serviceId, String uri) {
+        return "--spring.cloud.discovery.client.simple.instances." + serviceId + "[0].uri=" + uri;
+    }
+}
\ No newline at end of file
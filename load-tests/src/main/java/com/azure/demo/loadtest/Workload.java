@@ -0,0 +1,32 @@
+package com.azure.demo.loadtest;
+
+import java.util.List;
+
+/**
+ * Request types issued by the load generator and the mixes they can be combined into.
+ */
+public enum Workload {
+    CREATE_ORDER,
+    BROWSE_CATALOG,
+    SEARCH;
+    
+    /**
+     * Resolves a workload name into a weighted mix. "mixed" approximates shop traffic:
+     * mostly browsing, some searching and a smaller share of checkouts.
+     */
+    public static List<Workload> mix(String name) {
+        switch (name.toLowerCase()) {
+            case "create-order":
+                return List.of(CREATE_ORDER);
+            case "browse":
+                return List.of(BROWSE_CATALOG);
+            case "search":
+                return List.of(SEARCH);
+            case "mixed":
+                return List.of(BROWSE_CATALOG, BROWSE_CATALOG, BROWSE_CATALOG, BROWSE_CATALOG, BROWSE_CATALOG, BROWSE_CATALOG,
+                        SEARCH, SEARCH, CREATE_ORDER, CREATE_ORDER);
+            default:
+                throw new IllegalArgumentException("Unknown workload: " + name + " (create-order, browse, search, mixed)");
+        }
+    }
+}
\ No newline at end of file
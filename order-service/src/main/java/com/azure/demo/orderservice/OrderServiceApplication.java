@@ -1,14 +1,33 @@
 package com.azure.demo.orderservice;
 
+import com.azure.demo.common.aot.FrozenToggle;
+import com.azure.demo.orderservice.client.SmileFeignConfig;
+import com.azure.demo.orderservice.sharding.ShardRoutingDataSource;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.openfeign.EnableFeignClients;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EnableFeignClients
+@EnableScheduling
+@ImportRuntimeHints(OrderServiceRuntimeHints.class)
 public class OrderServiceApplication {
 
     public static void main(String[] args) {
         SpringApplication.run(OrderServiceApplication.class, args);
     }
+
+    // Property-switched features of this service, checked against AOT builds (see FrozenToggleGuard)
+    @Bean
+    public FrozenToggle shardingToggle() {
+        return new FrozenToggle("orders.sharding.enabled", ShardRoutingDataSource.class);
+    }
+
+    @Bean
+    public FrozenToggle smileToggle() {
+        return new FrozenToggle("clients.smile.enabled", SmileFeignConfig.class);
+    }
 }
\ No newline at end of file
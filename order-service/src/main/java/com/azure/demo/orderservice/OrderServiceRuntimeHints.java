@@ -0,0 +1,53 @@
+package com.azure.demo.orderservice;
+
+import com.azure.demo.orderservice.client.ProductServiceClient;
+import com.azure.demo.orderservice.client.UserServiceClient;
+import com.azure.demo.orderservice.dto.CreateOrderRequest;
+import com.azure.demo.orderservice.dto.OrderHeader;
+import com.azure.demo.orderservice.dto.OrderTotals;
+import com.azure.demo.orderservice.dto.ProductDto;
+import com.azure.demo.orderservice.dto.ProductSales;
+import com.azure.demo.orderservice.dto.UserDto;
+import com.azure.demo.orderservice.dto.UserOrderSummary;
+import com.azure.demo.orderservice.messaging.OrderEvent;
+import com.azure.demo.orderservice.model.Money;
+import com.azure.demo.orderservice.model.Order;
+import com.azure.demo.orderservice.model.OrderItem;
+import com.azure.demo.orderservice.service.OrderAnalyticsService;
+import com.azure.demo.orderservice.sharding.ShardedIdGenerator;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+
+/**
+ * Reflection and proxy hints for the native image.
+ * <ul>
+ *   <li>Order and OrderItem are Hibernate entities, returned as JSON and stored as JSON
+ *       for idempotent replays.</li>
+ *   <li>UserDto and ProductDto are decoded from Feign responses, CreateOrderRequest is
+ *       stored as JSON for asynchronous fulfillment, and OrderEvent is the message payload.
+ *       The analytics snapshot and user order summary payloads are stored as JSON too.
+ *       None of these are visible to Spring's controller analysis.</li>
+ *   <li>The Feign clients are JDK proxies.</li>
+ *   <li>Hibernate instantiates the order id generator by class name.</li>
+ * </ul>
+ */
+public class OrderServiceRuntimeHints implements RuntimeHintsRegistrar {
+    
+    private final BindingReflectionHintsRegistrar bindingHints = new BindingReflectionHintsRegistrar();
+    
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        bindingHints.registerReflectionHints(hints.reflection(),
+                Order.class, OrderItem.class, Money.class,
+                UserDto.class, ProductDto.class,
+                CreateOrderRequest.class, CreateOrderRequest.OrderItemRequest.class,
+                OrderEvent.class,
+                OrderAnalyticsService.State.class, OrderTotals.class, ProductSales.class,
+                UserOrderSummary.class, OrderHeader.class);
+        hints.proxies().registerJdkProxy(UserServiceClient.class);
+        hints.proxies().registerJdkProxy(ProductServiceClient.class);
+        hints.reflection().registerType(ShardedIdGenerator.class, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+    }
+}
\ No newline at end of file
@@ -15,4 +15,7 @@ public interface ProductServiceClient {
     
     @PatchMapping("/products/{id}/decrease-stock")
     ProductDto decreaseStock(@PathVariable("id") Long id, @RequestParam("quantity") Integer quantity);
+    
+    @PatchMapping("/products/{id}/increase-stock")
+    ProductDto increaseStock(@PathVariable("id") Long id, @RequestParam("quantity") Integer quantity);
 }
\ No newline at end of file
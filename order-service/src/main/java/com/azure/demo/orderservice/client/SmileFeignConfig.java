@@ -0,0 +1,24 @@
+package com.azure.demo.orderservice.client;
+
+import feign.RequestInterceptor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+
+/**
+ * Opt-in binary encoding for service-to-service calls. When enabled, Feign clients ask
+ * downstream services for Smile (binary JSON) first and fall back to plain JSON, which
+ * the services still serve to clients that do not negotiate Smile.
+ */
+@Configuration
+@ConditionalOnProperty(name = "clients.smile.enabled", havingValue = "true")
+public class SmileFeignConfig {
+    
+    static final String SMILE_MEDIA_TYPE = "application/x-jackson-smile";
+    
+    @Bean
+    public RequestInterceptor smileAcceptInterceptor() {
+        return template -> template.header(HttpHeaders.ACCEPT, SMILE_MEDIA_TYPE, "application/json;q=0.9");
+    }
+}
\ No newline at end of file
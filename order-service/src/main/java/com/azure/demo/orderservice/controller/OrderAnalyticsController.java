@@ -0,0 +1,68 @@
+package com.azure.demo.orderservice.controller;
+
+import com.azure.demo.orderservice.dto.OrderAnalyticsSummary;
+import com.azure.demo.orderservice.dto.OrderTotals;
+import com.azure.demo.orderservice.dto.ProductSales;
+import com.azure.demo.orderservice.service.OrderAnalyticsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Pre-aggregated order reporting. Every response is read from in-memory aggregates, not
+ * computed from the orders table. The aggregates need a single order-service instance, so
+ * unless orders.analytics.enabled is set every endpoint answers 404.
+ */
+@RestController
+@RequestMapping("/orders/analytics")
+public class OrderAnalyticsController {
+    
+    private static final int MAX_TOP_PRODUCTS = 100;
+    
+    private final OrderAnalyticsService orderAnalyticsService;
+    
+    @Autowired
+    public OrderAnalyticsController(OrderAnalyticsService orderAnalyticsService) {
+        this.orderAnalyticsService = orderAnalyticsService;
+    }
+    
+    @GetMapping
+    public ResponseEntity<OrderAnalyticsSummary> getSummary(@RequestParam(defaultValue = "10") int topProducts) {
+        if (!orderAnalyticsService.isEnabled()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(orderAnalyticsService.getSummary(clamp(topProducts)));
+    }
+    
+    @GetMapping("/users/{userId}")
+    public ResponseEntity<OrderTotals> getUserTotals(@PathVariable Long userId) {
+        if (!orderAnalyticsService.isEnabled()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(orderAnalyticsService.getUserTotals(userId));
+    }
+    
+    @GetMapping("/days/{day}")
+    public ResponseEntity<OrderTotals> getDayTotals(@PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate day) {
+        if (!orderAnalyticsService.isEnabled()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(orderAnalyticsService.getDayTotals(day));
+    }
+    
+    @GetMapping("/top-products")
+    public ResponseEntity<List<ProductSales>> getTopProducts(@RequestParam(defaultValue = "10") int limit) {
+        if (!orderAnalyticsService.isEnabled()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(orderAnalyticsService.getTopProducts(clamp(limit)));
+    }
+    
+    private static int clamp(int limit) {
+        return Math.max(0, Math.min(limit, MAX_TOP_PRODUCTS));
+    }
+}
\ No newline at end of file
@@ -1,15 +1,26 @@
 package com.azure.demo.orderservice.controller;
 
 import com.azure.demo.orderservice.dto.CreateOrderRequest;
+import com.azure.demo.orderservice.dto.OrderStatusChange;
+import com.azure.demo.orderservice.dto.UserOrderSummary;
 import com.azure.demo.orderservice.model.Order;
 import com.azure.demo.orderservice.model.OrderStatus;
+import com.azure.demo.orderservice.service.DownstreamUnavailableException;
+import com.azure.demo.orderservice.service.IdempotencyConflictException;
+import com.azure.demo.orderservice.service.IdempotencyService;
+import com.azure.demo.orderservice.service.OrderFulfillmentService;
+import com.azure.demo.orderservice.service.OrderQueueFullException;
 import com.azure.demo.orderservice.service.OrderService;
+import com.azure.demo.orderservice.service.OrderStatusHistoryService;
+import com.azure.demo.orderservice.service.UserOrderSummaryService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.net.URI;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,10 +29,21 @@ import java.util.Optional;
 public class OrderController {
     
     private final OrderService orderService;
+    private final IdempotencyService idempotencyService;
+    private final OrderFulfillmentService orderFulfillmentService;
+    private final UserOrderSummaryService userOrderSummaryService;
+    private final OrderStatusHistoryService orderStatusHistoryService;
     
     @Autowired
-    public OrderController(OrderService orderService) {
+    public OrderController(OrderService orderService, IdempotencyService idempotencyService,
+                           OrderFulfillmentService orderFulfillmentService,
+                           UserOrderSummaryService userOrderSummaryService,
+                           OrderStatusHistoryService orderStatusHistoryService) {
         this.orderService = orderService;
+        this.idempotencyService = idempotencyService;
+        this.orderFulfillmentService = orderFulfillmentService;
+        this.userOrderSummaryService = userOrderSummaryService;
+        this.orderStatusHistoryService = orderStatusHistoryService;
     }
     
     @GetMapping
@@ -37,12 +59,23 @@ public class OrderController {
                 .orElse(ResponseEntity.notFound().build());
     }
     
+    // Status transitions from the journal, oldest first; empty for unknown orders or with the journal disabled
+    @GetMapping("/{id}/history")
+    public ResponseEntity<List<OrderStatusChange>> getOrderHistory(@PathVariable Long id) {
+        return ResponseEntity.ok(orderStatusHistoryService.getHistory(id));
+    }
+    
     @GetMapping("/user/{userId}")
     public ResponseEntity<List<Order>> getOrdersByUserId(@PathVariable Long userId) {
         List<Order> orders = orderService.getOrdersByUserId(userId);
         return ResponseEntity.ok(orders);
     }
     
+    @GetMapping("/user/{userId}/summary")
+    public ResponseEntity<UserOrderSummary> getUserOrderSummary(@PathVariable Long userId) {
+        return ResponseEntity.ok(userOrderSummaryService.getSummary(userId));
+    }
+    
     @GetMapping("/status/{status}")
     public ResponseEntity<List<Order>> getOrdersByStatus(@PathVariable OrderStatus status) {
         List<Order> orders = orderService.getOrdersByStatus(status);
@@ -50,15 +83,40 @@ public class OrderController {
     }
     
     @PostMapping
-    public ResponseEntity<Order> createOrder(@Valid @RequestBody CreateOrderRequest request) {
+    public ResponseEntity<Order> createOrder(@Valid @RequestBody CreateOrderRequest request,
+                                             @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
         try {
-            Order createdOrder = orderService.createOrder(request);
+            Order createdOrder = idempotencyKey == null || idempotencyKey.isBlank()
+                    ? orderService.createOrder(request)
+                    : idempotencyService.createOnce(idempotencyKey, request, () -> orderService.createOrder(request));
             return ResponseEntity.status(HttpStatus.CREATED).body(createdOrder);
+        } catch (IdempotencyConflictException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (DownstreamUnavailableException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header("Retry-After", "1").build();
         } catch (RuntimeException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
         }
     }
     
+    /**
+     * Accepts the order as PENDING and returns immediately; poll the Location URL until the
+     * status becomes CONFIRMED or REJECTED.
+     */
+    @PostMapping("/async")
+    public ResponseEntity<Order> submitOrder(@Valid @RequestBody CreateOrderRequest request) {
+        try {
+            Order acceptedOrder = orderFulfillmentService.submit(request);
+            URI statusUri = ServletUriComponentsBuilder.fromCurrentContextPath()
+                    .path("/orders/{id}")
+                    .buildAndExpand(acceptedOrder.getId())
+                    .toUri();
+            return ResponseEntity.accepted().location(statusUri).body(acceptedOrder);
+        } catch (OrderQueueFullException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header("Retry-After", "1").build();
+        }
+    }
+    
     @PatchMapping("/{id}/status")
     public ResponseEntity<Order> updateOrderStatus(@PathVariable Long id, @RequestParam OrderStatus status) {
         try {
@@ -0,0 +1,36 @@
+package com.azure.demo.orderservice.dto;
+
+import com.azure.demo.orderservice.model.OrderStatus;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Response of GET /orders/analytics.
+ */
+public class OrderAnalyticsSummary {
+    
+    private final OrderTotals total;
+    private final Map<OrderStatus, OrderTotals> byStatus;
+    private final List<ProductSales> topProducts;
+    
+    public OrderAnalyticsSummary(OrderTotals total, Map<OrderStatus, OrderTotals> byStatus,
+                                 List<ProductSales> topProducts) {
+        this.total = total;
+        this.byStatus = byStatus;
+        this.topProducts = topProducts;
+    }
+    
+    /** All orders; revenue excludes cancelled and rejected orders. */
+    public OrderTotals getTotal() {
+        return total;
+    }
+    
+    public Map<OrderStatus, OrderTotals> getByStatus() {
+        return byStatus;
+    }
+    
+    public List<ProductSales> getTopProducts() {
+        return topProducts;
+    }
+}
\ No newline at end of file
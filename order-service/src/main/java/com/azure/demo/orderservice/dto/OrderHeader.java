@@ -0,0 +1,57 @@
+package com.azure.demo.orderservice.dto;
+
+import com.azure.demo.orderservice.model.Order;
+import com.azure.demo.orderservice.model.OrderStatus;
+import com.azure.demo.orderservice.repository.OrderHeaderRow;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * An order without its items, as listed in a user's order summary.
+ */
+public class OrderHeader {
+    
+    private final Long id;
+    private final OrderStatus status;
+    private final BigDecimal totalAmount;
+    private final LocalDateTime createdAt;
+    
+    @JsonCreator
+    public OrderHeader(@JsonProperty("id") Long id,
+                       @JsonProperty("status") OrderStatus status,
+                       @JsonProperty("totalAmount") BigDecimal totalAmount,
+                       @JsonProperty("createdAt") LocalDateTime createdAt) {
+        this.id = id;
+        this.status = status;
+        this.totalAmount = totalAmount;
+        this.createdAt = createdAt;
+    }
+    
+    public static OrderHeader of(Order order) {
+        return new OrderHeader(order.getId(), order.getStatus(), order.getTotalAmount().toBigDecimal(),
+                order.getCreatedAt());
+    }
+    
+    public static OrderHeader of(OrderHeaderRow row) {
+        return new OrderHeader(row.getId(), row.getStatus(), row.getTotalAmount(), row.getCreatedAt());
+    }
+    
+    public Long getId() {
+        return id;
+    }
+    
+    public OrderStatus getStatus() {
+        return status;
+    }
+    
+    public BigDecimal getTotalAmount() {
+        return totalAmount;
+    }
+    
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
\ No newline at end of file
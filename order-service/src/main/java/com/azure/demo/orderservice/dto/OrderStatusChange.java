@@ -0,0 +1,39 @@
+package com.azure.demo.orderservice.dto;
+
+import com.azure.demo.orderservice.model.OrderStatus;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.time.Instant;
+
+/**
+ * One entry of an order's status history; from is null for the status the order was
+ * created with, and to is null when the order was deleted.
+ */
+public class OrderStatusChange {
+    
+    private final OrderStatus from;
+    private final OrderStatus to;
+    private final Instant changedAt;
+    
+    @JsonCreator
+    public OrderStatusChange(@JsonProperty("from") OrderStatus from,
+                             @JsonProperty("to") OrderStatus to,
+                             @JsonProperty("changedAt") Instant changedAt) {
+        this.from = from;
+        this.to = to;
+        this.changedAt = changedAt;
+    }
+    
+    public OrderStatus getFrom() {
+        return from;
+    }
+    
+    public OrderStatus getTo() {
+        return to;
+    }
+    
+    public Instant getChangedAt() {
+        return changedAt;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,46 @@
+package com.azure.demo.orderservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.math.BigDecimal;
+
+/**
+ * Order count and revenue for one analytics bucket (a status, a user or a day). Immutable,
+ * so buckets can be read without locking while they are being replaced.
+ */
+public class OrderTotals {
+    
+    public static final OrderTotals EMPTY = new OrderTotals(0, BigDecimal.ZERO);
+    
+    private final long orders;
+    private final BigDecimal revenue;
+    
+    @JsonCreator
+    public OrderTotals(@JsonProperty("orders") long orders, @JsonProperty("revenue") BigDecimal revenue) {
+        this.orders = orders;
+        this.revenue = revenue;
+    }
+    
+    public OrderTotals plus(long orderDelta, BigDecimal revenueDelta) {
+        return new OrderTotals(orders + orderDelta, revenue.add(revenueDelta));
+    }
+    
+    public OrderTotals plus(OrderTotals other) {
+        return plus(other.orders, other.revenue);
+    }
+    
+    @JsonIgnore
+    public boolean isEmpty() {
+        return orders == 0 && revenue.signum() == 0;
+    }
+    
+    public long getOrders() {
+        return orders;
+    }
+    
+    public BigDecimal getRevenue() {
+        return revenue;
+    }
+}
\ No newline at end of file
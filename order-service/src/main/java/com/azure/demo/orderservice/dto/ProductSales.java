@@ -0,0 +1,49 @@
+package com.azure.demo.orderservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.math.BigDecimal;
+import java.util.Comparator;
+
+/**
+ * Units sold and revenue for one product, counting only orders that were not cancelled
+ * or rejected.
+ */
+public class ProductSales {
+    
+    /** Best sellers first: by units, then revenue, then product id for a stable order. */
+    public static final Comparator<ProductSales> RANKING = Comparator
+            .comparingLong(ProductSales::getUnits).reversed()
+            .thenComparing(ProductSales::getRevenue, Comparator.reverseOrder())
+            .thenComparing(ProductSales::getProductId);
+    
+    private final Long productId;
+    private final long units;
+    private final BigDecimal revenue;
+    
+    @JsonCreator
+    public ProductSales(@JsonProperty("productId") Long productId,
+                        @JsonProperty("units") long units,
+                        @JsonProperty("revenue") BigDecimal revenue) {
+        this.productId = productId;
+        this.units = units;
+        this.revenue = revenue;
+    }
+    
+    public ProductSales plus(long unitDelta, BigDecimal revenueDelta) {
+        return new ProductSales(productId, units + unitDelta, revenue.add(revenueDelta));
+    }
+    
+    public Long getProductId() {
+        return productId;
+    }
+    
+    public long getUnits() {
+        return units;
+    }
+    
+    public BigDecimal getRevenue() {
+        return revenue;
+    }
+}
\ No newline at end of file
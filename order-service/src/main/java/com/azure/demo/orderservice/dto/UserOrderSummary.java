@@ -0,0 +1,71 @@
+package com.azure.demo.orderservice.dto;
+
+import com.azure.demo.orderservice.model.OrderStatus;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Response of GET /orders/user/{userId}/summary, and the payload stored for it in
+ * user_order_summary.
+ */
+public class UserOrderSummary {
+    
+    private Long userId;
+    private long orders;
+    private BigDecimal lifetimeSpend = BigDecimal.ZERO;
+    private Map<OrderStatus, Long> byStatus = new EnumMap<>(OrderStatus.class);
+    private List<OrderHeader> recentOrders = new ArrayList<>();
+    
+    public UserOrderSummary() {}
+    
+    public UserOrderSummary(Long userId) {
+        this.userId = userId;
+    }
+    
+    public Long getUserId() {
+        return userId;
+    }
+    
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+    
+    /** All of the user's orders, archived ones included. */
+    public long getOrders() {
+        return orders;
+    }
+    
+    public void setOrders(long orders) {
+        this.orders = orders;
+    }
+    
+    /** Total of the user's orders that were not cancelled or rejected. */
+    public BigDecimal getLifetimeSpend() {
+        return lifetimeSpend;
+    }
+    
+    public void setLifetimeSpend(BigDecimal lifetimeSpend) {
+        this.lifetimeSpend = lifetimeSpend;
+    }
+    
+    public Map<OrderStatus, Long> getByStatus() {
+        return byStatus;
+    }
+    
+    public void setByStatus(Map<OrderStatus, Long> byStatus) {
+        this.byStatus = byStatus;
+    }
+    
+    /** The newest orders, newest first. */
+    public List<OrderHeader> getRecentOrders() {
+        return recentOrders;
+    }
+    
+    public void setRecentOrders(List<OrderHeader> recentOrders) {
+        this.recentOrders = recentOrders;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,426 @@
+package com.azure.demo.orderservice.journal;
+
+import com.azure.demo.orderservice.dto.OrderStatusChange;
+import com.azure.demo.orderservice.model.OrderStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of order status transitions in memory-mapped segment files, named after
+ * the sequence number of their first record.
+ * <p>
+ * A record is 32 bytes: order id, sequence of the order's previous record (-1 for none),
+ * epoch millis, from and to status ordinals (from is -1 for a new order, to is -1 for a
+ * deleted one), two bytes of
+ * padding and a CRC32 of the first 28 bytes. The records of one order are chained backwards
+ * through the previous sequence, so the only index is the latest sequence per order, kept in
+ * memory and rebuilt by scanning the segments on open. Statuses are stored by ordinal, so new
+ * OrderStatus values must be added at the end.
+ * <p>
+ * Appends only write to the mapping. One flusher thread forces written records to disk, and
+ * every caller waiting in {@link #awaitDurable} is released by the same force, so concurrent
+ * writers share an fsync (group commit). On open the scan stops at the first record whose
+ * checksum does not match, which drops a record torn by a crash, and clears what follows it.
+ * <p>
+ * Only one process may write a journal: opening takes an exclusive lock on the directory's
+ * lock file and fails while another process holds it.
+ */
+public class OrderStatusJournal implements Closeable {
+    
+    private static final Logger logger = LoggerFactory.getLogger(OrderStatusJournal.class);
+    
+    static final int RECORD_SIZE = 32;
+    private static final int CHECKSUMMED = 28;
+    private static final byte NONE = -1;
+    private static final OrderStatus[] STATUSES = OrderStatus.values();
+    private static final String SUFFIX = ".journal";
+    private static final String LOCK_FILE = "journal.lock";
+    
+    private final Path directory;
+    private final int recordsPerSegment;
+    private final FileChannel lockChannel;
+    private final List<Segment> segments = new CopyOnWriteArrayList<>();
+    private final Map<Long, Long> latest = new ConcurrentHashMap<>();
+    
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition appended = lock.newCondition();
+    private final Condition flushed = lock.newCondition();
+    // Guarded by lock
+    private final byte[] record = new byte[RECORD_SIZE];
+    private final ByteBuffer recordBuffer = ByteBuffer.wrap(record);
+    private final CRC32 checksum = new CRC32();
+    private List<Segment> dirty = new ArrayList<>();
+    private long next;
+    private long durable;
+    private boolean closed;
+    private RuntimeException flushFailure;
+    
+    private final Thread flusher;
+    
+    /**
+     * Opens the journal in directory, creating it if needed, and recovers the records
+     * already there. segmentSize only applies to segments created from now on.
+     */
+    public OrderStatusJournal(Path directory, long segmentSize) throws IOException {
+        if (segmentSize < RECORD_SIZE || segmentSize / RECORD_SIZE > Integer.MAX_VALUE / RECORD_SIZE) {
+            throw new IllegalArgumentException("Unsupported journal segment size: " + segmentSize);
+        }
+        this.directory = directory;
+        this.recordsPerSegment = (int) (segmentSize / RECORD_SIZE);
+        Files.createDirectories(directory);
+        this.lockChannel = lockDirectory(directory);
+        try {
+            recover();
+        } catch (IOException | RuntimeException e) {
+            for (Segment segment : segments) {
+                segment.channel.close();
+            }
+            lockChannel.close();
+            throw e;
+        }
+        this.durable = next;
+        this.flusher = new Thread(this::flushLoop, "order-status-journal-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+    
+    /**
+     * Appends a transition and returns its sequence number. The record is readable at once
+     * but only survives a crash after {@link #awaitDurable} returned for it.
+     */
+    public long append(long orderId, OrderStatus from, OrderStatus to, long timestamp) throws IOException {
+        if (from == null && to == null) {
+            throw new IllegalArgumentException("A transition needs a from or a to status");
+        }
+        if (orderId <= 0) {
+            throw new IllegalArgumentException("Order ids must be positive: " + orderId);
+        }
+        lock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Order status journal is closed");
+            }
+            Segment segment = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+            if (segment == null || next == segment.end()) {
+                segment = openSegment(next, recordsPerSegment);
+                segments.add(segment);
+            }
+            Long previous = latest.get(orderId);
+            recordBuffer.putLong(0, orderId)
+                    .putLong(8, previous == null ? -1 : previous)
+                    .putLong(16, timestamp)
+                    .put(24, from == null ? NONE : (byte) from.ordinal())
+                    .put(25, to == null ? NONE : (byte) to.ordinal())
+                    .putShort(26, (short) 0);
+            checksum.reset();
+            checksum.update(record, 0, CHECKSUMMED);
+            recordBuffer.putInt(CHECKSUMMED, (int) checksum.getValue());
+            segment.buffer.put(segment.offset(next), record);
+            if (!dirty.contains(segment)) {
+                dirty.add(segment);
+            }
+            long sequence = next++;
+            latest.put(orderId, sequence);
+            appended.signal();
+            return sequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /** Blocks until the record with this sequence number has been forced to disk. */
+    public void awaitDurable(long sequence) throws InterruptedException {
+        lock.lock();
+        try {
+            while (durable <= sequence) {
+                if (flushFailure != null) {
+                    throw new IllegalStateException("Order status journal could not be flushed", flushFailure);
+                }
+                if (closed) {
+                    throw new IllegalStateException("Order status journal is closed");
+                }
+                flushed.await();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /** The order's transitions, oldest first; empty for orders the journal has not seen. */
+    public List<OrderStatusChange> history(long orderId) {
+        List<OrderStatusChange> changes = new ArrayList<>();
+        Long sequence = latest.get(orderId);
+        while (sequence != null && sequence >= 0) {
+            Segment segment = segmentFor(sequence);
+            // The chain ends early only if it points into records skipped as corrupt
+            if (segment == null) {
+                break;
+            }
+            ByteBuffer buffer = segment.buffer;
+            int offset = segment.offset(sequence);
+            if (buffer.getLong(offset) != orderId) {
+                break;
+            }
+            byte from = buffer.get(offset + 24);
+            byte to = buffer.get(offset + 25);
+            changes.add(new OrderStatusChange(from == NONE ? null : STATUSES[from], to == NONE ? null : STATUSES[to],
+                    Instant.ofEpochMilli(buffer.getLong(offset + 16))));
+            long previous = buffer.getLong(offset + 8);
+            sequence = previous < sequence ? previous : null;
+        }
+        Collections.reverse(changes);
+        return changes;
+    }
+    
+    /** Number of records, i.e. the sequence number of the next one. */
+    public long size() {
+        lock.lock();
+        try {
+            return next;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /** Forces what was appended and releases the files; waiting callers fail. */
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            appended.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (Segment segment : segments) {
+            segment.channel.close();
+        }
+        lockChannel.close();
+    }
+    
+    // The lock is released when the channel is closed, including when the process dies
+    private static FileChannel lockDirectory(Path directory) throws IOException {
+        FileChannel channel = FileChannel.open(directory.resolve(LOCK_FILE), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE);
+        boolean locked;
+        try {
+            locked = channel.tryLock() != null;
+        } catch (OverlappingFileLockException e) {
+            // Held by another journal in this JVM
+            locked = false;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        if (!locked) {
+            channel.close();
+            throw new IllegalStateException("Order status journal " + directory
+                    + " is in use by another process; each journal has a single writer");
+        }
+        return channel;
+    }
+    
+    private void flushLoop() {
+        while (true) {
+            List<Segment> toForce;
+            long target;
+            lock.lock();
+            try {
+                while (durable == next && !closed) {
+                    appended.awaitUninterruptibly();
+                }
+                if (durable == next) {
+                    flushed.signalAll();
+                    return;
+                }
+                target = next;
+                toForce = dirty;
+                dirty = new ArrayList<>();
+            } finally {
+                lock.unlock();
+            }
+            RuntimeException failure = null;
+            try {
+                for (Segment segment : toForce) {
+                    segment.buffer.force();
+                }
+            } catch (RuntimeException e) {
+                failure = e;
+            }
+            lock.lock();
+            try {
+                if (failure == null) {
+                    durable = target;
+                } else {
+                    flushFailure = failure;
+                }
+                flushed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            if (failure != null) {
+                logger.error("Order status journal flush failed; no further records will be confirmed", failure);
+                return;
+            }
+        }
+    }
+    
+    private void recover() throws IOException {
+        List<Path> files;
+        try (Stream<Path> list = Files.list(directory)) {
+            files = list.filter(file -> file.getFileName().toString().endsWith(SUFFIX)).sorted().toList();
+        }
+        long start = System.nanoTime();
+        long expected = 0;
+        for (int i = 0; i < files.size(); i++) {
+            Path file = files.get(i);
+            String name = file.getFileName().toString();
+            long base = Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+            if (base != expected) {
+                throw new IllegalStateException("Journal segment " + file + " does not start at record " + expected);
+            }
+            Segment segment = openSegment(base, -1);
+            if (segment.capacity == 0 && i == files.size() - 1) {
+                // Created but never extended before a crash
+                segment.channel.close();
+                Files.delete(file);
+                next = base;
+                break;
+            }
+            segments.add(segment);
+            int valid = scan(segment);
+            if (i == files.size() - 1) {
+                next = base + valid;
+                clearTail(segment, valid);
+            } else if (valid < segment.capacity) {
+                logger.warn("Skipping records {} to {} of journal segment {}: checksum mismatch",
+                        base + valid, segment.end() - 1, file);
+            }
+            expected = segment.end();
+        }
+        if (!files.isEmpty()) {
+            logger.info("Recovered {} order status changes of {} orders in {} ms", next, latest.size(),
+                    (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+    
+    // Indexes the segment's records up to the first invalid one and returns their count
+    private int scan(Segment segment) {
+        CRC32 crc = new CRC32();
+        ByteBuffer buffer = segment.buffer;
+        for (int i = 0; i < segment.capacity; i++) {
+            int offset = i * RECORD_SIZE;
+            crc.reset();
+            crc.update(buffer.slice(offset, CHECKSUMMED));
+            if ((int) crc.getValue() != buffer.getInt(offset + CHECKSUMMED)) {
+                return i;
+            }
+            latest.put(buffer.getLong(offset), segment.base + i);
+        }
+        return segment.capacity;
+    }
+    
+    // A crash can leave records after a torn one on disk; they must not reappear on a later
+    // scan once new records fill the gap. Writes are sequential, so the first never-written
+    // record (id and checksum zero) ends the region to clear.
+    private static void clearTail(Segment segment, int from) {
+        ByteBuffer buffer = segment.buffer;
+        byte[] zeros = new byte[RECORD_SIZE];
+        boolean cleared = false;
+        for (int i = from; i < segment.capacity; i++) {
+            int offset = i * RECORD_SIZE;
+            if (buffer.getLong(offset) == 0 && buffer.getInt(offset + CHECKSUMMED) == 0) {
+                break;
+            }
+            buffer.put(offset, zeros);
+            cleared = true;
+        }
+        if (cleared) {
+            segment.buffer.force();
+        }
+    }
+    
+    private Segment segmentFor(long sequence) {
+        int low = 0;
+        int high = segments.size() - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            Segment segment = segments.get(middle);
+            if (sequence < segment.base) {
+                high = middle - 1;
+            } else if (sequence >= segment.end()) {
+                low = middle + 1;
+            } else {
+                return segment;
+            }
+        }
+        return null;
+    }
+    
+    // capacity -1 opens an existing segment at its current size
+    private Segment openSegment(long base, int capacity) throws IOException {
+        Path file = directory.resolve(String.format("%020d%s", base, SUFFIX));
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            int records = capacity >= 0 ? capacity : (int) (channel.size() / RECORD_SIZE);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) records * RECORD_SIZE);
+            return new Segment(base, records, channel, buffer);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+    
+    private static final class Segment {
+        
+        final long base;
+        final int capacity;
+        final FileChannel channel;
+        final MappedByteBuffer buffer;
+        
+        Segment(long base, int capacity, FileChannel channel, MappedByteBuffer buffer) {
+            this.base = base;
+            this.capacity = capacity;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+        
+        long end() {
+            return base + capacity;
+        }
+        
+        int offset(long sequence) {
+            return (int) (sequence - base) * RECORD_SIZE;
+        }
+    }
+}
\ No newline at end of file
@@ -1,6 +1,10 @@
 package com.azure.demo.orderservice.messaging;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * Order event for messaging
@@ -12,6 +16,9 @@ public class OrderEvent {
     private String status;
     private LocalDateTime timestamp;
     private String details;
+    // Message headers; carries the trace context from publisher to consumer
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    private Map<String, String> headers = new HashMap<>();
 
     public OrderEvent() {
         this.timestamp = LocalDateTime.now();
@@ -73,4 +80,12 @@ public class OrderEvent {
     public void setDetails(String details) {
         this.details = details;
     }
+
+    public Map<String, String> getHeaders() {
+        return headers;
+    }
+
+    public void setHeaders(Map<String, String> headers) {
+        this.headers = headers;
+    }
 }
\ No newline at end of file
@@ -1,12 +1,18 @@
 package com.azure.demo.orderservice.messaging;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.observation.transport.Kind;
+import io.micrometer.observation.transport.ReceiverContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
 
+import java.util.Map;
+
 /**
  * Service for consuming order events from Azure Service Bus
  * This is a placeholder implementation for Azure Service Bus message consumption
@@ -20,6 +26,9 @@ public class OrderEventConsumer {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private ObservationRegistry observationRegistry;
+
     /**
      * Placeholder for order processing queue consumer
      * TODO: Implement with @ServiceBusMessageListener when Azure Service Bus is properly configured
@@ -27,10 +36,12 @@ public class OrderEventConsumer {
     public void handleOrderProcessing(String message) {
         try {
             OrderEvent orderEvent = objectMapper.readValue(message, OrderEvent.class);
-            logger.info("Processing order event: orderId={}, eventType={}, status={}", 
-                       orderEvent.getOrderId(), orderEvent.getEventType(), orderEvent.getStatus());
-            
-            processOrder(orderEvent);
+            observe("processing", orderEvent).observe(() -> {
+                logger.info("Processing order event: orderId={}, eventType={}, status={}", 
+                           orderEvent.getOrderId(), orderEvent.getEventType(), orderEvent.getStatus());
+                
+                processOrder(orderEvent);
+            });
             
         } catch (Exception e) {
             logger.error("Failed to process order event: {}", message, e);
@@ -44,10 +55,12 @@ public class OrderEventConsumer {
     public void handleOrderNotifications(String message) {
         try {
             OrderEvent orderEvent = objectMapper.readValue(message, OrderEvent.class);
-            logger.info("Processing notification event: orderId={}, eventType={}, status={}", 
-                       orderEvent.getOrderId(), orderEvent.getEventType(), orderEvent.getStatus());
-            
-            sendNotification(orderEvent);
+            observe("notifications", orderEvent).observe(() -> {
+                logger.info("Processing notification event: orderId={}, eventType={}, status={}", 
+                           orderEvent.getOrderId(), orderEvent.getEventType(), orderEvent.getStatus());
+                
+                sendNotification(orderEvent);
+            });
             
         } catch (Exception e) {
             logger.error("Failed to process notification event: {}", message, e);
@@ -63,4 +76,18 @@ public class OrderEventConsumer {
         // Implement notification sending logic
         logger.info("Notification sent for order: {}", orderEvent.getOrderId());
     }
+
+    /**
+     * Consumer observation for an event: records the "order.events.consumed" timer and
+     * continues the publisher's trace from the event headers, if it carried one.
+     */
+    private Observation observe(String queue, OrderEvent orderEvent) {
+        ReceiverContext<Map<String, String>> context = new ReceiverContext<>(Map::get, Kind.CONSUMER);
+        context.setCarrier(orderEvent.getHeaders());
+        return Observation.createNotStarted("order.events.consumed", () -> context, observationRegistry)
+                .contextualName("order-event " + queue)
+                .lowCardinalityKeyValue("queue", queue)
+                .lowCardinalityKeyValue("type", String.valueOf(orderEvent.getEventType()))
+                .highCardinalityKeyValue("order.id", String.valueOf(orderEvent.getOrderId()));
+    }
 }
\ No newline at end of file
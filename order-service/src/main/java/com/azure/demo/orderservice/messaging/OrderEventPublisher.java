@@ -2,12 +2,18 @@ package com.azure.demo.orderservice.messaging;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.observation.transport.Kind;
+import io.micrometer.observation.transport.SenderContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
 
+import java.util.Map;
+
 /**
  * Service for publishing order events to Azure Service Bus
  * This is a placeholder implementation that logs events when Azure Service Bus is not available
@@ -21,29 +27,50 @@ public class OrderEventPublisher {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private ObservationRegistry observationRegistry;
+
     /**
      * Publishes order created event
      */
     public void publishOrderCreated(OrderEvent orderEvent) {
-        try {
-            String message = objectMapper.writeValueAsString(orderEvent);
-            logger.info("Order created event would be published to Azure Service Bus: {}", message);
-            // TODO: Implement actual Azure Service Bus publishing when Spring Cloud Azure is properly configured
-        } catch (JsonProcessingException e) {
-            logger.error("Failed to serialize order event: {}", orderEvent.getOrderId(), e);
-        }
+        observe(orderEvent).observe(() -> {
+            try {
+                String message = objectMapper.writeValueAsString(orderEvent);
+                logger.info("Order created event would be published to Azure Service Bus: {}", message);
+                // TODO: Implement actual Azure Service Bus publishing when Spring Cloud Azure is properly configured
+            } catch (JsonProcessingException e) {
+                logger.error("Failed to serialize order event: {}", orderEvent.getOrderId(), e);
+            }
+        });
     }
 
     /**
      * Publishes order status changed event
      */
     public void publishOrderStatusChanged(OrderEvent orderEvent) {
-        try {
-            String message = objectMapper.writeValueAsString(orderEvent);
-            logger.info("Order status changed event would be published to Azure Service Bus: {}", message);
-            // TODO: Implement actual Azure Service Bus publishing when Spring Cloud Azure is properly configured
-        } catch (JsonProcessingException e) {
-            logger.error("Failed to serialize order event: {}", orderEvent.getOrderId(), e);
-        }
+        observe(orderEvent).observe(() -> {
+            try {
+                String message = objectMapper.writeValueAsString(orderEvent);
+                logger.info("Order status changed event would be published to Azure Service Bus: {}", message);
+                // TODO: Implement actual Azure Service Bus publishing when Spring Cloud Azure is properly configured
+            } catch (JsonProcessingException e) {
+                logger.error("Failed to serialize order event: {}", orderEvent.getOrderId(), e);
+            }
+        });
+    }
+
+    /**
+     * Producer observation for an event: records the "order.events.published" timer and,
+     * when tracing is on, injects the current trace context into the event headers
+     * before the event is serialized.
+     */
+    private Observation observe(OrderEvent orderEvent) {
+        SenderContext<Map<String, String>> context = new SenderContext<>(Map::put, Kind.PRODUCER);
+        context.setCarrier(orderEvent.getHeaders());
+        return Observation.createNotStarted("order.events.published", () -> context, observationRegistry)
+                .contextualName("order-event publish")
+                .lowCardinalityKeyValue("type", String.valueOf(orderEvent.getEventType()))
+                .highCardinalityKeyValue("order.id", String.valueOf(orderEvent.getOrderId()));
     }
 }
\ No newline at end of file
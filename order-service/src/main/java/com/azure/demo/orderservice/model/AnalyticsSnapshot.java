@@ -0,0 +1,83 @@
+package com.azure.demo.orderservice.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Serialized state of the order analytics aggregates. On startup the latest snapshot is
+ * reused if no order it covers (id up to maxOrderId) changed after it was taken, so only
+ * newer orders have to be added instead of re-aggregating the whole orders table.
+ */
+@Entity
+@Table(name = "analytics_snapshots")
+public class AnalyticsSnapshot {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "taken_at", nullable = false)
+    private LocalDateTime takenAt;
+    
+    @Column(name = "max_order_id", nullable = false)
+    private Long maxOrderId;
+    
+    @Column(name = "order_count", nullable = false)
+    private Long orderCount;
+    
+    @Lob
+    @Column(nullable = false)
+    private String payload;
+    
+    public AnalyticsSnapshot() {
+    }
+    
+    public AnalyticsSnapshot(LocalDateTime takenAt, Long maxOrderId, Long orderCount, String payload) {
+        this.takenAt = takenAt;
+        this.maxOrderId = maxOrderId;
+        this.orderCount = orderCount;
+        this.payload = payload;
+    }
+    
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public LocalDateTime getTakenAt() {
+        return takenAt;
+    }
+    
+    public void setTakenAt(LocalDateTime takenAt) {
+        this.takenAt = takenAt;
+    }
+    
+    public Long getMaxOrderId() {
+        return maxOrderId;
+    }
+    
+    public void setMaxOrderId(Long maxOrderId) {
+        this.maxOrderId = maxOrderId;
+    }
+    
+    public Long getOrderCount() {
+        return orderCount;
+    }
+    
+    public void setOrderCount(Long orderCount) {
+        this.orderCount = orderCount;
+    }
+    
+    public String getPayload() {
+        return payload;
+    }
+    
+    public void setPayload(String payload) {
+        this.payload = payload;
+    }
+}
\ No newline at end of file
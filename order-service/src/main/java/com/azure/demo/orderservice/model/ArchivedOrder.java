@@ -0,0 +1,160 @@
+package com.azure.demo.orderservice.model;
+
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * An order moved out of orders/order_items once it reached a final status and aged past
+ * the retention threshold. The order and its items are kept as one gzipped JSON payload;
+ * the columns beside it are what lookups and the analytics rebuild need.
+ * <p>
+ * archive_month (yyyyMM of the order's creation) is the partition key: on PostgreSQL the
+ * table can be declared PARTITION BY RANGE (archive_month), so old months can be
+ * detached or exported without touching the others.
+ * <p>
+ * The id is the order's own, so an archived order is new until it is stored or loaded and
+ * saving a batch is plain INSERTs, without a SELECT per row to decide between insert and
+ * merge.
+ */
+@Entity
+@Table(name = "order_archive", indexes = {
+        @Index(name = "idx_order_archive_user_id", columnList = "user_id"),
+        @Index(name = "idx_order_archive_month", columnList = "archive_month")
+})
+public class ArchivedOrder implements Persistable<Long> {
+    
+    @Id
+    private Long id;
+    
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private OrderStatus status;
+    
+    @Column(name = "total_amount", nullable = false, precision = 10, scale = 2)
+    private BigDecimal totalAmount;
+    
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+    
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+    
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+    
+    @Column(name = "archive_month", nullable = false)
+    private Integer archiveMonth;
+    
+    @Lob
+    @Column(nullable = false)
+    private byte[] payload;
+    
+    @Transient
+    private boolean isNew = true;
+    
+    public ArchivedOrder() {
+    }
+    
+    public ArchivedOrder(Order order, byte[] payload, LocalDateTime archivedAt) {
+        this.id = order.getId();
+        this.userId = order.getUserId();
+        this.status = order.getStatus();
+        this.totalAmount = order.getTotalAmount().toBigDecimal();
+        this.createdAt = order.getCreatedAt();
+        this.updatedAt = order.getUpdatedAt();
+        this.archivedAt = archivedAt;
+        this.archiveMonth = order.getCreatedAt().getYear() * 100 + order.getCreatedAt().getMonthValue();
+        this.payload = payload;
+    }
+    
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+    
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.isNew = false;
+    }
+    
+    // Getters and Setters
+    @Override
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public Long getUserId() {
+        return userId;
+    }
+    
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+    
+    public OrderStatus getStatus() {
+        return status;
+    }
+    
+    public void setStatus(OrderStatus status) {
+        this.status = status;
+    }
+    
+    public BigDecimal getTotalAmount() {
+        return totalAmount;
+    }
+    
+    public void setTotalAmount(BigDecimal totalAmount) {
+        this.totalAmount = totalAmount;
+    }
+    
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+    
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+    
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+    
+    public LocalDateTime getArchivedAt() {
+        return archivedAt;
+    }
+    
+    public void setArchivedAt(LocalDateTime archivedAt) {
+        this.archivedAt = archivedAt;
+    }
+    
+    public Integer getArchiveMonth() {
+        return archiveMonth;
+    }
+    
+    public void setArchiveMonth(Integer archiveMonth) {
+        this.archiveMonth = archiveMonth;
+    }
+    
+    public byte[] getPayload() {
+        return payload;
+    }
+    
+    public void setPayload(byte[] payload) {
+        this.payload = payload;
+    }
+}
\ No newline at end of file
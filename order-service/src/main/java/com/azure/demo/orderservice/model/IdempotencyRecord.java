@@ -0,0 +1,169 @@
+package com.azure.demo.orderservice.model;
+
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+/**
+ * Outcome of a request submitted with an Idempotency-Key header. A row is inserted as
+ * IN_PROGRESS before the request is executed, so concurrent duplicates on other instances
+ * fail on the primary key, and is completed with the serialized response afterwards.
+ * <p>
+ * An IN_PROGRESS row is held by its owner only until lease_expires_at; a row left behind by a
+ * crashed instance can then be taken over by a retry instead of blocking the key.
+ * <p>
+ * The key is assigned, so the record reports itself new until it is stored or loaded;
+ * saving a new record is then a plain INSERT that fails on an existing key instead of a
+ * merge that would overwrite another instance's claim.
+ */
+@Entity
+@Table(name = "idempotency_keys", indexes = @Index(name = "idx_idempotency_expires_at", columnList = "expires_at"))
+public class IdempotencyRecord implements Persistable<String> {
+    
+    public enum Status {
+        IN_PROGRESS,
+        COMPLETED
+    }
+    
+    @Id
+    @Column(name = "idempotency_key", length = 128)
+    private String key;
+    
+    @Column(name = "request_hash", nullable = false, length = 64)
+    private String requestHash;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Status status = Status.IN_PROGRESS;
+    
+    @Column(name = "response_status")
+    private Integer responseStatus;
+    
+    @Lob
+    @Column(name = "response_body")
+    private String responseBody;
+    
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+    
+    // Random token of the execution currently holding an IN_PROGRESS row
+    @Column(length = 36)
+    private String owner;
+    
+    @Column(name = "lease_expires_at")
+    private LocalDateTime leaseExpiresAt;
+    
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+    
+    @Transient
+    private boolean isNew = true;
+    
+    public IdempotencyRecord() {
+        this.createdAt = LocalDateTime.now();
+    }
+    
+    public IdempotencyRecord(String key, String requestHash, LocalDateTime expiresAt,
+                             String owner, LocalDateTime leaseExpiresAt) {
+        this();
+        this.key = key;
+        this.requestHash = requestHash;
+        this.expiresAt = expiresAt;
+        this.owner = owner;
+        this.leaseExpiresAt = leaseExpiresAt;
+    }
+    
+    public boolean isExpired() {
+        return expiresAt.isBefore(LocalDateTime.now());
+    }
+    
+    @Override
+    public String getId() {
+        return key;
+    }
+    
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+    
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.isNew = false;
+    }
+    
+    // Getters and Setters
+    public String getKey() {
+        return key;
+    }
+    
+    public void setKey(String key) {
+        this.key = key;
+    }
+    
+    public String getRequestHash() {
+        return requestHash;
+    }
+    
+    public void setRequestHash(String requestHash) {
+        this.requestHash = requestHash;
+    }
+    
+    public Status getStatus() {
+        return status;
+    }
+    
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+    
+    public Integer getResponseStatus() {
+        return responseStatus;
+    }
+    
+    public void setResponseStatus(Integer responseStatus) {
+        this.responseStatus = responseStatus;
+    }
+    
+    public String getResponseBody() {
+        return responseBody;
+    }
+    
+    public void setResponseBody(String responseBody) {
+        this.responseBody = responseBody;
+    }
+    
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+    
+    public String getOwner() {
+        return owner;
+    }
+    
+    public void setOwner(String owner) {
+        this.owner = owner;
+    }
+    
+    public LocalDateTime getLeaseExpiresAt() {
+        return leaseExpiresAt;
+    }
+    
+    public void setLeaseExpiresAt(LocalDateTime leaseExpiresAt) {
+        this.leaseExpiresAt = leaseExpiresAt;
+    }
+    
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+    
+    public void setExpiresAt(LocalDateTime expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
\ No newline at end of file
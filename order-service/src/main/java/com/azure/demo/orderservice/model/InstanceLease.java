@@ -0,0 +1,71 @@
+package com.azure.demo.orderservice.model;
+
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+/**
+ * A named lease held by one order-service instance until expires_at, for features that
+ * only work while a single instance is running. The holder renews it periodically; a
+ * second instance finds it held and refuses to start the feature, and a lease left
+ * behind by a crashed instance can be claimed once it has expired.
+ * <p>
+ * The name is assigned, so a lease is new until it is stored or loaded and saving it is a
+ * plain INSERT that fails on an existing name instead of overwriting the holder.
+ */
+@Entity
+@Table(name = "instance_leases")
+public class InstanceLease implements Persistable<String> {
+    
+    @Id
+    @Column(length = 64)
+    private String name;
+    
+    // Random token of the instance holding the lease
+    @Column(nullable = false, length = 36)
+    private String owner;
+    
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+    
+    @Transient
+    private boolean isNew = true;
+    
+    public InstanceLease() {
+    }
+    
+    public InstanceLease(String name, String owner, LocalDateTime expiresAt) {
+        this.name = name;
+        this.owner = owner;
+        this.expiresAt = expiresAt;
+    }
+    
+    @Override
+    public String getId() {
+        return name;
+    }
+    
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+    
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.isNew = false;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public String getOwner() {
+        return owner;
+    }
+    
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+}
\ No newline at end of file
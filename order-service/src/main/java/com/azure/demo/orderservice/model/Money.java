@@ -0,0 +1,85 @@
+package com.azure.demo.orderservice.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * An amount of money as a whole number of cents. Order totals and item prices are kept in
+ * this form so that summing an order is long arithmetic without allocating a BigDecimal per
+ * step; amounts are converted at the edges (JSON, the DECIMAL(10,2) columns, the analytics).
+ * <p>
+ * Amounts with more than two decimals are rounded half-even when converted in; arithmetic
+ * that would overflow a long throws ArithmeticException instead of wrapping.
+ */
+public final class Money implements Comparable<Money> {
+    
+    public static final Money ZERO = new Money(0);
+    
+    private static final int SCALE = 2;
+    
+    private final long cents;
+    
+    private Money(long cents) {
+        this.cents = cents;
+    }
+    
+    public static Money ofCents(long cents) {
+        return cents == 0 ? ZERO : new Money(cents);
+    }
+    
+    @JsonCreator
+    public static Money of(BigDecimal amount) {
+        return ofCents(amount.setScale(SCALE, RoundingMode.HALF_EVEN).unscaledValue().longValueExact());
+    }
+    
+    public long getCents() {
+        return cents;
+    }
+    
+    public Money plus(Money other) {
+        return ofCents(Math.addExact(cents, other.cents));
+    }
+    
+    public Money minus(Money other) {
+        return ofCents(Math.subtractExact(cents, other.cents));
+    }
+    
+    public Money times(long quantity) {
+        return ofCents(Math.multiplyExact(cents, quantity));
+    }
+    
+    public Money negate() {
+        return ofCents(Math.negateExact(cents));
+    }
+    
+    @JsonValue
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(cents, SCALE);
+    }
+    
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(cents, other.cents);
+    }
+    
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        return o instanceof Money other && cents == other.cents;
+    }
+    
+    @Override
+    public int hashCode() {
+        return Long.hashCode(cents);
+    }
+    
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+}
\ No newline at end of file
@@ -1,10 +1,12 @@
 package com.azure.demo.orderservice.model;
 
+import com.azure.demo.orderservice.sharding.ShardedIdGenerator;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
@@ -13,8 +15,13 @@ import java.util.List;
 @Table(name = "orders")
 public class Order {
     
+    // Unique across shards and encodes the order's shard; see ShardedIdGenerator
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "order_id")
+    @GenericGenerator(name = "order_id", type = ShardedIdGenerator.class, parameters = {
+            @Parameter(name = "sequence_name", value = "orders_seq"),
+            @Parameter(name = "increment_size", value = "1")
+    })
     private Long id;
     
     @NotNull(message = "User ID is required")
@@ -25,8 +32,13 @@ public class Order {
     @Column(nullable = false)
     private OrderStatus status = OrderStatus.PENDING;
     
+    // Kept current by addOrderItem/removeOrderItem rather than re-summed on every change
+    @Convert(converter = MoneyConverter.class)
     @Column(name = "total_amount", nullable = false, precision = 10, scale = 2)
-    private BigDecimal totalAmount = BigDecimal.ZERO;
+    private Money totalAmount = Money.ZERO;
+    
+    @Column(name = "failure_reason", length = 500)
+    private String failureReason;
     
     @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt;
@@ -54,19 +66,23 @@ public class Order {
     public void addOrderItem(OrderItem orderItem) {
         orderItems.add(orderItem);
         orderItem.setOrder(this);
-        calculateTotalAmount();
+        totalAmount = totalAmount.plus(orderItem.getSubtotal());
     }
     
     public void removeOrderItem(OrderItem orderItem) {
-        orderItems.remove(orderItem);
-        orderItem.setOrder(null);
-        calculateTotalAmount();
+        if (orderItems.remove(orderItem)) {
+            orderItem.setOrder(null);
+            totalAmount = totalAmount.minus(orderItem.getSubtotal());
+        }
     }
     
+    /** Re-sums the total; needed only after the item list was changed directly. */
     public void calculateTotalAmount() {
-        this.totalAmount = orderItems.stream()
-                .map(item -> item.getPrice().multiply(BigDecimal.valueOf(item.getQuantity())))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        long cents = 0;
+        for (OrderItem item : orderItems) {
+            cents = Math.addExact(cents, item.getSubtotal().getCents());
+        }
+        this.totalAmount = Money.ofCents(cents);
     }
     
     // Getters and Setters
@@ -94,14 +110,22 @@ public class Order {
         this.status = status;
     }
     
-    public BigDecimal getTotalAmount() {
+    public Money getTotalAmount() {
         return totalAmount;
     }
     
-    public void setTotalAmount(BigDecimal totalAmount) {
+    public void setTotalAmount(Money totalAmount) {
         this.totalAmount = totalAmount;
     }
     
+    public String getFailureReason() {
+        return failureReason;
+    }
+    
+    public void setFailureReason(String failureReason) {
+        this.failureReason = failureReason;
+    }
+    
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
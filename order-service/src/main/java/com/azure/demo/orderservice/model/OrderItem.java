@@ -1,11 +1,10 @@
 package com.azure.demo.orderservice.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
 
-import java.math.BigDecimal;
-
 @Entity
 @Table(name = "order_items")
 public class OrderItem {
@@ -14,6 +13,7 @@ public class OrderItem {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     
+    @JsonIgnore
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "order_id", nullable = false)
     private Order order;
@@ -27,8 +27,9 @@ public class OrderItem {
     private String productName;
     
     @NotNull(message = "Price is required")
+    @Convert(converter = MoneyConverter.class)
     @Column(nullable = false, precision = 10, scale = 2)
-    private BigDecimal price;
+    private Money price;
     
     @NotNull(message = "Quantity is required")
     @Positive(message = "Quantity must be positive")
@@ -37,15 +38,15 @@ public class OrderItem {
     
     public OrderItem() {}
     
-    public OrderItem(Long productId, String productName, BigDecimal price, Integer quantity) {
+    public OrderItem(Long productId, String productName, Money price, Integer quantity) {
         this.productId = productId;
         this.productName = productName;
         this.price = price;
         this.quantity = quantity;
     }
     
-    public BigDecimal getSubtotal() {
-        return price.multiply(BigDecimal.valueOf(quantity));
+    public Money getSubtotal() {
+        return price.times(quantity);
     }
     
     // Getters and Setters
@@ -81,11 +82,11 @@ public class OrderItem {
         this.productName = productName;
     }
     
-    public BigDecimal getPrice() {
+    public Money getPrice() {
         return price;
     }
     
-    public void setPrice(BigDecimal price) {
+    public void setPrice(Money price) {
         this.price = price;
     }
     
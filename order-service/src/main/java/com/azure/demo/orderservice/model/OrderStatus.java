@@ -6,5 +6,6 @@ public enum OrderStatus {
     PROCESSING,
     SHIPPED,
     DELIVERED,
-    CANCELLED
+    CANCELLED,
+    REJECTED
 }
\ No newline at end of file
@@ -0,0 +1,60 @@
+package com.azure.demo.orderservice.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Original request of an order accepted asynchronously. Kept until a fulfillment worker
+ * has confirmed or rejected the order, so pending work survives a restart.
+ */
+@Entity
+@Table(name = "order_submissions")
+public class OrderSubmission {
+    
+    @Id
+    @Column(name = "order_id")
+    private Long orderId;
+    
+    @Lob
+    @Column(name = "request_payload", nullable = false)
+    private String requestPayload;
+    
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+    
+    public OrderSubmission() {
+        this.createdAt = LocalDateTime.now();
+    }
+    
+    public OrderSubmission(Long orderId, String requestPayload) {
+        this();
+        this.orderId = orderId;
+        this.requestPayload = requestPayload;
+    }
+    
+    // Getters and Setters
+    public Long getOrderId() {
+        return orderId;
+    }
+    
+    public void setOrderId(Long orderId) {
+        this.orderId = orderId;
+    }
+    
+    public String getRequestPayload() {
+        return requestPayload;
+    }
+    
+    public void setRequestPayload(String requestPayload) {
+        this.requestPayload = requestPayload;
+    }
+    
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,82 @@
+package com.azure.demo.orderservice.model;
+
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+/**
+ * One user's order summary (counts by status, lifetime spend, latest order headers) as
+ * JSON, kept up to date in the same transaction as each change to the user's orders so
+ * the summary is a single-row read. Rows live on the user's shard, next to the orders.
+ * <p>
+ * The user id is assigned, so a record is new until it is stored or loaded and saving it
+ * is a plain INSERT; a second insert for the same user fails on the primary key instead of
+ * overwriting the first.
+ */
+@Entity
+@Table(name = "user_order_summary")
+public class UserOrderSummaryRecord implements Persistable<Long> {
+    
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+    
+    @Lob
+    @Column(nullable = false)
+    private String payload;
+    
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+    
+    @Transient
+    private boolean isNew = true;
+    
+    public UserOrderSummaryRecord() {
+    }
+    
+    public UserOrderSummaryRecord(Long userId) {
+        this.userId = userId;
+    }
+    
+    @Override
+    public Long getId() {
+        return userId;
+    }
+    
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+    
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.isNew = false;
+    }
+    
+    // Getters and Setters
+    public Long getUserId() {
+        return userId;
+    }
+    
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+    
+    public String getPayload() {
+        return payload;
+    }
+    
+    public void setPayload(String payload) {
+        this.payload = payload;
+    }
+    
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+    
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,22 @@
+package com.azure.demo.orderservice.repository;
+
+import com.azure.demo.orderservice.model.AnalyticsSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+@Repository
+public interface AnalyticsSnapshotRepository extends JpaRepository<AnalyticsSnapshot, Long> {
+    
+    Optional<AnalyticsSnapshot> findFirstByOrderByIdDesc();
+    
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM AnalyticsSnapshot s WHERE s.id <= :id")
+    int deleteUpTo(@Param("id") Long id);
+}
\ No newline at end of file
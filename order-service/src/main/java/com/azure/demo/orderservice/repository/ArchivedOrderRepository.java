@@ -0,0 +1,56 @@
+package com.azure.demo.orderservice.repository;
+
+import com.azure.demo.orderservice.model.ArchivedOrder;
+import com.azure.demo.orderservice.model.OrderStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+@Repository
+public interface ArchivedOrderRepository extends JpaRepository<ArchivedOrder, Long> {
+    List<ArchivedOrder> findByUserId(Long userId);
+    
+    // Analytics rebuild and snapshot validation; same shapes as the OrderRepository queries
+    
+    long countByIdLessThanEqual(Long id);
+    
+    boolean existsByIdGreaterThan(Long id);
+    
+    boolean existsByIdLessThanEqualAndUpdatedAtAfter(Long id, LocalDateTime updatedAt);
+    
+    @Query("SELECT COALESCE(MAX(a.id), 0) FROM ArchivedOrder a")
+    Long findMaxId();
+    
+    @Query("SELECT a.status AS key, COUNT(a) AS orders, SUM(a.totalAmount) AS revenue FROM ArchivedOrder a GROUP BY a.status")
+    List<OrderAggregate> aggregateByStatus();
+    
+    @Query("SELECT a.userId AS key, COUNT(a) AS orders, " +
+           "COALESCE(SUM(CASE WHEN a.status NOT IN :excluded THEN a.totalAmount ELSE 0 END), 0) AS revenue " +
+           "FROM ArchivedOrder a GROUP BY a.userId")
+    List<OrderAggregate> aggregateByUser(@Param("excluded") Collection<OrderStatus> excluded);
+    
+    @Query("SELECT CAST(a.createdAt AS LocalDate) AS key, COUNT(a) AS orders, " +
+           "COALESCE(SUM(CASE WHEN a.status NOT IN :excluded THEN a.totalAmount ELSE 0 END), 0) AS revenue " +
+           "FROM ArchivedOrder a GROUP BY CAST(a.createdAt AS LocalDate)")
+    List<OrderAggregate> aggregateByDay(@Param("excluded") Collection<OrderStatus> excluded);
+    
+    // Items are only in the payload, so product sales are summed by decoding it
+    @Query("SELECT a.payload FROM ArchivedOrder a WHERE a.status NOT IN :excluded")
+    Stream<byte[]> streamPayloads(@Param("excluded") Collection<OrderStatus> excluded);
+    
+    // User order summaries
+    
+    @Query("SELECT a.id AS id, a.userId AS userId, a.status AS status, a.totalAmount AS totalAmount, " +
+           "a.createdAt AS createdAt FROM ArchivedOrder a WHERE a.userId = :userId ORDER BY a.id DESC")
+    List<OrderHeaderRow> findHeadersByUserId(@Param("userId") Long userId, Pageable page);
+    
+    @Query("SELECT DISTINCT a.userId FROM ArchivedOrder a")
+    List<Long> findUserIds();
+}
\ No newline at end of file
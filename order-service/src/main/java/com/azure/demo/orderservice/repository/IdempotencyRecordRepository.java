@@ -0,0 +1,56 @@
+package com.azure.demo.orderservice.repository;
+
+import com.azure.demo.orderservice.model.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+    
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+    
+    /** Removes the key's row if it has expired, so the key can be claimed again. */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.key = :key AND r.expiresAt < :now")
+    int deleteIfExpired(@Param("key") String key, @Param("now") LocalDateTime now);
+    
+    /** Hands a stale IN_PROGRESS row for the same request to a new owner; 1 if taken over. */
+    @Transactional
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.owner = :owner, r.leaseExpiresAt = :leaseExpiresAt " +
+           "WHERE r.key = :key AND r.status = :status AND r.requestHash = :requestHash " +
+           "AND (r.leaseExpiresAt IS NULL OR r.leaseExpiresAt < :now)")
+    int takeOver(@Param("key") String key,
+                 @Param("requestHash") String requestHash,
+                 @Param("status") IdempotencyRecord.Status status,
+                 @Param("owner") String owner,
+                 @Param("leaseExpiresAt") LocalDateTime leaseExpiresAt,
+                 @Param("now") LocalDateTime now);
+    
+    /** Stores the response if owner still holds the row; 0 if it was taken over meanwhile. */
+    @Transactional
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.status = :status, r.responseStatus = :responseStatus, " +
+           "r.responseBody = :responseBody, r.owner = NULL, r.leaseExpiresAt = NULL " +
+           "WHERE r.key = :key AND r.owner = :owner")
+    int complete(@Param("key") String key,
+                 @Param("owner") String owner,
+                 @Param("status") IdempotencyRecord.Status status,
+                 @Param("responseStatus") Integer responseStatus,
+                 @Param("responseBody") String responseBody);
+    
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.key = :key AND r.owner = :owner")
+    int release(@Param("key") String key, @Param("owner") String owner);
+}
\ No newline at end of file
@@ -0,0 +1,31 @@
+package com.azure.demo.orderservice.repository;
+
+import com.azure.demo.orderservice.model.InstanceLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface InstanceLeaseRepository extends JpaRepository<InstanceLease, String> {
+    
+    /** Renews the lease for owner, or takes it over if it has expired; 1 if owner now holds it. */
+    @Transactional
+    @Modifying
+    @Query("UPDATE InstanceLease l SET l.owner = :owner, l.expiresAt = :expiresAt " +
+           "WHERE l.name = :name AND (l.owner = :owner OR l.expiresAt < :now)")
+    int claim(@Param("name") String name,
+              @Param("owner") String owner,
+              @Param("expiresAt") LocalDateTime expiresAt,
+              @Param("now") LocalDateTime now);
+    
+    /** Lets the lease expire at once if owner still holds it. */
+    @Transactional
+    @Modifying
+    @Query("UPDATE InstanceLease l SET l.expiresAt = :now WHERE l.name = :name AND l.owner = :owner")
+    int release(@Param("name") String name, @Param("owner") String owner, @Param("now") LocalDateTime now);
+}
\ No newline at end of file
@@ -0,0 +1,16 @@
+package com.azure.demo.orderservice.repository;
+
+import java.math.BigDecimal;
+
+/**
+ * One row of a GROUP BY over orders or order items, used to rebuild the analytics
+ * aggregates. For product rows, orders holds the units sold.
+ */
+public interface OrderAggregate {
+    
+    Object getKey();
+    
+    Long getOrders();
+    
+    BigDecimal getRevenue();
+}
\ No newline at end of file
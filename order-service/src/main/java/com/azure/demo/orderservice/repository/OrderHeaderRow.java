@@ -0,0 +1,22 @@
+package com.azure.demo.orderservice.repository;
+
+import com.azure.demo.orderservice.model.OrderStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * The columns of a live or archived order that the per-user order summaries keep.
+ */
+public interface OrderHeaderRow {
+    
+    Long getId();
+    
+    Long getUserId();
+    
+    OrderStatus getStatus();
+    
+    BigDecimal getTotalAmount();
+    
+    LocalDateTime getCreatedAt();
+}
\ No newline at end of file
@@ -2,14 +2,83 @@ package com.azure.demo.orderservice.repository;
 
 import com.azure.demo.orderservice.model.Order;
 import com.azure.demo.orderservice.model.OrderStatus;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
     List<Order> findByUserId(Long userId);
     List<Order> findByStatus(OrderStatus status);
     List<Order> findByUserIdAndStatus(Long userId, OrderStatus status);
+    
+    // Serializes fulfillment of the same pending order across workers and instances
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM Order o WHERE o.id = :id")
+    Optional<Order> findByIdForUpdate(@Param("id") Long id);
+    
+    // Analytics rebuild and snapshot validation
+    
+    @Query("SELECT DISTINCT o FROM Order o LEFT JOIN FETCH o.orderItems WHERE o.id > :id")
+    List<Order> findWithItemsByIdGreaterThan(@Param("id") Long id);
+    
+    long countByIdLessThanEqual(Long id);
+    
+    boolean existsByIdLessThanEqualAndUpdatedAtAfter(Long id, LocalDateTime updatedAt);
+    
+    @Query("SELECT COALESCE(MAX(o.id), 0) FROM Order o")
+    Long findMaxId();
+    
+    // Amounts are mapped as Money; queries cast them back to BigDecimal to compute with them
+    @Query("SELECT o.status AS key, COUNT(o) AS orders, SUM(CAST(o.totalAmount AS BigDecimal)) AS revenue " +
+           "FROM Order o GROUP BY o.status")
+    List<OrderAggregate> aggregateByStatus();
+    
+    @Query("SELECT o.userId AS key, COUNT(o) AS orders, " +
+           "COALESCE(SUM(CASE WHEN o.status NOT IN :excluded THEN CAST(o.totalAmount AS BigDecimal) ELSE 0 END), 0) AS revenue " +
+           "FROM Order o GROUP BY o.userId")
+    List<OrderAggregate> aggregateByUser(@Param("excluded") Collection<OrderStatus> excluded);
+    
+    @Query("SELECT CAST(o.createdAt AS LocalDate) AS key, COUNT(o) AS orders, " +
+           "COALESCE(SUM(CASE WHEN o.status NOT IN :excluded THEN CAST(o.totalAmount AS BigDecimal) ELSE 0 END), 0) AS revenue " +
+           "FROM Order o GROUP BY CAST(o.createdAt AS LocalDate)")
+    List<OrderAggregate> aggregateByDay(@Param("excluded") Collection<OrderStatus> excluded);
+    
+    @Query("SELECT i.productId AS key, SUM(i.quantity) AS orders, SUM(CAST(i.price AS BigDecimal) * i.quantity) AS revenue " +
+           "FROM OrderItem i WHERE i.order.status NOT IN :excluded GROUP BY i.productId")
+    List<OrderAggregate> aggregateByProduct(@Param("excluded") Collection<OrderStatus> excluded);
+    
+    // Archiving
+    
+    // Claims a batch for one instance: rows locked by another instance's mover are skipped
+    // (lock timeout -2 is Hibernate's SKIP LOCKED), so instances never archive the same order
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT o FROM Order o WHERE o.status IN :statuses AND COALESCE(o.updatedAt, o.createdAt) < :cutoff ORDER BY o.id")
+    List<Order> claimArchivable(@Param("statuses") Collection<OrderStatus> statuses,
+                                @Param("cutoff") LocalDateTime cutoff, Pageable page);
+    
+    @Query("SELECT DISTINCT o FROM Order o LEFT JOIN FETCH o.orderItems WHERE o.id IN :ids")
+    List<Order> findWithItemsByIdIn(@Param("ids") Collection<Long> ids);
+    
+    // User order summaries
+    
+    @Query("SELECT o.id AS id, o.userId AS userId, o.status AS status, " +
+           "CAST(o.totalAmount AS BigDecimal) AS totalAmount, o.createdAt AS createdAt " +
+           "FROM Order o WHERE o.userId = :userId ORDER BY o.id DESC")
+    List<OrderHeaderRow> findHeadersByUserId(@Param("userId") Long userId, Pageable page);
+    
+    @Query("SELECT DISTINCT o.userId FROM Order o")
+    List<Long> findUserIds();
 }
\ No newline at end of file
@@ -0,0 +1,12 @@
+package com.azure.demo.orderservice.repository;
+
+import com.azure.demo.orderservice.model.OrderSubmission;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface OrderSubmissionRepository extends JpaRepository<OrderSubmission, Long> {
+    List<OrderSubmission> findAllByOrderByCreatedAtAsc();
+}
\ No newline at end of file
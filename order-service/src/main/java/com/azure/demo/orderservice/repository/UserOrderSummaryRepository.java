@@ -0,0 +1,24 @@
+package com.azure.demo.orderservice.repository;
+
+import com.azure.demo.orderservice.model.UserOrderSummaryRecord;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface UserOrderSummaryRepository extends JpaRepository<UserOrderSummaryRecord, Long> {
+    
+    // Serializes concurrent order changes of the same user
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM UserOrderSummaryRecord s WHERE s.userId = :userId")
+    Optional<UserOrderSummaryRecord> findForUpdate(@Param("userId") Long userId);
+    
+    @Query("SELECT s.userId FROM UserOrderSummaryRecord s")
+    List<Long> findUserIds();
+}
\ No newline at end of file
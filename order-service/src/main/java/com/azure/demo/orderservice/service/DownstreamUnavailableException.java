@@ -0,0 +1,13 @@
+package com.azure.demo.orderservice.service;
+
+/**
+ * Thrown when user- or product-service could not be reached or failed with a server error.
+ * Unlike a missing user or product this says nothing about the order itself, so the order
+ * is retried rather than rejected.
+ */
+public class DownstreamUnavailableException extends RuntimeException {
+    
+    public DownstreamUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
\ No newline at end of file
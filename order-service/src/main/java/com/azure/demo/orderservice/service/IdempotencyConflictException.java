@@ -0,0 +1,12 @@
+package com.azure.demo.orderservice.service;
+
+/**
+ * Thrown when an Idempotency-Key is reused for a different request, or while the
+ * original request with that key is still being executed elsewhere.
+ */
+public class IdempotencyConflictException extends RuntimeException {
+    
+    public IdempotencyConflictException(String message) {
+        super(message);
+    }
+}
\ No newline at end of file
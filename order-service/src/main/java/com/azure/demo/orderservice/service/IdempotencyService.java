@@ -0,0 +1,266 @@
+package com.azure.demo.orderservice.service;
+
+import com.azure.demo.orderservice.dto.CreateOrderRequest;
+import com.azure.demo.orderservice.model.IdempotencyRecord;
+import com.azure.demo.orderservice.model.Order;
+import com.azure.demo.orderservice.repository.IdempotencyRecordRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Deduplicates order submissions carrying an Idempotency-Key header.
+ * <p>
+ * Completed responses are kept in a bounded LRU cache in front of the idempotency_keys
+ * table, so replays are answered without touching user- or product-service. Concurrent
+ * duplicates on the same instance wait for the first execution; duplicates on other
+ * instances are rejected by the IN_PROGRESS row until it completes. A duplicate with a
+ * different body is a conflict in every case.
+ * <p>
+ * The IN_PROGRESS row is leased for orders.idempotency.lease. If its execution dies without
+ * completing or releasing it, a retry of the same request takes it over once the lease has
+ * run out, so the lease must comfortably exceed the time an order creation can take.
+ */
+@Service
+public class IdempotencyService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyService.class);
+    
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final ObjectMapper objectMapper;
+    private final Duration retention;
+    private final Duration waitTimeout;
+    private final Map<String, CachedResponse> completed;
+    private final Duration lease;
+    private final ConcurrentMap<String, Execution> inFlight = new ConcurrentHashMap<>();
+    
+    @Autowired
+    public IdempotencyService(IdempotencyRecordRepository idempotencyRecordRepository,
+                              ObjectMapper objectMapper,
+                              @Value("${orders.idempotency.retention:24h}") Duration retention,
+                              @Value("${orders.idempotency.wait-timeout:30s}") Duration waitTimeout,
+                              @Value("${orders.idempotency.cache-size:10000}") int cacheSize,
+                              @Value("${orders.idempotency.lease:60s}") Duration lease) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.objectMapper = objectMapper;
+        this.retention = retention;
+        this.waitTimeout = waitTimeout;
+        this.lease = lease;
+        this.completed = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+    
+    /**
+     * Executes the order creation at most once per key within the retention window and
+     * returns the original result for any replay of the same request.
+     */
+    public Order createOnce(String key, CreateOrderRequest request, Supplier<Order> action) {
+        String requestHash = hash(request);
+        
+        CachedResponse cached = completed.get(key);
+        if (cached != null && !cached.isExpired()) {
+            return replay(key, requestHash, cached.requestHash, cached.body);
+        }
+        
+        Execution execution = new Execution(requestHash);
+        Execution existing = inFlight.putIfAbsent(key, execution);
+        if (existing != null) {
+            return awaitDuplicate(key, requestHash, existing);
+        }
+        
+        try {
+            Optional<IdempotencyRecord> stored = idempotencyRecordRepository.findById(key)
+                    .filter(record -> !record.isExpired());
+            IdempotencyRecord record;
+            if (stored.isPresent() && stored.get().getStatus() == IdempotencyRecord.Status.COMPLETED) {
+                remember(key, stored.get());
+                Order order = replay(key, requestHash, stored.get().getRequestHash(), stored.get().getResponseBody());
+                execution.result.complete(order);
+                return order;
+            } else if (stored.isPresent()) {
+                record = takeOver(key, requestHash, stored.get());
+            } else {
+                record = claim(key, requestHash);
+            }
+            
+            Order order;
+            try {
+                order = action.get();
+            } catch (RuntimeException e) {
+                // Failed attempts are not remembered so the client can retry with the same key
+                idempotencyRecordRepository.release(key, record.getOwner());
+                throw e;
+            }
+            
+            record.setStatus(IdempotencyRecord.Status.COMPLETED);
+            record.setResponseStatus(201);
+            record.setResponseBody(serialize(order));
+            int stillOwned = idempotencyRecordRepository.complete(key, record.getOwner(), record.getStatus(),
+                    record.getResponseStatus(), record.getResponseBody());
+            if (stillOwned == 0) {
+                logger.warn("Idempotency-Key {} was taken over after its lease expired; order {} may have a duplicate",
+                        key, order.getId());
+            }
+            remember(key, record);
+            
+            execution.result.complete(order);
+            return order;
+        } catch (RuntimeException e) {
+            execution.result.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, execution);
+        }
+    }
+    
+    @Scheduled(fixedDelayString = "${orders.idempotency.purge-interval:PT10M}")
+    public void purgeExpired() {
+        int removed = idempotencyRecordRepository.deleteExpired(LocalDateTime.now());
+        if (removed > 0) {
+            logger.debug("Purged {} expired idempotency keys", removed);
+        }
+    }
+    
+    private IdempotencyRecord claim(String key, String requestHash) {
+        LocalDateTime now = LocalDateTime.now();
+        IdempotencyRecord record = new IdempotencyRecord(key, requestHash, now.plus(retention),
+                UUID.randomUUID().toString(), now.plus(lease));
+        // A new record is persisted, not merged: if another instance claimed the key since
+        // the lookup, the INSERT fails on the primary key instead of overwriting its claim
+        try {
+            idempotencyRecordRepository.deleteIfExpired(key, now);
+            return idempotencyRecordRepository.saveAndFlush(record);
+        } catch (DataIntegrityViolationException e) {
+            throw new IdempotencyConflictException("Request with Idempotency-Key " + key + " is already being processed");
+        }
+    }
+    
+    // An IN_PROGRESS row whose lease ran out belongs to an execution that died before finishing
+    private IdempotencyRecord takeOver(String key, String requestHash, IdempotencyRecord record) {
+        if (!record.getRequestHash().equals(requestHash)) {
+            throw new IdempotencyConflictException("Idempotency-Key " + key + " was already used for a different request");
+        }
+        LocalDateTime now = LocalDateTime.now();
+        String owner = UUID.randomUUID().toString();
+        int taken = idempotencyRecordRepository.takeOver(key, requestHash, IdempotencyRecord.Status.IN_PROGRESS,
+                owner, now.plus(lease), now);
+        if (taken == 0) {
+            throw new IdempotencyConflictException("Request with Idempotency-Key " + key + " is still in progress");
+        }
+        logger.info("Took over Idempotency-Key {} whose lease expired at {}", key, record.getLeaseExpiresAt());
+        record.setOwner(owner);
+        record.setLeaseExpiresAt(now.plus(lease));
+        return record;
+    }
+    
+    private Order awaitDuplicate(String key, String requestHash, Execution existing) {
+        if (!existing.requestHash.equals(requestHash)) {
+            throw new IdempotencyConflictException("Idempotency-Key " + key + " was already used for a different request");
+        }
+        try {
+            return existing.result.get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new RuntimeException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new IdempotencyConflictException("Request with Idempotency-Key " + key + " is still in progress");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IdempotencyConflictException("Interrupted while waiting for Idempotency-Key " + key);
+        }
+    }
+    
+    private Order replay(String key, String requestHash, String storedHash, String body) {
+        if (!storedHash.equals(requestHash)) {
+            throw new IdempotencyConflictException("Idempotency-Key " + key + " was already used for a different request");
+        }
+        try {
+            return objectMapper.readValue(body, Order.class);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to read stored response for Idempotency-Key " + key, e);
+        }
+    }
+    
+    private void remember(String key, IdempotencyRecord record) {
+        completed.put(key, new CachedResponse(record.getRequestHash(), record.getResponseBody(), record.getExpiresAt()));
+    }
+    
+    private String serialize(Order order) {
+        try {
+            return objectMapper.writeValueAsString(order);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to serialize order " + order.getId(), e);
+        }
+    }
+    
+    private String hash(CreateOrderRequest request) {
+        StringBuilder fingerprint = new StringBuilder().append(request.getUserId());
+        if (request.getItems() != null) {
+            for (CreateOrderRequest.OrderItemRequest item : request.getItems()) {
+                fingerprint.append('|').append(item.getProductId()).append('x').append(item.getQuantity());
+            }
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(fingerprint.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    private static final class Execution {
+        private final String requestHash;
+        private final CompletableFuture<Order> result = new CompletableFuture<>();
+        
+        Execution(String requestHash) {
+            this.requestHash = requestHash;
+        }
+    }
+    
+    private static final class CachedResponse {
+        private final String requestHash;
+        private final String body;
+        private final LocalDateTime expiresAt;
+        
+        CachedResponse(String requestHash, String body, LocalDateTime expiresAt) {
+            this.requestHash = requestHash;
+            this.body = body;
+            this.expiresAt = expiresAt;
+        }
+        
+        boolean isExpired() {
+            return expiresAt.isBefore(LocalDateTime.now());
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,480 @@
+package com.azure.demo.orderservice.service;
+
+import com.azure.demo.orderservice.dto.OrderAnalyticsSummary;
+import com.azure.demo.orderservice.dto.OrderTotals;
+import com.azure.demo.orderservice.dto.ProductSales;
+import com.azure.demo.orderservice.model.AnalyticsSnapshot;
+import com.azure.demo.orderservice.model.InstanceLease;
+import com.azure.demo.orderservice.model.Order;
+import com.azure.demo.orderservice.model.OrderStatus;
+import com.azure.demo.orderservice.repository.AnalyticsSnapshotRepository;
+import com.azure.demo.orderservice.repository.ArchivedOrderRepository;
+import com.azure.demo.orderservice.repository.InstanceLeaseRepository;
+import com.azure.demo.orderservice.repository.OrderAggregate;
+import com.azure.demo.orderservice.repository.OrderRepository;
+import com.azure.demo.orderservice.sharding.OrderShards;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Supplier;
+
+/**
+ * Order counts and revenue by status, user and day, plus units sold per product, kept up
+ * to date from every OrderChangedEvent instead of being summed over the orders table.
+ * <p>
+ * Lookups are single map reads and the best-seller ranking is kept sorted, so reads do
+ * not depend on the number of orders. Writes are serialized; readers see immutable
+ * buckets. Changes are applied when the surrounding transaction commits and undone if
+ * the commit fails, and the aggregates are snapshotted to analytics_snapshots so a
+ * restart only has to add orders newer than the latest snapshot.
+ * <p>
+ * With orders sharded, ids only increase within a shard, so "newer than the snapshot"
+ * is not well defined across shards; snapshots are then skipped and a restart sums the
+ * per-shard GROUP BY results instead. Archived orders keep counting: archiving leaves
+ * the aggregates alone, and a rebuild adds the archive to the live tables.
+ * <p>
+ * The aggregates only see the order changes made by this process, so they are complete
+ * only while a single order-service instance is running, and the feature is disabled by
+ * default. Behind a load balancer every instance would count a different subset of the
+ * orders, and its snapshots would overwrite the others'. When enabled, the instance holds
+ * the "order-analytics" lease in instance_leases, renewing it every lease-renew-interval;
+ * a second instance that cannot claim it within lease-duration fails to start. The lease
+ * is released on shutdown, so only a crashed instance delays its successor.
+ */
+@Service
+public class OrderAnalyticsService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(OrderAnalyticsService.class);
+    private static final String LEASE = "order-analytics";
+    
+    private final OrderRepository orderRepository;
+    private final ArchivedOrderRepository archivedOrderRepository;
+    private final OrderArchiveService orderArchiveService;
+    private final AnalyticsSnapshotRepository snapshotRepository;
+    private final OrderShards orderShards;
+    private final ObjectMapper objectMapper;
+    private final int snapshotsRetained;
+    private final InstanceLeaseRepository leaseRepository;
+    private final boolean enabled;
+    private final Duration leaseDuration;
+    private final String leaseOwner = UUID.randomUUID().toString();
+    
+    private final Map<OrderStatus, OrderTotals> byStatus = new ConcurrentHashMap<>();
+    private final Map<Long, OrderTotals> byUser = new ConcurrentHashMap<>();
+    private final Map<LocalDate, OrderTotals> byDay = new ConcurrentHashMap<>();
+    private final Map<Long, ProductSales> byProduct = new ConcurrentHashMap<>();
+    private final NavigableSet<ProductSales> ranking = new ConcurrentSkipListSet<>(ProductSales.RANKING);
+    private final Object writeLock = new Object();
+    private long orderCount;
+    private long maxOrderId;
+    private long version;
+    private long snapshotVersion = -1;
+    
+    @Autowired
+    public OrderAnalyticsService(OrderRepository orderRepository,
+                                 ArchivedOrderRepository archivedOrderRepository,
+                                 OrderArchiveService orderArchiveService,
+                                 AnalyticsSnapshotRepository snapshotRepository,
+                                 OrderShards orderShards,
+                                 ObjectMapper objectMapper,
+                                 @Value("${orders.analytics.snapshots-retained:2}") int snapshotsRetained,
+                                 InstanceLeaseRepository leaseRepository,
+                                 @Value("${orders.analytics.enabled:false}") boolean enabled,
+                                 @Value("${orders.analytics.lease-duration:PT30S}") Duration leaseDuration) {
+        this.orderRepository = orderRepository;
+        this.archivedOrderRepository = archivedOrderRepository;
+        this.orderArchiveService = orderArchiveService;
+        this.snapshotRepository = snapshotRepository;
+        this.orderShards = orderShards;
+        this.objectMapper = objectMapper;
+        this.snapshotsRetained = snapshotsRetained;
+        this.leaseRepository = leaseRepository;
+        this.enabled = enabled;
+        this.leaseDuration = leaseDuration;
+    }
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    /**
+     * Applies an order change published by OrderService. Inside a transaction the change
+     * is applied just before commit, so it is never visible for an order that was rolled
+     * back.
+     */
+    @EventListener
+    void onOrderChanged(OrderChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        OrderContribution before = event.getBefore() == null ? null : event.getBefore().getContribution();
+        OrderContribution after = event.getAfter() == null ? null : event.getAfter().getContribution();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(before, after);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private boolean applied;
+            
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                apply(before, after);
+                applied = true;
+            }
+            
+            @Override
+            public void afterCompletion(int status) {
+                if (applied && status == STATUS_ROLLED_BACK) {
+                    apply(after, before);
+                }
+            }
+        });
+    }
+    
+    public OrderAnalyticsSummary getSummary(int topProducts) {
+        Map<OrderStatus, OrderTotals> statuses = new EnumMap<>(OrderStatus.class);
+        long orders = 0;
+        BigDecimal revenue = BigDecimal.ZERO;
+        for (OrderStatus status : OrderStatus.values()) {
+            OrderTotals totals = byStatus.getOrDefault(status, OrderTotals.EMPTY);
+            statuses.put(status, totals);
+            orders += totals.getOrders();
+            if (!OrderContribution.NON_REVENUE_STATUSES.contains(status)) {
+                revenue = revenue.add(totals.getRevenue());
+            }
+        }
+        return new OrderAnalyticsSummary(new OrderTotals(orders, revenue), statuses, getTopProducts(topProducts));
+    }
+    
+    public OrderTotals getUserTotals(Long userId) {
+        return byUser.getOrDefault(userId, OrderTotals.EMPTY);
+    }
+    
+    public OrderTotals getDayTotals(LocalDate day) {
+        return byDay.getOrDefault(day, OrderTotals.EMPTY);
+    }
+    
+    public List<ProductSales> getTopProducts(int limit) {
+        List<ProductSales> top = new ArrayList<>(limit);
+        for (ProductSales sales : ranking) {
+            if (top.size() == limit) {
+                break;
+            }
+            top.add(sales);
+        }
+        return top;
+    }
+    
+    private void apply(OrderContribution before, OrderContribution after) {
+        synchronized (writeLock) {
+            if (before != null) {
+                add(before, -1);
+            }
+            if (after != null) {
+                add(after, 1);
+            }
+            if (before == null && after != null) {
+                orderCount++;
+                maxOrderId = Math.max(maxOrderId, after.orderId);
+            } else if (before != null && after == null) {
+                orderCount--;
+            }
+            version++;
+        }
+    }
+    
+    private void add(OrderContribution contribution, int sign) {
+        BigDecimal signedAmount = sign > 0 ? contribution.amount : contribution.amount.negate();
+        BigDecimal revenue = contribution.isRevenue() ? signedAmount : BigDecimal.ZERO;
+        addTotals(byStatus, contribution.status, new OrderTotals(sign, signedAmount));
+        addTotals(byUser, contribution.userId, new OrderTotals(sign, revenue));
+        addTotals(byDay, contribution.day, new OrderTotals(sign, revenue));
+        if (contribution.isRevenue()) {
+            for (ProductSales sales : contribution.products.values()) {
+                addSales(sales.getProductId(), sign * sales.getUnits(),
+                        sign > 0 ? sales.getRevenue() : sales.getRevenue().negate());
+            }
+        }
+    }
+    
+    private static <K> void addTotals(Map<K, OrderTotals> buckets, K key, OrderTotals delta) {
+        buckets.compute(key, (k, current) -> {
+            OrderTotals updated = current == null ? delta : current.plus(delta);
+            return updated.isEmpty() ? null : updated;
+        });
+    }
+    
+    private void addSales(Long productId, long units, BigDecimal revenue) {
+        ProductSales current = byProduct.get(productId);
+        ProductSales updated = current == null ? new ProductSales(productId, units, revenue) : current.plus(units, revenue);
+        if (current != null) {
+            ranking.remove(current);
+        }
+        if (updated.getUnits() == 0 && updated.getRevenue().signum() == 0) {
+            byProduct.remove(productId);
+        } else {
+            byProduct.put(productId, updated);
+            ranking.add(updated);
+        }
+    }
+    
+    // Snapshots and rebuild
+    
+    @PostConstruct
+    public void restore() {
+        if (!enabled) {
+            return;
+        }
+        awaitLease();
+        if (orderShards.count() > 1) {
+            rebuild();
+            return;
+        }
+        Optional<AnalyticsSnapshot> latest = snapshotRepository.findFirstByOrderByIdDesc();
+        if (latest.isPresent() && isCurrent(latest.get())) {
+            try {
+                load(latest.get());
+                return;
+            } catch (JsonProcessingException e) {
+                logger.warn("Unreadable analytics snapshot {}, rebuilding", latest.get().getId(), e);
+                clear();
+            }
+        }
+        rebuild();
+    }
+    
+    /**
+     * Writes the current aggregates if anything changed since the last snapshot. Runs
+     * periodically and on shutdown, holding the write lock only while copying the maps.
+     */
+    @Scheduled(fixedDelayString = "${orders.analytics.snapshot-interval:PT5M}",
+               initialDelayString = "${orders.analytics.snapshot-interval:PT5M}")
+    public void snapshot() {
+        if (!enabled || orderShards.count() > 1) {
+            return;
+        }
+        State state = new State();
+        LocalDateTime takenAt;
+        long count;
+        long maxId;
+        long stateVersion;
+        synchronized (writeLock) {
+            if (version == snapshotVersion) {
+                return;
+            }
+            stateVersion = version;
+            takenAt = LocalDateTime.now();
+            count = orderCount;
+            maxId = maxOrderId;
+            state.byStatus = new EnumMap<>(OrderStatus.class);
+            state.byStatus.putAll(byStatus);
+            state.byUser = new HashMap<>(byUser);
+            state.byDay = new HashMap<>(byDay);
+            state.products = new ArrayList<>(byProduct.values());
+        }
+        try {
+            AnalyticsSnapshot saved = snapshotRepository.save(
+                    new AnalyticsSnapshot(takenAt, maxId, count, objectMapper.writeValueAsString(state)));
+            snapshotRepository.deleteUpTo(saved.getId() - snapshotsRetained);
+            synchronized (writeLock) {
+                snapshotVersion = stateVersion;
+            }
+        } catch (JsonProcessingException e) {
+            logger.error("Failed to serialize analytics snapshot", e);
+        }
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        if (!enabled) {
+            return;
+        }
+        snapshot();
+        leaseRepository.release(LEASE, leaseOwner, LocalDateTime.now());
+    }
+    
+    // Single-instance lease
+    
+    /**
+     * Claims the lease before the aggregates are loaded, waiting up to lease-duration for
+     * one left behind by a crashed instance to expire. A lease still held after that belongs
+     * to a running instance, whose orders this one would never see.
+     */
+    private void awaitLease() {
+        long deadline = System.nanoTime() + leaseDuration.toNanos();
+        while (!claimLease()) {
+            if (System.nanoTime() - deadline > 0) {
+                throw new IllegalStateException("orders.analytics is enabled on another running order-service instance; "
+                        + "the aggregates require a single instance");
+            }
+            try {
+                Thread.sleep(leaseDuration.toMillis() / 10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for the order analytics lease", e);
+            }
+        }
+    }
+    
+    @Scheduled(fixedDelayString = "${orders.analytics.lease-renew-interval:PT10S}",
+               initialDelayString = "${orders.analytics.lease-renew-interval:PT10S}")
+    public void renewLease() {
+        if (enabled && !claimLease()) {
+            logger.error("Order analytics lease was taken by another instance; aggregates here no longer see every order");
+        }
+    }
+    
+    /**
+     * Renews the lease, takes it over if it expired, or inserts it if it was never held.
+     * Two instances inserting at once fail on the primary key, so only one gets it.
+     */
+    private boolean claimLease() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime expiresAt = now.plus(leaseDuration);
+        if (leaseRepository.claim(LEASE, leaseOwner, expiresAt, now) == 1) {
+            return true;
+        }
+        try {
+            leaseRepository.saveAndFlush(new InstanceLease(LEASE, leaseOwner, expiresAt));
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            return false;
+        }
+    }
+    
+    /**
+     * A snapshot can be reused when none of the orders it covers has been updated or
+     * deleted since, and every order it covers had already been applied. Timestamps are
+     * conservative: updatedAt is set on flush, after the change was applied, so an order
+     * changed around the snapshot time always forces a rebuild rather than being missed.
+     * Archived orders count as covered too, and since only live orders newer than the
+     * snapshot are added on load, any archived order newer than it forces a rebuild.
+     */
+    private boolean isCurrent(AnalyticsSnapshot snapshot) {
+        Long maxId = snapshot.getMaxOrderId();
+        return !orderRepository.existsByIdLessThanEqualAndUpdatedAtAfter(maxId, snapshot.getTakenAt())
+                && !archivedOrderRepository.existsByIdLessThanEqualAndUpdatedAtAfter(maxId, snapshot.getTakenAt())
+                && !archivedOrderRepository.existsByIdGreaterThan(maxId)
+                && orderRepository.countByIdLessThanEqual(maxId) + archivedOrderRepository.countByIdLessThanEqual(maxId)
+                        == snapshot.getOrderCount();
+    }
+    
+    private void load(AnalyticsSnapshot snapshot) throws JsonProcessingException {
+        State state = objectMapper.readValue(snapshot.getPayload(), State.class);
+        List<Order> newer = orderRepository.findWithItemsByIdGreaterThan(snapshot.getMaxOrderId());
+        synchronized (writeLock) {
+            byStatus.putAll(state.byStatus);
+            byUser.putAll(state.byUser);
+            byDay.putAll(state.byDay);
+            for (ProductSales sales : state.products) {
+                byProduct.put(sales.getProductId(), sales);
+                ranking.add(sales);
+            }
+            orderCount = snapshot.getOrderCount();
+            maxOrderId = snapshot.getMaxOrderId();
+            for (Order order : newer) {
+                apply(null, OrderContribution.of(order));
+            }
+        }
+        logger.info("Order analytics restored from snapshot {} plus {} newer orders", snapshot.getId(), newer.size());
+    }
+    
+    /**
+     * Recomputes every aggregate with GROUP BY queries; used when there is no usable snapshot.
+     * Rows from different shards, and from the live and archived orders, with the same
+     * key are added together. Archived items are only in the compressed payloads, so
+     * their product sales are summed by decoding every revenue-bearing archived order.
+     */
+    private void rebuild() {
+        Set<OrderStatus> excluded = OrderContribution.NON_REVENUE_STATUSES;
+        synchronized (writeLock) {
+            clear();
+            addRows(byStatus, onAllShards(orderRepository::aggregateByStatus));
+            addRows(byStatus, onAllShards(archivedOrderRepository::aggregateByStatus));
+            addRows(byUser, onAllShards(() -> orderRepository.aggregateByUser(excluded)));
+            addRows(byUser, onAllShards(() -> archivedOrderRepository.aggregateByUser(excluded)));
+            addRows(byDay, onAllShards(() -> orderRepository.aggregateByDay(excluded)));
+            addRows(byDay, onAllShards(() -> archivedOrderRepository.aggregateByDay(excluded)));
+            for (OrderAggregate row : onAllShards(() -> orderRepository.aggregateByProduct(excluded))) {
+                addSales((Long) row.getKey(), row.getOrders(), row.getRevenue());
+            }
+            for (Collection<ProductSales> shardSales : orderShards.gatherEach(() -> orderArchiveService.productSales(excluded))) {
+                for (ProductSales sales : shardSales) {
+                    addSales(sales.getProductId(), sales.getUnits(), sales.getRevenue());
+                }
+            }
+            orderCount = byStatus.values().stream().mapToLong(OrderTotals::getOrders).sum();
+            maxOrderId = Math.max(maxId(orderRepository::findMaxId), maxId(archivedOrderRepository::findMaxId));
+        }
+        logger.info("Order analytics rebuilt from {} orders", orderCount);
+    }
+    
+    private List<OrderAggregate> onAllShards(Supplier<List<OrderAggregate>> query) {
+        List<OrderAggregate> rows = new ArrayList<>();
+        orderShards.gatherEach(query).forEach(rows::addAll);
+        return rows;
+    }
+    
+    private long maxId(Supplier<Long> query) {
+        return orderShards.gatherEach(query).stream().mapToLong(Long::longValue).max().orElse(0);
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static <K> void addRows(Map<K, OrderTotals> buckets, List<OrderAggregate> rows) {
+        for (OrderAggregate row : rows) {
+            addTotals(buckets, (K) row.getKey(), totals(row));
+        }
+    }
+    
+    private void clear() {
+        byStatus.clear();
+        byUser.clear();
+        byDay.clear();
+        byProduct.clear();
+        ranking.clear();
+        orderCount = 0;
+        maxOrderId = 0;
+    }
+    
+    private static OrderTotals totals(OrderAggregate row) {
+        return new OrderTotals(row.getOrders(), row.getRevenue() == null ? BigDecimal.ZERO : row.getRevenue());
+    }
+    
+    /**
+     * Snapshot payload.
+     */
+    public static class State {
+        public Map<OrderStatus, OrderTotals> byStatus;
+        public Map<Long, OrderTotals> byUser;
+        public Map<LocalDate, OrderTotals> byDay;
+        public List<ProductSales> products;
+    }
+}
\ No newline at end of file
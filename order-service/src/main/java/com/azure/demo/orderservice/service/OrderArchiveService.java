@@ -0,0 +1,234 @@
+package com.azure.demo.orderservice.service;
+
+import com.azure.demo.orderservice.dto.ProductSales;
+import com.azure.demo.orderservice.model.ArchivedOrder;
+import com.azure.demo.orderservice.model.Order;
+import com.azure.demo.orderservice.model.OrderItem;
+import com.azure.demo.orderservice.model.OrderStatus;
+import com.azure.demo.orderservice.repository.ArchivedOrderRepository;
+import com.azure.demo.orderservice.repository.OrderRepository;
+import com.azure.demo.orderservice.sharding.OrderShards;
+import com.azure.demo.orderservice.sharding.ShardContext;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cold tier for finished orders. Orders in a final status whose last change is older than
+ * orders.archive.older-than are moved, in batches, from orders/order_items into
+ * order_archive as one compressed row each, which keeps the live tables and their indexes
+ * down to orders that can still change.
+ * <p>
+ * Archiving does not change what an order contributes to the analytics, so the aggregates
+ * are left alone. The mover runs on every shard in turn and is throttled to
+ * max-orders-per-second so it never competes with order traffic for long. Archived orders
+ * are expected to stay final; one changed in the instant it is archived may lose that change.
+ * <p>
+ * Every instance runs the mover. Each batch is claimed with SELECT ... FOR UPDATE SKIP
+ * LOCKED and held until its transaction commits, so concurrent movers take disjoint
+ * batches instead of archiving the same orders twice; the rate cap is per instance.
+ * <p>
+ * Lookups by id and by user fall back to the archive, but GET /orders and GET
+ * /orders/status/{status} only list live orders, so turning the mover on changes what
+ * those return. It is therefore disabled by default.
+ */
+@Service
+public class OrderArchiveService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(OrderArchiveService.class);
+    
+    private final OrderRepository orderRepository;
+    private final ArchivedOrderRepository archivedOrderRepository;
+    private final OrderShards orderShards;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transaction;
+    private final TransactionTemplate readOnlyTransaction;
+    private final boolean enabled;
+    private final Set<OrderStatus> statuses;
+    private final Duration olderThan;
+    private final int batchSize;
+    private final int maxOrdersPerSecond;
+    private final Counter archived;
+    private final Counter archiveReads;
+    
+    @Autowired
+    public OrderArchiveService(OrderRepository orderRepository,
+                               ArchivedOrderRepository archivedOrderRepository,
+                               OrderShards orderShards,
+                               ObjectMapper objectMapper,
+                               PlatformTransactionManager transactionManager,
+                               MeterRegistry meterRegistry,
+                               @Value("${orders.archive.enabled:false}") boolean enabled,
+                               @Value("${orders.archive.statuses:DELIVERED,CANCELLED,REJECTED}") List<OrderStatus> statuses,
+                               @Value("${orders.archive.older-than:P90D}") Duration olderThan,
+                               @Value("${orders.archive.batch-size:100}") int batchSize,
+                               @Value("${orders.archive.max-orders-per-second:500}") int maxOrdersPerSecond) {
+        this.orderRepository = orderRepository;
+        this.archivedOrderRepository = archivedOrderRepository;
+        this.orderShards = orderShards;
+        this.objectMapper = objectMapper;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.enabled = enabled;
+        this.statuses = statuses.isEmpty() ? EnumSet.noneOf(OrderStatus.class) : EnumSet.copyOf(statuses);
+        this.olderThan = olderThan;
+        this.batchSize = batchSize;
+        this.maxOrdersPerSecond = maxOrdersPerSecond;
+        this.archived = Counter.builder("order.archive.moved")
+                .description("Orders moved from the live tables to the archive")
+                .register(meterRegistry);
+        this.archiveReads = Counter.builder("order.archive.reads")
+                .description("Orders served from the archive by id or user lookups")
+                .register(meterRegistry);
+    }
+    
+    /** The archived order with this id on the current shard, if there is one. */
+    public Optional<Order> findById(Long id) {
+        Optional<Order> order = archivedOrderRepository.findById(id).map(row -> decode(row.getPayload()));
+        order.ifPresent(found -> archiveReads.increment());
+        return order;
+    }
+    
+    /** The user's archived orders on the current shard. */
+    public List<Order> findByUserId(Long userId) {
+        List<Order> orders = new ArrayList<>();
+        for (ArchivedOrder row : archivedOrderRepository.findByUserId(userId)) {
+            orders.add(decode(row.getPayload()));
+        }
+        archiveReads.increment(orders.size());
+        return orders;
+    }
+    
+    /**
+     * Units and revenue per product over the archived orders on the current shard whose
+     * status is not excluded; used to rebuild the analytics aggregates.
+     */
+    public Collection<ProductSales> productSales(Collection<OrderStatus> excluded) {
+        return readOnlyTransaction.execute(status -> {
+            Map<Long, ProductSales> sales = new HashMap<>();
+            try (Stream<byte[]> payloads = archivedOrderRepository.streamPayloads(excluded)) {
+                payloads.forEach(payload -> {
+                    for (OrderItem item : decode(payload).getOrderItems()) {
+                        sales.merge(item.getProductId(),
+                                new ProductSales(item.getProductId(), item.getQuantity(), item.getSubtotal().toBigDecimal()),
+                                (a, b) -> a.plus(b.getUnits(), b.getRevenue()));
+                    }
+                });
+            }
+            return sales.values();
+        });
+    }
+    
+    @Scheduled(fixedDelayString = "${orders.archive.interval:PT10M}",
+               initialDelayString = "${orders.archive.interval:PT10M}")
+    public void archive() {
+        if (!enabled || statuses.isEmpty()) {
+            return;
+        }
+        LocalDateTime cutoff = LocalDateTime.now().minus(olderThan);
+        long start = System.nanoTime();
+        int moved = 0;
+        for (int shard = 0; shard < orderShards.count() && !Thread.currentThread().isInterrupted(); shard++) {
+            moved += ShardContext.on(shard, () -> archiveShard(cutoff));
+        }
+        if (moved > 0) {
+            logger.info("Archived {} orders last changed before {} in {} ms", moved, cutoff,
+                    (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+    
+    private int archiveShard(LocalDateTime cutoff) {
+        long start = System.nanoTime();
+        int moved = 0;
+        while (!Thread.currentThread().isInterrupted()) {
+            Integer batch = transaction.execute(status -> moveBatch(cutoff));
+            if (batch == null || batch == 0) {
+                break;
+            }
+            moved += batch;
+            archived.increment(batch);
+            throttle(start, moved);
+        }
+        return moved;
+    }
+    
+    private int moveBatch(LocalDateTime cutoff) {
+        List<Long> ids = orderRepository.claimArchivable(statuses, cutoff, PageRequest.of(0, batchSize)).stream()
+                .map(Order::getId)
+                .toList();
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        List<Order> orders = orderRepository.findWithItemsByIdIn(ids);
+        LocalDateTime archivedAt = LocalDateTime.now();
+        List<ArchivedOrder> rows = new ArrayList<>(orders.size());
+        for (Order order : orders) {
+            rows.add(new ArchivedOrder(order, encode(order), archivedAt));
+        }
+        archivedOrderRepository.saveAll(rows);
+        orderRepository.deleteAll(orders);
+        return orders.size();
+    }
+    
+    // Sleeps until the orders moved so far fit within max-orders-per-second
+    private void throttle(long start, int moved) {
+        long due = start + TimeUnit.SECONDS.toNanos(moved) / maxOrdersPerSecond;
+        long wait = due - System.nanoTime();
+        if (wait > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+    
+    private byte[] encode(Order order) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(bytes)) {
+            objectMapper.writeValue(out, order);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to archive order " + order.getId(), e);
+        }
+        return bytes.toByteArray();
+    }
+    
+    private Order decode(byte[] payload) {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(payload))) {
+            return objectMapper.readValue(in, Order.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unreadable archived order", e);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,71 @@
+package com.azure.demo.orderservice.service;
+
+import com.azure.demo.orderservice.dto.OrderHeader;
+import com.azure.demo.orderservice.model.Order;
+
+/**
+ * Published by OrderService, inside the order's transaction and on its shard, whenever
+ * an order is created, changed or deleted. The read models (analytics, user summaries,
+ * status history) listen for it instead of OrderService updating each one.
+ * <p>
+ * Before is null for a new order and after is null for a deleted one. Both are copies
+ * taken at the time, since the Order entity itself keeps changing.
+ */
+final class OrderChangedEvent {
+    
+    private final State before;
+    private final State after;
+    
+    private OrderChangedEvent(State before, State after) {
+        this.before = before;
+        this.after = after;
+    }
+    
+    /** The change from the captured state to the order as it is now; either may be null. */
+    static OrderChangedEvent of(State before, Order after) {
+        return new OrderChangedEvent(before, after == null ? null : State.of(after));
+    }
+    
+    State getBefore() {
+        return before;
+    }
+    
+    State getAfter() {
+        return after;
+    }
+    
+    Long getOrderId() {
+        return (after != null ? after : before).header.getId();
+    }
+    
+    Long getUserId() {
+        return (after != null ? after : before).userId;
+    }
+    
+    /** One side of a change: what the read models need from the order at that moment. */
+    static final class State {
+        
+        private final Long userId;
+        private final OrderHeader header;
+        private final OrderContribution contribution;
+        
+        private State(Order order) {
+            this.userId = order.getUserId();
+            this.header = OrderHeader.of(order);
+            this.contribution = OrderContribution.of(order);
+        }
+        
+        /** Captures the order before it is changed. */
+        static State of(Order order) {
+            return new State(order);
+        }
+        
+        OrderHeader getHeader() {
+            return header;
+        }
+        
+        OrderContribution getContribution() {
+            return contribution;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,53 @@
+package com.azure.demo.orderservice.service;
+
+import com.azure.demo.orderservice.dto.ProductSales;
+import com.azure.demo.orderservice.model.Order;
+import com.azure.demo.orderservice.model.OrderItem;
+import com.azure.demo.orderservice.model.OrderStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * What one order adds to the analytics aggregates at a point in time. Changes are applied
+ * as "remove the old contribution, add the new one", so the aggregates never need to know
+ * an order's history.
+ */
+final class OrderContribution {
+    
+    /** Statuses whose orders are counted but contribute no revenue or product sales. */
+    static final Set<OrderStatus> NON_REVENUE_STATUSES = EnumSet.of(OrderStatus.CANCELLED, OrderStatus.REJECTED);
+    
+    final Long orderId;
+    final OrderStatus status;
+    final Long userId;
+    final LocalDate day;
+    final BigDecimal amount;
+    final Map<Long, ProductSales> products;
+    
+    private OrderContribution(Order order) {
+        this.orderId = order.getId();
+        this.status = order.getStatus();
+        this.userId = order.getUserId();
+        this.day = order.getCreatedAt().toLocalDate();
+        this.amount = order.getTotalAmount().toBigDecimal();
+        this.products = new HashMap<>();
+        for (OrderItem item : order.getOrderItems()) {
+            products.merge(item.getProductId(),
+                    new ProductSales(item.getProductId(), item.getQuantity(), item.getSubtotal().toBigDecimal()),
+                    (a, b) -> a.plus(b.getUnits(), b.getRevenue()));
+        }
+    }
+    
+    static OrderContribution of(Order order) {
+        return new OrderContribution(order);
+    }
+    
+    boolean isRevenue() {
+        return !NON_REVENUE_STATUSES.contains(status);
+    }
+}
\ No newline at end of file
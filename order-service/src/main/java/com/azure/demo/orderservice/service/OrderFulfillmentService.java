@@ -0,0 +1,233 @@
+package com.azure.demo.orderservice.service;
+
+import com.azure.demo.orderservice.dto.CreateOrderRequest;
+import com.azure.demo.orderservice.model.Order;
+import com.azure.demo.orderservice.model.OrderSubmission;
+import com.azure.demo.orderservice.repository.OrderSubmissionRepository;
+import com.azure.demo.orderservice.sharding.OrderShards;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.context.ContextExecutorService;
+import io.micrometer.context.ContextSnapshotFactory;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Accepts orders without waiting for user- and product-service and fulfills them on a
+ * fixed pool of workers. Admission is bounded by the queue capacity: once that many
+ * orders are waiting or running, new submissions are refused with OrderQueueFullException.
+ * <p>
+ * An order whose fulfillment fails because a downstream service is unavailable is retried
+ * with exponential backoff, keeping its queue slot, up to max-attempts times. After that it
+ * stays PENDING with its submission, and is picked up again by the next sweep.
+ * <p>
+ * The sweep runs at startup and every sweep-interval, and queues stored submissions only
+ * while capacity is free; the rest stay PENDING for a later sweep, so neither startup nor
+ * new submissions wait behind a large backlog. Orders already queued here are skipped. One
+ * queued on another instance may be picked up twice, which is harmless: fulfillment locks
+ * the order and does nothing unless it is still PENDING.
+ */
+@Service
+public class OrderFulfillmentService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(OrderFulfillmentService.class);
+    
+    private final OrderService orderService;
+    private final OrderSubmissionRepository orderSubmissionRepository;
+    private final OrderShards orderShards;
+    private final ObjectMapper objectMapper;
+    private final ExecutorService workers;
+    private final ScheduledExecutorService retries;
+    private final Semaphore capacity;
+    // Orders queued or waiting for a retry on this instance, each holding one capacity permit
+    private final Set<Long> queued = ConcurrentHashMap.newKeySet();
+    private final int maxAttempts;
+    private final Duration retryBackoff;
+    
+    @Autowired
+    public OrderFulfillmentService(OrderService orderService,
+                                   OrderSubmissionRepository orderSubmissionRepository,
+                                   OrderShards orderShards,
+                                   ObjectMapper objectMapper,
+                                   @Value("${orders.fulfillment.workers:8}") int workerCount,
+                                   @Value("${orders.fulfillment.queue-capacity:1000}") int queueCapacity,
+                                   @Value("${orders.fulfillment.max-attempts:5}") int maxAttempts,
+                                   @Value("${orders.fulfillment.retry-backoff:500ms}") Duration retryBackoff) {
+        this.orderService = orderService;
+        this.orderSubmissionRepository = orderSubmissionRepository;
+        this.orderShards = orderShards;
+        this.objectMapper = objectMapper;
+        this.capacity = new Semaphore(workerCount + queueCapacity);
+        this.maxAttempts = maxAttempts;
+        this.retryBackoff = retryBackoff;
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService pool = new ThreadPoolExecutor(workerCount, workerCount, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "order-fulfillment-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        // Carry the submitting request's observation (and so its trace) onto the worker
+        ContextSnapshotFactory snapshots = ContextSnapshotFactory.builder().build();
+        this.workers = ContextExecutorService.wrap(pool, snapshots::captureAll);
+        this.retries = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "order-fulfillment-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    /**
+     * Persists the order as PENDING and queues it for fulfillment.
+     */
+    public Order submit(CreateOrderRequest request) {
+        if (!capacity.tryAcquire()) {
+            throw new OrderQueueFullException("Order fulfillment queue is full");
+        }
+        try {
+            Order order = orderService.createPendingOrder(request, serialize(request));
+            enqueue(order.getId(), request);
+            return order;
+        } catch (RuntimeException e) {
+            capacity.release();
+            throw e;
+        }
+    }
+    
+    public int getAvailableCapacity() {
+        return capacity.availablePermits();
+    }
+    
+    /**
+     * Re-queues accepted orders that are not being fulfilled: those left over from before
+     * the last shutdown and those whose retries gave up. Oldest first, and only while
+     * capacity is free; the rest are left for the next sweep rather than waited for.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${orders.fulfillment.sweep-interval:PT1M}",
+               initialDelayString = "${orders.fulfillment.sweep-interval:PT1M}")
+    public void resumePendingSubmissions() {
+        int resumed = 0;
+        int deferred = 0;
+        // Submissions are stored on their order's shard
+        for (OrderSubmission submission : orderShards.gather(orderSubmissionRepository::findAllByOrderByCreatedAtAsc,
+                Comparator.comparing(OrderSubmission::getCreatedAt))) {
+            if (queued.contains(submission.getOrderId())) {
+                continue;
+            }
+            if (deferred > 0 || !capacity.tryAcquire()) {
+                deferred++;
+                continue;
+            }
+            try {
+                CreateOrderRequest request = objectMapper.readValue(submission.getRequestPayload(), CreateOrderRequest.class);
+                enqueue(submission.getOrderId(), request);
+                resumed++;
+            } catch (JsonProcessingException e) {
+                capacity.release();
+                logger.error("Unreadable submission for order {}", submission.getOrderId(), e);
+            } catch (RejectedExecutionException e) {
+                // Shutting down
+                capacity.release();
+                return;
+            }
+        }
+        if (resumed > 0 || deferred > 0) {
+            logger.info("Resumed {} pending submissions, {} left for the next sweep", resumed, deferred);
+        }
+    }
+    
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        retries.shutdownNow();
+        workers.shutdown();
+        workers.awaitTermination(30, TimeUnit.SECONDS);
+    }
+    
+    private void enqueue(Long orderId, CreateOrderRequest request) {
+        queued.add(orderId);
+        try {
+            enqueue(orderId, request, 1);
+        } catch (RejectedExecutionException e) {
+            queued.remove(orderId);
+            throw e;
+        }
+    }
+    
+    private void enqueue(Long orderId, CreateOrderRequest request, int attempt) {
+        workers.execute(() -> {
+            boolean retrying = false;
+            try {
+                Order order = orderService.fulfillPendingOrder(orderId, request);
+                logger.debug("Order {} fulfilled with status {}", orderId, order.getStatus());
+            } catch (DownstreamUnavailableException e) {
+                retrying = attempt < maxAttempts && scheduleRetry(orderId, request, attempt, e);
+                if (!retrying) {
+                    logger.error("Fulfillment of order {} gave up after {} attempts; it stays PENDING until the next sweep",
+                            orderId, attempt, e);
+                }
+            } catch (RuntimeException e) {
+                // The submission row is kept on rollback, so the next sweep retries the order
+                logger.error("Fulfillment failed for order {}", orderId, e);
+            } finally {
+                if (!retrying) {
+                    release(orderId);
+                }
+            }
+        });
+    }
+    
+    // The queue slot stays taken while the order waits, so retries count against capacity
+    private boolean scheduleRetry(Long orderId, CreateOrderRequest request, int attempt, RuntimeException cause) {
+        long delay = retryBackoff.toMillis() << Math.min(attempt - 1, 10);
+        logger.warn("Fulfillment of order {} deferred ({}), attempt {} of {}, retrying in {} ms",
+                orderId, cause.getMessage(), attempt, maxAttempts, delay);
+        try {
+            retries.schedule(() -> {
+                try {
+                    enqueue(orderId, request, attempt + 1);
+                } catch (RejectedExecutionException e) {
+                    release(orderId);
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+    
+    private void release(Long orderId) {
+        queued.remove(orderId);
+        capacity.release();
+    }
+    
+    private String serialize(CreateOrderRequest request) {
+        try {
+            return objectMapper.writeValueAsString(request);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to serialize order request", e);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,12 @@
+package com.azure.demo.orderservice.service;
+
+/**
+ * Thrown when the asynchronous fulfillment queue is full and a submission has to be
+ * refused, so that callers back off instead of piling up pending orders.
+ */
+public class OrderQueueFullException extends RuntimeException {
+    
+    public OrderQueueFullException(String message) {
+        super(message);
+    }
+}
\ No newline at end of file
@@ -7,147 +7,389 @@ import com.azure.demo.orderservice.dto.ProductDto;
 import com.azure.demo.orderservice.dto.UserDto;
 import com.azure.demo.orderservice.messaging.OrderEvent;
 import com.azure.demo.orderservice.messaging.OrderEventPublisher;
+import com.azure.demo.orderservice.model.Money;
 import com.azure.demo.orderservice.model.Order;
 import com.azure.demo.orderservice.model.OrderItem;
 import com.azure.demo.orderservice.model.OrderStatus;
+import com.azure.demo.orderservice.model.OrderSubmission;
 import com.azure.demo.orderservice.repository.OrderRepository;
+import com.azure.demo.orderservice.repository.OrderSubmissionRepository;
+import com.azure.demo.orderservice.sharding.OrderShards;
+import com.azure.demo.orderservice.sharding.ShardContext;
 import feign.FeignException;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.Hibernate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
 
 @Service
 public class OrderService {
     
+    private static final Logger logger = LoggerFactory.getLogger(OrderService.class);
+    
+    // Public methods are timed by TimedAspect as "order.service", tagged with class, method and
+    // exception; histogram and SLO buckets are configured under management.metrics.distribution.
+    // Downstream Feign calls are timed by feign-micrometer.
+    private static final String TIMER_NAME = "order.service";
+    
+    private static final Comparator<Order> BY_ID = Comparator.comparing(Order::getId);
+    
     private final OrderRepository orderRepository;
+    private final OrderSubmissionRepository orderSubmissionRepository;
     private final UserServiceClient userServiceClient;
     private final ProductServiceClient productServiceClient;
     private final OrderEventPublisher orderEventPublisher;
+    private final OrderArchiveService orderArchiveService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final OrderShards orderShards;
+    
+    private final Counter userRejects;
+    private final Counter productRejects;
+    private final Counter stockFailures;
+    private final Counter stockReleaseFailures;
     
     @Autowired
     public OrderService(OrderRepository orderRepository, 
+                       OrderSubmissionRepository orderSubmissionRepository,
                        UserServiceClient userServiceClient,
                        ProductServiceClient productServiceClient,
-                       @Autowired(required = false) OrderEventPublisher orderEventPublisher) {
+                       @Autowired(required = false) OrderEventPublisher orderEventPublisher,
+                       OrderArchiveService orderArchiveService,
+                       ApplicationEventPublisher eventPublisher,
+                       OrderShards orderShards,
+                       MeterRegistry meterRegistry) {
         this.orderRepository = orderRepository;
+        this.orderSubmissionRepository = orderSubmissionRepository;
         this.userServiceClient = userServiceClient;
         this.productServiceClient = productServiceClient;
         this.orderEventPublisher = orderEventPublisher;
+        this.orderArchiveService = orderArchiveService;
+        this.eventPublisher = eventPublisher;
+        this.orderShards = orderShards;
+        this.userRejects = rejectCounter(meterRegistry, "user_not_found");
+        this.productRejects = rejectCounter(meterRegistry, "product_unavailable");
+        this.stockFailures = Counter.builder("order.stock.failures")
+                .description("Order items rejected for insufficient stock")
+                .register(meterRegistry);
+        this.stockReleaseFailures = Counter.builder("order.stock.release.failures")
+                .description("Reserved stock that could not be given back after an order failed")
+                .register(meterRegistry);
     }
     
+    @Timed(TIMER_NAME)
+    @Transactional(readOnly = true)
     public List<Order> getAllOrders() {
-        return orderRepository.findAll();
+        return orderShards.gather(() -> withItems(orderRepository.findAll()), BY_ID);
     }
     
+    /**
+     * Looks in the live tables first and falls back to the archive, where finished orders
+     * end up once they age out (see OrderArchiveService).
+     */
+    @Timed(TIMER_NAME)
+    @Transactional(readOnly = true)
     public Optional<Order> getOrderById(Long id) {
-        return orderRepository.findById(id);
+        return ShardContext.on(orderShards.forOrder(id),
+                () -> orderRepository.findById(id).map(OrderService::withItems)
+                        .or(() -> orderArchiveService.findById(id)));
     }
     
+    /**
+     * The user's live and archived orders, oldest first.
+     */
+    @Timed(TIMER_NAME)
+    @Transactional(readOnly = true)
     public List<Order> getOrdersByUserId(Long userId) {
-        return orderRepository.findByUserId(userId);
+        return ShardContext.on(orderShards.forUser(userId), () -> {
+            List<Order> orders = withItems(orderRepository.findByUserId(userId));
+            orders.addAll(orderArchiveService.findByUserId(userId));
+            orders.sort(BY_ID);
+            return orders;
+        });
     }
     
+    @Timed(TIMER_NAME)
+    @Transactional(readOnly = true)
     public List<Order> getOrdersByStatus(OrderStatus status) {
-        return orderRepository.findByStatus(status);
+        return orderShards.gather(() -> withItems(orderRepository.findByStatus(status)), BY_ID);
     }
     
+    @Timed(TIMER_NAME)
     @Transactional
     public Order createOrder(CreateOrderRequest request) {
-        // Validate user exists
+        return ShardContext.on(orderShards.forUser(request.getUserId()), () -> {
+            validateUser(request.getUserId());
+            
+            Order order = new Order(request.getUserId());
+            addItems(order, request);
+            
+            Order savedOrder = orderRepository.save(order);
+            eventPublisher.publishEvent(OrderChangedEvent.of(null, savedOrder));
+            
+            // Publish order created event
+            if (orderEventPublisher != null) {
+                OrderEvent orderEvent = new OrderEvent(savedOrder.getId(), savedOrder.getUserId(), 
+                                                      "ORDER_CREATED", savedOrder.getStatus().toString());
+                orderEventPublisher.publishOrderCreated(orderEvent);
+            }
+            
+            return savedOrder;
+        });
+    }
+    
+    /**
+     * Persists an order in PENDING state together with its original request, without
+     * contacting user- or product-service. A fulfillment worker completes it later.
+     */
+    @Timed(TIMER_NAME)
+    @Transactional
+    public Order createPendingOrder(CreateOrderRequest request, String requestPayload) {
+        return ShardContext.on(orderShards.forUser(request.getUserId()), () -> {
+            // The submission is kept on the order's shard so both are written in one transaction
+            Order savedOrder = orderRepository.save(new Order(request.getUserId()));
+            orderSubmissionRepository.save(new OrderSubmission(savedOrder.getId(), requestPayload));
+            eventPublisher.publishEvent(OrderChangedEvent.of(null, savedOrder));
+            return savedOrder;
+        });
+    }
+    
+    /**
+     * Validates and reserves stock for a pending order, moving it to CONFIRMED, or to
+     * REJECTED with the failure reason when validation or stock reservation fails.
+     * <p>
+     * The order row is locked first, so when several workers or instances pick up the same
+     * submission only the first fulfills it and the others find it no longer PENDING.
+     *
+     * @throws DownstreamUnavailableException if user- or product-service could not answer;
+     *         nothing is changed and the submission is kept for a retry
+     */
+    @Timed(TIMER_NAME)
+    @Transactional
+    public Order fulfillPendingOrder(Long orderId, CreateOrderRequest request) {
+        return ShardContext.on(orderShards.forOrder(orderId), () -> {
+            Order order = orderRepository.findByIdForUpdate(orderId)
+                    .orElseThrow(() -> new RuntimeException("Order not found with id: " + orderId));
+            orderSubmissionRepository.deleteById(orderId);
+            
+            if (order.getStatus() != OrderStatus.PENDING) {
+                return order;
+            }
+            OrderChangedEvent.State before = OrderChangedEvent.State.of(order);
+            
+            try {
+                validateUser(request.getUserId());
+                addItems(order, request);
+                order.setStatus(OrderStatus.CONFIRMED);
+            } catch (DownstreamUnavailableException e) {
+                throw e;
+            } catch (RuntimeException e) {
+                order.getOrderItems().clear();
+                order.calculateTotalAmount();
+                order.setStatus(OrderStatus.REJECTED);
+                order.setFailureReason(e.getMessage());
+            }
+            
+            Order savedOrder = orderRepository.save(order);
+            eventPublisher.publishEvent(OrderChangedEvent.of(before, savedOrder));
+            
+            if (orderEventPublisher != null) {
+                String eventType = savedOrder.getStatus() == OrderStatus.CONFIRMED ? "ORDER_CREATED" : "ORDER_REJECTED";
+                OrderEvent orderEvent = new OrderEvent(savedOrder.getId(), savedOrder.getUserId(), 
+                                                      eventType, savedOrder.getStatus().toString());
+                orderEvent.setDetails(savedOrder.getFailureReason());
+                orderEventPublisher.publishOrderCreated(orderEvent);
+            }
+            
+            return savedOrder;
+        });
+    }
+    
+    private void validateUser(Long userId) {
         try {
-            UserDto user = userServiceClient.getUserById(request.getUserId());
+            UserDto user = userServiceClient.getUserById(userId);
             if (user == null) {
-                throw new RuntimeException("User not found with id: " + request.getUserId());
+                userRejects.increment();
+                throw new RuntimeException("User not found with id: " + userId);
             }
         } catch (FeignException e) {
-            throw new RuntimeException("User not found with id: " + request.getUserId());
+            if (isTransient(e)) {
+                throw new DownstreamUnavailableException("user-service unavailable while validating user " + userId, e);
+            }
+            userRejects.increment();
+            throw new RuntimeException("User not found with id: " + userId);
         }
-        
-        Order order = new Order(request.getUserId());
-        
-        // Process each order item
-        for (CreateOrderRequest.OrderItemRequest itemRequest : request.getItems()) {
-            try {
-                // Get product details
-                ProductDto product = productServiceClient.getProductById(itemRequest.getProductId());
-                if (product == null || !product.getIsActive()) {
-                    throw new RuntimeException("Product not available with id: " + itemRequest.getProductId());
-                }
-                
-                // Check stock availability
-                if (product.getStockQuantity() < itemRequest.getQuantity()) {
-                    throw new RuntimeException("Insufficient stock for product: " + product.getName() + 
-                                             ". Available: " + product.getStockQuantity() + 
-                                             ", Requested: " + itemRequest.getQuantity());
+    }
+    
+    /**
+     * Reserves stock item by item in product-service. Those decrements are not part of the
+     * transaction, so a failure part way through gives back what was already reserved, and a
+     * rollback after all items succeeded gives back everything.
+     */
+    private void addItems(Order order, CreateOrderRequest request) {
+        List<OrderItem> reserved = new ArrayList<>();
+        try {
+            for (CreateOrderRequest.OrderItemRequest itemRequest : request.getItems()) {
+                reserved.add(reserveItem(order, itemRequest));
+            }
+        } catch (RuntimeException e) {
+            releaseStock(reserved);
+            throw e;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_ROLLED_BACK) {
+                        releaseStock(reserved);
+                    }
                 }
-                
-                // Decrease stock
-                productServiceClient.decreaseStock(itemRequest.getProductId(), itemRequest.getQuantity());
-                
-                // Create order item
-                OrderItem orderItem = new OrderItem(
-                    product.getId(),
-                    product.getName(),
-                    product.getPrice(),
-                    itemRequest.getQuantity()
-                );
-                
-                order.addOrderItem(orderItem);
-                
-            } catch (FeignException e) {
-                throw new RuntimeException("Product not found with id: " + itemRequest.getProductId());
+            });
+        }
+    }
+    
+    private OrderItem reserveItem(Order order, CreateOrderRequest.OrderItemRequest itemRequest) {
+        try {
+            // Get product details
+            ProductDto product = productServiceClient.getProductById(itemRequest.getProductId());
+            if (product == null || !product.getIsActive()) {
+                productRejects.increment();
+                throw new RuntimeException("Product not available with id: " + itemRequest.getProductId());
+            }
+            
+            // Check stock availability
+            if (product.getStockQuantity() < itemRequest.getQuantity()) {
+                stockFailures.increment();
+                throw new RuntimeException("Insufficient stock for product: " + product.getName() + 
+                                         ". Available: " + product.getStockQuantity() + 
+                                         ", Requested: " + itemRequest.getQuantity());
             }
+            
+            // Decrease stock
+            productServiceClient.decreaseStock(itemRequest.getProductId(), itemRequest.getQuantity());
+            
+            // Create order item
+            OrderItem orderItem = new OrderItem(
+                product.getId(),
+                product.getName(),
+                Money.of(product.getPrice()),
+                itemRequest.getQuantity()
+            );
+            
+            order.addOrderItem(orderItem);
+            return orderItem;
+            
+        } catch (FeignException e) {
+            // A decrease whose response was lost may still have been applied; it is not given back
+            if (isTransient(e)) {
+                throw new DownstreamUnavailableException(
+                        "product-service unavailable while reserving product " + itemRequest.getProductId(), e);
+            }
+            productRejects.increment();
+            throw new RuntimeException("Product not found with id: " + itemRequest.getProductId());
         }
-        
-        Order savedOrder = orderRepository.save(order);
-        
-        // Publish order created event
-        if (orderEventPublisher != null) {
-            OrderEvent orderEvent = new OrderEvent(savedOrder.getId(), savedOrder.getUserId(), 
-                                                  "ORDER_CREATED", savedOrder.getStatus().toString());
-            orderEventPublisher.publishOrderCreated(orderEvent);
+    }
+    
+    private void releaseStock(List<OrderItem> items) {
+        for (OrderItem item : items) {
+            try {
+                productServiceClient.increaseStock(item.getProductId(), item.getQuantity());
+            } catch (FeignException e) {
+                stockReleaseFailures.increment();
+                logger.error("Could not give back {} units of product {}", item.getQuantity(), item.getProductId(), e);
+            }
         }
-        
-        return savedOrder;
     }
     
+    // Connection failures and timeouts (status -1), throttling and server errors may pass
+    private static boolean isTransient(FeignException e) {
+        return e.status() < 0 || e.status() == 429 || e.status() >= 500;
+    }
+    
+    @Timed(TIMER_NAME)
+    @Transactional
     public Order updateOrderStatus(Long id, OrderStatus newStatus) {
-        Order order = orderRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Order not found with id: " + id));
-        
-        OrderStatus oldStatus = order.getStatus();
-        order.setStatus(newStatus);
-        Order savedOrder = orderRepository.save(order);
-        
-        // Publish order status changed event
-        if (orderEventPublisher != null) {
-            OrderEvent orderEvent = new OrderEvent(savedOrder.getId(), savedOrder.getUserId(), 
-                                                  "ORDER_STATUS_CHANGED", savedOrder.getStatus().toString());
-            orderEvent.setDetails("Status changed from " + oldStatus + " to " + newStatus);
-            orderEventPublisher.publishOrderStatusChanged(orderEvent);
-        }
-        
-        return savedOrder;
+        return ShardContext.on(orderShards.forOrder(id), () -> {
+            Order order = orderRepository.findById(id)
+                    .map(OrderService::withItems)
+                    .orElseThrow(() -> new RuntimeException("Order not found with id: " + id));
+            
+            OrderStatus oldStatus = order.getStatus();
+            OrderChangedEvent.State before = OrderChangedEvent.State.of(order);
+            order.setStatus(newStatus);
+            Order savedOrder = orderRepository.save(order);
+            eventPublisher.publishEvent(OrderChangedEvent.of(before, savedOrder));
+            
+            // Publish order status changed event
+            if (orderEventPublisher != null) {
+                OrderEvent orderEvent = new OrderEvent(savedOrder.getId(), savedOrder.getUserId(), 
+                                                      "ORDER_STATUS_CHANGED", savedOrder.getStatus().toString());
+                orderEvent.setDetails("Status changed from " + oldStatus + " to " + newStatus);
+                orderEventPublisher.publishOrderStatusChanged(orderEvent);
+            }
+            
+            return savedOrder;
+        });
     }
     
+    @Timed(TIMER_NAME)
+    @Transactional
     public void cancelOrder(Long id) {
-        Order order = orderRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Order not found with id: " + id));
-        
-        if (order.getStatus() == OrderStatus.SHIPPED || order.getStatus() == OrderStatus.DELIVERED) {
-            throw new RuntimeException("Cannot cancel order in status: " + order.getStatus());
-        }
-        
-        order.setStatus(OrderStatus.CANCELLED);
-        orderRepository.save(order);
+        ShardContext.run(orderShards.forOrder(id), () -> {
+            Order order = orderRepository.findById(id)
+                    .orElseThrow(() -> new RuntimeException("Order not found with id: " + id));
+            
+            if (order.getStatus() == OrderStatus.SHIPPED || order.getStatus() == OrderStatus.DELIVERED) {
+                throw new RuntimeException("Cannot cancel order in status: " + order.getStatus());
+            }
+            
+            OrderChangedEvent.State before = OrderChangedEvent.State.of(order);
+            order.setStatus(OrderStatus.CANCELLED);
+            orderRepository.save(order);
+            eventPublisher.publishEvent(OrderChangedEvent.of(before, order));
+        });
     }
     
+    @Timed(TIMER_NAME)
+    @Transactional
     public void deleteOrder(Long id) {
-        Order order = orderRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Order not found with id: " + id));
-        orderRepository.delete(order);
+        ShardContext.run(orderShards.forOrder(id), () -> {
+            Order order = orderRepository.findById(id)
+                    .orElseThrow(() -> new RuntimeException("Order not found with id: " + id));
+            OrderChangedEvent.State before = OrderChangedEvent.State.of(order);
+            orderRepository.delete(order);
+            eventPublisher.publishEvent(OrderChangedEvent.of(before, null));
+        });
+    }
+    
+    // Items are loaded while the order's shard is selected; a lazy load after the
+    // transaction would run without it and could reach the wrong shard
+    private static Order withItems(Order order) {
+        Hibernate.initialize(order.getOrderItems());
+        return order;
+    }
+    
+    private static List<Order> withItems(List<Order> orders) {
+        orders.forEach(OrderService::withItems);
+        return orders;
+    }
+    
+    private static Counter rejectCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("order.validation.rejects")
+                .description("Orders rejected while validating the user or products")
+                .tag("reason", reason)
+                .register(meterRegistry);
     }
 }
\ No newline at end of file
@@ -0,0 +1,123 @@
+package com.azure.demo.orderservice.service;
+
+import com.azure.demo.orderservice.dto.OrderStatusChange;
+import com.azure.demo.orderservice.journal.OrderStatusJournal;
+import com.azure.demo.orderservice.model.OrderStatus;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the history of every order's status in the OrderStatusJournal, so "when did this
+ * ship" is answered without an audit table or external logs.
+ * <p>
+ * Transitions, including deletion, are appended after the order's transaction commits,
+ * so rolled-back changes never appear. By default the request does not wait for the disk:
+ * the group-commit flusher forces records within milliseconds, and a crash can lose those
+ * last milliseconds of history. sync-on-commit makes every write request wait for the
+ * fsync covering its record instead, which costs each of them an fsync of latency.
+ * <p>
+ * The journal is local to one process and is only complete when that process sees every
+ * order change, so it is for single-instance deployments and is disabled by default. Behind
+ * a load balancer each instance would hold a different part of an order's history; the
+ * journal's directory lock rejects a second instance sharing a volume, but instances with
+ * separate volumes cannot detect each other, so do not enable it there.
+ */
+@Service
+public class OrderStatusHistoryService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(OrderStatusHistoryService.class);
+    
+    // Null when disabled
+    private final OrderStatusJournal journal;
+    private final boolean syncOnCommit;
+    private final Counter appends;
+    private final Timer syncTimer;
+    
+    @Autowired
+    public OrderStatusHistoryService(MeterRegistry meterRegistry,
+                                     @Value("${orders.status-journal.enabled:false}") boolean enabled,
+                                     @Value("${orders.status-journal.directory:data/order-status-journal}") String directory,
+                                     @Value("${orders.status-journal.segment-size:64MB}") DataSize segmentSize,
+                                     @Value("${orders.status-journal.sync-on-commit:false}") boolean syncOnCommit) {
+        try {
+            this.journal = enabled ? new OrderStatusJournal(Path.of(directory), segmentSize.toBytes()) : null;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open the order status journal in " + directory, e);
+        }
+        this.syncOnCommit = syncOnCommit;
+        this.appends = Counter.builder("order.status.journal.appends")
+                .description("Order status transitions appended to the journal")
+                .register(meterRegistry);
+        this.syncTimer = Timer.builder("order.status.journal.sync")
+                .description("Wait for the group-commit fsync covering a journal append")
+                .register(meterRegistry);
+        if (journal != null) {
+            Gauge.builder("order.status.journal.records", journal, OrderStatusJournal::size)
+                    .description("Records in the order status journal")
+                    .register(meterRegistry);
+        }
+    }
+    
+    /**
+     * Records a status transition of a changed order; from is null for a new order and to
+     * is null for a deleted one. Inside a transaction the record is written once it has
+     * committed.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    void onOrderChanged(OrderChangedEvent event) {
+        if (journal == null) {
+            return;
+        }
+        OrderStatus from = event.getBefore() == null ? null : event.getBefore().getHeader().getStatus();
+        OrderStatus to = event.getAfter() == null ? null : event.getAfter().getHeader().getStatus();
+        if (from != to) {
+            append(event.getOrderId(), from, to);
+        }
+    }
+    
+    /** The order's status changes, oldest first. */
+    public List<OrderStatusChange> getHistory(Long orderId) {
+        return journal == null ? Collections.emptyList() : journal.history(orderId);
+    }
+    
+    @PreDestroy
+    public void close() throws IOException {
+        if (journal != null) {
+            journal.close();
+        }
+    }
+    
+    // The order change has committed by now, so a journal failure is logged, not thrown
+    private void append(Long orderId, OrderStatus from, OrderStatus to) {
+        try {
+            long sequence = journal.append(orderId, from, to, System.currentTimeMillis());
+            appends.increment();
+            if (syncOnCommit) {
+                long start = System.nanoTime();
+                journal.awaitDurable(sequence);
+                syncTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | RuntimeException e) {
+            logger.error("Failed to journal status change of order {} from {} to {}", orderId, from, to, e);
+        }
+    }
+}
\ No newline at end of file
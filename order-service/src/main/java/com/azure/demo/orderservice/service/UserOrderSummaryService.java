@@ -0,0 +1,243 @@
+package com.azure.demo.orderservice.service;
+
+import com.azure.demo.orderservice.dto.OrderHeader;
+import com.azure.demo.orderservice.dto.UserOrderSummary;
+import com.azure.demo.orderservice.model.UserOrderSummaryRecord;
+import com.azure.demo.orderservice.repository.ArchivedOrderRepository;
+import com.azure.demo.orderservice.repository.OrderHeaderRow;
+import com.azure.demo.orderservice.repository.OrderRepository;
+import com.azure.demo.orderservice.repository.UserOrderSummaryRepository;
+import com.azure.demo.orderservice.sharding.OrderShards;
+import com.azure.demo.orderservice.sharding.ShardContext;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * Maintains the user_order_summary read model: per user, the order count by status,
+ * lifetime spend and the latest order headers, stored as one row so that
+ * GET /orders/user/{userId}/summary is a primary-key lookup instead of a scan over the
+ * user's live and archived orders.
+ * <p>
+ * Every OrderChangedEvent is applied here inside the order's own transaction, on the user's
+ * shard, so a summary never disagrees with the orders once committed. Concurrent changes
+ * for one user serialize on the summary row, which the user's first change creates.
+ * {@link #rebuild()} recomputes all summaries from the order tables, for backfills or
+ * after a bug, while orders keep changing; it is run through the usersummaries actuator
+ * endpoint (see UserOrderSummaryEndpoint).
+ */
+@Service
+public class UserOrderSummaryService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(UserOrderSummaryService.class);
+    
+    private static final int REBUILD_BATCH = 100;
+    
+    private static final Comparator<OrderHeader> NEWEST_FIRST = Comparator.comparing(OrderHeader::getId).reversed();
+    
+    private final UserOrderSummaryRepository userOrderSummaryRepository;
+    private final OrderRepository orderRepository;
+    private final ArchivedOrderRepository archivedOrderRepository;
+    private final OrderShards orderShards;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transaction;
+    // Own transaction, on a second connection, so a failed insert leaves the order's intact
+    private final TransactionTemplate insertTransaction;
+    private final int recentOrders;
+    
+    @Autowired
+    public UserOrderSummaryService(UserOrderSummaryRepository userOrderSummaryRepository,
+                                   OrderRepository orderRepository,
+                                   ArchivedOrderRepository archivedOrderRepository,
+                                   OrderShards orderShards,
+                                   ObjectMapper objectMapper,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${orders.user-summary.recent-orders:10}") int recentOrders) {
+        this.userOrderSummaryRepository = userOrderSummaryRepository;
+        this.orderRepository = orderRepository;
+        this.archivedOrderRepository = archivedOrderRepository;
+        this.orderShards = orderShards;
+        this.objectMapper = objectMapper;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.insertTransaction = new TransactionTemplate(transactionManager);
+        this.insertTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.recentOrders = recentOrders;
+    }
+    
+    /** The user's summary; users without orders get an empty one. */
+    public UserOrderSummary getSummary(Long userId) {
+        return ShardContext.on(orderShards.forUser(userId), () -> userOrderSummaryRepository.findById(userId)
+                .map(record -> read(record.getPayload()))
+                .orElseGet(() -> new UserOrderSummary(userId)));
+    }
+    
+    /**
+     * Applies one order change to the user's summary. Runs synchronously in the
+     * transaction that changes the order, on its shard, as OrderService publishes it.
+     */
+    @EventListener
+    void onOrderChanged(OrderChangedEvent event) {
+        Long userId = event.getUserId();
+        OrderHeader before = event.getBefore() == null ? null : event.getBefore().getHeader();
+        OrderHeader after = event.getAfter() == null ? null : event.getAfter().getHeader();
+        UserOrderSummaryRecord record = lockSummary(userId);
+        UserOrderSummary summary = read(record.getPayload());
+        if (before != null) {
+            add(summary, before, -1);
+        }
+        if (after != null) {
+            add(summary, after, 1);
+        }
+        updateRecent(summary, before, after);
+        record.setPayload(write(summary));
+        record.setUpdatedAt(LocalDateTime.now());
+        userOrderSummaryRepository.save(record);
+    }
+    
+    /**
+     * Recomputes every user's summary from the live and archived orders, one shard at a
+     * time, and returns the number of users summarized.
+     * <p>
+     * Users are rebuilt in batches of REBUILD_BATCH, each in a transaction that locks their
+     * summary rows before reading their orders. An order change that locked a row first has
+     * committed by the time the rebuild reads the orders, and one that comes later waits for
+     * the batch and applies its change to the rebuilt summary, so no change is lost. Order
+     * writes are only held up for the users of the batch in progress.
+     */
+    public int rebuild() {
+        long start = System.nanoTime();
+        int users = 0;
+        for (int shard = 0; shard < orderShards.count(); shard++) {
+            users += ShardContext.on(shard, this::rebuildShard);
+        }
+        logger.info("Rebuilt order summaries of {} users in {} ms", users, (System.nanoTime() - start) / 1_000_000);
+        return users;
+    }
+    
+    // Users with orders, archived orders or a summary; ascending, so rows are locked in order
+    private int rebuildShard() {
+        SortedSet<Long> userIds = new TreeSet<>(orderRepository.findUserIds());
+        userIds.addAll(archivedOrderRepository.findUserIds());
+        userIds.addAll(userOrderSummaryRepository.findUserIds());
+        List<Long> users = new ArrayList<>(userIds);
+        for (int from = 0; from < users.size(); from += REBUILD_BATCH) {
+            List<Long> batch = users.subList(from, Math.min(from + REBUILD_BATCH, users.size()));
+            transaction.executeWithoutResult(status -> batch.forEach(this::rebuildUser));
+        }
+        return users.size();
+    }
+    
+    private void rebuildUser(Long userId) {
+        UserOrderSummaryRecord record = lockSummary(userId);
+        UserOrderSummary summary = new UserOrderSummary(userId);
+        orderRepository.findHeadersByUserId(userId, Pageable.unpaged()).forEach(row -> replay(summary, row));
+        archivedOrderRepository.findHeadersByUserId(userId, Pageable.unpaged()).forEach(row -> replay(summary, row));
+        record.setPayload(write(summary));
+        record.setUpdatedAt(LocalDateTime.now());
+        userOrderSummaryRepository.save(record);
+    }
+    
+    /**
+     * The user's summary row, locked until the caller's transaction ends. FOR UPDATE locks
+     * nothing while the row does not exist, so a user's first change inserts an empty
+     * summary in a transaction of its own and then locks it; of two concurrent first
+     * changes, one insert fails on the primary key and both queue on the row lock.
+     */
+    private UserOrderSummaryRecord lockSummary(Long userId) {
+        Optional<UserOrderSummaryRecord> existing = userOrderSummaryRepository.findForUpdate(userId);
+        if (existing.isPresent()) {
+            return existing.get();
+        }
+        try {
+            insertTransaction.executeWithoutResult(status -> {
+                UserOrderSummaryRecord record = new UserOrderSummaryRecord(userId);
+                record.setPayload(write(new UserOrderSummary(userId)));
+                record.setUpdatedAt(LocalDateTime.now());
+                userOrderSummaryRepository.saveAndFlush(record);
+            });
+        } catch (DataIntegrityViolationException e) {
+            logger.debug("Order summary of user {} was created by a concurrent order change", userId);
+        }
+        return userOrderSummaryRepository.findForUpdate(userId)
+                .orElseThrow(() -> new IllegalStateException("No order summary row for user " + userId));
+    }
+    
+    private void replay(UserOrderSummary summary, OrderHeaderRow row) {
+        OrderHeader header = OrderHeader.of(row);
+        add(summary, header, 1);
+        updateRecent(summary, null, header);
+    }
+    
+    private static void add(UserOrderSummary summary, OrderHeader order, int sign) {
+        summary.setOrders(summary.getOrders() + sign);
+        if (summary.getByStatus().merge(order.getStatus(), (long) sign, Long::sum) == 0) {
+            summary.getByStatus().remove(order.getStatus());
+        }
+        if (!OrderContribution.NON_REVENUE_STATUSES.contains(order.getStatus())) {
+            BigDecimal amount = order.getTotalAmount();
+            summary.setLifetimeSpend(summary.getLifetimeSpend().add(sign > 0 ? amount : amount.negate()));
+        }
+    }
+    
+    private void updateRecent(UserOrderSummary summary, OrderHeader before, OrderHeader after) {
+        List<OrderHeader> recent = summary.getRecentOrders();
+        Long id = after != null ? after.getId() : before.getId();
+        boolean listed = recent.removeIf(header -> header.getId().equals(id));
+        if (after != null) {
+            if (listed || recent.size() < recentOrders || id > recent.get(recent.size() - 1).getId()) {
+                recent.add(after);
+                recent.sort(NEWEST_FIRST);
+                recent.subList(Math.min(recent.size(), recentOrders), recent.size()).clear();
+            }
+        } else if (listed && recent.size() == recentOrders - 1) {
+            // A deleted order leaves a gap that an older order, not held here, may fill
+            summary.setRecentOrders(loadRecent(summary.getUserId()));
+        }
+    }
+    
+    private List<OrderHeader> loadRecent(Long userId) {
+        PageRequest page = PageRequest.of(0, recentOrders);
+        List<OrderHeader> recent = new ArrayList<>();
+        orderRepository.findHeadersByUserId(userId, page).forEach(row -> recent.add(OrderHeader.of(row)));
+        archivedOrderRepository.findHeadersByUserId(userId, page).forEach(row -> recent.add(OrderHeader.of(row)));
+        recent.sort(NEWEST_FIRST);
+        return new ArrayList<>(recent.subList(0, Math.min(recent.size(), recentOrders)));
+    }
+    
+    private UserOrderSummary read(String payload) {
+        try {
+            return objectMapper.readValue(payload, UserOrderSummary.class);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException("Unreadable order summary", e);
+        }
+    }
+    
+    private String write(UserOrderSummary summary) {
+        try {
+            return objectMapper.writeValueAsString(summary);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException("Failed to write order summary of user " + summary.getUserId(), e);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,139 @@
+package com.azure.demo.orderservice.sharding;
+
+import io.micrometer.context.ContextExecutorService;
+import io.micrometer.context.ContextSnapshotFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Where orders live: a user's orders are all on one shard, chosen by a hash of the user
+ * id, and an order id names its shard (see ShardedIdGenerator). Queries that are not
+ * keyed by either run on every shard in parallel and are merged here.
+ * <p>
+ * With sharding disabled there is one shard and everything runs on the caller's thread
+ * inside the caller's transaction, exactly as before.
+ */
+@Component
+public class OrderShards {
+    
+    private final TransactionTemplate readOnlyTransaction;
+    private final Timer gatherTimer;
+    // Null with a single shard
+    private final ExecutorService workers;
+    
+    // The transaction manager is only needed after the DataSource (and so the shard count) is set up
+    @Autowired
+    public OrderShards(PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.gatherTimer = Timer.builder("order.shards.gather")
+                .description("Latency of queries run on every order shard and merged")
+                .tag("shards", Integer.toString(count()))
+                .register(meterRegistry);
+        if (count() > 1) {
+            AtomicInteger threadCount = new AtomicInteger();
+            ExecutorService pool = Executors.newFixedThreadPool(count(), runnable -> {
+                Thread thread = new Thread(runnable, "order-shard-query-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            ContextSnapshotFactory snapshots = ContextSnapshotFactory.builder().build();
+            this.workers = ContextExecutorService.wrap(pool, snapshots::captureAll);
+        } else {
+            this.workers = null;
+        }
+    }
+    
+    public int count() {
+        return ShardContext.count();
+    }
+    
+    public int forUser(Long userId) {
+        return Math.floorMod(mix(userId), count());
+    }
+    
+    public int forOrder(Long orderId) {
+        return (int) Math.floorMod(orderId, (long) count());
+    }
+    
+    /**
+     * Runs the query on every shard, each in its own read-only transaction, and returns
+     * all rows in the given order. The query must finish with the rows it returns, e.g.
+     * initialize lazy associations, since its transaction ends before the merge.
+     */
+    public <T> List<T> gather(Supplier<List<T>> query, Comparator<? super T> order) {
+        List<T> rows = new ArrayList<>();
+        for (List<T> shardRows : gatherEach(query)) {
+            rows.addAll(shardRows);
+        }
+        rows.sort(order);
+        return rows;
+    }
+    
+    /** Runs the query on every shard and returns each shard's result, in shard order. */
+    public <T> List<T> gatherEach(Supplier<T> query) {
+        if (workers == null) {
+            return Collections.singletonList(query.get());
+        }
+        return gatherTimer.record(() -> {
+            List<Future<T>> futures = new ArrayList<>(count());
+            for (int shard = 0; shard < count(); shard++) {
+                int target = shard;
+                futures.add(workers.submit(() -> ShardContext.on(target, () -> readOnlyTransaction.execute(status -> query.get()))));
+            }
+            List<T> results = new ArrayList<>(futures.size());
+            try {
+                for (Future<T> future : futures) {
+                    results.add(future.get());
+                }
+            } catch (InterruptedException e) {
+                futures.forEach(future -> future.cancel(true));
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while querying order shards", e);
+            } catch (ExecutionException e) {
+                futures.forEach(future -> future.cancel(true));
+                if (e.getCause() instanceof RuntimeException runtime) {
+                    throw runtime;
+                }
+                throw new IllegalStateException("Order shard query failed", e.getCause());
+            }
+            return results;
+        });
+    }
+    
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (workers != null) {
+            workers.shutdown();
+            workers.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+    
+    // Spreads consecutive user ids across shards instead of striping them
+    private static int mix(long userId) {
+        long h = userId;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,64 @@
+package com.azure.demo.orderservice.sharding;
+
+import java.util.function.Supplier;
+
+/**
+ * Per-thread choice of order shard, read by ShardRoutingDataSource when a connection is
+ * first needed and by ShardedIdGenerator when a new order gets its id.
+ * <p>
+ * Connections are bound at a transaction's first statement and held until it ends, so
+ * the shard must be selected before anything touches the database; OrderService does so
+ * at the top of each method. Threads that never select a shard use shard 0, which also
+ * holds the tables that are not sharded (idempotency keys, analytics snapshots).
+ */
+public final class ShardContext {
+    
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+    
+    private static volatile int count = 1;
+    
+    private ShardContext() {
+    }
+    
+    /** Sets the number of shards; called once by ShardingConfig before JPA starts. */
+    static void configure(int shardCount) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("At least one shard is required");
+        }
+        count = shardCount;
+    }
+    
+    public static int count() {
+        return count;
+    }
+    
+    public static int current() {
+        Integer shard = CURRENT.get();
+        return shard == null ? 0 : shard;
+    }
+    
+    /** Runs the action with this thread's database work going to the given shard. */
+    public static <T> T on(int shard, Supplier<T> action) {
+        if (shard < 0 || shard >= count) {
+            throw new IllegalArgumentException("No shard " + shard + " among " + count);
+        }
+        Integer previous = CURRENT.get();
+        CURRENT.set(shard);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+    
+    public static void run(int shard, Runnable action) {
+        on(shard, () -> {
+            action.run();
+            return null;
+        });
+    }
+}
\ No newline at end of file
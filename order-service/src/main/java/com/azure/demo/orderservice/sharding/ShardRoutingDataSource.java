@@ -0,0 +1,40 @@
+package com.azure.demo.orderservice.sharding;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import java.io.Closeable;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hands out connections from the pool of the shard selected in ShardContext. Must sit
+ * behind a LazyConnectionDataSourceProxy (see ShardingConfig) so that a transaction
+ * started before the shard is chosen still connects to the right one.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+    
+    private final List<HikariDataSource> shards;
+    
+    public ShardRoutingDataSource(List<HikariDataSource> shards) {
+        this.shards = shards;
+        Map<Object, Object> targets = new HashMap<>();
+        for (int i = 0; i < shards.size(); i++) {
+            targets.put(i, shards.get(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(shards.get(0));
+        setLenientFallback(false);
+    }
+    
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return ShardContext.current();
+    }
+    
+    @Override
+    public void close() {
+        shards.forEach(HikariDataSource::close);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,50 @@
+package com.azure.demo.orderservice.sharding;
+
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.spi.BootstrapContext;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.hibernate.tool.hbm2ddl.SchemaExport;
+import org.hibernate.tool.hbm2ddl.SchemaUpdate;
+import org.hibernate.tool.schema.TargetType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.EnumSet;
+
+/**
+ * Applies spring.jpa.hibernate.ddl-auto to shards 1..N-1; Hibernate itself only manages
+ * the schema of the connection it sees, which is shard 0. Runs while the
+ * EntityManagerFactory is being built, so every shard has its tables before any
+ * repository is used. With none or validate, the shards must already be provisioned.
+ */
+public class ShardSchemaExporter implements Integrator {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ShardSchemaExporter.class);
+    
+    @Override
+    public void integrate(Metadata metadata, BootstrapContext bootstrapContext, SessionFactoryImplementor sessionFactory) {
+        String action = String.valueOf(sessionFactory.getProperties().get(AvailableSettings.HBM2DDL_AUTO));
+        boolean create = action.equals("create") || action.equals("create-drop");
+        if (!create && !action.equals("update")) {
+            return;
+        }
+        for (int shard = 1; shard < ShardContext.count(); shard++) {
+            ShardContext.on(shard, () -> {
+                if (create) {
+                    new SchemaExport().execute(EnumSet.of(TargetType.DATABASE), SchemaExport.Action.BOTH, metadata);
+                } else {
+                    new SchemaUpdate().execute(EnumSet.of(TargetType.DATABASE), metadata);
+                }
+                return null;
+            });
+            logger.info("Applied ddl-auto={} to order shard {}", action, shard);
+        }
+    }
+    
+    @Override
+    public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+    }
+}
\ No newline at end of file
@@ -0,0 +1,21 @@
+package com.azure.demo.orderservice.sharding;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+
+/**
+ * Order ids that are unique across shards and name the shard they live on.
+ * <p>
+ * Each shard draws from its own sequence, and the value is spread as
+ * {@code sequence * shardCount + shard}, so {@code id % shardCount} is the shard and two
+ * shards never produce the same id. With a single shard this is just the sequence. The
+ * sequence must not be pooled (increment_size 1), since every value is used as drawn.
+ */
+public class ShardedIdGenerator extends SequenceStyleGenerator {
+    
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object object) {
+        long sequence = ((Number) super.generate(session, object)).longValue();
+        return sequence * ShardContext.count() + ShardContext.current();
+    }
+}
\ No newline at end of file
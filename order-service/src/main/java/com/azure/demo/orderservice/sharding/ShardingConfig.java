@@ -0,0 +1,84 @@
+package com.azure.demo.orderservice.sharding;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.jpa.boot.internal.EntityManagerFactoryBuilderImpl;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Replaces the auto-configured DataSource with one pool per order shard when
+ * orders.sharding.enabled=true. Shard 0 is spring.datasource.*; each
+ * orders.sharding.urls entry adds a shard after it. Orders are placed by user id, so
+ * changing the list moves users between shards and needs a data migration first.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "orders.sharding", name = "enabled", havingValue = "true")
+public class ShardingConfig {
+    
+    @Bean
+    public ShardRoutingDataSource shardRoutingDataSource(DataSourceProperties properties,
+                                                         MeterRegistry meterRegistry,
+                                                         @Value("${orders.sharding.urls:}") List<String> urls,
+                                                         @Value("${orders.sharding.username:${spring.datasource.username:}}") String username,
+                                                         @Value("${orders.sharding.password:${spring.datasource.password:}}") String password,
+                                                         @Value("${orders.sharding.maximum-pool-size:10}") int maximumPoolSize,
+                                                         @Value("${datasource.replicas.enabled:false}") boolean replicasEnabled) {
+        if (urls.isEmpty()) {
+            throw new IllegalStateException("orders.sharding.enabled is set but orders.sharding.urls is empty");
+        }
+        if (replicasEnabled) {
+            throw new IllegalStateException("orders.sharding and datasource.replicas cannot be enabled together");
+        }
+        MicrometerMetricsTrackerFactory metrics = new MicrometerMetricsTrackerFactory(meterRegistry);
+        List<HikariDataSource> shards = new ArrayList<>();
+        HikariDataSource first = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        first.setPoolName("shard-0");
+        first.setMetricsTrackerFactory(metrics);
+        shards.add(first);
+        for (String url : urls) {
+            HikariDataSource shard = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .driverClassName(properties.determineDriverClassName())
+                    .url(url)
+                    .username(username)
+                    .password(password)
+                    .build();
+            shard.setPoolName("shard-" + shards.size());
+            shard.setMaximumPoolSize(maximumPoolSize);
+            shard.setMetricsTrackerFactory(metrics);
+            shards.add(shard);
+        }
+        ShardContext.configure(shards.size());
+        return new ShardRoutingDataSource(shards);
+    }
+    
+    /**
+     * The DataSource JPA uses. The lazy proxy defers taking a real connection until the
+     * first statement, by which time OrderService has selected the shard.
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(ShardRoutingDataSource shardRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(shardRoutingDataSource);
+    }
+    
+    @Bean
+    public HibernatePropertiesCustomizer shardSchemaCustomizer() {
+        return properties -> properties.put(EntityManagerFactoryBuilderImpl.INTEGRATOR_PROVIDER,
+                (IntegratorProvider) () -> List.of(new ShardSchemaExporter()));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,119 @@
+package com.azure.demo.orderservice.service;
+
+import com.azure.demo.orderservice.client.ProductServiceClient;
+import com.azure.demo.orderservice.client.UserServiceClient;
+import com.azure.demo.orderservice.dto.CreateOrderRequest;
+import com.azure.demo.orderservice.model.IdempotencyRecord;
+import com.azure.demo.orderservice.model.Order;
+import com.azure.demo.orderservice.repository.IdempotencyRecordRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Claims of one Idempotency-Key by several instances sharing the idempotency_keys table;
+ * each instance is its own IdempotencyService, so only the table can stop duplicates.
+ */
+@SpringBootTest(properties = {
+        "spring.cloud.config.enabled=false",
+        "eureka.client.enabled=false",
+        "management.tracing.enabled=false",
+        "spring.jpa.show-sql=false",
+        "logging.level.com.azure.demo=INFO",
+        "orders.status-journal.enabled=false"
+})
+class IdempotencyServiceTest {
+    
+    private static final int INSTANCES = 8;
+    
+    @MockBean
+    private UserServiceClient userServiceClient;
+    
+    @MockBean
+    private ProductServiceClient productServiceClient;
+    
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Test
+    void secondClaimOfAKeyFailsOnThePrimaryKeyInsteadOfOverwritingTheFirst() {
+        String key = UUID.randomUUID().toString();
+        LocalDateTime now = LocalDateTime.now();
+        idempotencyRecordRepository.saveAndFlush(new IdempotencyRecord(key, "first", now.plusHours(1),
+                "owner-a", now.plusMinutes(1)));
+        
+        assertThatThrownBy(() -> idempotencyRecordRepository.saveAndFlush(new IdempotencyRecord(key, "second",
+                now.plusHours(1), "owner-b", now.plusMinutes(1))))
+                .isInstanceOf(DataIntegrityViolationException.class);
+        assertThat(idempotencyRecordRepository.findById(key))
+                .hasValueSatisfying(record -> assertThat(record.getOwner()).isEqualTo("owner-a"));
+    }
+    
+    @Test
+    void concurrentClaimsOnOneKeyExecuteOnce() throws Exception {
+        String key = UUID.randomUUID().toString();
+        CreateOrderRequest request = new CreateOrderRequest(1L, List.of(new CreateOrderRequest.OrderItemRequest(1L, 1)));
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(INSTANCES);
+        try {
+            List<Future<Order>> results = new ArrayList<>();
+            for (int i = 0; i < INSTANCES; i++) {
+                IdempotencyService instance = instance();
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return instance.createOnce(key, request, () -> {
+                        executions.incrementAndGet();
+                        Order order = new Order(1L);
+                        order.setId(42L);
+                        return order;
+                    });
+                }));
+            }
+            start.countDown();
+            
+            int created = 0;
+            for (Future<Order> result : results) {
+                try {
+                    assertThat(result.get(30, TimeUnit.SECONDS).getId()).isEqualTo(42L);
+                    created++;
+                } catch (ExecutionException e) {
+                    // Lost the claim while the winner was still running
+                    assertThat(e.getCause()).isInstanceOf(IdempotencyConflictException.class);
+                }
+            }
+            assertThat(executions).hasValue(1);
+            assertThat(created).isPositive();
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+    
+    // A separate in-memory cache and in-flight map, as on another instance
+    private IdempotencyService instance() {
+        return new IdempotencyService(idempotencyRecordRepository, objectMapper, Duration.ofHours(1),
+                Duration.ofSeconds(5), 100, Duration.ofMinutes(1));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,93 @@
+package com.azure.demo.orderservice.service;
+
+import com.azure.demo.orderservice.client.ProductServiceClient;
+import com.azure.demo.orderservice.client.UserServiceClient;
+import com.azure.demo.orderservice.repository.AnalyticsSnapshotRepository;
+import com.azure.demo.orderservice.repository.ArchivedOrderRepository;
+import com.azure.demo.orderservice.repository.InstanceLeaseRepository;
+import com.azure.demo.orderservice.repository.OrderRepository;
+import com.azure.demo.orderservice.sharding.OrderShards;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * The analytics aggregates are only complete on a single instance: while this context's
+ * service holds the lease, a second instance with analytics enabled must not start.
+ */
+@SpringBootTest(properties = {
+        "spring.cloud.config.enabled=false",
+        "eureka.client.enabled=false",
+        "management.tracing.enabled=false",
+        "spring.jpa.show-sql=false",
+        "logging.level.com.azure.demo=INFO",
+        "orders.status-journal.enabled=false",
+        "orders.analytics.enabled=true"
+})
+// Shutting the context down releases the lease for later test classes
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+class OrderAnalyticsServiceTest {
+    
+    @MockBean
+    private UserServiceClient userServiceClient;
+    
+    @MockBean
+    private ProductServiceClient productServiceClient;
+    
+    @Autowired
+    private OrderAnalyticsService orderAnalyticsService;
+    
+    @Autowired
+    private OrderRepository orderRepository;
+    
+    @Autowired
+    private ArchivedOrderRepository archivedOrderRepository;
+    
+    @Autowired
+    private OrderArchiveService orderArchiveService;
+    
+    @Autowired
+    private AnalyticsSnapshotRepository snapshotRepository;
+    
+    @Autowired
+    private InstanceLeaseRepository leaseRepository;
+    
+    @Autowired
+    private OrderShards orderShards;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Test
+    void secondInstanceFailsToStartWhileTheLeaseIsHeld() {
+        OrderAnalyticsService second = instance(true);
+        
+        assertThat(orderAnalyticsService.isEnabled()).isTrue();
+        assertThatThrownBy(second::restore)
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("single instance");
+    }
+    
+    @Test
+    void disabledInstanceNeitherClaimsTheLeaseNorCounts() {
+        OrderAnalyticsService disabled = instance(false);
+        disabled.restore();
+        
+        assertThat(disabled.isEnabled()).isFalse();
+        assertThat(disabled.getSummary(10).getTotal().getOrders()).isZero();
+    }
+    
+    // Another process sharing the database, with its own lease owner token
+    private OrderAnalyticsService instance(boolean enabled) {
+        return new OrderAnalyticsService(orderRepository, archivedOrderRepository, orderArchiveService,
+                snapshotRepository, orderShards, objectMapper, 2, leaseRepository, enabled, Duration.ofMillis(500));
+    }
+}
\ No newline at end of file
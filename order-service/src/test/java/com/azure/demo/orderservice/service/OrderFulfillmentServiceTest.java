@@ -0,0 +1,227 @@
+package com.azure.demo.orderservice.service;
+
+import com.azure.demo.orderservice.client.ProductServiceClient;
+import com.azure.demo.orderservice.client.UserServiceClient;
+import com.azure.demo.orderservice.controller.OrderController;
+import com.azure.demo.orderservice.dto.CreateOrderRequest;
+import com.azure.demo.orderservice.dto.ProductDto;
+import com.azure.demo.orderservice.dto.UserDto;
+import com.azure.demo.orderservice.model.Order;
+import com.azure.demo.orderservice.model.OrderStatus;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import feign.FeignException;
+import feign.Request;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpStatus;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Asynchronous fulfillment against stubbed user- and product-service clients. Tests that
+ * need orders to stay queued hold the workers inside the user-service call on a gate, so
+ * nothing depends on timing; throughput is measured by the load tests instead.
+ */
+@SpringBootTest(properties = {
+        "spring.cloud.config.enabled=false",
+        "eureka.client.enabled=false",
+        "management.tracing.enabled=false",
+        "spring.jpa.show-sql=false",
+        "logging.level.com.azure.demo=INFO",
+        "orders.status-journal.enabled=false",
+        "orders.fulfillment.workers=2",
+        "orders.fulfillment.queue-capacity=8",
+        "orders.fulfillment.retry-backoff=10ms"
+})
+class OrderFulfillmentServiceTest {
+    
+    private static final int CAPACITY = 2 + 8;
+    
+    private final CountDownLatch gate = new CountDownLatch(1);
+    private final Set<String> downstreamThreads = ConcurrentHashMap.newKeySet();
+    
+    @MockBean
+    private UserServiceClient userServiceClient;
+    
+    @MockBean
+    private ProductServiceClient productServiceClient;
+    
+    @Autowired
+    private OrderFulfillmentService orderFulfillmentService;
+    
+    @Autowired
+    private OrderService orderService;
+    
+    @Autowired
+    private OrderController orderController;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @BeforeEach
+    void stubDownstreamServices() {
+        doAnswer(invocation -> new UserDto(invocation.getArgument(0), "user", "user@example.com", "Test", "User"))
+                .when(userServiceClient).getUserById(anyLong());
+        doAnswer(invocation -> {
+            downstreamThreads.add(Thread.currentThread().getName());
+            return product(invocation.getArgument(0), true);
+        }).when(productServiceClient).getProductById(anyLong());
+        doAnswer(invocation -> product(invocation.getArgument(0), true))
+                .when(productServiceClient).decreaseStock(anyLong(), anyInt());
+    }
+    
+    @Test
+    void acceptReturnsPendingWithoutCallingDownstreamServices() throws InterruptedException {
+        holdWorkersAtTheGate();
+        List<Long> ids = new ArrayList<>();
+        try {
+            for (int i = 0; i < CAPACITY; i++) {
+                Order accepted = orderFulfillmentService.submit(request(1 + i, 1L, 2L));
+                assertThat(accepted.getStatus()).isEqualTo(OrderStatus.PENDING);
+                ids.add(accepted.getId());
+            }
+            
+            assertThat(ids).allSatisfy(id -> assertThat(status(id)).isEqualTo(OrderStatus.PENDING));
+            verify(productServiceClient, never()).getProductById(anyLong());
+        } finally {
+            gate.countDown();
+        }
+        awaitFulfilled(ids, Duration.ofSeconds(10));
+        
+        assertThat(ids).allSatisfy(id -> assertThat(status(id)).isEqualTo(OrderStatus.CONFIRMED));
+        assertThat(downstreamThreads).isNotEmpty().allMatch(name -> name.startsWith("order-fulfillment-"));
+    }
+    
+    @Test
+    void fullQueueRefusesSubmissionsWith503() throws InterruptedException {
+        holdWorkersAtTheGate();
+        List<Long> ids = new ArrayList<>();
+        try {
+            for (int i = 0; i < CAPACITY; i++) {
+                ids.add(orderFulfillmentService.submit(request(1 + i, 1L)).getId());
+            }
+            
+            assertThat(orderFulfillmentService.getAvailableCapacity()).isZero();
+            assertThatThrownBy(() -> orderFulfillmentService.submit(request(99, 1L)))
+                    .isInstanceOf(OrderQueueFullException.class);
+            assertThat(orderController.submitOrder(request(99, 1L)).getStatusCode())
+                    .isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        } finally {
+            gate.countDown();
+        }
+        awaitFulfilled(ids, Duration.ofSeconds(10));
+        
+        assertThat(orderFulfillmentService.getAvailableCapacity()).isEqualTo(CAPACITY);
+    }
+    
+    @Test
+    void sweepLeavesSubmissionsPendingWhileTheQueueIsFull() throws Exception {
+        CreateOrderRequest stored = request(12, 1L);
+        // Accepted before a restart: stored, but not queued on this instance
+        Long leftOver = orderService.createPendingOrder(stored, objectMapper.writeValueAsString(stored)).getId();
+        holdWorkersAtTheGate();
+        List<Long> ids = new ArrayList<>();
+        try {
+            for (int i = 0; i < CAPACITY; i++) {
+                ids.add(orderFulfillmentService.submit(request(1 + i, 1L)).getId());
+            }
+            
+            // Returns at once instead of waiting for a queue slot
+            orderFulfillmentService.resumePendingSubmissions();
+            
+            assertThat(status(leftOver)).isEqualTo(OrderStatus.PENDING);
+        } finally {
+            gate.countDown();
+        }
+        awaitFulfilled(ids, Duration.ofSeconds(10));
+        
+        orderFulfillmentService.resumePendingSubmissions();
+        awaitFulfilled(List.of(leftOver), Duration.ofSeconds(10));
+        assertThat(status(leftOver)).isEqualTo(OrderStatus.CONFIRMED);
+    }
+    
+    @Test
+    void failedItemGivesBackStockReservedForEarlierItems() throws InterruptedException {
+        doReturn(product(3L, false)).when(productServiceClient).getProductById(3L);
+        
+        Order order = orderFulfillmentService.submit(request(7, 1L, 3L));
+        awaitFulfilled(List.of(order.getId()), Duration.ofSeconds(10));
+        
+        assertThat(status(order.getId())).isEqualTo(OrderStatus.REJECTED);
+        verify(productServiceClient).increaseStock(1L, 1);
+        verify(productServiceClient, never()).decreaseStock(3L, 1);
+    }
+    
+    @Test
+    void unavailableUserServiceIsRetriedInsteadOfRejected() throws InterruptedException {
+        Request request = Request.create(Request.HttpMethod.GET, "http://user-service/users/8", Map.of(), null,
+                StandardCharsets.UTF_8, null);
+        doThrow(new FeignException.ServiceUnavailable("unavailable", request, null, null))
+                .doAnswer(invocation -> new UserDto(invocation.getArgument(0), "user", "user@example.com", "Test", "User"))
+                .when(userServiceClient).getUserById(8L);
+        
+        Order order = orderFulfillmentService.submit(request(8, 1L));
+        awaitFulfilled(List.of(order.getId()), Duration.ofSeconds(10));
+        
+        assertThat(status(order.getId())).isEqualTo(OrderStatus.CONFIRMED);
+        verify(userServiceClient, times(2)).getUserById(8L);
+    }
+    
+    // Workers block in the user-service call until the gate opens, so their orders stay queued
+    private void holdWorkersAtTheGate() {
+        doAnswer(invocation -> {
+            downstreamThreads.add(Thread.currentThread().getName());
+            gate.await(30, TimeUnit.SECONDS);
+            return new UserDto(invocation.getArgument(0), "user", "user@example.com", "Test", "User");
+        }).when(userServiceClient).getUserById(anyLong());
+    }
+    
+    private void awaitFulfilled(List<Long> ids, Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        for (Long id : ids) {
+            while (status(id) == OrderStatus.PENDING) {
+                assertThat(System.nanoTime()).as("order %d still PENDING", id).isLessThan(deadline);
+                TimeUnit.MILLISECONDS.sleep(10);
+            }
+        }
+    }
+    
+    private OrderStatus status(Long id) {
+        return orderService.getOrderById(id).map(Order::getStatus).orElseThrow();
+    }
+    
+    private static CreateOrderRequest request(long userId, Long... productIds) {
+        List<CreateOrderRequest.OrderItemRequest> items = new ArrayList<>();
+        for (Long productId : productIds) {
+            items.add(new CreateOrderRequest.OrderItemRequest(productId, 1));
+        }
+        return new CreateOrderRequest(userId, items);
+    }
+    
+    private static ProductDto product(Long id, boolean active) {
+        return new ProductDto(id, "Product " + id, "Test product", new BigDecimal("9.99"), "Test", 1_000_000, active);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,164 @@
+package com.azure.demo.orderservice.sharding;
+
+import com.azure.demo.orderservice.client.ProductServiceClient;
+import com.azure.demo.orderservice.client.UserServiceClient;
+import com.azure.demo.orderservice.dto.CreateOrderRequest;
+import com.azure.demo.orderservice.dto.ProductDto;
+import com.azure.demo.orderservice.dto.UserDto;
+import com.azure.demo.orderservice.model.Order;
+import com.azure.demo.orderservice.model.OrderStatus;
+import com.azure.demo.orderservice.service.OrderService;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+
+/**
+ * Orders spread over two in-memory H2 shards: each lands on its user's shard with an id
+ * that names that shard, lookups by id and user go to one shard, and list queries gather
+ * from both.
+ */
+@SpringBootTest(properties = {
+        "spring.cloud.config.enabled=false",
+        "eureka.client.enabled=false",
+        "management.tracing.enabled=false",
+        "spring.jpa.show-sql=false",
+        "logging.level.com.azure.demo=INFO",
+        "orders.status-journal.enabled=false",
+        "orders.archive.enabled=false",
+        "spring.datasource.url=jdbc:h2:mem:shardtest0",
+        "orders.sharding.enabled=true",
+        "orders.sharding.urls=jdbc:h2:mem:shardtest1"
+})
+// The shard count is static; the context must not be reused by unsharded tests
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+class OrderShardingTest {
+    
+    private static final int USERS = 20;
+    
+    @MockBean
+    private UserServiceClient userServiceClient;
+    
+    @MockBean
+    private ProductServiceClient productServiceClient;
+    
+    @Autowired
+    private OrderService orderService;
+    
+    @Autowired
+    private OrderShards orderShards;
+    
+    @Autowired
+    private ShardRoutingDataSource shardRoutingDataSource;
+    
+    @AfterAll
+    static void resetShardCount() {
+        ShardContext.configure(1);
+    }
+    
+    @BeforeEach
+    void stubDownstreamServices() {
+        doAnswer(invocation -> new UserDto(invocation.getArgument(0), "user", "user@example.com", "Test", "User"))
+                .when(userServiceClient).getUserById(anyLong());
+        doAnswer(invocation -> new ProductDto(invocation.getArgument(0), "Product", "Test product",
+                new BigDecimal("9.99"), "Test", 1_000_000, true))
+                .when(productServiceClient).getProductById(anyLong());
+    }
+    
+    @Test
+    void usersAreSpreadOverBothShards() {
+        Set<Integer> shards = new HashSet<>();
+        for (long userId = 1; userId <= USERS; userId++) {
+            shards.add(orderShards.forUser(userId));
+        }
+    
+        assertThat(orderShards.count()).isEqualTo(2);
+        assertThat(shards).containsExactlyInAnyOrder(0, 1);
+    }
+    
+    @Test
+    void orderIsStoredOnItsUsersShardUnderAnIdNamingThatShard() {
+        List<Order> orders = createOrders();
+    
+        Set<Long> ids = new HashSet<>();
+        for (Order order : orders) {
+            int shard = orderShards.forUser(order.getUserId());
+            assertThat(ids.add(order.getId())).as("id %d reused", order.getId()).isTrue();
+            assertThat(orderShards.forOrder(order.getId())).isEqualTo(shard);
+            assertThat(idsOn(shard)).contains(order.getId());
+            assertThat(idsOn(1 - shard)).doesNotContain(order.getId());
+        }
+    }
+    
+    @Test
+    void lookupsByIdAndUserReadTheOwningShard() {
+        List<Order> orders = createOrders();
+    
+        for (Order order : orders) {
+            assertThat(orderService.getOrderById(order.getId()))
+                    .hasValueSatisfying(found -> assertThat(found.getUserId()).isEqualTo(order.getUserId()));
+            assertThat(orderService.getOrdersByUserId(order.getUserId()))
+                    .extracting(Order::getUserId)
+                    .containsOnly(order.getUserId());
+        }
+    }
+    
+    @Test
+    void listQueriesGatherEveryShardInIdOrder() {
+        List<Order> orders = createOrders();
+        Long shippedOnFirst = firstOn(0, orders);
+        Long shippedOnSecond = firstOn(1, orders);
+        orderService.updateOrderStatus(shippedOnFirst, OrderStatus.SHIPPED);
+        orderService.updateOrderStatus(shippedOnSecond, OrderStatus.SHIPPED);
+    
+        List<Long> all = orderService.getAllOrders().stream().map(Order::getId).toList();
+        List<Long> stored = new ArrayList<>(idsOn(0));
+        stored.addAll(idsOn(1));
+    
+        assertThat(all).isSorted().containsExactlyInAnyOrderElementsOf(stored);
+        assertThat(all).containsAll(orders.stream().map(Order::getId).toList());
+        assertThat(orderService.getOrdersByStatus(OrderStatus.SHIPPED))
+                .extracting(Order::getId)
+                .contains(shippedOnFirst, shippedOnSecond)
+                .isSorted()
+                .allSatisfy(id -> assertThat(orderService.getOrderById(id))
+                        .hasValueSatisfying(order -> assertThat(order.getStatus()).isEqualTo(OrderStatus.SHIPPED)));
+    }
+    
+    // One order per user
+    private List<Order> createOrders() {
+        List<Order> orders = new ArrayList<>();
+        for (long userId = 1; userId <= USERS; userId++) {
+            orders.add(orderService.createOrder(new CreateOrderRequest(userId,
+                    List.of(new CreateOrderRequest.OrderItemRequest(1L, 1)))));
+        }
+        return orders;
+    }
+    
+    private Long firstOn(int shard, List<Order> orders) {
+        return orders.stream()
+                .filter(order -> orderShards.forOrder(order.getId()) == shard)
+                .findFirst()
+                .map(Order::getId)
+                .orElseThrow();
+    }
+    
+    private List<Long> idsOn(int shard) {
+        JdbcTemplate jdbc = new JdbcTemplate(shardRoutingDataSource);
+        return ShardContext.on(shard, () -> jdbc.queryForList("SELECT id FROM orders", Long.class));
+    }
+}
\ No newline at end of file
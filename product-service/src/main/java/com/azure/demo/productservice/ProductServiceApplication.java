@@ -2,8 +2,12 @@ package com.azure.demo.productservice;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
+@ImportRuntimeHints(ProductServiceRuntimeHints.class)
 public class ProductServiceApplication {
 
     public static void main(String[] args) {
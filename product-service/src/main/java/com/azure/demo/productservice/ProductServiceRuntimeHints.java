@@ -0,0 +1,24 @@
+package com.azure.demo.productservice;
+
+import com.azure.demo.productservice.filter.ProductPage;
+import com.azure.demo.productservice.model.Product;
+import com.azure.demo.productservice.trending.TrendingProduct;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+
+/**
+ * Reflection hints for the native image. The Product entity is mapped by Hibernate and
+ * read and written as JSON by the controller; TrendingProduct and ProductPage are only
+ * ever written.
+ */
+public class ProductServiceRuntimeHints implements RuntimeHintsRegistrar {
+    
+    private final BindingReflectionHintsRegistrar bindingHints = new BindingReflectionHintsRegistrar();
+    
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        bindingHints.registerReflectionHints(hints.reflection(), Product.class, TrendingProduct.class,
+                ProductPage.class);
+    }
+}
\ No newline at end of file
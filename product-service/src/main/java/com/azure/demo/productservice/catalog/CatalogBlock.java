@@ -0,0 +1,154 @@
+package com.azure.demo.productservice.catalog;
+
+import com.azure.demo.productservice.model.Product;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+/**
+ * Up to {@link #CAPACITY} consecutive products, by ascending id, stored column by column.
+ * <p>
+ * Prices are held as cents, timestamps as UTC epoch microseconds (the column precision),
+ * categories as dictionary codes and the active flag as a bitmap, so a block is a dozen
+ * arrays rather than one object graph per product. Blocks are never modified once built.
+ */
+final class CatalogBlock {
+    
+    static final int CAPACITY = 4096;
+    
+    private static final long NO_TIMESTAMP = Long.MIN_VALUE;
+    
+    final int size;
+    final long[] ids;
+    final long[] priceCents;
+    final int[] stock;
+    final int[] categoryCodes;
+    final long[] activeBits;
+    final String[] names;
+    final String[] descriptions;
+    final long[] createdAtMicros;
+    final long[] updatedAtMicros;
+    
+    private CatalogBlock(Builder builder) {
+        this.size = builder.size;
+        this.ids = Arrays.copyOf(builder.ids, size);
+        this.priceCents = Arrays.copyOf(builder.priceCents, size);
+        this.stock = Arrays.copyOf(builder.stock, size);
+        this.categoryCodes = Arrays.copyOf(builder.categoryCodes, size);
+        this.activeBits = Arrays.copyOf(builder.activeBits, (size + 63) >>> 6);
+        this.names = Arrays.copyOf(builder.names, size);
+        this.descriptions = Arrays.copyOf(builder.descriptions, size);
+        this.createdAtMicros = Arrays.copyOf(builder.createdAtMicros, size);
+        this.updatedAtMicros = Arrays.copyOf(builder.updatedAtMicros, size);
+    }
+    
+    long firstId() {
+        return ids[0];
+    }
+    
+    boolean isActive(int row) {
+        return (activeBits[row >>> 6] & (1L << row)) != 0;
+    }
+    
+    /** A detached product holding the row's values. */
+    Product toProduct(int row, CategoryDictionary categories) {
+        Product product = new Product();
+        product.setId(ids[row]);
+        product.setName(names[row]);
+        product.setDescription(descriptions[row]);
+        product.setPrice(BigDecimal.valueOf(priceCents[row], 2));
+        product.setCategory(categories.value(categoryCodes[row]));
+        product.setStockQuantity(stock[row]);
+        product.setIsActive(isActive(row));
+        product.setCreatedAt(toTimestamp(createdAtMicros[row]));
+        product.setUpdatedAt(toTimestamp(updatedAtMicros[row]));
+        return product;
+    }
+    
+    static long toCents(BigDecimal price) {
+        // The column has scale 2, so this is the value the database holds
+        return price.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+    
+    static long toMicros(LocalDateTime timestamp) {
+        if (timestamp == null) {
+            return NO_TIMESTAMP;
+        }
+        return timestamp.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + timestamp.getNano() / 1_000;
+    }
+    
+    static LocalDateTime toTimestamp(long micros) {
+        if (micros == NO_TIMESTAMP) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000),
+                (int) Math.floorMod(micros, 1_000_000) * 1_000, ZoneOffset.UTC);
+    }
+    
+    /**
+     * Accumulates rows in ascending id order; {@link #isFull()} tells the caller when to
+     * build and start the next block.
+     */
+    static final class Builder {
+        
+        private int size;
+        private final long[] ids = new long[CAPACITY];
+        private final long[] priceCents = new long[CAPACITY];
+        private final int[] stock = new int[CAPACITY];
+        private final int[] categoryCodes = new int[CAPACITY];
+        private final long[] activeBits = new long[CAPACITY >>> 6];
+        private final String[] names = new String[CAPACITY];
+        private final String[] descriptions = new String[CAPACITY];
+        private final long[] createdAtMicros = new long[CAPACITY];
+        private final long[] updatedAtMicros = new long[CAPACITY];
+        
+        void add(long id, String name, String description, long cents, int categoryCode, int stockQuantity,
+                 boolean active, long createdAt, long updatedAt) {
+            ids[size] = id;
+            names[size] = name;
+            descriptions[size] = description;
+            priceCents[size] = cents;
+            categoryCodes[size] = categoryCode;
+            stock[size] = stockQuantity;
+            if (active) {
+                activeBits[size >>> 6] |= 1L << size;
+            }
+            createdAtMicros[size] = createdAt;
+            updatedAtMicros[size] = updatedAt;
+            size++;
+        }
+        
+        void add(Product product, CategoryDictionary categories) {
+            add(product.getId(), product.getName(), product.getDescription(), toCents(product.getPrice()),
+                    categories.code(product.getCategory()),
+                    product.getStockQuantity() == null ? 0 : product.getStockQuantity(),
+                    Boolean.TRUE.equals(product.getIsActive()),
+                    toMicros(product.getCreatedAt()), toMicros(product.getUpdatedAt()));
+        }
+        
+        void copy(CatalogBlock block, int row) {
+            add(block.ids[row], block.names[row], block.descriptions[row], block.priceCents[row],
+                    block.categoryCodes[row], block.stock[row], block.isActive(row),
+                    block.createdAtMicros[row], block.updatedAtMicros[row]);
+        }
+        
+        boolean isEmpty() {
+            return size == 0;
+        }
+        
+        boolean isFull() {
+            return size == CAPACITY;
+        }
+        
+        /** The rows added so far as a block; the builder is empty afterwards. */
+        CatalogBlock build() {
+            CatalogBlock block = new CatalogBlock(this);
+            size = 0;
+            Arrays.fill(activeBits, 0);
+            return block;
+        }
+    }
+}
\ No newline at end of file
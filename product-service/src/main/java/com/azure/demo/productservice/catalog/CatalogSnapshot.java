@@ -0,0 +1,240 @@
+package com.azure.demo.productservice.catalog;
+
+import com.azure.demo.productservice.model.Product;
+import com.azure.demo.productservice.repository.CatalogRow;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Immutable, columnar copy of the product table for the catalog listing queries.
+ * <p>
+ * Products are kept in id order in fixed-capacity {@link CatalogBlock}s. A change produces
+ * a new snapshot that shares every block it did not touch, so patching a handful of
+ * products copies a few blocks rather than the whole catalog, and a reader holding a
+ * snapshot never sees it change. Listings scan primitive arrays and only allocate the
+ * products they return.
+ */
+public final class CatalogSnapshot {
+    
+    private static final CatalogSnapshot EMPTY = new CatalogSnapshot(new CatalogBlock[0], CategoryDictionary.EMPTY);
+    
+    private final CatalogBlock[] blocks;
+    private final CategoryDictionary categories;
+    private final int size;
+    
+    private CatalogSnapshot(CatalogBlock[] blocks, CategoryDictionary categories) {
+        this.blocks = blocks;
+        this.categories = categories;
+        int total = 0;
+        for (CatalogBlock block : blocks) {
+            total += block.size;
+        }
+        this.size = total;
+    }
+    
+    public static CatalogSnapshot empty() {
+        return EMPTY;
+    }
+    
+    public static Builder builder() {
+        return new Builder();
+    }
+    
+    /** Number of products, active or not. */
+    public int size() {
+        return size;
+    }
+    
+    /** Every product id, ascending. */
+    public long[] ids() {
+        long[] ids = new long[size];
+        int next = 0;
+        for (CatalogBlock block : blocks) {
+            System.arraycopy(block.ids, 0, ids, next, block.size);
+            next += block.size;
+        }
+        return ids;
+    }
+    
+    /** Same contents as {@code findByIsActiveTrue}. */
+    public List<Product> activeProducts() {
+        List<Product> products = new ArrayList<>();
+        for (CatalogBlock block : blocks) {
+            for (int row = 0; row < block.size; row++) {
+                if (block.isActive(row)) {
+                    products.add(block.toProduct(row, categories));
+                }
+            }
+        }
+        return products;
+    }
+    
+    /** Same contents as {@code findByCategoryAndIsActiveTrue}. */
+    public List<Product> activeProductsInCategory(String category) {
+        int code = categories.code(category);
+        if (code < 0) {
+            return new ArrayList<>();
+        }
+        List<Product> products = new ArrayList<>();
+        for (CatalogBlock block : blocks) {
+            int[] codes = block.categoryCodes;
+            for (int row = 0; row < block.size; row++) {
+                if (codes[row] == code && block.isActive(row)) {
+                    products.add(block.toProduct(row, categories));
+                }
+            }
+        }
+        return products;
+    }
+    
+    /** Same contents as {@code findByStockQuantityGreaterThan(0)}, which includes inactive products. */
+    public List<Product> productsInStock() {
+        List<Product> products = new ArrayList<>();
+        for (CatalogBlock block : blocks) {
+            int[] stock = block.stock;
+            for (int row = 0; row < block.size; row++) {
+                if (stock[row] > 0) {
+                    products.add(block.toProduct(row, categories));
+                }
+            }
+        }
+        return products;
+    }
+    
+    /** Number of products in stock, without materializing them. */
+    public int countInStock() {
+        int count = 0;
+        for (CatalogBlock block : blocks) {
+            int[] stock = block.stock;
+            for (int row = 0; row < block.size; row++) {
+                if (stock[row] > 0) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+    
+    /**
+     * A snapshot with the given products inserted or replaced and the given ids removed.
+     * Only blocks whose id range holds a change are rebuilt.
+     */
+    public CatalogSnapshot withChanges(Collection<Product> upserts, Collection<Long> deletedIds) {
+        if (upserts.isEmpty() && deletedIds.isEmpty()) {
+            return this;
+        }
+        Set<String> newCategories = new HashSet<>();
+        TreeMap<Long, Product> changes = new TreeMap<>();
+        for (Product product : upserts) {
+            newCategories.add(product.getCategory());
+            changes.put(product.getId(), product);
+        }
+        for (Long id : deletedIds) {
+            changes.put(id, null);
+        }
+        CategoryDictionary dictionary = categories.with(newCategories);
+        
+        List<CatalogBlock> result = new ArrayList<>(blocks.length + 1);
+        CatalogBlock.Builder builder = new CatalogBlock.Builder();
+        if (blocks.length == 0) {
+            merge(null, changes, builder, dictionary, result);
+        }
+        for (int i = 0; i < blocks.length; i++) {
+            // The first block also takes ids below it, the last one ids above it
+            long from = i == 0 ? Long.MIN_VALUE : blocks[i].firstId();
+            Map<Long, Product> blockChanges = i == blocks.length - 1
+                    ? changes.tailMap(from, true)
+                    : changes.subMap(from, true, blocks[i + 1].firstId(), false);
+            if (blockChanges.isEmpty()) {
+                result.add(blocks[i]);
+            } else {
+                merge(blocks[i], blockChanges, builder, dictionary, result);
+            }
+        }
+        return new CatalogSnapshot(result.toArray(new CatalogBlock[0]), dictionary);
+    }
+    
+    /** Merges a block's rows with the changes in its id range, splitting it if it overflows. */
+    private static void merge(CatalogBlock block, Map<Long, Product> changes, CatalogBlock.Builder builder,
+                              CategoryDictionary dictionary, List<CatalogBlock> result) {
+        int row = 0;
+        int rows = block == null ? 0 : block.size;
+        for (Map.Entry<Long, Product> change : changes.entrySet()) {
+            long id = change.getKey();
+            while (row < rows && block.ids[row] < id) {
+                append(builder, result).copy(block, row++);
+            }
+            if (row < rows && block.ids[row] == id) {
+                row++;
+            }
+            if (change.getValue() != null) {
+                append(builder, result).add(change.getValue(), dictionary);
+            }
+        }
+        while (row < rows) {
+            append(builder, result).copy(block, row++);
+        }
+        if (!builder.isEmpty()) {
+            result.add(builder.build());
+        }
+    }
+    
+    private static CatalogBlock.Builder append(CatalogBlock.Builder builder, List<CatalogBlock> result) {
+        if (builder.isFull()) {
+            result.add(builder.build());
+        }
+        return builder;
+    }
+    
+    /**
+     * Builds a snapshot from rows supplied in ascending id order.
+     */
+    public static final class Builder {
+        
+        private final List<CatalogBlock> blocks = new ArrayList<>();
+        private final CatalogBlock.Builder block = new CatalogBlock.Builder();
+        private CategoryDictionary categories = CategoryDictionary.EMPTY;
+        
+        private Builder() {
+        }
+        
+        public Builder add(CatalogRow row) {
+            int code = code(row.getCategory());
+            append(block, blocks).add(row.getId(), row.getName(), row.getDescription(),
+                    CatalogBlock.toCents(row.getPrice()), code,
+                    row.getStockQuantity() == null ? 0 : row.getStockQuantity(),
+                    Boolean.TRUE.equals(row.getIsActive()),
+                    CatalogBlock.toMicros(row.getCreatedAt()), CatalogBlock.toMicros(row.getUpdatedAt()));
+            return this;
+        }
+        
+        public Builder add(Product product) {
+            code(product.getCategory());
+            append(block, blocks).add(product, categories);
+            return this;
+        }
+        
+        public CatalogSnapshot build() {
+            if (!block.isEmpty()) {
+                blocks.add(block.build());
+            }
+            return new CatalogSnapshot(blocks.toArray(new CatalogBlock[0]), categories);
+        }
+        
+        private int code(String category) {
+            int code = categories.code(category);
+            if (code < 0) {
+                categories = categories.with(Collections.singletonList(category));
+                code = categories.code(category);
+            }
+            return code;
+        }
+    }
+}
\ No newline at end of file
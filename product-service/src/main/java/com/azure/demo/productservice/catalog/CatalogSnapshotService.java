@@ -0,0 +1,147 @@
+package com.azure.demo.productservice.catalog;
+
+import com.azure.demo.common.datasource.ReadYourWrites;
+import com.azure.demo.productservice.model.Product;
+import com.azure.demo.productservice.repository.CatalogRow;
+import com.azure.demo.productservice.repository.ProductRepository;
+import com.azure.demo.productservice.service.ProductChangedEvent;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Optional in-memory read model for the catalog listings.
+ * <p>
+ * The snapshot is built from a streaming scan once the application is ready. Committed
+ * writes only mark their product id dirty, as do other instances' writes found by the
+ * ProductChangePoller; a single publisher re-reads the dirty products in one query,
+ * patches the snapshot copy-on-write and publishes the result with a volatile write, so
+ * readers never lock and a burst of stock decrements costs one patch per publish interval.
+ * Listings served from the snapshot may therefore lag the database by about that interval.
+ * Until the first build completes (or when disabled) callers fall back to the repository.
+ */
+@Service
+public class CatalogSnapshotService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(CatalogSnapshotService.class);
+    
+    private final ProductRepository productRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final boolean enabled;
+    private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+    
+    // Null until the first build completes; only the publisher replaces it afterwards
+    private volatile CatalogSnapshot snapshot;
+    
+    @Autowired
+    public CatalogSnapshotService(ProductRepository productRepository,
+                                  PlatformTransactionManager transactionManager,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${products.catalog-snapshot.enabled:false}") boolean enabled) {
+        this.productRepository = productRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.enabled = enabled;
+        Gauge.builder("product.catalog.snapshot.products", this, service -> {
+                    CatalogSnapshot current = service.snapshot;
+                    return current == null ? 0 : current.size();
+                })
+                .description("Products held in the catalog snapshot")
+                .register(meterRegistry);
+        Gauge.builder("product.catalog.snapshot.pending", dirty, Set::size)
+                .description("Changed products not yet published to the catalog snapshot")
+                .register(meterRegistry);
+    }
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    /** The published snapshot, or null if listings should be read from the repository. */
+    public CatalogSnapshot current() {
+        return snapshot;
+    }
+    
+    /** Marks products created, updated or deleted by another instance for the next publish. */
+    public void changed(Collection<Long> productIds) {
+        if (enabled) {
+            dirty.addAll(productIds);
+        }
+    }
+    
+    // After commit, so a rolled-back write never reaches the snapshot
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (enabled) {
+            dirty.add(event.getProductId());
+        }
+    }
+    
+    /** Ids of the products in the published snapshot in ascending order, or none before the first build. */
+    public long[] productIds() {
+        CatalogSnapshot current = snapshot;
+        return current == null ? new long[0] : current.ids();
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void build() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.nanoTime();
+        CatalogSnapshot.Builder builder = CatalogSnapshot.builder();
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<CatalogRow> rows = productRepository.streamCatalogRows()) {
+                rows.forEach(builder::add);
+            }
+        });
+        // Writes during the scan stay dirty and are re-read by the next publish
+        snapshot = builder.build();
+        logger.info("Built catalog snapshot of {} products in {} ms", snapshot.size(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+    
+    @Scheduled(fixedDelayString = "${products.catalog-snapshot.publish-interval:PT0.2S}")
+    public synchronized void publish() {
+        CatalogSnapshot current = snapshot;
+        if (current == null || dirty.isEmpty()) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>(dirty);
+        // Removed before reading, so a write racing with the read marks its product dirty again
+        dirty.removeAll(ids);
+        List<Product> products;
+        try {
+            // These rows just changed, so a lagging replica could still return the old versions
+            products = ReadYourWrites.onPrimary(() -> productRepository.findAllById(ids));
+        } catch (RuntimeException e) {
+            // Keep serving the last snapshot and retry these products next time
+            dirty.addAll(ids);
+            logger.warn("Could not patch catalog snapshot: {}", e.getMessage());
+            return;
+        }
+        Set<Long> deleted = new HashSet<>(ids);
+        for (Product product : products) {
+            deleted.remove(product.getId());
+        }
+        snapshot = current.withChanges(products, deleted);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,51 @@
+package com.azure.demo.productservice.catalog;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Append-only mapping between category names and small int codes. Codes never change, so
+ * blocks encoded against an older dictionary stay valid in every later snapshot.
+ */
+final class CategoryDictionary {
+    
+    static final CategoryDictionary EMPTY = new CategoryDictionary(new String[0], new HashMap<>());
+    
+    private final String[] values;
+    private final Map<String, Integer> codes;
+    
+    private CategoryDictionary(String[] values, Map<String, Integer> codes) {
+        this.values = values;
+        this.codes = codes;
+    }
+    
+    /** The code for a category, or -1 if no product ever had it. */
+    int code(String category) {
+        Integer code = codes.get(category);
+        return code == null ? -1 : code;
+    }
+    
+    String value(int code) {
+        return values[code];
+    }
+    
+    /** This dictionary, or a copy extended with the categories it does not know yet. */
+    CategoryDictionary with(Collection<String> categories) {
+        Map<String, Integer> extended = null;
+        String[] extendedValues = values;
+        for (String category : categories) {
+            if (codes.containsKey(category) || (extended != null && extended.containsKey(category))) {
+                continue;
+            }
+            if (extended == null) {
+                extended = new HashMap<>(codes);
+            }
+            extendedValues = Arrays.copyOf(extendedValues, extendedValues.length + 1);
+            extendedValues[extendedValues.length - 1] = category;
+            extended.put(category, extendedValues.length - 1);
+        }
+        return extended == null ? this : new CategoryDictionary(extendedValues, extended);
+    }
+}
\ No newline at end of file
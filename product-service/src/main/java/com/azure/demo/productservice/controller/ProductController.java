@@ -1,9 +1,16 @@
 package com.azure.demo.productservice.controller;
 
+import com.azure.demo.common.web.EntityTags;
+import com.azure.demo.productservice.filter.ProductPage;
 import com.azure.demo.productservice.model.Product;
 import com.azure.demo.productservice.service.ProductService;
+import com.azure.demo.productservice.trending.TrendingProduct;
+import com.azure.demo.productservice.trending.TrendingProductsService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -16,10 +23,12 @@ import java.util.Optional;
 public class ProductController {
     
     private final ProductService productService;
+    private final TrendingProductsService trendingProductsService;
     
     @Autowired
-    public ProductController(ProductService productService) {
+    public ProductController(ProductService productService, TrendingProductsService trendingProductsService) {
         this.productService = productService;
+        this.trendingProductsService = trendingProductsService;
     }
     
     @GetMapping
@@ -34,10 +43,24 @@ public class ProductController {
         return ResponseEntity.ok(products);
     }
     
+    /**
+     * A product with its version as ETag. If-None-Match is answered from the version
+     * alone, so a client that is current gets 304 without the product being loaded.
+     */
     @GetMapping("/{id}")
-    public ResponseEntity<Product> getProductById(@PathVariable Long id) {
+    public ResponseEntity<Product> getProductById(@PathVariable Long id,
+                                                  @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        if (ifNoneMatch != null) {
+            Optional<Long> version = productService.getProductVersion(id);
+            if (version.isEmpty()) {
+                return ResponseEntity.notFound().build();
+            }
+            if (EntityTags.noneMatchHits(ifNoneMatch, version.get())) {
+                return tagged(HttpStatus.NOT_MODIFIED, version.get()).build();
+            }
+        }
         Optional<Product> product = productService.getProductById(id);
-        return product.map(ResponseEntity::ok)
+        return product.map(found -> tagged(HttpStatus.OK, found.getVersion()).body(found))
                 .orElse(ResponseEntity.notFound().build());
     }
     
@@ -59,31 +82,72 @@ public class ProductController {
         return ResponseEntity.ok(products);
     }
     
+    /**
+     * Products matching a filter such as {@code category:Books AND inStock AND price:..20},
+     * see FilterExpression for the syntax.
+     */
+    @GetMapping("/filter")
+    public ResponseEntity<ProductPage> filterProducts(@RequestParam("q") String filter,
+                                                      @RequestParam(defaultValue = "0") int page,
+                                                      @RequestParam(defaultValue = "20") int size) {
+        if (page < 0 || size < 1 || size > 100) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return ResponseEntity.ok(productService.filterProducts(filter, page, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+    
+    @GetMapping("/trending")
+    public ResponseEntity<List<TrendingProduct>> getTrendingProducts(@RequestParam(required = false) String category,
+                                                                     @RequestParam(defaultValue = "10") int limit) {
+        List<TrendingProduct> products = trendingProductsService.getTrending(category, Math.max(1, Math.min(limit, 100)));
+        return ResponseEntity.ok(products);
+    }
+    
+    @GetMapping("/best-sellers")
+    public ResponseEntity<List<TrendingProduct>> getBestSellers(@RequestParam(required = false) String category,
+                                                                @RequestParam(defaultValue = "10") int limit) {
+        List<TrendingProduct> products = trendingProductsService.getBestSellers(category, Math.max(1, Math.min(limit, 100)));
+        return ResponseEntity.ok(products);
+    }
+    
     @PostMapping
     public ResponseEntity<Product> createProduct(@Valid @RequestBody Product product) {
         try {
             Product createdProduct = productService.createProduct(product);
-            return ResponseEntity.status(HttpStatus.CREATED).body(createdProduct);
+            return tagged(HttpStatus.CREATED, createdProduct.getVersion()).body(createdProduct);
         } catch (RuntimeException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
         }
     }
     
+    /** With If-Match, the update only applies to the version the client holds; otherwise 412. */
     @PutMapping("/{id}")
-    public ResponseEntity<Product> updateProduct(@PathVariable Long id, @Valid @RequestBody Product productDetails) {
+    public ResponseEntity<Product> updateProduct(@PathVariable Long id, @Valid @RequestBody Product productDetails,
+                                                 @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         try {
-            Product updatedProduct = productService.updateProduct(id, productDetails);
-            return ResponseEntity.ok(updatedProduct);
+            Product updatedProduct = productService.updateProduct(id, productDetails, EntityTags.expectedVersion(ifMatch));
+            return tagged(HttpStatus.OK, updatedProduct.getVersion()).body(updatedProduct);
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
         }
     }
     
     @PatchMapping("/{id}/stock")
-    public ResponseEntity<Product> updateStock(@PathVariable Long id, @RequestParam Integer stockQuantity) {
+    public ResponseEntity<Product> updateStock(@PathVariable Long id, @RequestParam Integer stockQuantity,
+                                               @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         try {
-            Product updatedProduct = productService.updateStock(id, stockQuantity);
-            return ResponseEntity.ok(updatedProduct);
+            Product updatedProduct = productService.updateStock(id, stockQuantity, EntityTags.expectedVersion(ifMatch));
+            return tagged(HttpStatus.OK, updatedProduct.getVersion()).body(updatedProduct);
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
         }
@@ -93,17 +157,30 @@ public class ProductController {
     public ResponseEntity<Product> decreaseStock(@PathVariable Long id, @RequestParam Integer quantity) {
         try {
             Product updatedProduct = productService.decreaseStock(id, quantity);
-            return ResponseEntity.ok(updatedProduct);
+            return tagged(HttpStatus.OK, updatedProduct.getVersion()).body(updatedProduct);
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().build();
         }
     }
     
+    @PatchMapping("/{id}/increase-stock")
+    public ResponseEntity<Product> increaseStock(@PathVariable Long id, @RequestParam Integer quantity) {
+        try {
+            Product updatedProduct = productService.increaseStock(id, quantity);
+            return tagged(HttpStatus.OK, updatedProduct.getVersion()).body(updatedProduct);
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+    
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deleteProduct(@PathVariable Long id) {
+    public ResponseEntity<Void> deleteProduct(@PathVariable Long id,
+                                              @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         try {
-            productService.deleteProduct(id);
+            productService.deleteProduct(id, EntityTags.expectedVersion(ifMatch));
             return ResponseEntity.noContent().build();
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
         }
@@ -123,4 +200,11 @@ public class ProductController {
     public ResponseEntity<String> health() {
         return ResponseEntity.ok("Product Service is running!");
     }
+    
+    // no-cache lets the gateway and clients keep the body but revalidate it on every use
+    private static ResponseEntity.BodyBuilder tagged(HttpStatus status, Long version) {
+        return ResponseEntity.status(status)
+                .eTag(EntityTags.of(version))
+                .cacheControl(CacheControl.noCache());
+    }
 }
\ No newline at end of file
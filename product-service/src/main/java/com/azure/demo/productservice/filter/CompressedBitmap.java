@@ -0,0 +1,401 @@
+package com.azure.demo.productservice.filter;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Compressed set of unsigned 32-bit ints in the Roaring layout.
+ * <p>
+ * Values are split by their high 16 bits into chunks of 65536. A chunk holding up to 4096
+ * values is a sorted char array (2 bytes per value); a denser one is a 1024-word bitmap
+ * (8 KB, however full). Set operations work chunk by chunk, so chunks present in only one
+ * operand are skipped by AND and copied whole by OR and ANDNOT, without merging values.
+ * Not thread-safe; results of {@link #and}, {@link #or} and {@link #andNot} never share
+ * mutable state with the operands.
+ */
+final class CompressedBitmap {
+    
+    private static final int ARRAY_MAX = 4096;
+    private static final int BITMAP_WORDS = 1024;
+    
+    private char[] keys;
+    private Container[] containers;
+    private int size;
+    
+    CompressedBitmap() {
+        this(new char[4], new Container[4], 0);
+    }
+    
+    private CompressedBitmap(char[] keys, Container[] containers, int size) {
+        this.keys = keys;
+        this.containers = containers;
+        this.size = size;
+    }
+    
+    void add(int value) {
+        char key = (char) (value >>> 16);
+        int index = Arrays.binarySearch(keys, 0, size, key);
+        if (index < 0) {
+            index = -index - 1;
+            insert(index, key, new Container());
+        }
+        containers[index].add((char) value);
+    }
+    
+    void remove(int value) {
+        int index = Arrays.binarySearch(keys, 0, size, (char) (value >>> 16));
+        if (index >= 0) {
+            Container container = containers[index];
+            container.remove((char) value);
+            if (container.cardinality == 0) {
+                System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+                System.arraycopy(containers, index + 1, containers, index, size - index - 1);
+                containers[--size] = null;
+            }
+        }
+    }
+    
+    boolean contains(int value) {
+        int index = Arrays.binarySearch(keys, 0, size, (char) (value >>> 16));
+        return index >= 0 && containers[index].contains((char) value);
+    }
+    
+    long cardinality() {
+        long cardinality = 0;
+        for (int i = 0; i < size; i++) {
+            cardinality += containers[i].cardinality;
+        }
+        return cardinality;
+    }
+    
+    /** Heap held by the chunks, for the memory gauge. */
+    long memoryBytes() {
+        long bytes = size * 2L;
+        for (int i = 0; i < size; i++) {
+            Container container = containers[i];
+            bytes += container.bits != null ? BITMAP_WORDS * 8L : container.values.length * 2L;
+        }
+        return bytes;
+    }
+    
+    CompressedBitmap and(CompressedBitmap other) {
+        CompressedBitmap result = new CompressedBitmap(new char[Math.min(size, other.size)],
+                new Container[Math.min(size, other.size)], 0);
+        int i = 0;
+        int j = 0;
+        while (i < size && j < other.size) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                Container container = containers[i].and(other.containers[j]);
+                if (container.cardinality > 0) {
+                    result.append(keys[i], container);
+                }
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+    
+    CompressedBitmap or(CompressedBitmap other) {
+        CompressedBitmap result = new CompressedBitmap(new char[size + other.size], new Container[size + other.size], 0);
+        int i = 0;
+        int j = 0;
+        while (i < size || j < other.size) {
+            if (j == other.size || (i < size && keys[i] < other.keys[j])) {
+                result.append(keys[i], containers[i].copy());
+                i++;
+            } else if (i == size || keys[i] > other.keys[j]) {
+                result.append(other.keys[j], other.containers[j].copy());
+                j++;
+            } else {
+                result.append(keys[i], containers[i].or(other.containers[j]));
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+    
+    CompressedBitmap andNot(CompressedBitmap other) {
+        CompressedBitmap result = new CompressedBitmap(new char[size], new Container[size], 0);
+        int j = 0;
+        for (int i = 0; i < size; i++) {
+            while (j < other.size && other.keys[j] < keys[i]) {
+                j++;
+            }
+            Container container = j < other.size && other.keys[j] == keys[i]
+                    ? containers[i].andNot(other.containers[j])
+                    : containers[i].copy();
+            if (container.cardinality > 0) {
+                result.append(keys[i], container);
+            }
+        }
+        return result;
+    }
+    
+    /** Passes every value to the consumer in ascending unsigned order. */
+    void forEach(IntConsumer consumer) {
+        for (int i = 0; i < size; i++) {
+            Container container = containers[i];
+            int high = keys[i] << 16;
+            if (container.bits == null) {
+                for (int k = 0; k < container.cardinality; k++) {
+                    consumer.accept(high | container.values[k]);
+                }
+            } else {
+                for (int word = 0; word < BITMAP_WORDS; word++) {
+                    long bits = container.bits[word];
+                    while (bits != 0) {
+                        consumer.accept(high | word << 6 | Long.numberOfTrailingZeros(bits));
+                        bits &= bits - 1;
+                    }
+                }
+            }
+        }
+    }
+    
+    /**
+     * Copies up to {@code limit} values, in ascending unsigned order, after skipping the
+     * first {@code offset}.
+     */
+    long[] page(long offset, int limit) {
+        long[] page = new long[limit];
+        int count = 0;
+        long skip = offset;
+        for (int i = 0; i < size && count < limit; i++) {
+            Container container = containers[i];
+            if (skip >= container.cardinality) {
+                skip -= container.cardinality;
+                continue;
+            }
+            long high = (long) keys[i] << 16;
+            if (container.bits == null) {
+                for (int k = (int) skip; k < container.cardinality && count < limit; k++) {
+                    page[count++] = high | container.values[k];
+                }
+            } else {
+                for (int word = 0; word < BITMAP_WORDS && count < limit; word++) {
+                    long bits = container.bits[word];
+                    while (bits != 0 && count < limit) {
+                        int bit = Long.numberOfTrailingZeros(bits);
+                        bits &= bits - 1;
+                        if (skip > 0) {
+                            skip--;
+                        } else {
+                            page[count++] = high | (word << 6 | bit);
+                        }
+                    }
+                }
+            }
+            skip = 0;
+        }
+        return count == limit ? page : Arrays.copyOf(page, count);
+    }
+    
+    private void insert(int index, char key, Container container) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, Math.max(4, size * 2));
+            containers = Arrays.copyOf(containers, Math.max(4, size * 2));
+        }
+        System.arraycopy(keys, index, keys, index + 1, size - index);
+        System.arraycopy(containers, index, containers, index + 1, size - index);
+        keys[index] = key;
+        containers[index] = container;
+        size++;
+    }
+    
+    private void append(char key, Container container) {
+        insert(size, key, container);
+    }
+    
+    /**
+     * One chunk: a sorted array while it holds at most ARRAY_MAX values, otherwise a bitmap.
+     */
+    private static final class Container {
+        
+        private char[] values;
+        private long[] bits;
+        private int cardinality;
+        
+        Container() {
+            this.values = new char[4];
+        }
+        
+        private Container(char[] values, long[] bits, int cardinality) {
+            this.values = values;
+            this.bits = bits;
+            this.cardinality = cardinality;
+        }
+        
+        void add(char value) {
+            if (bits != null) {
+                long mask = 1L << value;
+                if ((bits[value >>> 6] & mask) == 0) {
+                    bits[value >>> 6] |= mask;
+                    cardinality++;
+                }
+                return;
+            }
+            int index = Arrays.binarySearch(values, 0, cardinality, value);
+            if (index >= 0) {
+                return;
+            }
+            if (cardinality == ARRAY_MAX) {
+                bits = toBits();
+                values = null;
+                add(value);
+                return;
+            }
+            index = -index - 1;
+            if (cardinality == values.length) {
+                values = Arrays.copyOf(values, Math.min(ARRAY_MAX, Math.max(4, cardinality * 2)));
+            }
+            System.arraycopy(values, index, values, index + 1, cardinality - index);
+            values[index] = value;
+            cardinality++;
+        }
+        
+        void remove(char value) {
+            if (bits != null) {
+                long mask = 1L << value;
+                if ((bits[value >>> 6] & mask) != 0) {
+                    bits[value >>> 6] &= ~mask;
+                    cardinality--;
+                    if (cardinality == ARRAY_MAX) {
+                        values = toValues(bits, cardinality);
+                        bits = null;
+                    }
+                }
+                return;
+            }
+            int index = Arrays.binarySearch(values, 0, cardinality, value);
+            if (index >= 0) {
+                System.arraycopy(values, index + 1, values, index, cardinality - index - 1);
+                cardinality--;
+            }
+        }
+        
+        boolean contains(char value) {
+            if (bits != null) {
+                return (bits[value >>> 6] & (1L << value)) != 0;
+            }
+            return Arrays.binarySearch(values, 0, cardinality, value) >= 0;
+        }
+        
+        Container copy() {
+            return bits != null
+                    ? new Container(null, bits.clone(), cardinality)
+                    : new Container(Arrays.copyOf(values, Math.max(cardinality, 1)), null, cardinality);
+        }
+        
+        Container and(Container other) {
+            if (bits == null || other.bits == null) {
+                Container array = bits == null ? this : other;
+                Container probe = array == this ? other : this;
+                char[] result = new char[array.cardinality];
+                int count = 0;
+                for (int i = 0; i < array.cardinality; i++) {
+                    if (probe.contains(array.values[i])) {
+                        result[count++] = array.values[i];
+                    }
+                }
+                return new Container(result, null, count);
+            }
+            long[] result = new long[BITMAP_WORDS];
+            for (int i = 0; i < BITMAP_WORDS; i++) {
+                result[i] = bits[i] & other.bits[i];
+            }
+            return fromBits(result);
+        }
+        
+        Container or(Container other) {
+            if (bits == null && other.bits == null && cardinality + other.cardinality <= ARRAY_MAX) {
+                char[] result = new char[cardinality + other.cardinality];
+                int count = 0;
+                int i = 0;
+                int j = 0;
+                while (i < cardinality || j < other.cardinality) {
+                    if (j == other.cardinality || (i < cardinality && values[i] < other.values[j])) {
+                        result[count++] = values[i++];
+                    } else if (i == cardinality || values[i] > other.values[j]) {
+                        result[count++] = other.values[j++];
+                    } else {
+                        result[count++] = values[i++];
+                        j++;
+                    }
+                }
+                return new Container(result, null, count);
+            }
+            long[] result = bits != null ? bits.clone() : toBits();
+            if (other.bits != null) {
+                for (int i = 0; i < BITMAP_WORDS; i++) {
+                    result[i] |= other.bits[i];
+                }
+            } else {
+                for (int i = 0; i < other.cardinality; i++) {
+                    result[other.values[i] >>> 6] |= 1L << other.values[i];
+                }
+            }
+            return fromBits(result);
+        }
+        
+        Container andNot(Container other) {
+            if (bits == null) {
+                char[] result = new char[cardinality];
+                int count = 0;
+                for (int i = 0; i < cardinality; i++) {
+                    if (!other.contains(values[i])) {
+                        result[count++] = values[i];
+                    }
+                }
+                return new Container(result, null, count);
+            }
+            long[] result = bits.clone();
+            if (other.bits != null) {
+                for (int i = 0; i < BITMAP_WORDS; i++) {
+                    result[i] &= ~other.bits[i];
+                }
+            } else {
+                for (int i = 0; i < other.cardinality; i++) {
+                    result[other.values[i] >>> 6] &= ~(1L << other.values[i]);
+                }
+            }
+            return fromBits(result);
+        }
+        
+        private long[] toBits() {
+            long[] result = new long[BITMAP_WORDS];
+            for (int i = 0; i < cardinality; i++) {
+                result[values[i] >>> 6] |= 1L << values[i];
+            }
+            return result;
+        }
+        
+        private static Container fromBits(long[] bits) {
+            int cardinality = 0;
+            for (long word : bits) {
+                cardinality += Long.bitCount(word);
+            }
+            return cardinality > ARRAY_MAX
+                    ? new Container(null, bits, cardinality)
+                    : new Container(toValues(bits, cardinality), null, cardinality);
+        }
+        
+        private static char[] toValues(long[] bits, int cardinality) {
+            char[] values = new char[Math.max(cardinality, 1)];
+            int count = 0;
+            for (int word = 0; word < BITMAP_WORDS; word++) {
+                long remaining = bits[word];
+                while (remaining != 0) {
+                    values[count++] = (char) (word << 6 | Long.numberOfTrailingZeros(remaining));
+                    remaining &= remaining - 1;
+                }
+            }
+            return values;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,187 @@
+package com.azure.demo.productservice.filter;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A parsed catalog filter, e.g.
+ * {@code category:Books AND inStock AND NOT (price:..9.99 OR category:"Home & Garden")}.
+ * <p>
+ * Terms are {@code active}, {@code inStock}, {@code category:<name>} (quote names with
+ * spaces or parentheses) and {@code price:<min>..<max>} with either bound optional and both
+ * inclusive. They combine with NOT, AND and OR (in decreasing precedence, keywords are
+ * case-insensitive) and parentheses. Syntax errors are reported as IllegalArgumentException.
+ */
+public final class FilterExpression {
+    
+    static final int MAX_LENGTH = 2000;
+    
+    private final Node root;
+    
+    private FilterExpression(Node root) {
+        this.root = root;
+    }
+    
+    public static FilterExpression parse(String text) {
+        if (text == null || text.isBlank()) {
+            throw new IllegalArgumentException("Filter must not be empty");
+        }
+        if (text.length() > MAX_LENGTH) {
+            throw new IllegalArgumentException("Filter must not exceed " + MAX_LENGTH + " characters");
+        }
+        Parser parser = new Parser(tokenize(text));
+        Node root = parser.expression();
+        if (parser.position < parser.tokens.size()) {
+            throw new IllegalArgumentException("Unexpected '" + parser.tokens.get(parser.position) + "' in filter");
+        }
+        return new FilterExpression(root);
+    }
+    
+    CompressedBitmap evaluate(Terms terms) {
+        return root.evaluate(terms);
+    }
+    
+    /** The bitmaps a filter's terms resolve to; results may be the index's own bitmaps. */
+    interface Terms {
+        CompressedBitmap all();
+        
+        CompressedBitmap active();
+        
+        CompressedBitmap inStock();
+        
+        CompressedBitmap category(String category);
+        
+        CompressedBitmap price(long minCents, long maxCents);
+    }
+    
+    private interface Node {
+        CompressedBitmap evaluate(Terms terms);
+    }
+    
+    private static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        int i = 0;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '(' || c == ')') {
+                tokens.add(String.valueOf(c));
+                i++;
+            } else {
+                StringBuilder token = new StringBuilder();
+                while (i < text.length() && !Character.isWhitespace(text.charAt(i))
+                        && text.charAt(i) != '(' && text.charAt(i) != ')') {
+                    if (text.charAt(i) == '"') {
+                        int end = text.indexOf('"', i + 1);
+                        if (end < 0) {
+                            throw new IllegalArgumentException("Unterminated quote in filter");
+                        }
+                        token.append(text, i + 1, end);
+                        i = end + 1;
+                    } else {
+                        token.append(text.charAt(i++));
+                    }
+                }
+                tokens.add(token.toString());
+            }
+        }
+        return tokens;
+    }
+    
+    private static final class Parser {
+        
+        private final List<String> tokens;
+        private int position;
+        
+        Parser(List<String> tokens) {
+            this.tokens = tokens;
+        }
+        
+        Node expression() {
+            Node left = conjunction();
+            while (accept("OR")) {
+                Node l = left;
+                Node r = conjunction();
+                left = terms -> l.evaluate(terms).or(r.evaluate(terms));
+            }
+            return left;
+        }
+        
+        private Node conjunction() {
+            Node left = negation();
+            while (accept("AND")) {
+                Node l = left;
+                Node r = negation();
+                left = terms -> l.evaluate(terms).and(r.evaluate(terms));
+            }
+            return left;
+        }
+        
+        private Node negation() {
+            if (accept("NOT")) {
+                Node operand = negation();
+                return terms -> terms.all().andNot(operand.evaluate(terms));
+            }
+            if (accept("(")) {
+                Node inner = expression();
+                if (!accept(")")) {
+                    throw new IllegalArgumentException("Missing ')' in filter");
+                }
+                return inner;
+            }
+            return term(next());
+        }
+        
+        private Node term(String token) {
+            String lower = token.toLowerCase(Locale.ROOT);
+            if (lower.equals("active")) {
+                return Terms::active;
+            }
+            if (lower.equals("instock")) {
+                return Terms::inStock;
+            }
+            if (lower.startsWith("category:") && token.length() > "category:".length()) {
+                String category = token.substring("category:".length());
+                return terms -> terms.category(category);
+            }
+            if (lower.startsWith("price:")) {
+                String range = token.substring("price:".length());
+                int separator = range.indexOf("..");
+                if (separator < 0 || (separator == 0 && range.length() == 2)) {
+                    throw new IllegalArgumentException("Price range must be <min>..<max>, <min>.. or ..<max>: " + token);
+                }
+                long min = separator == 0 ? Long.MIN_VALUE : cents(range.substring(0, separator), token);
+                long max = separator + 2 == range.length() ? Long.MAX_VALUE : cents(range.substring(separator + 2), token);
+                return terms -> terms.price(min, max);
+            }
+            throw new IllegalArgumentException("Unknown filter term: " + token);
+        }
+        
+        private boolean accept(String expected) {
+            if (position < tokens.size() && tokens.get(position).equalsIgnoreCase(expected)) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+        
+        private String next() {
+            if (position == tokens.size()) {
+                throw new IllegalArgumentException("Filter ends unexpectedly");
+            }
+            return tokens.get(position++);
+        }
+        
+        private static long cents(String amount, String token) {
+            try {
+                return new BigDecimal(amount).setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+            } catch (ArithmeticException | NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid price in filter: " + token);
+            }
+        }
+    }
+}
\ No newline at end of file
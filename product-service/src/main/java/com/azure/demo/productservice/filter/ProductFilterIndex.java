@@ -0,0 +1,370 @@
+package com.azure.demo.productservice.filter;
+
+import com.azure.demo.common.datasource.ReadYourWrites;
+import com.azure.demo.productservice.model.Product;
+import com.azure.demo.productservice.repository.CatalogRow;
+import com.azure.demo.productservice.repository.ProductRepository;
+import com.azure.demo.productservice.service.ProductChangedEvent;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Compressed bitmaps of product ids per category, active flag, in-stock flag and price
+ * bucket, so any AND/OR/NOT combination of them is a handful of bitmap operations.
+ * <p>
+ * Every committed ProductService write updates the index under a write lock, and writes
+ * made through other instances are re-read when the ProductChangePoller finds them; filters
+ * evaluate under the read lock. Price ranges take whole buckets directly and check the
+ * exact price only for the ids in the two partially covered edge buckets, which is why the
+ * last indexed category and price of each id are kept in arrays indexed by id. Product ids
+ * are identity values, so these arrays stay dense. Filters fail with IllegalStateException
+ * until the initial build, which scans the table once the application is ready, completes.
+ */
+@Component
+public class ProductFilterIndex {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ProductFilterIndex.class);
+    
+    private static final long NOT_INDEXED = Long.MIN_VALUE;
+    
+    private final ProductRepository productRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final boolean enabled;
+    // Lower bound of every bucket but the first, in cents, ascending
+    private final long[] bucketBoundsCents;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // Ids written before the initial scan finishes; re-read from the primary once it does
+    private final Set<Long> writtenDuringBuild = ConcurrentHashMap.newKeySet();
+    
+    // Guarded by lock
+    private final CompressedBitmap all = new CompressedBitmap();
+    private final CompressedBitmap active = new CompressedBitmap();
+    private final CompressedBitmap inStock = new CompressedBitmap();
+    private final Map<String, CompressedBitmap> byCategory = new HashMap<>();
+    // One instance per category name, so categoryById does not hold a string per product
+    private final Map<String, String> categoryNames = new HashMap<>();
+    private final CompressedBitmap[] byPriceBucket;
+    private String[] categoryById = new String[1024];
+    private long[] priceCentsById = new long[1024];
+    
+    // Set from the start so writes that precede the scan (and may not have reached a replica) are re-read too
+    private volatile boolean building = true;
+    private volatile boolean ready;
+    private volatile boolean outOfRange;
+    
+    @Autowired
+    public ProductFilterIndex(ProductRepository productRepository,
+                              PlatformTransactionManager transactionManager,
+                              MeterRegistry meterRegistry,
+                              @Value("${products.filter-index.enabled:true}") boolean enabled,
+                              @Value("${products.filter-index.price-buckets:5,10,20,50,100,200,500,1000,2000,5000}")
+                              BigDecimal[] priceBuckets) {
+        this.productRepository = productRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.enabled = enabled;
+        this.bucketBoundsCents = Arrays.stream(priceBuckets).mapToLong(ProductFilterIndex::toCents).sorted().toArray();
+        this.byPriceBucket = new CompressedBitmap[bucketBoundsCents.length + 1];
+        for (int i = 0; i < byPriceBucket.length; i++) {
+            byPriceBucket[i] = new CompressedBitmap();
+        }
+        Arrays.fill(priceCentsById, NOT_INDEXED);
+        Gauge.builder("product.filter.index.memory", this, ProductFilterIndex::memoryBytes)
+                .description("Heap held by the product filter bitmaps")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    // After commit, so the index never holds a state that was rolled back
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.getProduct() != null) {
+            indexed(event.getProduct());
+        } else {
+            removed(event.getProductId());
+        }
+    }
+    
+    /**
+     * Re-reads the given products from the primary and indexes their current state, or
+     * removes those that no longer exist.
+     */
+    public void refresh(Collection<Long> productIds) {
+        if (!enabled || productIds.isEmpty()) {
+            return;
+        }
+        Set<Long> deleted = new HashSet<>(productIds);
+        for (Product product : ReadYourWrites.onPrimary(() -> productRepository.findAllById(productIds))) {
+            deleted.remove(product.getId());
+            indexed(product);
+        }
+        deleted.forEach(this::removed);
+    }
+    
+    /** Ids of the indexed products in ascending order. */
+    public long[] productIds() {
+        lock.readLock().lock();
+        try {
+            long[] ids = new long[(int) all.cardinality()];
+            int[] next = new int[1];
+            all.forEach(id -> ids[next[0]++] = id);
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /** Records the current state of a saved product. */
+    public void indexed(Product product) {
+        if (!enabled) {
+            return;
+        }
+        if (building) {
+            writtenDuringBuild.add(product.getId());
+        }
+        put(product.getId(), product.getCategory(), product.getPrice(), product.getStockQuantity(), product.getIsActive());
+    }
+    
+    public void removed(Long productId) {
+        if (!enabled) {
+            return;
+        }
+        if (building) {
+            writtenDuringBuild.add(productId);
+        }
+        lock.writeLock().lock();
+        try {
+            remove(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Evaluates a filter and returns one page of the matching ids in ascending order.
+     */
+    public IdPage filter(FilterExpression filter, int page, int size) {
+        if (!ready || outOfRange) {
+            throw new IllegalStateException("Product filter index is not available");
+        }
+        lock.readLock().lock();
+        try {
+            CompressedBitmap matches = filter.evaluate(new IndexTerms());
+            return new IdPage(matches.page((long) page * size, size), matches.cardinality());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<CatalogRow> rows = productRepository.streamCatalogRows()) {
+                    rows.forEach(row -> put(row.getId(), row.getCategory(), row.getPrice(),
+                            row.getStockQuantity(), row.getIsActive()));
+                }
+            });
+        } finally {
+            building = false;
+        }
+        // A row scanned before a concurrent write may have overwritten it; read those again
+        List<Long> ids = new ArrayList<>(writtenDuringBuild);
+        writtenDuringBuild.clear();
+        refresh(ids);
+        ready = true;
+        lock.readLock().lock();
+        try {
+            logger.info("Built product filter index for {} products in {} ms ({} bytes)", all.cardinality(),
+                    (System.nanoTime() - start) / 1_000_000, memoryBytes());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    private void put(Long productId, String category, BigDecimal price, Integer stockQuantity, Boolean isActive) {
+        if (productId > Integer.MAX_VALUE - 1) {
+            outOfRange = true;
+            logger.warn("Product id {} exceeds the filter index range; disabling /products/filter", productId);
+            return;
+        }
+        int id = productId.intValue();
+        lock.writeLock().lock();
+        try {
+            remove(productId);
+            ensureCapacity(id);
+            all.add(id);
+            if (Boolean.TRUE.equals(isActive)) {
+                active.add(id);
+            }
+            if (stockQuantity != null && stockQuantity > 0) {
+                inStock.add(id);
+            }
+            String name = categoryNames.computeIfAbsent(category, key -> key);
+            byCategory.computeIfAbsent(name, key -> new CompressedBitmap()).add(id);
+            long cents = toCents(price);
+            byPriceBucket[bucket(cents)].add(id);
+            categoryById[id] = name;
+            priceCentsById[id] = cents;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    private void remove(Long productId) {
+        if (productId > Integer.MAX_VALUE - 1 || productId >= priceCentsById.length
+                || priceCentsById[productId.intValue()] == NOT_INDEXED) {
+            return;
+        }
+        int id = productId.intValue();
+        all.remove(id);
+        active.remove(id);
+        inStock.remove(id);
+        CompressedBitmap categoryIds = byCategory.get(categoryById[id]);
+        categoryIds.remove(id);
+        if (categoryIds.cardinality() == 0) {
+            byCategory.remove(categoryById[id]);
+            categoryNames.remove(categoryById[id]);
+        }
+        byPriceBucket[bucket(priceCentsById[id])].remove(id);
+        categoryById[id] = null;
+        priceCentsById[id] = NOT_INDEXED;
+    }
+    
+    private void ensureCapacity(int id) {
+        if (id >= priceCentsById.length) {
+            int capacity = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(id + 1L, priceCentsById.length * 3L / 2));
+            int previous = priceCentsById.length;
+            priceCentsById = Arrays.copyOf(priceCentsById, capacity);
+            Arrays.fill(priceCentsById, previous, capacity, NOT_INDEXED);
+            categoryById = Arrays.copyOf(categoryById, capacity);
+        }
+    }
+    
+    private int bucket(long cents) {
+        int index = Arrays.binarySearch(bucketBoundsCents, cents);
+        return index >= 0 ? index + 1 : -index - 1;
+    }
+    
+    private double memoryBytes() {
+        long bytes = all.memoryBytes() + active.memoryBytes() + inStock.memoryBytes();
+        for (CompressedBitmap bitmap : byCategory.values()) {
+            bytes += bitmap.memoryBytes();
+        }
+        for (CompressedBitmap bitmap : byPriceBucket) {
+            bytes += bitmap.memoryBytes();
+        }
+        return bytes + priceCentsById.length * 8L + categoryById.length * 4L;
+    }
+    
+    private static long toCents(BigDecimal price) {
+        return price.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+    
+    /** Matching ids of one page plus the total number of matches. */
+    public static final class IdPage {
+        
+        private final long[] ids;
+        private final long total;
+        
+        IdPage(long[] ids, long total) {
+            this.ids = ids;
+            this.total = total;
+        }
+        
+        public long[] getIds() {
+            return ids;
+        }
+        
+        public long getTotal() {
+            return total;
+        }
+    }
+    
+    private final class IndexTerms implements FilterExpression.Terms {
+        
+        private final CompressedBitmap none = new CompressedBitmap();
+        
+        @Override
+        public CompressedBitmap all() {
+            return all;
+        }
+        
+        @Override
+        public CompressedBitmap active() {
+            return active;
+        }
+        
+        @Override
+        public CompressedBitmap inStock() {
+            return inStock;
+        }
+        
+        @Override
+        public CompressedBitmap category(String category) {
+            return byCategory.getOrDefault(category, none);
+        }
+        
+        @Override
+        public CompressedBitmap price(long minCents, long maxCents) {
+            if (minCents > maxCents) {
+                return none;
+            }
+            int first = bucket(minCents);
+            int last = bucket(maxCents);
+            CompressedBitmap result = none;
+            for (int i = first + 1; i < last; i++) {
+                result = result.or(byPriceBucket[i]);
+            }
+            result = result.or(edge(first, minCents, maxCents));
+            if (last != first) {
+                result = result.or(edge(last, minCents, maxCents));
+            }
+            return result;
+        }
+        
+        private CompressedBitmap edge(int bucket, long minCents, long maxCents) {
+            CompressedBitmap matches = new CompressedBitmap();
+            byPriceBucket[bucket].forEach(id -> {
+                long cents = priceCentsById[id];
+                if (cents >= minCents && cents <= maxCents) {
+                    matches.add(id);
+                }
+            });
+            return matches;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,39 @@
+package com.azure.demo.productservice.filter;
+
+import com.azure.demo.productservice.model.Product;
+
+import java.util.List;
+
+/**
+ * Response of /products/filter: one page of matching products in ascending id order.
+ */
+public class ProductPage {
+    
+    private final List<Product> products;
+    private final int page;
+    private final int size;
+    private final long totalElements;
+    
+    public ProductPage(List<Product> products, int page, int size, long totalElements) {
+        this.products = products;
+        this.page = page;
+        this.size = size;
+        this.totalElements = totalElements;
+    }
+    
+    public List<Product> getProducts() {
+        return products;
+    }
+    
+    public int getPage() {
+        return page;
+    }
+    
+    public int getSize() {
+        return size;
+    }
+    
+    public long getTotalElements() {
+        return totalElements;
+    }
+}
\ No newline at end of file
@@ -1,5 +1,6 @@
 package com.azure.demo.productservice.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotBlank;
@@ -10,7 +11,10 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "products")
+@Table(name = "products", indexes = {
+        @Index(name = "idx_products_created_at", columnList = "created_at"),
+        @Index(name = "idx_products_updated_at", columnList = "updated_at")
+})
 public class Product {
     
     @Id
@@ -48,6 +52,12 @@ public class Product {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
     
+    // Incremented by every update; served as the ETag rather than in the body
+    @JsonIgnore
+    @Version
+    @Column(nullable = false)
+    private Long version;
+    
     public Product() {
         this.createdAt = LocalDateTime.now();
     }
@@ -138,4 +148,12 @@ public class Product {
     public void setUpdatedAt(LocalDateTime updatedAt) {
         this.updatedAt = updatedAt;
     }
+    
+    public Long getVersion() {
+        return version;
+    }
+    
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
\ No newline at end of file
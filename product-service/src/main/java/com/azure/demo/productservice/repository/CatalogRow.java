@@ -0,0 +1,28 @@
+package com.azure.demo.productservice.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * The columns of a product, read without loading the entity into the persistence context.
+ */
+public interface CatalogRow {
+    
+    Long getId();
+    
+    String getName();
+    
+    String getDescription();
+    
+    BigDecimal getPrice();
+    
+    String getCategory();
+    
+    Integer getStockQuantity();
+    
+    Boolean getIsActive();
+    
+    LocalDateTime getCreatedAt();
+    
+    LocalDateTime getUpdatedAt();
+}
\ No newline at end of file
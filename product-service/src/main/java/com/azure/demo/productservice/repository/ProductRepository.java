@@ -1,10 +1,19 @@
 package com.azure.demo.productservice.repository;
 
 import com.azure.demo.productservice.model.Product;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long> {
@@ -13,4 +22,29 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     List<Product> findByCategoryAndIsActiveTrue(String category);
     List<Product> findByNameContainingIgnoreCase(String name);
     List<Product> findByStockQuantityGreaterThan(Integer quantity);
+    
+    // Answers If-None-Match without loading the product
+    @Query("select p.version from Product p where p.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+    
+    // Concurrent stock decreases queue on the row instead of failing the version check
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select p from Product p where p.id = :id")
+    Optional<Product> findByIdForUpdate(@Param("id") Long id);
+    
+    // Must be consumed inside a transaction; rows are fetched in batches, not all at once
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "1000"))
+    @Query("select p.id as id, p.name as name, p.description as description, p.price as price, "
+            + "p.category as category, p.stockQuantity as stockQuantity, p.isActive as isActive, "
+            + "p.createdAt as createdAt, p.updatedAt as updatedAt from Product p order by p.id")
+    Stream<CatalogRow> streamCatalogRows();
+    
+    // Lets each instance pick up writes made through the others; see ProductChangePoller
+    @Query("select p.id from Product p where p.createdAt >= :since or p.updatedAt >= :since")
+    List<Long> findIdsChangedSince(@Param("since") LocalDateTime since);
+    
+    // Must be consumed inside a transaction, like streamCatalogRows
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "1000"))
+    @Query("select p.id from Product p order by p.id")
+    Stream<Long> streamIds();
 }
\ No newline at end of file
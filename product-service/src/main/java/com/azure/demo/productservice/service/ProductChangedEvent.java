@@ -0,0 +1,35 @@
+package com.azure.demo.productservice.service;
+
+import com.azure.demo.productservice.model.Product;
+
+/**
+ * Published by ProductService for every created, updated or deleted product. The in-memory
+ * read models listen after commit, so they never pick up a change that is rolled back.
+ */
+public final class ProductChangedEvent {
+    
+    private final Long productId;
+    private final Product product;
+    
+    private ProductChangedEvent(Long productId, Product product) {
+        this.productId = productId;
+        this.product = product;
+    }
+    
+    static ProductChangedEvent saved(Product product) {
+        return new ProductChangedEvent(product.getId(), product);
+    }
+    
+    static ProductChangedEvent deleted(Long productId) {
+        return new ProductChangedEvent(productId, null);
+    }
+    
+    public Long getProductId() {
+        return productId;
+    }
+    
+    /** The committed state of the product, or null if it was deleted. */
+    public Product getProduct() {
+        return product;
+    }
+}
\ No newline at end of file
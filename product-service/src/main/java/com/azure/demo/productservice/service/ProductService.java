@@ -1,54 +1,146 @@
 package com.azure.demo.productservice.service;
 
+import com.azure.demo.productservice.catalog.CatalogSnapshot;
+import com.azure.demo.productservice.catalog.CatalogSnapshotService;
+import com.azure.demo.productservice.filter.FilterExpression;
+import com.azure.demo.productservice.filter.ProductFilterIndex;
+import com.azure.demo.productservice.filter.ProductPage;
 import com.azure.demo.productservice.model.Product;
 import com.azure.demo.productservice.repository.ProductRepository;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class ProductService {
     
+    // Public methods are timed by TimedAspect as "product.service", tagged with class, method and
+    // exception; histogram and SLO buckets are configured under management.metrics.distribution
+    private static final String TIMER_NAME = "product.service";
+    
     private final ProductRepository productRepository;
+    private final CatalogSnapshotService catalogSnapshotService;
+    private final ProductFilterIndex productFilterIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    
+    private final Counter stockFailures;
     
     @Autowired
-    public ProductService(ProductRepository productRepository) {
+    public ProductService(ProductRepository productRepository,
+                          CatalogSnapshotService catalogSnapshotService, ProductFilterIndex productFilterIndex,
+                          ApplicationEventPublisher eventPublisher, MeterRegistry meterRegistry) {
         this.productRepository = productRepository;
+        this.catalogSnapshotService = catalogSnapshotService;
+        this.productFilterIndex = productFilterIndex;
+        this.eventPublisher = eventPublisher;
+        this.stockFailures = Counter.builder("product.stock.failures")
+                .description("Stock decreases rejected for insufficient stock")
+                .register(meterRegistry);
     }
     
+    @Timed(TIMER_NAME)
+    @Transactional(readOnly = true)
     public List<Product> getAllProducts() {
         return productRepository.findAll();
     }
     
+    @Timed(TIMER_NAME)
+    @Transactional(readOnly = true)
     public List<Product> getActiveProducts() {
-        return productRepository.findByIsActiveTrue();
+        CatalogSnapshot catalog = catalogSnapshotService.current();
+        return catalog != null ? catalog.activeProducts() : productRepository.findByIsActiveTrue();
     }
     
+    @Timed(TIMER_NAME)
+    @Transactional(readOnly = true)
     public Optional<Product> getProductById(Long id) {
         return productRepository.findById(id);
     }
     
+    /** The product's current version, for conditional requests that need no body. */
+    @Timed(TIMER_NAME)
+    @Transactional(readOnly = true)
+    public Optional<Long> getProductVersion(Long id) {
+        return productRepository.findVersionById(id);
+    }
+    
+    @Timed(TIMER_NAME)
+    @Transactional(readOnly = true)
     public List<Product> getProductsByCategory(String category) {
-        return productRepository.findByCategoryAndIsActiveTrue(category);
+        CatalogSnapshot catalog = catalogSnapshotService.current();
+        return catalog != null
+                ? catalog.activeProductsInCategory(category)
+                : productRepository.findByCategoryAndIsActiveTrue(category);
     }
     
+    @Timed(TIMER_NAME)
+    @Transactional(readOnly = true)
     public List<Product> searchProductsByName(String name) {
         return productRepository.findByNameContainingIgnoreCase(name);
     }
     
+    @Timed(TIMER_NAME)
+    @Transactional(readOnly = true)
     public List<Product> getProductsInStock() {
-        return productRepository.findByStockQuantityGreaterThan(0);
+        CatalogSnapshot catalog = catalogSnapshotService.current();
+        return catalog != null ? catalog.productsInStock() : productRepository.findByStockQuantityGreaterThan(0);
     }
     
+    /**
+     * Evaluates a filter against the bitmap index and loads only the requested page.
+     *
+     * @throws IllegalArgumentException if the filter does not parse
+     * @throws IllegalStateException if the index is not built yet
+     */
+    @Timed(TIMER_NAME)
+    @Transactional(readOnly = true)
+    public ProductPage filterProducts(String filter, int page, int size) {
+        ProductFilterIndex.IdPage ids = productFilterIndex.filter(FilterExpression.parse(filter), page, size);
+        Map<Long, Product> products = productRepository.findAllById(Arrays.stream(ids.getIds()).boxed().toList())
+                .stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        List<Product> content = new ArrayList<>(ids.getIds().length);
+        for (long id : ids.getIds()) {
+            // Missing only if deleted between evaluating the filter and loading the page
+            Product product = products.get(id);
+            if (product != null) {
+                content.add(product);
+            }
+        }
+        return new ProductPage(content, page, size, ids.getTotal());
+    }
+    
+    @Timed(TIMER_NAME)
+    @Transactional
     public Product createProduct(Product product) {
-        return productRepository.save(product);
+        Product saved = productRepository.save(product);
+        eventPublisher.publishEvent(ProductChangedEvent.saved(saved));
+        return saved;
     }
     
-    public Product updateProduct(Long id, Product productDetails) {
+    /**
+     * @param expectedVersion version the caller last saw, or null to update unconditionally
+     * @throws ObjectOptimisticLockingFailureException if the product has a different version
+     */
+    @Timed(TIMER_NAME)
+    @Transactional
+    public Product updateProduct(Long id, Product productDetails, Long expectedVersion) {
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
+        checkVersion(product, expectedVersion);
         
         product.setName(productDetails.getName());
         product.setDescription(productDetails.getDescription());
@@ -57,41 +149,86 @@ public class ProductService {
         product.setStockQuantity(productDetails.getStockQuantity());
         product.setIsActive(productDetails.getIsActive());
         
-        return productRepository.save(product);
+        Product saved = productRepository.save(product);
+        eventPublisher.publishEvent(ProductChangedEvent.saved(saved));
+        return saved;
     }
     
-    public Product updateStock(Long id, Integer newStockQuantity) {
+    @Timed(TIMER_NAME)
+    @Transactional
+    public Product updateStock(Long id, Integer newStockQuantity, Long expectedVersion) {
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
+        checkVersion(product, expectedVersion);
         
         product.setStockQuantity(newStockQuantity);
-        return productRepository.save(product);
+        Product saved = productRepository.save(product);
+        eventPublisher.publishEvent(ProductChangedEvent.saved(saved));
+        return saved;
     }
     
+    @Timed(TIMER_NAME)
+    @Transactional
     public Product decreaseStock(Long id, Integer quantity) {
-        Product product = productRepository.findById(id)
+        Product product = productRepository.findByIdForUpdate(id)
                 .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
         
         if (product.getStockQuantity() < quantity) {
+            stockFailures.increment();
             throw new RuntimeException("Insufficient stock. Available: " + product.getStockQuantity() + ", Requested: " + quantity);
         }
         
         product.setStockQuantity(product.getStockQuantity() - quantity);
-        return productRepository.save(product);
+        Product saved = productRepository.save(product);
+        eventPublisher.publishEvent(ProductChangedEvent.saved(saved));
+        // Every order line decrements stock, so this is the order stream as seen by the catalog
+        eventPublisher.publishEvent(new ProductSoldEvent(saved, quantity));
+        return saved;
     }
     
-    public void deleteProduct(Long id) {
+    /**
+     * Gives back stock taken by decreaseStock, e.g. when the order it was reserved for fails.
+     * Trending counts are approximate and keep the sale.
+     */
+    @Timed(TIMER_NAME)
+    @Transactional
+    public Product increaseStock(Long id, Integer quantity) {
+        Product product = productRepository.findByIdForUpdate(id)
+                .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
+        
+        product.setStockQuantity(product.getStockQuantity() + quantity);
+        Product saved = productRepository.save(product);
+        eventPublisher.publishEvent(ProductChangedEvent.saved(saved));
+        return saved;
+    }
+    
+    @Timed(TIMER_NAME)
+    @Transactional
+    public void deleteProduct(Long id, Long expectedVersion) {
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
+        checkVersion(product, expectedVersion);
         
         // Soft delete - mark as inactive instead of removing
         product.setIsActive(false);
-        productRepository.save(product);
+        Product saved = productRepository.save(product);
+        eventPublisher.publishEvent(ProductChangedEvent.saved(saved));
     }
     
+    @Timed(TIMER_NAME)
+    @Transactional
     public void hardDeleteProduct(Long id) {
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
         productRepository.delete(product);
+        eventPublisher.publishEvent(ProductChangedEvent.deleted(id));
     }
+    
+    // An update racing past this check still fails, on the version condition of the UPDATE
+    private static void checkVersion(Product product, Long expectedVersion) {
+        if (expectedVersion != null && !expectedVersion.equals(product.getVersion())) {
+            throw new ObjectOptimisticLockingFailureException(Product.class, product.getId());
+        }
+    }
+    
 }
\ No newline at end of file
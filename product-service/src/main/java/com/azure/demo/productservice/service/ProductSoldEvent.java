@@ -0,0 +1,27 @@
+package com.azure.demo.productservice.service;
+
+import com.azure.demo.productservice.model.Product;
+
+/**
+ * Published by ProductService when stock is taken for an order line. The trending rankings
+ * listen after commit, so a decrement that is rolled back is never counted as a sale.
+ */
+public final class ProductSoldEvent {
+    
+    private final Product product;
+    private final int quantity;
+    
+    ProductSoldEvent(Product product, int quantity) {
+        this.product = product;
+        this.quantity = quantity;
+    }
+    
+    /** The product as committed by the decrement. */
+    public Product getProduct() {
+        return product;
+    }
+    
+    public int getQuantity() {
+        return quantity;
+    }
+}
\ No newline at end of file
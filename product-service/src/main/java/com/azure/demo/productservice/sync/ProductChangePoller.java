@@ -0,0 +1,120 @@
+package com.azure.demo.productservice.sync;
+
+import com.azure.demo.common.datasource.ReadYourWrites;
+import com.azure.demo.productservice.catalog.CatalogSnapshotService;
+import com.azure.demo.productservice.filter.ProductFilterIndex;
+import com.azure.demo.productservice.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Brings this instance's catalog snapshot and filter index up to date with writes made through other
+ * instances, which never publish a ProductChangedEvent here.
+ * <p>
+ * Every poll-interval the ids of rows created or updated since the previous poll are
+ * handed over to be re-read. The window reaches back an extra overlap to cover clock skew
+ * between instances and transactions that commit well after they set updated_at. Deleted
+ * rows leave no timestamp behind, so every deletion-scan-interval the held ids are
+ * compared with a scan of the table's ids instead.
+ */
+@Component
+public class ProductChangePoller {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ProductChangePoller.class);
+    
+    private final ProductRepository productRepository;
+    private final CatalogSnapshotService catalogSnapshotService;
+    private final ProductFilterIndex productFilterIndex;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Duration overlap;
+    
+    // Only touched by the scheduler thread
+    private LocalDateTime lastPoll = LocalDateTime.now();
+    
+    @Autowired
+    public ProductChangePoller(ProductRepository productRepository,
+                               CatalogSnapshotService catalogSnapshotService,
+                               ProductFilterIndex productFilterIndex,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${products.sync.overlap:PT10S}") Duration overlap) {
+        this.productRepository = productRepository;
+        this.catalogSnapshotService = catalogSnapshotService;
+        this.productFilterIndex = productFilterIndex;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.overlap = overlap;
+    }
+    
+    @Scheduled(fixedDelayString = "${products.sync.poll-interval:PT5S}")
+    public void poll() {
+        if (!catalogSnapshotService.isEnabled() && !productFilterIndex.isEnabled()) {
+            return;
+        }
+        LocalDateTime start = LocalDateTime.now();
+        List<Long> ids;
+        try {
+            // Replicas may not have the latest rows yet
+            ids = ReadYourWrites.onPrimary(() -> productRepository.findIdsChangedSince(lastPoll.minus(overlap)));
+        } catch (RuntimeException e) {
+            // The window stays where it was, so nothing is skipped
+            logger.warn("Could not poll for product changes: {}", e.getMessage());
+            return;
+        }
+        lastPoll = start;
+        if (!ids.isEmpty()) {
+            catalogSnapshotService.changed(ids);
+            productFilterIndex.refresh(ids);
+        }
+    }
+    
+    @Scheduled(fixedDelayString = "${products.sync.deletion-scan-interval:PT1M}",
+            initialDelayString = "${products.sync.deletion-scan-interval:PT1M}")
+    public void scanForDeletions() {
+        long[] catalogIds = catalogSnapshotService.productIds();
+        long[] indexedIds = productFilterIndex.productIds();
+        if (catalogIds.length == 0 && indexedIds.length == 0) {
+            return;
+        }
+        long[] existing;
+        try {
+            existing = ReadYourWrites.onPrimary(() -> readOnlyTransaction.execute(status -> {
+                try (Stream<Long> rows = productRepository.streamIds()) {
+                    return rows.mapToLong(Long::longValue).toArray();
+                }
+            }));
+        } catch (RuntimeException e) {
+            logger.warn("Could not scan product ids: {}", e.getMessage());
+            return;
+        }
+        // Re-read like any other change: a row created after the scan is found and kept
+        List<Long> missingFromCatalog = missing(catalogIds, existing);
+        if (!missingFromCatalog.isEmpty()) {
+            catalogSnapshotService.changed(missingFromCatalog);
+        }
+        productFilterIndex.refresh(missing(indexedIds, existing));
+    }
+    
+    /** Ids held in memory that the table does not have; both arrays are ascending. */
+    static List<Long> missing(long[] held, long[] existing) {
+        List<Long> missing = new ArrayList<>();
+        for (long id : held) {
+            if (Arrays.binarySearch(existing, id) < 0) {
+                missing.add(id);
+            }
+        }
+        return missing;
+    }
+}
\ No newline at end of file
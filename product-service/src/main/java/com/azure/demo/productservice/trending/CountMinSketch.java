@@ -0,0 +1,86 @@
+package com.azure.demo.productservice.trending;
+
+import java.util.Arrays;
+
+/**
+ * Count-Min sketch over long keys: a fixed depth x width table of counters, so memory does
+ * not grow with the number of distinct keys. Estimates never undercount; with width w and
+ * depth d they overcount by at most 2N/w with probability 1 - 2^-d, where N is the total
+ * count added. Not thread-safe.
+ */
+public class CountMinSketch {
+    
+    private final int depth;
+    private final int mask;
+    private final long[][] counts;
+    private final long[] seeds;
+    
+    /**
+     * @param width counters per row, rounded up to a power of two
+     * @param depth number of rows, i.e. independent hash functions
+     */
+    public CountMinSketch(int width, int depth) {
+        if (width < 1 || depth < 1) {
+            throw new IllegalArgumentException("Width and depth must be positive");
+        }
+        int roundedWidth = width == 1 ? 1 : Integer.highestOneBit(width - 1) << 1;
+        this.depth = depth;
+        this.mask = roundedWidth - 1;
+        this.counts = new long[depth][roundedWidth];
+        this.seeds = new long[depth];
+        for (int row = 0; row < depth; row++) {
+            seeds[row] = 0x9E3779B97F4A7C15L * (row + 1);
+        }
+    }
+    
+    public void add(long key, long count) {
+        for (int row = 0; row < depth; row++) {
+            counts[row][index(key, row)] += count;
+        }
+    }
+    
+    public long estimate(long key) {
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            min = Math.min(min, counts[row][index(key, row)]);
+        }
+        return min;
+    }
+    
+    /**
+     * Subtracts another sketch of the same shape cell by cell; used to drop an expired
+     * window bucket from the running window total.
+     */
+    public void subtract(CountMinSketch other) {
+        for (int row = 0; row < depth; row++) {
+            long[] target = counts[row];
+            long[] source = other.counts[row];
+            for (int column = 0; column < target.length; column++) {
+                target[column] -= source[column];
+            }
+        }
+    }
+    
+    public void clear() {
+        for (long[] row : counts) {
+            Arrays.fill(row, 0L);
+        }
+    }
+    
+    public int getWidth() {
+        return mask + 1;
+    }
+    
+    public int getDepth() {
+        return depth;
+    }
+    
+    private int index(long key, int row) {
+        // SplitMix64 finalizer, seeded per row
+        long hash = key ^ seeds[row];
+        hash = (hash ^ (hash >>> 30)) * 0xBF58476D1CE4E5B9L;
+        hash = (hash ^ (hash >>> 27)) * 0x94D049BB133111EBL;
+        hash ^= hash >>> 31;
+        return (int) hash & mask;
+    }
+}
\ No newline at end of file
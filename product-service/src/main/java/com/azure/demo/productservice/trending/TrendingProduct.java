@@ -0,0 +1,36 @@
+package com.azure.demo.productservice.trending;
+
+/**
+ * Response item of /products/trending and /products/best-sellers.
+ */
+public class TrendingProduct {
+    
+    private final Long productId;
+    private final String name;
+    private final String category;
+    private final long estimatedUnits;
+    
+    public TrendingProduct(Long productId, String name, String category, long estimatedUnits) {
+        this.productId = productId;
+        this.name = name;
+        this.category = category;
+        this.estimatedUnits = estimatedUnits;
+    }
+    
+    public Long getProductId() {
+        return productId;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public String getCategory() {
+        return category;
+    }
+    
+    /** Units ordered in the window; an upper-bound estimate from the Count-Min sketch. */
+    public long getEstimatedUnits() {
+        return estimatedUnits;
+    }
+}
\ No newline at end of file
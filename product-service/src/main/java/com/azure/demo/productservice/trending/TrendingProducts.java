@@ -0,0 +1,190 @@
+package com.azure.demo.productservice.trending;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.function.LongSupplier;
+
+/**
+ * Heavy hitters over a sliding time window, overall and per category, in bounded memory.
+ * <p>
+ * Units are counted in a ring of Count-Min sketches, one per time bucket, plus a running
+ * sketch holding the sum of the live buckets; when a bucket expires it is subtracted from
+ * the running sketch and reused. Each category (and the catalog as a whole) keeps only its
+ * top-K candidates, scored with the running sketch's estimate. Memory is therefore
+ * (buckets + 1) x depth x width counters plus K entries per category, however many orders
+ * or products there are. Categories beyond maxCategories are counted overall but not
+ * ranked on their own.
+ */
+public class TrendingProducts {
+    
+    private final CountMinSketch[] buckets;
+    private final CountMinSketch window;
+    private final long bucketMillis;
+    private final LongSupplier clock;
+    private final int topK;
+    private final int maxCategories;
+    private final TopK overall;
+    private final Map<String, TopK> byCategory = new HashMap<>();
+    private int current;
+    private long currentBucketStart;
+    
+    public TrendingProducts(Duration windowLength, int bucketCount, int sketchWidth, int sketchDepth,
+                            int topK, int maxCategories, LongSupplier clock) {
+        if (bucketCount < 1 || windowLength.toMillis() < bucketCount) {
+            throw new IllegalArgumentException("Window must be split into at least one bucket of 1ms or more");
+        }
+        this.buckets = new CountMinSketch[bucketCount];
+        for (int i = 0; i < bucketCount; i++) {
+            buckets[i] = new CountMinSketch(sketchWidth, sketchDepth);
+        }
+        this.window = new CountMinSketch(sketchWidth, sketchDepth);
+        this.bucketMillis = windowLength.toMillis() / bucketCount;
+        this.clock = clock;
+        this.topK = topK;
+        this.maxCategories = maxCategories;
+        this.overall = new TopK(topK);
+        this.currentBucketStart = clock.getAsLong();
+    }
+    
+    public synchronized void record(long productId, String category, long units) {
+        advance();
+        buckets[current].add(productId, units);
+        window.add(productId, units);
+        long estimate = window.estimate(productId);
+        overall.offer(productId, estimate);
+        TopK categoryTopK = byCategory.get(category);
+        if (categoryTopK == null && byCategory.size() < maxCategories) {
+            categoryTopK = new TopK(topK);
+            byCategory.put(category, categoryTopK);
+        }
+        if (categoryTopK != null) {
+            categoryTopK.offer(productId, estimate);
+        }
+    }
+    
+    /**
+     * Highest estimated unit counts in the current window, highest first.
+     *
+     * @param category a category, or null for the whole catalog
+     */
+    public synchronized List<Entry> top(String category, int limit) {
+        advance();
+        TopK ranking = category == null ? overall : byCategory.get(category);
+        return ranking == null ? List.of() : ranking.top(limit);
+    }
+    
+    private void advance() {
+        long elapsed = (clock.getAsLong() - currentBucketStart) / bucketMillis;
+        if (elapsed <= 0) {
+            return;
+        }
+        long steps = Math.min(elapsed, buckets.length);
+        for (long i = 0; i < steps; i++) {
+            current = (current + 1) % buckets.length;
+            window.subtract(buckets[current]);
+            buckets[current].clear();
+        }
+        currentBucketStart += elapsed * bucketMillis;
+        // Counts only went down; re-score candidates so stale ones can be displaced
+        overall.rescore(window);
+        for (TopK ranking : byCategory.values()) {
+            ranking.rescore(window);
+        }
+        byCategory.values().removeIf(TopK::isEmpty);
+    }
+    
+    /**
+     * A ranked product and its estimated units in the window (never an undercount).
+     */
+    public static final class Entry {
+        
+        private static final Comparator<Entry> RANKING = Comparator
+                .comparingLong(Entry::getEstimatedUnits).reversed()
+                .thenComparingLong(Entry::getProductId);
+        
+        private final long productId;
+        private final long estimatedUnits;
+        
+        Entry(long productId, long estimatedUnits) {
+            this.productId = productId;
+            this.estimatedUnits = estimatedUnits;
+        }
+        
+        public long getProductId() {
+            return productId;
+        }
+        
+        public long getEstimatedUnits() {
+            return estimatedUnits;
+        }
+    }
+    
+    /**
+     * Bounded candidate set ordered by score; the lowest candidate is evicted when a
+     * product with a higher score arrives and the set is full.
+     */
+    private static final class TopK {
+        
+        private final int capacity;
+        private final Map<Long, Entry> entries = new HashMap<>();
+        private final TreeSet<Entry> ranked = new TreeSet<>(Entry.RANKING);
+        
+        TopK(int capacity) {
+            this.capacity = capacity;
+        }
+        
+        void offer(long productId, long score) {
+            Entry existing = entries.get(productId);
+            if (existing != null) {
+                ranked.remove(existing);
+            } else if (entries.size() >= capacity) {
+                Entry lowest = ranked.last();
+                if (score <= lowest.getEstimatedUnits()) {
+                    return;
+                }
+                ranked.remove(lowest);
+                entries.remove(lowest.getProductId());
+            }
+            Entry entry = new Entry(productId, score);
+            entries.put(productId, entry);
+            ranked.add(entry);
+        }
+        
+        void rescore(CountMinSketch window) {
+            ranked.clear();
+            Iterator<Map.Entry<Long, Entry>> iterator = entries.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<Long, Entry> mapEntry = iterator.next();
+                long score = window.estimate(mapEntry.getKey());
+                if (score <= 0) {
+                    iterator.remove();
+                } else {
+                    Entry entry = new Entry(mapEntry.getKey(), score);
+                    mapEntry.setValue(entry);
+                    ranked.add(entry);
+                }
+            }
+        }
+        
+        List<Entry> top(int limit) {
+            List<Entry> top = new ArrayList<>(Math.min(limit, ranked.size()));
+            for (Entry entry : ranked) {
+                if (top.size() == limit) {
+                    break;
+                }
+                top.add(entry);
+            }
+            return top;
+        }
+        
+        boolean isEmpty() {
+            return entries.isEmpty();
+        }
+    }
+}
\ No newline at end of file
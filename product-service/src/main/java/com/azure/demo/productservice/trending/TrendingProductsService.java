@@ -0,0 +1,86 @@
+package com.azure.demo.productservice.trending;
+
+import com.azure.demo.productservice.model.Product;
+import com.azure.demo.productservice.repository.ProductRepository;
+import com.azure.demo.productservice.service.ProductSoldEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Popularity rankings fed by the units of every order line, which reach product-service as
+ * stock decrements. "Trending" uses a short sliding window, "best sellers" a long one;
+ * both are approximate and bounded in memory (see TrendingProducts).
+ * <p>
+ * Sales are counted once the decrement has committed. The rankings live in this instance's
+ * memory only: each instance ranks the sales it handled itself, and a restart starts from
+ * empty windows. With several instances behind a load balancer every one sees a share of
+ * the traffic, which is enough to rank clear favourites but not to report exact units.
+ */
+@Service
+public class TrendingProductsService {
+    
+    private final ProductRepository productRepository;
+    private final TrendingProducts trending;
+    private final TrendingProducts bestSellers;
+    
+    @Autowired
+    public TrendingProductsService(ProductRepository productRepository,
+                                   @Value("${products.trending.window:PT1H}") Duration trendingWindow,
+                                   @Value("${products.trending.buckets:12}") int trendingBuckets,
+                                   @Value("${products.trending.best-seller-window:P30D}") Duration bestSellerWindow,
+                                   @Value("${products.trending.best-seller-buckets:30}") int bestSellerBuckets,
+                                   @Value("${products.trending.sketch-width:2048}") int sketchWidth,
+                                   @Value("${products.trending.sketch-depth:4}") int sketchDepth,
+                                   @Value("${products.trending.top-k:50}") int topK,
+                                   @Value("${products.trending.max-categories:1000}") int maxCategories) {
+        this.productRepository = productRepository;
+        this.trending = new TrendingProducts(trendingWindow, trendingBuckets, sketchWidth, sketchDepth,
+                topK, maxCategories, System::currentTimeMillis);
+        this.bestSellers = new TrendingProducts(bestSellerWindow, bestSellerBuckets, sketchWidth, sketchDepth,
+                topK, maxCategories, System::currentTimeMillis);
+    }
+    
+    // After commit, so stock taken by a rolled-back request is not counted
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductSold(ProductSoldEvent event) {
+        recordSale(event.getProduct(), event.getQuantity());
+    }
+    
+    public void recordSale(Product product, int quantity) {
+        trending.record(product.getId(), product.getCategory(), quantity);
+        bestSellers.record(product.getId(), product.getCategory(), quantity);
+    }
+    
+    public List<TrendingProduct> getTrending(String category, int limit) {
+        return describe(trending.top(category, limit));
+    }
+    
+    public List<TrendingProduct> getBestSellers(String category, int limit) {
+        return describe(bestSellers.top(category, limit));
+    }
+    
+    private List<TrendingProduct> describe(List<TrendingProducts.Entry> entries) {
+        List<Long> ids = entries.stream().map(TrendingProducts.Entry::getProductId).toList();
+        Map<Long, Product> products = productRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        List<TrendingProduct> result = new ArrayList<>(entries.size());
+        for (TrendingProducts.Entry entry : entries) {
+            Product product = products.get(entry.getProductId());
+            // Deleted products drop out of the response but keep their slot until they age out
+            if (product != null) {
+                result.add(new TrendingProduct(product.getId(), product.getName(), product.getCategory(),
+                        entry.getEstimatedUnits()));
+            }
+        }
+        return result;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,178 @@
+package com.azure.demo.productservice.filter;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * CompressedBitmap checked against java.util.BitSet, with chunks on both sides of the
+ * array/bitmap threshold (ARRAY_MAX = 4096 values per 65536-value chunk).
+ */
+class CompressedBitmapTest {
+    
+    private static final int CHUNK = 1 << 16;
+    private static final int ARRAY_MAX = 4096;
+    private static final int BITMAP_BYTES = 1024 * 8;
+    
+    // Per-chunk densities: empty, sparse array, array close to ARRAY_MAX, bitmap
+    private static final double[] DENSITIES = {0, 0.002, 0.06, 0.7};
+    
+    @Test
+    void setOperationsMatchBitSet() {
+        Random random = new Random(42);
+        for (int round = 0; round < 20; round++) {
+            BitSet left = randomSet(random, 6);
+            BitSet right = randomSet(random, 6);
+            CompressedBitmap a = bitmap(left);
+            CompressedBitmap b = bitmap(right);
+            
+            assertThat(bits(a.and(b))).isEqualTo(and(left, right));
+            assertThat(bits(a.or(b))).isEqualTo(or(left, right));
+            assertThat(bits(a.andNot(b))).isEqualTo(andNot(left, right));
+            assertThat(bits(b.andNot(a))).isEqualTo(andNot(right, left));
+            assertThat(a.or(b).cardinality()).isEqualTo(or(left, right).cardinality());
+            // The operands are unchanged
+            assertThat(bits(a)).isEqualTo(left);
+            assertThat(bits(b)).isEqualTo(right);
+        }
+    }
+    
+    @Test
+    void chunkTurnsIntoABitmapPastArrayMaxAndBackBelowIt() {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        BitSet expected = new BitSet();
+        for (int i = 0; i < ARRAY_MAX; i++) {
+            bitmap.add(CHUNK + i * 3);
+            expected.set(CHUNK + i * 3);
+        }
+        assertThat(bits(bitmap)).isEqualTo(expected);
+        
+        bitmap.add(CHUNK + 1);
+        expected.set(CHUNK + 1);
+        assertThat(bitmap.cardinality()).isEqualTo(ARRAY_MAX + 1);
+        assertThat(bitmap.memoryBytes()).isEqualTo(2 + BITMAP_BYTES);
+        assertThat(bits(bitmap)).isEqualTo(expected);
+        assertThat(bitmap.contains(CHUNK + 2)).isFalse();
+        
+        // Growing further costs nothing once the chunk is a bitmap
+        for (int i = 0; i < 10_000; i++) {
+            bitmap.add(CHUNK + i);
+            expected.set(CHUNK + i);
+        }
+        assertThat(bitmap.memoryBytes()).isEqualTo(2 + BITMAP_BYTES);
+        
+        for (int i = 0; i < 10_000; i++) {
+            bitmap.remove(CHUNK + i);
+            expected.clear(CHUNK + i);
+            if (i % 1000 == 0) {
+                assertThat(bits(bitmap)).isEqualTo(expected);
+            }
+        }
+        assertThat(bits(bitmap)).isEqualTo(expected);
+        assertThat(bitmap.cardinality()).isEqualTo(expected.cardinality()).isLessThan(ARRAY_MAX);
+        assertThat(bitmap.memoryBytes()).isLessThanOrEqualTo(2 + 2L * ARRAY_MAX);
+    }
+    
+    @Test
+    void operationResultsCrossingArrayMaxStayCorrect() {
+        // Two arrays whose union exceeds ARRAY_MAX, and whose intersection and difference do not
+        BitSet evens = new BitSet();
+        BitSet multiplesOfThree = new BitSet();
+        for (int i = 0; i < 3 * ARRAY_MAX; i++) {
+            if (i % 2 == 0 && evens.cardinality() < ARRAY_MAX) {
+                evens.set(i);
+            }
+            if (i % 3 == 0 && multiplesOfThree.cardinality() < ARRAY_MAX) {
+                multiplesOfThree.set(i);
+            }
+        }
+        CompressedBitmap a = bitmap(evens);
+        CompressedBitmap b = bitmap(multiplesOfThree);
+        
+        CompressedBitmap union = a.or(b);
+        assertThat(union.cardinality()).isGreaterThan(ARRAY_MAX);
+        assertThat(bits(union)).isEqualTo(or(evens, multiplesOfThree));
+        // A bitmap chunk minus an array chunk can fall back below ARRAY_MAX
+        assertThat(bits(union.andNot(a))).isEqualTo(andNot(multiplesOfThree, evens));
+        assertThat(bits(union.and(b))).isEqualTo(multiplesOfThree);
+        
+        union.add(1);
+        assertThat(a.contains(1)).isFalse();
+        assertThat(b.contains(1)).isFalse();
+    }
+    
+    @Test
+    void pageSkipsWholeContainersAndResumesInsideOne() {
+        BitSet set = new BitSet();
+        fill(set, 0, 100, 7);            // array chunk, 100 values
+        fill(set, CHUNK, 5000, 3);       // bitmap chunk, 5000 values
+        fill(set, 3 * CHUNK, 50, 11);    // array chunk after an empty one
+        fill(set, 4 * CHUNK, 8000, 2);   // bitmap chunk
+        CompressedBitmap bitmap = bitmap(set);
+        long[] all = set.stream().asLongStream().toArray();
+        
+        long[] offsets = {0, 1, 99, 100, 101, 5099, 5100, 5149, 5150, 13_149, 13_150, 20_000};
+        for (long offset : offsets) {
+            for (int limit : new int[]{1, 20, 200, 10_000}) {
+                int from = (int) Math.min(offset, all.length);
+                int to = Math.min(from + limit, all.length);
+                assertThat(bitmap.page(offset, limit))
+                        .as("page(%d, %d)", offset, limit)
+                        .containsExactly(Arrays.copyOfRange(all, from, to));
+            }
+        }
+    }
+    
+    private static void fill(BitSet set, int from, int count, int step) {
+        for (int i = 0; i < count; i++) {
+            set.set(from + i * step);
+        }
+    }
+    
+    private static BitSet randomSet(Random random, int chunks) {
+        BitSet set = new BitSet();
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            double density = DENSITIES[random.nextInt(DENSITIES.length)];
+            for (int low = 0; low < CHUNK; low++) {
+                if (random.nextDouble() < density) {
+                    set.set(chunk * CHUNK + low);
+                }
+            }
+        }
+        return set;
+    }
+    
+    private static CompressedBitmap bitmap(BitSet set) {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        set.stream().forEach(bitmap::add);
+        return bitmap;
+    }
+    
+    private static BitSet bits(CompressedBitmap bitmap) {
+        BitSet set = new BitSet();
+        bitmap.forEach(set::set);
+        return set;
+    }
+    
+    private static BitSet and(BitSet left, BitSet right) {
+        BitSet result = (BitSet) left.clone();
+        result.and(right);
+        return result;
+    }
+    
+    private static BitSet or(BitSet left, BitSet right) {
+        BitSet result = (BitSet) left.clone();
+        result.or(right);
+        return result;
+    }
+    
+    private static BitSet andNot(BitSet left, BitSet right) {
+        BitSet result = (BitSet) left.clone();
+        result.andNot(right);
+        return result;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,160 @@
+package com.azure.demo.productservice.filter;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.IntPredicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Parsing and evaluation of catalog filters over a fixed set of products, compared with
+ * the same condition written as a predicate on the product id.
+ */
+class FilterExpressionTest {
+    
+    private static final int PRODUCTS = 1000;
+    
+    private final StandInTerms terms = new StandInTerms();
+    
+    @Test
+    void andBindsTighterThanOr() {
+        assertMatches("active OR inStock AND category:Books",
+                id -> active(id) || (inStock(id) && categoryOf(id) == 0));
+        assertMatches("(active OR inStock) AND category:Books",
+                id -> (active(id) || inStock(id)) && categoryOf(id) == 0);
+        assertMatches("category:Books AND active OR category:Books AND inStock",
+                id -> categoryOf(id) == 0 && (active(id) || inStock(id)));
+    }
+    
+    @Test
+    void notBindsTighterThanAndAndTakesEverythingElse() {
+        assertMatches("NOT active AND inStock", id -> !active(id) && inStock(id));
+        assertMatches("NOT (active AND inStock)", id -> !(active(id) && inStock(id)));
+        assertMatches("NOT NOT active", FilterExpressionTest::active);
+        assertMatches("inStock AND NOT (price:..99.99 OR category:\"Home & Garden\")",
+                id -> inStock(id) && !(id * 100L <= 9999 || categoryOf(id) == 1));
+    }
+    
+    @Test
+    void keywordsAndPlainTermsAreCaseInsensitive() {
+        assertMatches("ACTIVE and not INSTOCK or Category:Books",
+                id -> (active(id) && !inStock(id)) || categoryOf(id) == 0);
+    }
+    
+    @Test
+    void priceBoundsAreInclusiveAndOptional() {
+        assertMatches("price:1.00..3", id -> id >= 1 && id <= 3);
+        assertMatches("price:998..", id -> id >= 998);
+        assertMatches("price:..0.004", id -> id == 0);
+    }
+    
+    @Test
+    void quotesKeepSpacesParenthesesAndKeywordsInCategoryNames() {
+        assertMatches("category:\"Home & Garden\" OR category:\"(odd) AND\"",
+                id -> categoryOf(id) == 1 || categoryOf(id) == 2);
+        
+        assertThat(terms.categories).containsExactly("Home & Garden", "(odd) AND");
+    }
+    
+    @Test
+    void malformedFiltersAreRejected() {
+        assertRejected(null, "must not be empty");
+        assertRejected("   ", "must not be empty");
+        assertRejected("active ".repeat(FilterExpression.MAX_LENGTH / 7 + 1), "must not exceed");
+        assertRejected("category:\"Books", "Unterminated quote");
+        assertRejected("(active AND inStock", "Missing ')'");
+        assertRejected("active)", "Unexpected ')'");
+        assertRejected("active inStock", "Unexpected 'inStock'");
+        assertRejected("active AND", "ends unexpectedly");
+        assertRejected("NOT", "ends unexpectedly");
+        assertRejected("onSale", "Unknown filter term: onSale");
+        assertRejected("category:", "Unknown filter term");
+        assertRejected("price:10", "Price range");
+        assertRejected("price:..", "Price range");
+        assertRejected("price:ten..20", "Invalid price");
+    }
+    
+    private void assertMatches(String filter, IntPredicate expected) {
+        BitSet matching = new BitSet();
+        for (int id = 0; id < PRODUCTS; id++) {
+            if (expected.test(id)) {
+                matching.set(id);
+            }
+        }
+        BitSet actual = new BitSet();
+        FilterExpression.parse(filter).evaluate(terms).forEach(actual::set);
+        assertThat(actual).as(filter).isEqualTo(matching);
+    }
+    
+    private static void assertRejected(String filter, String message) {
+        assertThatThrownBy(() -> FilterExpression.parse(filter))
+                .as(filter)
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining(message);
+    }
+    
+    private static boolean active(int id) {
+        return id % 2 == 0;
+    }
+    
+    private static boolean inStock(int id) {
+        return id % 3 == 0;
+    }
+    
+    // 0 = Books, 1 = Home & Garden, 2 = "(odd) AND"
+    private static int categoryOf(int id) {
+        return id % 5;
+    }
+    
+    /**
+     * Terms over products 0..PRODUCTS-1 where product id costs id.00; every call builds a
+     * fresh bitmap, and the category names asked for are recorded.
+     */
+    static class StandInTerms implements FilterExpression.Terms {
+        
+        private static final List<String> CATEGORIES = List.of("Books", "Home & Garden", "(odd) AND");
+        
+        final List<String> categories = new ArrayList<>();
+        
+        @Override
+        public CompressedBitmap all() {
+            return matching(id -> true);
+        }
+        
+        @Override
+        public CompressedBitmap active() {
+            return matching(FilterExpressionTest::active);
+        }
+        
+        @Override
+        public CompressedBitmap inStock() {
+            return matching(FilterExpressionTest::inStock);
+        }
+        
+        @Override
+        public CompressedBitmap category(String category) {
+            categories.add(category);
+            int index = CATEGORIES.indexOf(category);
+            return matching(id -> categoryOf(id) == index);
+        }
+        
+        @Override
+        public CompressedBitmap price(long minCents, long maxCents) {
+            return matching(id -> id * 100L >= minCents && id * 100L <= maxCents);
+        }
+        
+        private static CompressedBitmap matching(IntPredicate predicate) {
+            CompressedBitmap bitmap = new CompressedBitmap();
+            for (int id = 0; id < PRODUCTS; id++) {
+                if (predicate.test(id)) {
+                    bitmap.add(id);
+                }
+            }
+            return bitmap;
+        }
+    }
+}
\ No newline at end of file
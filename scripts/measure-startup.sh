@@ -0,0 +1,68 @@
+#!/bin/bash
+# Measures time to first successful request for each service in three configurations:
+#   baseline    default image, java -jar
+#   fast        FAST_STARTUP=true image (AOT + class data sharing)
+#   fast+lazy   the same with SPRING_MAIN_LAZY_INITIALIZATION=true
+#
+# Usage: scripts/measure-startup.sh [runs-per-configuration]
+# Services run standalone (no Eureka, no config server, in-memory H2), so only the
+# service's own startup is measured. Results are printed as a table in milliseconds
+# (median of the runs).
+set -euo pipefail
+
+RUNS=${1:-5}
+PORT=18080
+PROFILE=${AOT_PROFILES:-azure}
+
+docker build -q -t az-spring-app-demo:baseline . > /dev/null
+docker build -q -t az-spring-app-demo:fast --build-arg FAST_STARTUP=true --build-arg AOT_PROFILES="$PROFILE" . > /dev/null
+
+first_request_path() {
+  case $1 in
+    user-service) echo /users ;;
+    product-service) echo /products ;;
+    order-service) echo /orders ;;
+    *) echo /actuator/health ;;
+  esac
+}
+
+# Prints the milliseconds from "docker run" until the first 200 response
+measure() {
+  local image=$1 service=$2 lazy=$3
+  local start end container
+  start=$(date +%s%N)
+  container=$(docker run -d --rm -p $PORT:8080 \
+    -e SERVICE_NAME="$service" \
+    -e SPRING_PROFILES_ACTIVE="$PROFILE" \
+    -e SPRING_MAIN_LAZY_INITIALIZATION="$lazy" \
+    -e SPRING_CLOUD_CONFIG_ENABLED=false \
+    -e EUREKA_CLIENT_ENABLED=false \
+    -e MANAGEMENT_TRACING_ENABLED=false \
+    "$image")
+  until curl -sf -o /dev/null "http://localhost:$PORT$(first_request_path "$service")"; do
+    if (( $(date +%s%N) - start > 180000000000 )); then
+      docker logs "$container" >&2
+      docker stop "$container" > /dev/null
+      echo "$service did not answer within 180s" >&2
+      exit 1
+    fi
+    sleep 0.05
+  done
+  end=$(date +%s%N)
+  docker stop "$container" > /dev/null
+  echo $(( (end - start) / 1000000 ))
+}
+
+median() {
+  sort -n | awk '{ v[NR] = $1 } END { print (NR % 2) ? v[(NR + 1) / 2] : int((v[NR / 2] + v[NR / 2 + 1]) / 2) }'
+}
+
+printf "%-16s %10s %10s %10s\n" service baseline fast fast+lazy
+for service in eureka-server config-server gateway-service user-service product-service order-service; do
+  results=()
+  for config in "baseline false" "fast false" "fast true"; do
+    set -- $config
+    results+=("$(for _ in $(seq "$RUNS"); do measure "az-spring-app-demo:$1" "$service" "$2"; done | median)")
+  done
+  printf "%-16s %10s %10s %10s\n" "$service" "${results[@]}"
+done
@@ -0,0 +1,106 @@
+#!/bin/bash
+# Smoke test for the native executables, with a startup/memory comparison against the jars.
+#
+#   mvn -Pnative package -DskipTests -pl user-service,product-service,order-service -am
+#   scripts/native-smoke-test.sh
+#
+# Starts user-, product- and order-service (native first, then the jars built alongside
+# them) on in-memory H2 without Eureka or the config server, creates a user, a product and
+# an order through the REST APIs, and checks the stock decrement. For each mode it prints
+# time to first successful request and resident memory after the smoke calls.
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+LOG_DIR=target/native-smoke
+mkdir -p "$LOG_DIR"
+PIDS=()
+
+COMMON_ARGS=(
+  --eureka.client.enabled=false
+  --spring.cloud.config.enabled=false
+  --management.tracing.enabled=false
+  --spring.cloud.discovery.client.simple.instances.user-service[0].uri=http://localhost:8081
+  --spring.cloud.discovery.client.simple.instances.product-service[0].uri=http://localhost:8082
+)
+
+stop_all() {
+  for pid in "${PIDS[@]}"; do
+    kill "$pid" 2>/dev/null && wait "$pid" 2>/dev/null || true
+  done
+  PIDS=()
+}
+trap stop_all EXIT
+
+# launch <mode> <service> <port>; prints the pid
+launch() {
+  local mode=$1 service=$2 port=$3
+  if [ "$mode" = native ]; then
+    "$service/target/$service" --server.port="$port" "${COMMON_ARGS[@]}" > "$LOG_DIR/$service-$mode.log" 2>&1 &
+  else
+    java -jar "$service"/target/"$service"-*.jar --server.port="$port" "${COMMON_ARGS[@]}" > "$LOG_DIR/$service-$mode.log" 2>&1 &
+  fi
+  echo $!
+}
+
+# await <port> <path> <start-ns>; prints milliseconds until the first 200
+await() {
+  local port=$1 path=$2 start=$3
+  until curl -sf -o /dev/null "http://localhost:$port$path"; do
+    if (( $(date +%s%N) - start > 120000000000 )); then
+      echo "Nothing answered on port $port within 120s, see $LOG_DIR" >&2
+      return 1
+    fi
+    sleep 0.02
+  done
+  echo $(( ($(date +%s%N) - start) / 1000000 ))
+}
+
+rss_mb() {
+  echo $(( $(awk '/VmRSS/ { print $2 }' "/proc/$1/status") / 1024 ))
+}
+
+check() {
+  if [ "$1" != "$2" ]; then
+    echo "FAILED: $3 (expected $2, got $1)" >&2
+    exit 1
+  fi
+}
+
+run_mode() {
+  local mode=$1
+  local -A pid startup
+  local service port path start
+  for entry in user-service:8081:/users product-service:8082:/products order-service:8083:/orders; do
+    IFS=: read -r service port path <<< "$entry"
+    start=$(date +%s%N)
+    pid[$service]=$(launch "$mode" "$service" "$port")
+    PIDS+=("${pid[$service]}")
+    startup[$service]=$(await "$port" "$path" "$start")
+  done
+
+  local user_id product_id order_status stock
+  user_id=$(curl -sf -H 'Content-Type: application/json' -d \
+    '{"username":"smoke","email":"smoke@example.com","firstName":"Smoke","lastName":"Test"}' \
+    http://localhost:8081/users | sed -n 's/.*"id":\([0-9]*\).*/\1/p')
+  product_id=$(curl -sf -H 'Content-Type: application/json' -d \
+    '{"name":"Smoke Widget","description":"Native smoke test","price":9.99,"category":"Test","stockQuantity":10}' \
+    http://localhost:8082/products | sed -n 's/.*"id":\([0-9]*\).*/\1/p')
+  order_status=$(curl -sf -H 'Content-Type: application/json' -d \
+    "{\"userId\":$user_id,\"items\":[{\"productId\":$product_id,\"quantity\":3}]}" \
+    http://localhost:8083/orders | sed -n 's/.*"status":"\([A-Z]*\)".*/\1/p')
+  stock=$(curl -sf "http://localhost:8082/products/$product_id" | sed -n 's/.*"stockQuantity":\([0-9]*\).*/\1/p')
+  check "$order_status" PENDING "order created"
+  check "$stock" 7 "stock decremented"
+
+  for service in user-service product-service order-service; do
+    printf "%-8s %-16s %10s %10s\n" "$mode" "$service" "${startup[$service]}" "$(rss_mb "${pid[$service]}")"
+  done
+  stop_all
+}
+
+printf "%-8s %-16s %10s %10s\n" mode service startup-ms rss-mb
+run_mode native
+if ls user-service/target/user-service-*.jar > /dev/null 2>&1; then
+  run_mode jvm
+fi
+echo "Smoke test passed"
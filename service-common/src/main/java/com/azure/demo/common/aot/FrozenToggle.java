@@ -0,0 +1,26 @@
+package com.azure.demo.common.aot;
+
+/**
+ * A boolean property that switches a feature on through @ConditionalOnProperty, and the
+ * bean type that exists when it is on. Spring AOT evaluates such conditions while the
+ * image is built, so at runtime the property no longer decides anything;
+ * {@link FrozenToggleGuard} fails startup when the two disagree.
+ */
+public final class FrozenToggle {
+    
+    private final String property;
+    private final Class<?> beanType;
+    
+    public FrozenToggle(String property, Class<?> beanType) {
+        this.property = property;
+        this.beanType = beanType;
+    }
+    
+    public String getProperty() {
+        return property;
+    }
+    
+    public Class<?> getBeanType() {
+        return beanType;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,58 @@
+package com.azure.demo.common.aot;
+
+import com.azure.demo.common.config.ConfigChangeWatcher;
+import com.azure.demo.common.datasource.ReplicaRoutingDataSource;
+import com.azure.demo.common.discovery.InstanceQuarantine;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/**
+ * Registers the toggles of the shared features with the {@link FrozenToggleGuard}. Each is
+ * only listed where its classes are on the class path; services add their own toggles as
+ * FrozenToggle beans.
+ */
+@AutoConfiguration
+public class FrozenToggleAutoConfiguration {
+    
+    @Bean
+    public FrozenToggleGuard frozenToggleGuard(ListableBeanFactory beanFactory, Environment environment,
+                                               ObjectProvider<FrozenToggle> toggles) {
+        return new FrozenToggleGuard(beanFactory, environment, toggles.orderedStream().toList());
+    }
+    
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(name = "org.springframework.cloud.context.refresh.ContextRefresher")
+    static class ConfigWatchToggle {
+        
+        @Bean
+        public FrozenToggle configWatchToggle() {
+            return new FrozenToggle("config.watch.enabled", ConfigChangeWatcher.class);
+        }
+    }
+    
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(name = {"com.zaxxer.hikari.HikariDataSource",
+            "org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource"})
+    static class ReplicaRoutingToggle {
+        
+        @Bean
+        public FrozenToggle replicaRoutingToggle() {
+            return new FrozenToggle("datasource.replicas.enabled", ReplicaRoutingDataSource.class);
+        }
+    }
+    
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(name = "org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier")
+    static class QuarantineToggle {
+        
+        @Bean
+        public FrozenToggle quarantineToggle() {
+            return new FrozenToggle("discovery.quarantine.enabled", InstanceQuarantine.class);
+        }
+    }
+}
\ No newline at end of file
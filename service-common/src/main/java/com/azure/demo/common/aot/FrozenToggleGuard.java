@@ -0,0 +1,49 @@
+package com.azure.demo.common.aot;
+
+import org.springframework.aot.AotDetector;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.core.env.Environment;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Stops an application started from AOT-generated code when a {@link FrozenToggle} is set
+ * differently from the build, e.g. DATASOURCE_REPLICAS_ENABLED=true on an image whose
+ * replica routing was left out at build time. Without AOT the conditions are evaluated at
+ * startup and nothing needs checking.
+ */
+public class FrozenToggleGuard implements SmartInitializingSingleton {
+    
+    private final ListableBeanFactory beanFactory;
+    private final Environment environment;
+    private final List<FrozenToggle> toggles;
+    
+    public FrozenToggleGuard(ListableBeanFactory beanFactory, Environment environment, List<FrozenToggle> toggles) {
+        this.beanFactory = beanFactory;
+        this.environment = environment;
+        this.toggles = toggles;
+    }
+    
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!AotDetector.useGeneratedArtifacts()) {
+            return;
+        }
+        List<String> mismatches = new ArrayList<>();
+        for (FrozenToggle toggle : toggles) {
+            boolean requested = environment.getProperty(toggle.getProperty(), Boolean.class, false);
+            boolean built = beanFactory.getBeanNamesForType(toggle.getBeanType(), true, false).length > 0;
+            if (requested != built) {
+                mismatches.add(toggle.getProperty() + "=" + requested + " (built with " + built + ")");
+            }
+        }
+        if (!mismatches.isEmpty()) {
+            throw new IllegalStateException("This application was built with Spring AOT, which fixes "
+                    + "@ConditionalOnProperty toggles at build time: " + String.join(", ", mismatches)
+                    + ". Rebuild with the runtime values, e.g. mvn -Pfast-startup package "
+                    + "-Dspring-boot.aot.jvmArguments=\"-D<property>=<value>\" (AOT_JVM_ARGUMENTS in the Dockerfile)");
+        }
+    }
+}
\ No newline at end of file
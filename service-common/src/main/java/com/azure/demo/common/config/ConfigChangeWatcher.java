@@ -0,0 +1,226 @@
+package com.azure.demo.common.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.properties.ConfigurationPropertiesBean;
+import org.springframework.boot.context.properties.source.ConfigurationPropertyName;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.cloud.context.properties.ConfigurationPropertiesRebinder;
+import org.springframework.cloud.context.refresh.ContextRefresher;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.MutablePropertySources;
+import org.springframework.core.env.PropertySource;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Applies config changes pushed by config-server through its /store/watch long-poll,
+ * instead of a full /actuator/refresh on every instance.
+ * <p>
+ * Changed values are layered directly above the config-server property source, only the
+ * @ConfigurationProperties beans whose prefix covers a changed key are rebound, and an
+ * EnvironmentChangeEvent with the keys is published for listeners such as logging levels.
+ * Removed keys, or changes the server no longer remembers, fall back to a full refresh.
+ * Registered by {@link ConfigWatchAutoConfiguration}.
+ */
+public class ConfigChangeWatcher implements SmartLifecycle {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ConfigChangeWatcher.class);
+    
+    private static final String OVERRIDES = "configWatchOverrides";
+    private static final Duration POLL_TIMEOUT = Duration.ofSeconds(30);
+    private static final Duration RETRY_DELAY = Duration.ofSeconds(5);
+    
+    private final ConfigurableApplicationContext context;
+    private final ContextRefresher contextRefresher;
+    private final ConfigurationPropertiesRebinder rebinder;
+    private final ObjectMapper objectMapper;
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final String watchUri;
+    private final String authorization;
+    private volatile boolean running;
+    private Thread thread;
+    private long revision = -1;
+    
+    public ConfigChangeWatcher(ConfigurableApplicationContext context,
+                               ContextRefresher contextRefresher,
+                               ConfigurationPropertiesRebinder rebinder,
+                               ObjectMapper objectMapper,
+                               String uri,
+                               String username,
+                               String password) {
+        this.context = context;
+        this.contextRefresher = contextRefresher;
+        this.rebinder = rebinder;
+        this.objectMapper = objectMapper;
+        
+        // The same environment the config client loaded at startup
+        ConfigurableEnvironment environment = context.getEnvironment();
+        String profiles = environment.getActiveProfiles().length == 0
+                ? "default" : String.join(",", environment.getActiveProfiles());
+        String label = environment.getProperty("spring.cloud.config.label", "");
+        this.watchUri = uri + "/store/watch?application=" + encode(environment.getProperty("spring.application.name"))
+                + "&profile=" + encode(profiles) + "&label=" + encode(label)
+                + "&timeout=" + POLL_TIMEOUT;
+        this.authorization = username.isEmpty() ? null : "Basic " + Base64.getEncoder()
+                .encodeToString((username + ":" + password).getBytes(StandardCharsets.UTF_8));
+    }
+    
+    @Override
+    public void start() {
+        running = true;
+        thread = new Thread(this::run, "config-watch");
+        thread.setDaemon(true);
+        thread.start();
+    }
+    
+    @Override
+    public void stop() {
+        running = false;
+        thread.interrupt();
+    }
+    
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+    
+    private void run() {
+        while (running) {
+            try {
+                poll();
+            } catch (InterruptedException e) {
+                return;
+            } catch (IOException | RuntimeException e) {
+                logger.debug("Config watch failed, retrying in {}: {}", RETRY_DELAY, e.getMessage());
+                try {
+                    Thread.sleep(RETRY_DELAY.toMillis());
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+    
+    private void poll() throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(watchUri + "&since=" + revision))
+                .timeout(POLL_TIMEOUT.plusSeconds(15))
+                .GET();
+        if (authorization != null) {
+            request.header("Authorization", authorization);
+        }
+        HttpResponse<String> response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IOException("config-server answered " + response.statusCode());
+        }
+        
+        JsonNode body = objectMapper.readTree(response.body());
+        boolean first = revision < 0;
+        revision = body.path("revision").asLong();
+        if (first) {
+            // Baseline only: the environment was loaded by the config client at startup
+            return;
+        }
+        if (body.path("fullRefresh").asBoolean()) {
+            fullRefresh();
+            return;
+        }
+        
+        Map<String, String> changes = new LinkedHashMap<>();
+        boolean removals = false;
+        Iterator<Map.Entry<String, JsonNode>> fields = body.path("changes").fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            if (field.getValue().isNull()) {
+                removals = true;
+            } else {
+                changes.put(field.getKey(), field.getValue().asText());
+            }
+        }
+        if (removals) {
+            // A removed key must fall back to a lower source, which only a reload resolves
+            fullRefresh();
+        } else if (!changes.isEmpty()) {
+            apply(changes);
+        }
+    }
+    
+    private void apply(Map<String, String> changes) {
+        overrides().putAll(changes);
+        Set<String> keys = changes.keySet();
+        // Published with this watcher as the source: with the context as source the
+        // rebinder would rebind every @ConfigurationProperties bean
+        context.publishEvent(new EnvironmentChangeEvent(this, keys));
+        for (String beanName : rebinder.getBeanNames()) {
+            if (affects(beanName, keys)) {
+                rebinder.rebind(beanName);
+            }
+        }
+        logger.info("Applied config changes {}", keys);
+    }
+    
+    private void fullRefresh() {
+        context.getEnvironment().getPropertySources().remove(OVERRIDES);
+        Set<String> keys = contextRefresher.refresh();
+        logger.info("Reloaded configuration, changed keys {}", keys);
+    }
+    
+    private boolean affects(String beanName, Set<String> keys) {
+        ConfigurationPropertiesBean bean = ConfigurationPropertiesBean.get(context, context.getBean(beanName), beanName);
+        if (bean == null) {
+            return false;
+        }
+        ConfigurationPropertyName prefix = ConfigurationPropertyName.of(bean.getAnnotation().prefix());
+        for (String key : keys) {
+            ConfigurationPropertyName name = ConfigurationPropertyName.adapt(key, '.');
+            if (prefix.isEmpty() || prefix.equals(name) || prefix.isAncestorOf(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private Map<String, Object> overrides() {
+        MutablePropertySources sources = context.getEnvironment().getPropertySources();
+        if (sources.get(OVERRIDES) instanceof MapPropertySource existing) {
+            return existing.getSource();
+        }
+        MapPropertySource overrides = new MapPropertySource(OVERRIDES, new ConcurrentHashMap<>());
+        // Above config-server values but below command line and environment variables
+        String anchor = sources.stream()
+                .map(PropertySource::getName)
+                .filter(name -> name.startsWith("configserver:") || name.startsWith("Config resource"))
+                .findFirst()
+                .orElse(null);
+        if (anchor != null) {
+            sources.addBefore(anchor, overrides);
+        } else {
+            sources.addLast(overrides);
+        }
+        return overrides.getSource();
+    }
+    
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,44 @@
+package com.azure.demo.common.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.autoconfigure.ConfigurationPropertiesRebinderAutoConfiguration;
+import org.springframework.cloud.autoconfigure.RefreshAutoConfiguration;
+import org.springframework.cloud.context.properties.ConfigurationPropertiesRebinder;
+import org.springframework.cloud.context.refresh.ContextRefresher;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Starts the {@link ConfigChangeWatcher} when config.watch.enabled is set.
+ * <p>
+ * The watcher falls back to a full reload through ContextRefresher, which Spring Cloud only
+ * provides while spring.cloud.refresh.enabled is true. The fast-startup and native builds
+ * turn refresh off, so enabling the watch there fails at startup instead of silently
+ * skipping reloads.
+ */
+@AutoConfiguration(after = {RefreshAutoConfiguration.class, ConfigurationPropertiesRebinderAutoConfiguration.class})
+@ConditionalOnClass({ContextRefresher.class, ObjectMapper.class})
+@ConditionalOnProperty(prefix = "config.watch", name = "enabled", havingValue = "true")
+public class ConfigWatchAutoConfiguration {
+    
+    @Bean
+    public ConfigChangeWatcher configChangeWatcher(ConfigurableApplicationContext context,
+                                                   ObjectProvider<ContextRefresher> contextRefresher,
+                                                   ConfigurationPropertiesRebinder rebinder,
+                                                   ObjectMapper objectMapper,
+                                                   @Value("${config.watch.uri:http://localhost:8888}") String uri,
+                                                   @Value("${config.watch.username:}") String username,
+                                                   @Value("${config.watch.password:}") String password) {
+        ContextRefresher refresher = contextRefresher.getIfAvailable();
+        if (refresher == null) {
+            throw new IllegalStateException("config.watch.enabled=true requires spring.cloud.refresh.enabled=true; "
+                    + "images built with the fast-startup or native profile disable refresh and cannot watch config");
+        }
+        return new ConfigChangeWatcher(context, refresher, rebinder, objectMapper, uri, username, password);
+    }
+}
\ No newline at end of file
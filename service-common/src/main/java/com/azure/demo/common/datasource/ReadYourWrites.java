@@ -0,0 +1,105 @@
+package com.azure.demo.common.datasource;
+
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Per-thread record of whether reads must see the primary's latest writes.
+ * <p>
+ * A client session is pinned to the primary for max-lag after each of its committed writes:
+ * within the request that wrote, and in later requests through a cookie holding the deadline.
+ * Background work that re-reads rows it knows just changed uses {@link #onPrimary}.
+ * Threads without a session (schedulers, consumers) read from replicas as usual.
+ */
+public final class ReadYourWrites {
+    
+    static final String COOKIE = "primary-until";
+    
+    private static final ThreadLocal<Session> CURRENT = new ThreadLocal<>();
+    
+    private ReadYourWrites() {
+    }
+    
+    /** Runs the action with every read on this thread going to the primary. */
+    public static <T> T onPrimary(Supplier<T> action) {
+        Session previous = CURRENT.get();
+        CURRENT.set(new Session(Long.MAX_VALUE, null, Duration.ZERO));
+        try {
+            return action.get();
+        } finally {
+            restore(previous);
+        }
+    }
+    
+    static void begin(long primaryUntil, HttpServletResponse response, Duration maxLag) {
+        CURRENT.set(new Session(primaryUntil, response, maxLag));
+    }
+    
+    static void end() {
+        CURRENT.remove();
+    }
+    
+    static boolean requiresPrimary() {
+        Session session = CURRENT.get();
+        return session != null && System.currentTimeMillis() < session.primaryUntil;
+    }
+    
+    /**
+     * Pins the session once the current read-write transaction commits. A transaction that
+     * rolls back left nothing on the primary for the client to read back.
+     */
+    static void recordWriteOnCommit() {
+        Session session = CURRENT.get();
+        if (session == null || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                session.wrote();
+            }
+        });
+    }
+    
+    private static void restore(Session previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+    
+    private static final class Session {
+        
+        private final HttpServletResponse response;
+        private final Duration maxLag;
+        private long primaryUntil;
+        
+        Session(long primaryUntil, HttpServletResponse response, Duration maxLag) {
+            this.primaryUntil = primaryUntil;
+            this.response = response;
+            this.maxLag = maxLag;
+        }
+        
+        void wrote() {
+            long until = System.currentTimeMillis() + maxLag.toMillis();
+            if (until <= primaryUntil) {
+                return;
+            }
+            primaryUntil = until;
+            // Connections are acquired before the controller returns, so this normally lands
+            if (response != null && !response.isCommitted()) {
+                Cookie cookie = new Cookie(COOKIE, Long.toString(until));
+                cookie.setPath("/");
+                cookie.setHttpOnly(true);
+                cookie.setMaxAge((int) Math.max(1, maxLag.toSeconds()));
+                response.addCookie(cookie);
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,52 @@
+package com.azure.demo.common.datasource;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Opens a ReadYourWrites session per request, pinned to the primary while the client's
+ * primary-until cookie has not expired.
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+    
+    private final Duration maxLag;
+    
+    public ReadYourWritesFilter(Duration maxLag) {
+        this.maxLag = maxLag;
+    }
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        ReadYourWrites.begin(primaryUntil(request), response, maxLag);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            ReadYourWrites.end();
+        }
+    }
+    
+    private long primaryUntil(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies != null) {
+            for (Cookie cookie : cookies) {
+                if (ReadYourWrites.COOKIE.equals(cookie.getName())) {
+                    try {
+                        // Never trust a deadline further out than one lag window from now
+                        return Math.min(Long.parseLong(cookie.getValue()), System.currentTimeMillis() + maxLag.toMillis());
+                    } catch (NumberFormatException e) {
+                        return 0;
+                    }
+                }
+            }
+        }
+        return 0;
+    }
+}
\ No newline at end of file
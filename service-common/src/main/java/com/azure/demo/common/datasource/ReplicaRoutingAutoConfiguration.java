@@ -0,0 +1,87 @@
+package com.azure.demo.common.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Replaces the auto-configured DataSource with primary/replica routing when
+ * datasource.replicas.enabled=true. The primary pool is built from spring.datasource.*,
+ * one pool per datasource.replicas.urls entry from the replica settings. Runs before
+ * DataSourceAutoConfiguration, whose pool backs off once this DataSource exists.
+ */
+@AutoConfiguration(before = DataSourceAutoConfiguration.class)
+@ConditionalOnClass({HikariDataSource.class, LazyConnectionDataSourceProxy.class, MeterRegistry.class})
+@ConditionalOnProperty(prefix = "datasource.replicas", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(DataSourceProperties.class)
+public class ReplicaRoutingAutoConfiguration {
+    
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(DataSourceProperties properties,
+                                                             MeterRegistry meterRegistry,
+                                                             @Value("${datasource.replicas.urls:}") List<String> urls,
+                                                             @Value("${datasource.replicas.username:${spring.datasource.username:}}") String username,
+                                                             @Value("${datasource.replicas.password:${spring.datasource.password:}}") String password,
+                                                             @Value("${datasource.replicas.maximum-pool-size:10}") int maximumPoolSize,
+                                                             @Value("${datasource.replicas.selection:round-robin}") String selection) {
+        if (urls.isEmpty()) {
+            throw new IllegalStateException("datasource.replicas.enabled is set but datasource.replicas.urls is empty");
+        }
+        MicrometerMetricsTrackerFactory metrics = new MicrometerMetricsTrackerFactory(meterRegistry);
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primary.setPoolName("primary");
+        primary.setMetricsTrackerFactory(metrics);
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (String url : urls) {
+            HikariDataSource replica = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .driverClassName(properties.determineDriverClassName())
+                    .url(url)
+                    .username(username)
+                    .password(password)
+                    .build();
+            replica.setPoolName("replica-" + replicas.size());
+            replica.setMaximumPoolSize(maximumPoolSize);
+            replica.setReadOnly(true);
+            replica.setMetricsTrackerFactory(metrics);
+            replicas.add(replica);
+        }
+        return new ReplicaRoutingDataSource(primary, replicas,
+                ReplicaRoutingDataSource.Selection.valueOf(selection.toUpperCase(Locale.ROOT).replace('-', '_')),
+                meterRegistry);
+    }
+    
+    /**
+     * The DataSource JPA uses. The lazy proxy defers taking a real connection until the
+     * first statement, when the transaction's read-only flag is known.
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+    
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    public ReadYourWritesFilter readYourWritesFilter(@Value("${datasource.replicas.max-lag:PT2S}") Duration maxLag) {
+        return new ReadYourWritesFilter(maxLag);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,108 @@
+package com.azure.demo.common.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.Closeable;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends read-only transactions to a replica pool and everything else to the primary.
+ * <p>
+ * The routing key is only meaningful once the transaction is set up, so this must sit
+ * behind a LazyConnectionDataSourceProxy (see ReplicaRoutingAutoConfiguration). Reads also stay on
+ * the primary while the current ReadYourWrites session requires it.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+    
+    private static final String PRIMARY = "primary";
+    
+    public enum Selection {
+        ROUND_ROBIN,
+        /** The replica whose pool has the fewest connections in use. */
+        LEAST_BUSY
+    }
+    
+    private final HikariDataSource primary;
+    private final List<HikariDataSource> replicas;
+    private final Selection selection;
+    private final AtomicInteger next = new AtomicInteger();
+    private final Counter writes;
+    private final Counter pinnedReads;
+    private final Counter replicaReads;
+    
+    public ReplicaRoutingDataSource(HikariDataSource primary, List<HikariDataSource> replicas, Selection selection,
+                                    MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.replicas = replicas;
+        this.selection = selection;
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < replicas.size(); i++) {
+            targets.put(i, replicas.get(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        this.writes = routed(meterRegistry, PRIMARY, "write");
+        this.pinnedReads = routed(meterRegistry, PRIMARY, "read_your_writes");
+        this.replicaReads = routed(meterRegistry, "replica", "read");
+    }
+    
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            writes.increment();
+            ReadYourWrites.recordWriteOnCommit();
+            return PRIMARY;
+        }
+        if (replicas.isEmpty() || ReadYourWrites.requiresPrimary()) {
+            pinnedReads.increment();
+            return PRIMARY;
+        }
+        replicaReads.increment();
+        return selection == Selection.LEAST_BUSY ? leastBusy() : roundRobin();
+    }
+    
+    @Override
+    public void close() {
+        replicas.forEach(HikariDataSource::close);
+        primary.close();
+    }
+    
+    private int roundRobin() {
+        return Math.floorMod(next.getAndIncrement(), replicas.size());
+    }
+    
+    private int leastBusy() {
+        // Start at a rotating offset so ties are spread instead of all going to replica 0
+        int start = roundRobin();
+        int best = start;
+        int fewest = Integer.MAX_VALUE;
+        for (int i = 0; i < replicas.size(); i++) {
+            int candidate = (start + i) % replicas.size();
+            HikariPoolMXBean pool = replicas.get(candidate).getHikariPoolMXBean();
+            // No pool yet means no connection was ever taken from it
+            int active = pool == null ? 0 : pool.getActiveConnections();
+            if (active < fewest) {
+                fewest = active;
+                best = candidate;
+            }
+        }
+        return best;
+    }
+    
+    private static Counter routed(MeterRegistry meterRegistry, String target, String reason) {
+        return Counter.builder("datasource.routed.connections")
+                .description("Connections routed to the primary or a replica")
+                .tag("target", target)
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,93 @@
+package com.azure.demo.common.discovery;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycle;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Takes an instance out of load balancing as soon as a connection to it fails, instead of
+ * waiting for its Eureka lease to expire and the registry change to reach this client.
+ * Only connection-level failures count: an instance that answers, even with an error,
+ * is alive. The quarantine lapses after a fixed time so a restarted instance on the same
+ * host and port comes back without any registry change.
+ */
+public class InstanceQuarantine implements LoadBalancerLifecycle<Object, Object, ServiceInstance> {
+    
+    private static final Logger logger = LoggerFactory.getLogger(InstanceQuarantine.class);
+    
+    private final long durationNanos;
+    private final Map<String, Long> quarantinedUntil = new ConcurrentHashMap<>();
+    
+    public InstanceQuarantine(Duration duration) {
+        this.durationNanos = duration.toNanos();
+    }
+    
+    public boolean isQuarantined(ServiceInstance instance) {
+        Long until = quarantinedUntil.get(key(instance));
+        if (until == null) {
+            return false;
+        }
+        if (System.nanoTime() - until >= 0) {
+            quarantinedUntil.remove(key(instance), until);
+            return false;
+        }
+        return true;
+    }
+    
+    public void quarantine(ServiceInstance instance) {
+        if (quarantinedUntil.put(key(instance), System.nanoTime() + durationNanos) == null) {
+            logger.info("Quarantined {} instance {} after a connection failure", instance.getServiceId(), key(instance));
+        }
+    }
+    
+    @Override
+    public boolean supports(Class requestContextClass, Class responseClass, Class serverTypeClass) {
+        return ServiceInstance.class.isAssignableFrom(serverTypeClass);
+    }
+    
+    @Override
+    public void onStart(Request<Object> request) {
+    }
+    
+    @Override
+    public void onStartRequest(Request<Object> request, Response<ServiceInstance> lbResponse) {
+    }
+    
+    @Override
+    public void onComplete(CompletionContext<Object, ServiceInstance, Object> completionContext) {
+        if (completionContext.status() != CompletionContext.Status.FAILED
+                || !isConnectionFailure(completionContext.getThrowable())) {
+            return;
+        }
+        Response<ServiceInstance> response = completionContext.getLoadBalancerResponse();
+        if (response != null && response.hasServer()) {
+            quarantine(response.getServer());
+        }
+    }
+    
+    private static boolean isConnectionFailure(Throwable throwable) {
+        for (Throwable cause = throwable; cause != null; cause = cause.getCause()) {
+            // Netty's connect exceptions, including connect timeouts, extend ConnectException
+            if (cause instanceof ConnectException || cause instanceof NoRouteToHostException
+                    || cause instanceof UnknownHostException) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private static String key(ServiceInstance instance) {
+        return instance.getHost() + ":" + instance.getPort();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,26 @@
+package com.azure.demo.common.discovery;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClients;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.context.annotation.Bean;
+
+import java.time.Duration;
+
+/**
+ * Enabled by the fast-discovery profile (discovery.quarantine.enabled=true).
+ */
+@AutoConfiguration
+@ConditionalOnClass(ServiceInstanceListSupplier.class)
+@ConditionalOnProperty(prefix = "discovery.quarantine", name = "enabled", havingValue = "true")
+@LoadBalancerClients(defaultConfiguration = QuarantineLoadBalancerConfiguration.class)
+public class QuarantineAutoConfiguration {
+    
+    @Bean
+    public InstanceQuarantine instanceQuarantine(@Value("${discovery.quarantine.duration:30s}") Duration duration) {
+        return new InstanceQuarantine(duration);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,52 @@
+package com.azure.demo.common.discovery;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingClass;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+/**
+ * Per-service load balancer configuration, instantiated in each client's child context.
+ * Deliberately not a @Configuration so component scanning does not pick it up.
+ * <p>
+ * The gateway runs on WebFlux and resolves instances through the reactive discovery
+ * client; servlet services such as order-service call from blocking Feign threads and
+ * use the blocking client.
+ */
+@Import({QuarantineLoadBalancerConfiguration.Reactive.class, QuarantineLoadBalancerConfiguration.Blocking.class})
+public class QuarantineLoadBalancerConfiguration {
+    
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(name = "org.springframework.web.reactive.DispatcherHandler")
+    @ConditionalOnMissingClass("org.springframework.web.servlet.DispatcherServlet")
+    static class Reactive {
+        
+        @Bean
+        public ServiceInstanceListSupplier discoveryClientServiceInstanceListSupplier(
+                ConfigurableApplicationContext context, InstanceQuarantine quarantine) {
+            return ServiceInstanceListSupplier.builder()
+                    .withDiscoveryClient()
+                    .withCaching()
+                    .with((ctx, delegate) -> new QuarantiningServiceInstanceListSupplier(delegate, quarantine))
+                    .build(context);
+        }
+    }
+    
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(name = "org.springframework.web.servlet.DispatcherServlet")
+    static class Blocking {
+        
+        @Bean
+        public ServiceInstanceListSupplier discoveryClientServiceInstanceListSupplier(
+                ConfigurableApplicationContext context, InstanceQuarantine quarantine) {
+            return ServiceInstanceListSupplier.builder()
+                    .withBlockingDiscoveryClient()
+                    .withCaching()
+                    .with((ctx, delegate) -> new QuarantiningServiceInstanceListSupplier(delegate, quarantine))
+                    .build(context);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,41 @@
+package com.azure.demo.common.discovery;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.loadbalancer.core.DelegatingServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+
+/**
+ * Hides quarantined instances from the load balancer. If every instance is quarantined
+ * the full list is returned, so a service-wide outage surfaces as the real connection
+ * error rather than "no instances available".
+ */
+public class QuarantiningServiceInstanceListSupplier extends DelegatingServiceInstanceListSupplier {
+    
+    private final InstanceQuarantine quarantine;
+    
+    public QuarantiningServiceInstanceListSupplier(ServiceInstanceListSupplier delegate, InstanceQuarantine quarantine) {
+        super(delegate);
+        this.quarantine = quarantine;
+    }
+    
+    @Override
+    public Flux<List<ServiceInstance>> get() {
+        return delegate.get().map(this::filter);
+    }
+    
+    @Override
+    public Flux<List<ServiceInstance>> get(Request request) {
+        return delegate.get(request).map(this::filter);
+    }
+    
+    private List<ServiceInstance> filter(List<ServiceInstance> instances) {
+        List<ServiceInstance> available = instances.stream()
+                .filter(instance -> !quarantine.isQuarantined(instance))
+                .toList();
+        return available.isEmpty() ? instances : available;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,50 @@
+package com.azure.demo.common.web;
+
+/**
+ * Strong ETags derived from an entity's @Version, e.g. {@code "3"}, and the checks for the
+ * If-None-Match (reads) and If-Match (writes) request headers.
+ */
+public final class EntityTags {
+    
+    /** Expected version of an If-Match header that no entity can have. */
+    public static final long NO_MATCH = -1;
+    
+    private EntityTags() {
+    }
+    
+    public static String of(Long version) {
+        return "\"" + version + "\"";
+    }
+    
+    /** If-None-Match uses the weak comparison, so W/"3" matches version 3 as well. */
+    public static boolean noneMatchHits(String ifNoneMatch, Long version) {
+        String tag = of(version);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String trimmed = candidate.trim();
+            if (trimmed.equals("*") || trimmed.equals(tag) || trimmed.equals("W/" + tag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * The version an If-Match header requires: null when there is no header or it is "*",
+     * which any existing entity satisfies, and {@link #NO_MATCH} when it cannot match,
+     * i.e. weak or malformed tags. Only a single tag is supported.
+     */
+    public static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.length() < 3 || tag.charAt(0) != '"' || tag.charAt(tag.length() - 1) != '"') {
+            return NO_MATCH;
+        }
+        try {
+            return Long.parseLong(tag.substring(1, tag.length() - 1));
+        } catch (NumberFormatException e) {
+            return NO_MATCH;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,131 @@
+package com.azure.demo.common.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReplicaRoutingDataSourceTest {
+    
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ReadYourWritesFilter filter = new ReadYourWritesFilter(Duration.ofSeconds(2));
+    private ReplicaRoutingDataSource routing;
+    private JdbcTemplate jdbc;
+    private TransactionTemplate writes;
+    private TransactionTemplate reads;
+    
+    @BeforeEach
+    void setUp() {
+        // Two separate H2 databases, each knowing which one it is
+        routing = new ReplicaRoutingDataSource(database("primary"), List.of(database("replica")),
+                ReplicaRoutingDataSource.Selection.ROUND_ROBIN, meterRegistry);
+        routing.afterPropertiesSet();
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routing);
+        jdbc = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        writes = new TransactionTemplate(transactionManager);
+        reads = new TransactionTemplate(transactionManager);
+        reads.setReadOnly(true);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        routing.close();
+    }
+    
+    @Test
+    void readOnlyTransactionsGoToTheReplica() {
+        assertThat(readNode()).isEqualTo("replica");
+        assertThat(writes.execute(status -> node())).isEqualTo("primary");
+        assertThat(meterRegistry.get("datasource.routed.connections").tag("reason", "read").counter().count())
+                .isEqualTo(1.0);
+    }
+    
+    @Test
+    void readAfterACommittedWriteGoesToThePrimary() throws Exception {
+        List<String> nodes = new ArrayList<>();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        
+        filter.doFilter(new MockHttpServletRequest(), response, chain(() -> {
+            nodes.add(readNode());
+            writes.executeWithoutResult(status -> jdbc.update("INSERT INTO note (body) VALUES ('written')"));
+            nodes.add(readNode());
+        }));
+        
+        assertThat(nodes).containsExactly("replica", "primary");
+        assertThat(response.getCookie(ReadYourWrites.COOKIE)).isNotNull();
+    }
+    
+    @Test
+    void rolledBackWriteDoesNotPinTheSession() throws Exception {
+        List<String> nodes = new ArrayList<>();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        
+        filter.doFilter(new MockHttpServletRequest(), response, chain(() -> {
+            writes.executeWithoutResult(status -> {
+                jdbc.update("INSERT INTO note (body) VALUES ('discarded')");
+                status.setRollbackOnly();
+            });
+            nodes.add(readNode());
+        }));
+        
+        assertThat(nodes).containsExactly("replica");
+        assertThat(response.getCookie(ReadYourWrites.COOKIE)).isNull();
+    }
+    
+    @Test
+    void cookieFromAnEarlierWritePinsTheNextRequest() throws Exception {
+        List<String> nodes = new ArrayList<>();
+        MockHttpServletRequest pinned = new MockHttpServletRequest();
+        pinned.setCookies(new Cookie(ReadYourWrites.COOKIE, Long.toString(System.currentTimeMillis() + 1_000)));
+        MockHttpServletRequest expired = new MockHttpServletRequest();
+        expired.setCookies(new Cookie(ReadYourWrites.COOKIE, Long.toString(System.currentTimeMillis() - 1)));
+        
+        filter.doFilter(pinned, new MockHttpServletResponse(), chain(() -> nodes.add(readNode())));
+        filter.doFilter(expired, new MockHttpServletResponse(), chain(() -> nodes.add(readNode())));
+        
+        assertThat(nodes).containsExactly("primary", "replica");
+    }
+    
+    private String readNode() {
+        return reads.execute(status -> node());
+    }
+    
+    private String node() {
+        return jdbc.queryForObject("SELECT name FROM node", String.class);
+    }
+    
+    private static FilterChain chain(Runnable action) {
+        return (request, response) -> action.run();
+    }
+    
+    private static HikariDataSource database(String name) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:" + name + "-" + UUID.randomUUID());
+        dataSource.setPoolName(name);
+        dataSource.setMaximumPoolSize(2);
+        JdbcTemplate setup = new JdbcTemplate(dataSource);
+        setup.execute("CREATE TABLE node (name VARCHAR(16))");
+        setup.execute("CREATE TABLE note (body VARCHAR(64))");
+        setup.update("INSERT INTO node (name) VALUES (?)", name);
+        return dataSource;
+    }
+}
\ No newline at end of file
@@ -2,8 +2,12 @@ package com.azure.demo.userservice;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@ImportRuntimeHints(UserServiceRuntimeHints.class)
+@EnableScheduling
 public class UserServiceApplication {
 
     public static void main(String[] args) {
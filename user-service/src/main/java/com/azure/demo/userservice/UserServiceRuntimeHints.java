@@ -0,0 +1,20 @@
+package com.azure.demo.userservice;
+
+import com.azure.demo.userservice.model.User;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+
+/**
+ * Reflection hints for the native image. The User entity is mapped by Hibernate and
+ * read and written as JSON by the controller.
+ */
+public class UserServiceRuntimeHints implements RuntimeHintsRegistrar {
+    
+    private final BindingReflectionHintsRegistrar bindingHints = new BindingReflectionHintsRegistrar();
+    
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        bindingHints.registerReflectionHints(hints.reflection(), User.class);
+    }
+}
\ No newline at end of file
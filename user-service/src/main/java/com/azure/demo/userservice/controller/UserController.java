@@ -1,9 +1,13 @@
 package com.azure.demo.userservice.controller;
 
+import com.azure.demo.common.web.EntityTags;
 import com.azure.demo.userservice.model.User;
 import com.azure.demo.userservice.service.UserService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -28,52 +32,70 @@ public class UserController {
         return ResponseEntity.ok(users);
     }
     
+    /**
+     * A user with its version as ETag. If-None-Match is answered from the version alone,
+     * so a client that is current gets 304 without the user being loaded.
+     */
     @GetMapping("/{id}")
-    public ResponseEntity<User> getUserById(@PathVariable Long id) {
-        Optional<User> user = userService.getUserById(id);
-        return user.map(ResponseEntity::ok)
-                .orElse(ResponseEntity.notFound().build());
+    public ResponseEntity<User> getUserById(@PathVariable Long id,
+                                            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        if (ifNoneMatch != null) {
+            Optional<Long> version = userService.getUserVersion(id);
+            if (version.isEmpty()) {
+                return ResponseEntity.notFound().build();
+            }
+            if (EntityTags.noneMatchHits(ifNoneMatch, version.get())) {
+                return tagged(HttpStatus.NOT_MODIFIED, version.get()).build();
+            }
+        }
+        return conditional(userService.getUserById(id), null);
     }
     
+    // Lookups by username and email load the user to find its version; 304 still saves the body
     @GetMapping("/username/{username}")
-    public ResponseEntity<User> getUserByUsername(@PathVariable String username) {
-        Optional<User> user = userService.getUserByUsername(username);
-        return user.map(ResponseEntity::ok)
-                .orElse(ResponseEntity.notFound().build());
+    public ResponseEntity<User> getUserByUsername(@PathVariable String username,
+                                                  @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return conditional(userService.getUserByUsername(username), ifNoneMatch);
     }
     
     @GetMapping("/email/{email}")
-    public ResponseEntity<User> getUserByEmail(@PathVariable String email) {
-        Optional<User> user = userService.getUserByEmail(email);
-        return user.map(ResponseEntity::ok)
-                .orElse(ResponseEntity.notFound().build());
+    public ResponseEntity<User> getUserByEmail(@PathVariable String email,
+                                               @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return conditional(userService.getUserByEmail(email), ifNoneMatch);
     }
     
     @PostMapping
     public ResponseEntity<User> createUser(@Valid @RequestBody User user) {
         try {
             User createdUser = userService.createUser(user);
-            return ResponseEntity.status(HttpStatus.CREATED).body(createdUser);
+            return tagged(HttpStatus.CREATED, createdUser.getVersion()).body(createdUser);
         } catch (RuntimeException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
         }
     }
     
+    /** With If-Match, the update only applies to the version the client holds; otherwise 412. */
     @PutMapping("/{id}")
-    public ResponseEntity<User> updateUser(@PathVariable Long id, @Valid @RequestBody User userDetails) {
+    public ResponseEntity<User> updateUser(@PathVariable Long id, @Valid @RequestBody User userDetails,
+                                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         try {
-            User updatedUser = userService.updateUser(id, userDetails);
-            return ResponseEntity.ok(updatedUser);
+            User updatedUser = userService.updateUser(id, userDetails, EntityTags.expectedVersion(ifMatch));
+            return tagged(HttpStatus.OK, updatedUser.getVersion()).body(updatedUser);
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
         }
     }
     
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deleteUser(@PathVariable Long id) {
+    public ResponseEntity<Void> deleteUser(@PathVariable Long id,
+                                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         try {
-            userService.deleteUser(id);
+            userService.deleteUser(id, EntityTags.expectedVersion(ifMatch));
             return ResponseEntity.noContent().build();
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
         }
@@ -83,4 +105,22 @@ public class UserController {
     public ResponseEntity<String> health() {
         return ResponseEntity.ok("User Service is running!");
     }
+    
+    private static ResponseEntity<User> conditional(Optional<User> user, String ifNoneMatch) {
+        if (user.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        Long version = user.get().getVersion();
+        if (ifNoneMatch != null && EntityTags.noneMatchHits(ifNoneMatch, version)) {
+            return tagged(HttpStatus.NOT_MODIFIED, version).build();
+        }
+        return tagged(HttpStatus.OK, version).body(user.get());
+    }
+    
+    // no-cache lets the gateway and clients keep the body but revalidate it on every use
+    private static ResponseEntity.BodyBuilder tagged(HttpStatus status, Long version) {
+        return ResponseEntity.status(status)
+                .eTag(EntityTags.of(version))
+                .cacheControl(CacheControl.noCache());
+    }
 }
\ No newline at end of file
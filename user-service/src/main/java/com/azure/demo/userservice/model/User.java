@@ -1,5 +1,6 @@
 package com.azure.demo.userservice.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
@@ -41,6 +42,12 @@ public class User {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
     
+    // Incremented by every update; served as the ETag rather than in the body
+    @JsonIgnore
+    @Version
+    @Column(nullable = false)
+    private Long version;
+    
     public User() {
         this.createdAt = LocalDateTime.now();
     }
@@ -114,4 +121,12 @@ public class User {
     public void setUpdatedAt(LocalDateTime updatedAt) {
         this.updatedAt = updatedAt;
     }
+    
+    public Long getVersion() {
+        return version;
+    }
+    
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
\ No newline at end of file
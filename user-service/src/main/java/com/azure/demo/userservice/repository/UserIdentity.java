@@ -0,0 +1,11 @@
+package com.azure.demo.userservice.repository;
+
+/**
+ * The unique columns of a user, read without loading the entity.
+ */
+public interface UserIdentity {
+    
+    String getUsername();
+    
+    String getEmail();
+}
\ No newline at end of file
@@ -2,8 +2,14 @@ package com.azure.demo.userservice.service;
 
 import com.azure.demo.userservice.model.User;
 import com.azure.demo.userservice.repository.UserRepository;
+import com.azure.demo.userservice.uniqueness.UserUniquenessIndex;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -11,65 +17,129 @@ import java.util.Optional;
 @Service
 public class UserService {
     
+    // Public methods are timed by TimedAspect as "user.service", tagged with class, method and
+    // exception; histogram and SLO buckets are configured under management.metrics.distribution
+    private static final String TIMER_NAME = "user.service";
+    
     private final UserRepository userRepository;
+    private final UserUniquenessIndex uniquenessIndex;
+    
+    private final Counter duplicateUsernameRejects;
+    private final Counter duplicateEmailRejects;
     
     @Autowired
-    public UserService(UserRepository userRepository) {
+    public UserService(UserRepository userRepository, UserUniquenessIndex uniquenessIndex, MeterRegistry meterRegistry) {
         this.userRepository = userRepository;
+        this.uniquenessIndex = uniquenessIndex;
+        this.duplicateUsernameRejects = rejectCounter(meterRegistry, "duplicate_username");
+        this.duplicateEmailRejects = rejectCounter(meterRegistry, "duplicate_email");
     }
     
+    @Timed(TIMER_NAME)
+    @Transactional(readOnly = true)
     public List<User> getAllUsers() {
         return userRepository.findAll();
     }
     
+    @Timed(TIMER_NAME)
+    @Transactional(readOnly = true)
     public Optional<User> getUserById(Long id) {
         return userRepository.findById(id);
     }
     
+    /** The user's current version, for conditional requests that need no body. */
+    @Timed(TIMER_NAME)
+    @Transactional(readOnly = true)
+    public Optional<Long> getUserVersion(Long id) {
+        return userRepository.findVersionById(id);
+    }
+    
+    @Timed(TIMER_NAME)
+    @Transactional(readOnly = true)
     public Optional<User> getUserByUsername(String username) {
         return userRepository.findByUsername(username);
     }
     
+    @Timed(TIMER_NAME)
+    @Transactional(readOnly = true)
     public Optional<User> getUserByEmail(String email) {
         return userRepository.findByEmail(email);
     }
     
+    @Timed(TIMER_NAME)
+    @Transactional
     public User createUser(User user) {
-        if (userRepository.existsByUsername(user.getUsername())) {
+        // The index answers most new values without a query; unique constraints still apply
+        if (uniquenessIndex.usernameExists(user.getUsername())) {
+            duplicateUsernameRejects.increment();
             throw new RuntimeException("Username already exists: " + user.getUsername());
         }
-        if (userRepository.existsByEmail(user.getEmail())) {
+        if (uniquenessIndex.emailExists(user.getEmail())) {
+            duplicateEmailRejects.increment();
             throw new RuntimeException("Email already exists: " + user.getEmail());
         }
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        uniquenessIndex.added(saved);
+        return saved;
     }
     
-    public User updateUser(Long id, User userDetails) {
+    /**
+     * @param expectedVersion version the caller last saw, or null to update unconditionally
+     * @throws ObjectOptimisticLockingFailureException if the user has a different version
+     */
+    @Timed(TIMER_NAME)
+    @Transactional
+    public User updateUser(Long id, User userDetails, Long expectedVersion) {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("User not found with id: " + id));
+        checkVersion(user, expectedVersion);
         
         // Check if username or email is being changed and if they already exist
         if (!user.getUsername().equals(userDetails.getUsername()) && 
-            userRepository.existsByUsername(userDetails.getUsername())) {
+            uniquenessIndex.usernameExists(userDetails.getUsername())) {
+            duplicateUsernameRejects.increment();
             throw new RuntimeException("Username already exists: " + userDetails.getUsername());
         }
         
         if (!user.getEmail().equals(userDetails.getEmail()) && 
-            userRepository.existsByEmail(userDetails.getEmail())) {
+            uniquenessIndex.emailExists(userDetails.getEmail())) {
+            duplicateEmailRejects.increment();
             throw new RuntimeException("Email already exists: " + userDetails.getEmail());
         }
         
+        String previousUsername = user.getUsername();
+        String previousEmail = user.getEmail();
         user.setUsername(userDetails.getUsername());
         user.setEmail(userDetails.getEmail());
         user.setFirstName(userDetails.getFirstName());
         user.setLastName(userDetails.getLastName());
         
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        uniquenessIndex.updated(previousUsername, previousEmail, saved);
+        return saved;
     }
     
-    public void deleteUser(Long id) {
+    @Timed(TIMER_NAME)
+    @Transactional
+    public void deleteUser(Long id, Long expectedVersion) {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("User not found with id: " + id));
+        checkVersion(user, expectedVersion);
         userRepository.delete(user);
+        uniquenessIndex.removed(user);
+    }
+    
+    // An update racing past this check still fails, on the version condition of the UPDATE
+    private static void checkVersion(User user, Long expectedVersion) {
+        if (expectedVersion != null && !expectedVersion.equals(user.getVersion())) {
+            throw new ObjectOptimisticLockingFailureException(User.class, user.getId());
+        }
+    }
+    
+    private static Counter rejectCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("user.validation.rejects")
+                .description("User writes rejected by uniqueness validation")
+                .tag("reason", reason)
+                .register(meterRegistry);
     }
 }
\ No newline at end of file
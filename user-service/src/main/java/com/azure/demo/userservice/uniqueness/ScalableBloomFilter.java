@@ -0,0 +1,150 @@
+package com.azure.demo.userservice.uniqueness;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Scalable Bloom filter of strings: a chain of plain Bloom filters ("slices") where each
+ * new slice has twice the capacity and half the false-positive rate of the previous one,
+ * so the compound rate stays below the target however many values are added.
+ * <p>
+ * mightContain never returns false for an added value. Values cannot be removed. Lookups
+ * are lock-free; adds are serialized, and bits are set atomically so concurrent readers
+ * see them.
+ */
+public class ScalableBloomFilter {
+    
+    private static final int GROWTH = 2;
+    private static final double TIGHTENING = 0.5;
+    
+    private volatile Slice[] slices;
+    private long size;
+    
+    public ScalableBloomFilter(long initialCapacity, double falsePositiveRate) {
+        if (initialCapacity < 1 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("Capacity must be positive and the false-positive rate in (0, 1)");
+        }
+        // The compound rate of the series is bounded by p0 / (1 - TIGHTENING)
+        this.slices = new Slice[] {new Slice(initialCapacity, falsePositiveRate * (1 - TIGHTENING))};
+    }
+    
+    public synchronized void add(String value) {
+        long h1 = hash(value);
+        long h2 = mix(h1);
+        Slice last = slices[slices.length - 1];
+        if (last.mightContain(h1, h2)) {
+            // Already present (or a false positive): adding would only raise the fill ratio
+            return;
+        }
+        if (last.count == last.capacity) {
+            Slice next = new Slice(last.capacity * GROWTH, last.falsePositiveRate * TIGHTENING);
+            Slice[] grown = Arrays.copyOf(slices, slices.length + 1);
+            grown[grown.length - 1] = next;
+            slices = grown;
+            last = next;
+        }
+        last.add(h1, h2);
+        size++;
+    }
+    
+    public boolean mightContain(String value) {
+        long h1 = hash(value);
+        long h2 = mix(h1);
+        for (Slice slice : slices) {
+            if (slice.mightContain(h1, h2)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /** Number of distinct values added, as far as the filter can tell. */
+    public synchronized long size() {
+        return size;
+    }
+    
+    public long memoryBytes() {
+        long bytes = 0;
+        for (Slice slice : slices) {
+            bytes += slice.bitCount / 8;
+        }
+        return bytes;
+    }
+    
+    /**
+     * Probability that mightContain returns true for a value never added, computed from
+     * how many bits of each slice are actually set.
+     */
+    public double falsePositiveProbability() {
+        double allMiss = 1;
+        for (Slice slice : slices) {
+            allMiss *= 1 - Math.pow(slice.fillRatio(), slice.hashes);
+        }
+        return 1 - allMiss;
+    }
+    
+    /** FNV-1a over the UTF-16 code units, finalized with the SplitMix64 mixer. */
+    private static long hash(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            h = (h ^ value.charAt(i)) * 0x100000001b3L;
+        }
+        return mix(h);
+    }
+    
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+    
+    private static final class Slice {
+        
+        private final long capacity;
+        private final double falsePositiveRate;
+        private final long bitCount;
+        private final int hashes;
+        private final AtomicLongArray bits;
+        // Guarded by the filter's lock
+        private long count;
+        
+        Slice(long capacity, double falsePositiveRate) {
+            this.capacity = capacity;
+            this.falsePositiveRate = falsePositiveRate;
+            double ln2 = Math.log(2);
+            long optimalBits = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (ln2 * ln2));
+            int words = (int) Math.min(Integer.MAX_VALUE, (optimalBits + 63) / 64);
+            this.bitCount = words * 64L;
+            this.hashes = Math.max(1, (int) Math.round((double) bitCount / capacity * ln2));
+            this.bits = new AtomicLongArray(words);
+        }
+        
+        // Kirsch-Mitzenmacher: k indexes from two hashes
+        boolean mightContain(long h1, long h2) {
+            for (int i = 0; i < hashes; i++) {
+                long index = Math.floorMod(h1 + i * h2, bitCount);
+                if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        
+        void add(long h1, long h2) {
+            for (int i = 0; i < hashes; i++) {
+                long index = Math.floorMod(h1 + i * h2, bitCount);
+                long mask = 1L << index;
+                bits.getAndAccumulate((int) (index >>> 6), mask, (word, bit) -> word | bit);
+            }
+            count++;
+        }
+        
+        double fillRatio() {
+            long set = 0;
+            for (int i = 0; i < bits.length(); i++) {
+                set += Long.bitCount(bits.get(i));
+            }
+            return (double) set / bitCount;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,240 @@
+package com.azure.demo.userservice.uniqueness;
+
+import com.azure.demo.userservice.model.User;
+import com.azure.demo.userservice.repository.UserIdentity;
+import com.azure.demo.userservice.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Bloom-filter pre-check for username and email uniqueness.
+ * <p>
+ * A definite miss in the filter means the value is not taken, so createUser and updateUser
+ * skip the exists query; anything else still goes to the database, and the unique
+ * constraints remain the final guard against races. Values are lower-cased before hashing
+ * so the filter also never misses on databases with case-insensitive collations.
+ * <p>
+ * Bloom filters cannot forget, so renamed and deleted users leave stale entries that only
+ * cost false positives; once they exceed a share of all entries the filters are rebuilt
+ * from a streaming scan. Until the first build finishes every check goes to the database.
+ */
+@Component
+public class UserUniquenessIndex {
+    
+    private static final Logger logger = LoggerFactory.getLogger(UserUniquenessIndex.class);
+    
+    private final UserRepository userRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final boolean enabled;
+    private final long expectedUsers;
+    private final double falsePositiveRate;
+    private final double rebuildStaleRatio;
+    private final Field usernames;
+    private final Field emails;
+    private final AtomicLong staleEntries = new AtomicLong();
+    
+    // Null until the first build completes
+    private volatile Filters current;
+    // Non-null while a rebuild scans the table, so concurrent writes reach both
+    private volatile Filters building;
+    
+    @Autowired
+    public UserUniquenessIndex(UserRepository userRepository,
+                               PlatformTransactionManager transactionManager,
+                               MeterRegistry meterRegistry,
+                               @Value("${users.uniqueness-filter.enabled:true}") boolean enabled,
+                               @Value("${users.uniqueness-filter.expected-users:100000}") long expectedUsers,
+                               @Value("${users.uniqueness-filter.false-positive-rate:0.01}") double falsePositiveRate,
+                               @Value("${users.uniqueness-filter.rebuild-stale-ratio:0.2}") double rebuildStaleRatio) {
+        this.userRepository = userRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.enabled = enabled;
+        this.expectedUsers = expectedUsers;
+        this.falsePositiveRate = falsePositiveRate;
+        this.rebuildStaleRatio = rebuildStaleRatio;
+        this.usernames = new Field("username", filters -> filters.usernames, userRepository::existsByUsername, meterRegistry);
+        this.emails = new Field("email", filters -> filters.emails, userRepository::existsByEmail, meterRegistry);
+    }
+    
+    public boolean usernameExists(String username) {
+        return usernames.exists(username);
+    }
+    
+    public boolean emailExists(String email) {
+        return emails.exists(email);
+    }
+    
+    /** Records the username and email of a saved user. */
+    public void added(User user) {
+        // Building before current: a rebuild publishes current before clearing building,
+        // so one of the two reads always sees the filters that will survive it
+        add(building, user);
+        add(current, user);
+    }
+    
+    /** Records a saved user whose username or email may have changed from the given values. */
+    public void updated(String previousUsername, String previousEmail, User user) {
+        added(user);
+        if (!previousUsername.equals(user.getUsername())) {
+            staleEntries.incrementAndGet();
+        }
+        if (!previousEmail.equals(user.getEmail())) {
+            staleEntries.incrementAndGet();
+        }
+    }
+    
+    public void removed(User user) {
+        staleEntries.addAndGet(2);
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+    
+    @Scheduled(fixedDelayString = "${users.uniqueness-filter.rebuild-check-interval:PT10M}")
+    public void rebuildIfStale() {
+        Filters filters = current;
+        if (filters != null && staleEntries.get() > rebuildStaleRatio * (filters.usernames.size() + filters.emails.size())) {
+            rebuild();
+        }
+    }
+    
+    private synchronized void rebuild() {
+        long start = System.nanoTime();
+        long users = userRepository.count();
+        Filters next = new Filters(Math.max(expectedUsers, users), falsePositiveRate);
+        building = next;
+        staleEntries.set(0);
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<UserIdentity> identities = userRepository.streamIdentities()) {
+                    identities.forEach(identity -> next.add(identity.getUsername(), identity.getEmail()));
+                }
+            });
+            current = next;
+        } finally {
+            building = null;
+        }
+        logger.info("Built uniqueness filters for {} users in {} ms ({} bytes)", next.usernames.size(),
+                (System.nanoTime() - start) / 1_000_000, next.usernames.memoryBytes() + next.emails.memoryBytes());
+    }
+    
+    private static void add(Filters filters, User user) {
+        if (filters != null) {
+            filters.add(user.getUsername(), user.getEmail());
+        }
+    }
+    
+    private static String normalize(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+    
+    private static final class Filters {
+        
+        private final ScalableBloomFilter usernames;
+        private final ScalableBloomFilter emails;
+        
+        Filters(long initialCapacity, double falsePositiveRate) {
+            this.usernames = new ScalableBloomFilter(initialCapacity, falsePositiveRate);
+            this.emails = new ScalableBloomFilter(initialCapacity, falsePositiveRate);
+        }
+        
+        void add(String username, String email) {
+            usernames.add(normalize(username));
+            emails.add(normalize(email));
+        }
+    }
+    
+    /**
+     * One checked column with its metrics: how many checks the filter answered alone, how
+     * many it passed to the database that found the value, and how many of those were
+     * false positives.
+     */
+    private final class Field {
+        
+        private final Function<Filters, ScalableBloomFilter> filter;
+        private final Predicate<String> database;
+        private final Counter skipped;
+        private final Counter confirmed;
+        private final Counter falsePositives;
+        
+        Field(String name, Function<Filters, ScalableBloomFilter> filter, Predicate<String> database,
+              MeterRegistry meterRegistry) {
+            this.filter = filter;
+            this.database = database;
+            this.skipped = check(meterRegistry, name, "skipped");
+            this.confirmed = check(meterRegistry, name, "confirmed");
+            this.falsePositives = check(meterRegistry, name, "false_positive");
+            Gauge.builder("user.uniqueness.filter.memory", this, field -> field.measure(ScalableBloomFilter::memoryBytes))
+                    .description("Memory held by the uniqueness Bloom filter")
+                    .baseUnit("bytes")
+                    .tag("field", name)
+                    .register(meterRegistry);
+            Gauge.builder("user.uniqueness.filter.entries", this, field -> field.measure(ScalableBloomFilter::size))
+                    .description("Values in the uniqueness Bloom filter, including stale ones")
+                    .tag("field", name)
+                    .register(meterRegistry);
+            Gauge.builder("user.uniqueness.filter.false.positive.probability", this,
+                            field -> field.measure(ScalableBloomFilter::falsePositiveProbability))
+                    .description("False-positive probability implied by the filter's fill ratio")
+                    .tag("field", name)
+                    .register(meterRegistry);
+            Gauge.builder("user.uniqueness.filter.false.positive.rate", this, Field::observedFalsePositiveRate)
+                    .description("Share of values not taken that the filter still sent to the database")
+                    .tag("field", name)
+                    .register(meterRegistry);
+        }
+        
+        boolean exists(String value) {
+            Filters filters = current;
+            if (filters != null && !filter.apply(filters).mightContain(normalize(value))) {
+                skipped.increment();
+                return false;
+            }
+            boolean exists = database.test(value);
+            if (filters != null) {
+                (exists ? confirmed : falsePositives).increment();
+            }
+            return exists;
+        }
+        
+        private double measure(Function<ScalableBloomFilter, Number> metric) {
+            Filters filters = current;
+            return filters == null ? 0 : metric.apply(filter.apply(filters)).doubleValue();
+        }
+        
+        private double observedFalsePositiveRate() {
+            double negatives = skipped.count() + falsePositives.count();
+            return negatives == 0 ? 0 : falsePositives.count() / negatives;
+        }
+        
+        private Counter check(MeterRegistry meterRegistry, String name, String outcome) {
+            return Counter.builder("user.uniqueness.checks")
+                    .description("Uniqueness checks by whether the Bloom filter answered them alone")
+                    .tag("field", name)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry);
+        }
+    }
+}
\ No newline at end of file